@@ -0,0 +1,79 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.utils.BinaryModel;
+import qnx.buildfile.lang.utils.Parser;
+import qnx.buildfile.lang.utils.ParsingResult;
+
+/**
+ * {@link BinaryModel}: encoding a parsed buildfile, and reading it back from
+ * a mapped file, as paths only or as a whole model, to compare with
+ * {@link ParserBenchmark}.
+ */
+public class BinaryModelBenchmark extends BuildfileBenchmark
+{
+	private ParsingResult result;
+	private Path binary;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		File file = File.createTempFile("synthetic", ".build");
+		try
+		{
+			Files.writeString(file.toPath(), text());
+			try (Parser parser = new Parser(true))
+			{
+				result = parser.parse(file);
+			}
+		}
+		finally
+		{
+			file.delete();
+		}
+		binary = Files.createTempFile("synthetic", ".bin");
+		BinaryModel.write(result, binary);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		Files.delete(binary);
+	}
+
+	@Benchmark
+	public byte[] encode()
+	{
+		return BinaryModel.encode(result.model, result.lines);
+	}
+
+	/**
+	 * The paths of the deployments, without creating the model.
+	 */
+	@Benchmark
+	public int paths() throws IOException
+	{
+		BinaryModel mapped = BinaryModel.map(binary);
+		int deployments = 0;
+		for (int i = 0; i < mapped.size(); i++)
+		{
+			if (mapped.getPath(i) != null) deployments++;
+		}
+		return deployments;
+	}
+
+	@Benchmark
+	public Model toModel() throws IOException
+	{
+		return BinaryModel.map(binary).toModel();
+	}
+}
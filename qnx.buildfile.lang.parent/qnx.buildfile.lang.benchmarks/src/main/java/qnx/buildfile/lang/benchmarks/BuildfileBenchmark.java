@@ -0,0 +1,85 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Injector;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.ide.BuildfileDSLIdeSetup;
+
+/**
+ * Base of the benchmarks, run over a {@link SyntheticBuildfile} of the
+ * parameters, which can be changed with {@code -p}, e.g.
+ * {@code -p statements=100000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class BuildfileBenchmark
+{
+	@Param({ "1000", "10000" })
+	public int statements;
+
+	@Param({ "0.5" })
+	public double attributeDensity;
+
+	@Param({ "0.2" })
+	public double variableDensity;
+
+	@Param({ "4" })
+	public int blockSize;
+
+	/**
+	 * @return the text of the buildfile of the parameters
+	 */
+	protected String text()
+	{
+		return new SyntheticBuildfile(statements, attributeDensity, variableDensity, blockSize).generate();
+	}
+
+	/**
+	 * @return an injector of the runtime and IDE services
+	 */
+	protected static Injector createInjector()
+	{
+		return new BuildfileDSLIdeSetup().createInjectorAndDoEMFRegistration();
+	}
+
+	/**
+	 * @return a resource of the text, parsed
+	 */
+	protected static XtextResource load(Injector injector, String text) throws IOException
+	{
+		XtextResourceSet resourceSet = injector.getInstance(XtextResourceSet.class);
+		XtextResource resource = (XtextResource) resourceSet.createResource(URI.createURI("synthetic.build"));
+		resource.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), null);
+		return resource;
+	}
+
+	/**
+	 * @return the model of the resource
+	 */
+	protected static Model model(XtextResource resource)
+	{
+		return (Model) resource.getContents().get(0);
+	}
+}
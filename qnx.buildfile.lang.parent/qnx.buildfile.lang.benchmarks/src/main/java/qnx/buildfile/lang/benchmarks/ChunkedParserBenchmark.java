@@ -0,0 +1,56 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import qnx.buildfile.lang.utils.Parser;
+import qnx.buildfile.lang.utils.ParsingResult;
+
+/**
+ * {@link Parser#parse(File)} of a parser given threads, which parses and
+ * validates a buildfile in chunks at the same time, to see how it scales
+ * with the {@code threads}. One thread parses the buildfile as a whole, as
+ * a headless parser.
+ * <p>
+ * Buildfiles shorter than twice {@code minChunkLength} characters are
+ * parsed as a whole: the default of {@link Parser#MIN_CHUNK_LENGTH} is
+ * lowered, so that the synthetic buildfiles are cut into chunks too.
+ */
+public class ChunkedParserBenchmark extends BuildfileBenchmark
+{
+	@Param({ "1", "2", "4" })
+	public int threads;
+
+	@Param({ "65536" })
+	public int minChunkLength;
+
+	private Parser parser;
+	private File file;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		parser = new Parser(threads, minChunkLength);
+		file = File.createTempFile("synthetic", ".build");
+		Files.writeString(file.toPath(), text());
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		parser.close();
+		file.delete();
+	}
+
+	@Benchmark
+	public ParsingResult parse() throws IOException
+	{
+		return parser.parse(file);
+	}
+}
@@ -0,0 +1,59 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.xtext.formatting2.FormatterRequest;
+import org.eclipse.xtext.formatting2.IFormatter2;
+import org.eclipse.xtext.formatting2.regionaccess.ITextReplacement;
+import org.eclipse.xtext.formatting2.regionaccess.TextRegionAccessBuilder;
+import org.eclipse.xtext.resource.XtextResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+
+import qnx.buildfile.lang.formatting2.BuildfileDSLFormatter;
+import qnx.buildfile.lang.formatting2.LineFormatter;
+
+/**
+ * Formatting of a whole buildfile, by the {@link BuildfileDSLFormatter} of a
+ * parsed buildfile, building the text regions as the formatting services
+ * do, and by the {@link LineFormatter} of its text.
+ */
+public class FormatterBenchmark extends BuildfileBenchmark
+{
+	private final LineFormatter lineFormatter = new LineFormatter();
+	private String text;
+	private XtextResource resource;
+	private IFormatter2 formatter;
+	private Provider<FormatterRequest> requestProvider;
+	private Provider<TextRegionAccessBuilder> regionAccessProvider;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		Injector injector = createInjector();
+		text = text();
+		resource = load(injector, text);
+		formatter = injector.getInstance(IFormatter2.class);
+		requestProvider = injector.getProvider(FormatterRequest.class);
+		regionAccessProvider = injector.getProvider(TextRegionAccessBuilder.class);
+	}
+
+	@Benchmark
+	public List<ITextReplacement> format()
+	{
+		FormatterRequest request = requestProvider.get();
+		request.setAllowIdentityEdits(false);
+		request.setTextRegionAccess(regionAccessProvider.get().forNodeModel(resource).create());
+		return formatter.format(request);
+	}
+
+	@Benchmark
+	public String formatLines()
+	{
+		return lineFormatter.format(text);
+	}
+}
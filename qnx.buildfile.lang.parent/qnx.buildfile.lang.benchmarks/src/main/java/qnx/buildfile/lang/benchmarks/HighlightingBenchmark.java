@@ -0,0 +1,40 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.IOException;
+
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.inject.Injector;
+
+import qnx.buildfile.lang.ide.BuildfileDSLSemanticHighlightingCalculator;
+
+/**
+ * Semantic highlighting of a parsed buildfile, by the
+ * {@link BuildfileDSLSemanticHighlightingCalculator}.
+ */
+public class HighlightingBenchmark extends BuildfileBenchmark
+{
+	private XtextResource resource;
+	private BuildfileDSLSemanticHighlightingCalculator calculator;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		Injector injector = createInjector();
+		resource = load(injector, text());
+		calculator = injector.getInstance(BuildfileDSLSemanticHighlightingCalculator.class);
+	}
+
+	@Benchmark
+	public void highlight(Blackhole blackhole)
+	{
+		calculator.provideHighlightingFor(resource, (offset, length, styles) -> {
+			blackhole.consume(offset);
+			blackhole.consume(styles);
+		}, CancelIndicator.NullImpl);
+	}
+}
@@ -0,0 +1,77 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.Token;
+import org.eclipse.xtext.parser.antlr.Lexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import qnx.buildfile.lang.parser.antlr.FastBuildfileDSLLexer;
+import qnx.buildfile.lang.parser.antlr.internal.InternalBuildfileDSLLexer;
+
+/**
+ * The tokens of a buildfile, from the generated
+ * {@link InternalBuildfileDSLLexer} or from the
+ * {@link FastBuildfileDSLLexer} that replaces it, see {@code lexer}.
+ * <p>
+ * Lexing takes a small part of a parse, so the {@link SyntheticBuildfile}
+ * has a million statements, and the shape of the other benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark
+{
+	@Param({ "1000000" })
+	public int statements;
+
+	@Param({ "generated", "fast" })
+	public String lexer;
+
+	private String text;
+	private Lexer instance;
+	private ANTLRStringStream input;
+
+	@Setup
+	public void setUp()
+	{
+		text = new SyntheticBuildfile(statements, 0.5, 0.2, 4).generate();
+		instance = lexer.equals("fast") ? new FastBuildfileDSLLexer() : new InternalBuildfileDSLLexer();
+	}
+
+	/**
+	 * The characters of the stream are copied from the text before timing.
+	 */
+	@Setup(Level.Invocation)
+	public void newInput()
+	{
+		input = new ANTLRStringStream(text);
+	}
+
+	@Benchmark
+	public int tokens()
+	{
+		instance.setCharStream(input);
+		int count = 0;
+		while (instance.nextToken().getType() != Token.EOF)
+		{
+			count++;
+		}
+		return count;
+	}
+}
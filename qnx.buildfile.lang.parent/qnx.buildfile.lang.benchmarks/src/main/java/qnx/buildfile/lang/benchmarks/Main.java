@@ -0,0 +1,38 @@
+package qnx.buildfile.lang.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, writing the results
+ * as JSON to {@code benchmarks.json} unless {@code -rf} or {@code -rff} say
+ * otherwise, so that runs can be compared.
+ */
+public class Main
+{
+	/** File the results are written to by default. */
+	public static final String RESULTS = "benchmarks.json";
+
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions options = new CommandLineOptions(args);
+		if (options.shouldHelp())
+		{
+			options.showHelp();
+			return;
+		}
+		if (options.shouldList())
+		{
+			new Runner(options).list();
+			return;
+		}
+
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+		if (!options.getResultFormat().hasValue()) builder.resultFormat(ResultFormatType.JSON);
+		if (!options.getResult().hasValue()) builder.result(RESULTS);
+		new Runner(builder.build()).run();
+	}
+}
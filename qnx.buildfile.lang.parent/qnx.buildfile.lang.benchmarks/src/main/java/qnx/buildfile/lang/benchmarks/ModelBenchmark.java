@@ -0,0 +1,76 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.IOException;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+import qnx.buildfile.lang.utils.VariableSubstitutor;
+import qnx.buildfile.lang.utils.Walker;
+import qnx.buildfile.lang.utils.Walker.IWalker;
+
+/**
+ * Passes over the model of a parsed buildfile: {@link Walker#walk} and
+ * {@link VariableSubstitutor#substituteVariables}.
+ */
+public class ModelBenchmark extends BuildfileBenchmark
+{
+	private final Walker walker = new Walker();
+	private final VariableSubstitutor substitutor = new VariableSubstitutor();
+	private Model model;
+
+	/**
+	 * A copy of the parsed model for each substitution, which changes it.
+	 */
+	@State(Scope.Thread)
+	public static class Copy
+	{
+		private Model model;
+
+		@Setup(Level.Invocation)
+		public void copy(ModelBenchmark benchmark)
+		{
+			model = EcoreUtil.copy(benchmark.model);
+		}
+	}
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		model = model(load(createInjector(), text()));
+	}
+
+	@Benchmark
+	public void walk(Blackhole blackhole)
+	{
+		walker.walk(model, new IWalker()
+		{
+			@Override
+			public void found(DeploymentStatement deploymentStatement)
+			{
+				blackhole.consume(deploymentStatement);
+			}
+
+			@Override
+			public void found(ValuedAttribute valuedAttribute)
+			{
+				blackhole.consume(valuedAttribute);
+			}
+		});
+	}
+
+	@Benchmark
+	public Model substituteVariables(Copy copy)
+	{
+		substitutor.substituteVariables(copy.model, SyntheticBuildfile.VARIABLES);
+		return copy.model;
+	}
+}
@@ -0,0 +1,57 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import qnx.buildfile.lang.utils.Parser;
+import qnx.buildfile.lang.utils.ParsingResult;
+
+/**
+ * {@link Parser#parse(File)}: reading, parsing and validating a buildfile,
+ * with and without the node model, see {@code headless}. The memory each
+ * mode allocates is reported with {@code -prof gc}.
+ * <p>
+ * A headless parser parses the file again on each call. Any other keeps the
+ * buildfile loaded in its resource set, so a new one parses each time.
+ */
+public class ParserBenchmark extends BuildfileBenchmark
+{
+	@Param({ "true", "false" })
+	public boolean headless;
+
+	private Parser parser;
+	private File file;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		parser = new Parser(headless);
+		file = File.createTempFile("synthetic", ".build");
+		Files.writeString(file.toPath(), text());
+	}
+
+	@Setup(Level.Invocation)
+	public void newParser()
+	{
+		if (!headless) parser = new Parser(false);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		file.delete();
+	}
+
+	@Benchmark
+	public ParsingResult parse() throws IOException
+	{
+		return parser.parse(file);
+	}
+}
@@ -0,0 +1,63 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.eclipse.xtext.parser.IParseResult;
+import org.eclipse.xtext.parser.antlr.AbstractAntlrParser;
+import org.eclipse.xtext.parser.impl.PartialParsingHelper;
+import org.eclipse.xtext.resource.XtextResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.google.inject.Injector;
+
+import qnx.buildfile.lang.utils.StatementPartialParsingHelper;
+
+/**
+ * A keystroke in the middle of a buildfile, typed and deleted through
+ * {@link XtextResource#update}, as in the Eclipse editor: re-parsed by the
+ * {@link StatementPartialParsingHelper}, or by the generic
+ * {@link PartialParsingHelper} of Xtext, see {@code partialParser}. Each
+ * update also links the whole model again. A full parse of the text is the
+ * baseline.
+ */
+public class PartialParsingBenchmark extends BuildfileBenchmark
+{
+	@Param({ "statement", "generic" })
+	public String partialParser;
+
+	private String text;
+	private XtextResource resource;
+	private AbstractAntlrParser parser;
+	private int offset;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		Injector injector = createInjector();
+		text = text();
+		resource = load(injector, text);
+		parser = (AbstractAntlrParser) resource.getParser();
+		if (partialParser.equals("generic"))
+		{
+			parser.setPartialParser(injector.getInstance(PartialParsingHelper.class));
+		}
+		offset = text.indexOf("bin/app", text.length() / 2) + "bin/app".length();
+	}
+
+	@Benchmark
+	public IParseResult keystroke()
+	{
+		resource.update(offset, 0, "x");
+		resource.update(offset, 1, "");
+		return resource.getParseResult();
+	}
+
+	@Benchmark
+	public IParseResult fullParse()
+	{
+		return parser.parse(new StringReader(text));
+	}
+}
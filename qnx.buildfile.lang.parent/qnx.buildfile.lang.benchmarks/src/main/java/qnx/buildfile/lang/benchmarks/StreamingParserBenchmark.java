@@ -0,0 +1,65 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.eclipse.xtext.validation.Issue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.utils.StreamingParser;
+
+/**
+ * {@link StreamingParser#parse(File, StreamingParser.Listener)}: parsing and
+ * validating a buildfile a batch of statements at a time, to compare with
+ * {@link ParserBenchmark}.
+ * <p>
+ * Its memory does not grow with the buildfile: with {@code -jvmArgs -Xmx256m}
+ * it still runs with {@code -p statements=1000000}, the parser does not.
+ */
+public class StreamingParserBenchmark extends BuildfileBenchmark
+{
+	@Param({ "1000" })
+	public int batchSize;
+
+	private StreamingParser parser;
+	private File file;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		parser = new StreamingParser(batchSize);
+		file = File.createTempFile("synthetic", ".build");
+		Files.writeString(file.toPath(), text());
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		file.delete();
+	}
+
+	@Benchmark
+	public int parse(Blackhole blackhole) throws IOException
+	{
+		return parser.parse(file, new StreamingParser.Listener()
+		{
+			@Override
+			public void statement(Statement statement, int line)
+			{
+				blackhole.consume(statement);
+			}
+
+			@Override
+			public void issue(Issue issue)
+			{
+				blackhole.consume(issue);
+			}
+		});
+	}
+}
@@ -0,0 +1,116 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import qnx.buildfile.lang.buildfileDSL.Attribute;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+import qnx.buildfile.lang.conversion.SymbolTable;
+import qnx.buildfile.lang.utils.Parser;
+
+/**
+ * The heap retained by the model of a headless parse, with the attribute
+ * names and values shared through the {@link SymbolTable} as parsed, or
+ * with a copy of each, as they would be without it: see {@code shared}.
+ * <p>
+ * The heap is the secondary result {@code retainedBytes}. Each invocation
+ * runs the garbage collector to measure it, so its time means nothing.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SymbolTableBenchmark extends BuildfileBenchmark
+{
+	@Param({ "true", "false" })
+	public boolean shared;
+
+	/** Heap retained by the model parsed by the last invocation. */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Heap
+	{
+		public long retainedBytes;
+	}
+
+	private Parser parser;
+	private File file;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		parser = new Parser(true);
+		file = File.createTempFile("synthetic", ".build");
+		Files.writeString(file.toPath(), text());
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		parser.close();
+		file.delete();
+	}
+
+	/**
+	 * The heap with the model, less the heap once it is dropped: the state
+	 * that outlives a parse, such as the symbol table, is not counted.
+	 */
+	@Benchmark
+	public void parse(Heap heap) throws IOException, InterruptedException
+	{
+		long withModel = parseAndMeasure();
+		heap.retainedBytes = withModel - usedHeap();
+	}
+
+	private long parseAndMeasure() throws IOException, InterruptedException
+	{
+		Model model = parser.parse(file).model;
+		if (!shared)
+		{
+			for (Iterator<EObject> contents = model.eAllContents(); contents.hasNext();)
+			{
+				EObject object = contents.next();
+				if (object instanceof Attribute)
+				{
+					Attribute attribute = (Attribute) object;
+					attribute.setName(new String(attribute.getName()));
+				}
+				if (object instanceof ValuedAttribute)
+				{
+					ValuedAttribute attribute = (ValuedAttribute) object;
+					attribute.setValue(new String(attribute.getValue()));
+				}
+			}
+		}
+		long withModel = usedHeap();
+		Reference.reachabilityFence(model);
+		return withModel;
+	}
+
+	private static long usedHeap() throws InterruptedException
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+		{
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,125 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generator of synthetic buildfiles, the same for the same parameters.
+ * <p>
+ * Each line is a statement: mostly deployments of host files, some of
+ * inline content blocks, some attribute statements. One deployment in
+ * {@link #DUPLICATE_INTERVAL} deploys a path already deployed, so that the
+ * duplicate checks have something to report, and one in
+ * {@link #UNFORMATTED_INTERVAL} has spaces around its {@code =}, so that the
+ * formatters have something to change.
+ */
+public class SyntheticBuildfile
+{
+	/** Values of the variables referenced by the buildfiles. */
+	public static final Map<String, String> VARIABLES = Map.of(
+			"QNX_TARGET", "/opt/qnx/target/qnx",
+			"CPUVARDIR", "aarch64le",
+			"PROJECT_ROOT", "/home/user/project");
+
+	/** One deployment in this many deploys a path already deployed. */
+	public static final int DUPLICATE_INTERVAL = 100;
+
+	/** One deployment in this many has spaces around its {@code =}. */
+	public static final int UNFORMATTED_INTERVAL = 10;
+
+	/** One deployment in this many is an inline content block. */
+	public static final int BLOCK_INTERVAL = 20;
+
+	/** One statement in this many with attributes is an attribute statement. */
+	public static final int ATTRIBUTE_STATEMENT_INTERVAL = 10;
+
+	private static final String[] ATTRIBUTES = {
+			"uid=0", "gid=0", "perms=0755", "+optional", "type=file", "-followlink", "dperms=0755", "+raw"
+	};
+
+	private static final String[] SOURCES = {
+			"${QNX_TARGET}/${CPUVARDIR}", "${PROJECT_ROOT}/build", "${QNX_TARGET}/etc"
+	};
+
+	private final int statements;
+	private final double attributeDensity;
+	private final double variableDensity;
+	private final int blockSize;
+
+	/**
+	 * @param statements the number of statements
+	 * @param attributeDensity the share of the statements, from 0 to 1, with
+	 *        an attribute section
+	 * @param variableDensity the share of the host paths, from 0 to 1, with
+	 *        variable references
+	 * @param blockSize the number of lines of the content blocks, or 0 for
+	 *        no content blocks
+	 */
+	public SyntheticBuildfile(int statements, double attributeDensity, double variableDensity, int blockSize)
+	{
+		this.statements = statements;
+		this.attributeDensity = attributeDensity;
+		this.variableDensity = variableDensity;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * @return the text of the buildfile
+	 */
+	public String generate()
+	{
+		Random random = new Random(statements);
+		StringBuilder text = new StringBuilder(statements * 48);
+		for (int i = 0; i < statements; i++)
+		{
+			boolean attributes = random.nextDouble() < attributeDensity;
+			if (attributes)
+			{
+				appendAttributeSection(text, random);
+				if (random.nextInt(ATTRIBUTE_STATEMENT_INTERVAL) == 0)
+				{
+					text.append('\n');
+					continue;
+				}
+				text.append(' ');
+			}
+
+			int file = i % DUPLICATE_INTERVAL == DUPLICATE_INTERVAL - 1 ? i / 2 : i;
+			if (blockSize > 0 && i % BLOCK_INTERVAL == 0)
+			{
+				text.append("etc/conf").append(file).append("={\n");
+				for (int line = 0; line < blockSize; line++)
+				{
+					text.append("key").append(line).append(" = value").append(line).append('\n');
+				}
+				text.append("}\n");
+			}
+			else
+			{
+				text.append("bin/app").append(file).append(random.nextInt(UNFORMATTED_INTERVAL) == 0 ? " = " : "=");
+				if (random.nextDouble() < variableDensity)
+				{
+					text.append(SOURCES[random.nextInt(SOURCES.length)]).append('/');
+				}
+				text.append("bin/app").append(file).append('\n');
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Append a section of one to four consecutive, and so different, attributes.
+	 */
+	private static void appendAttributeSection(StringBuilder text, Random random)
+	{
+		int first = random.nextInt(ATTRIBUTES.length);
+		int count = 1 + random.nextInt(4);
+		text.append('[');
+		for (int i = 0; i < count; i++)
+		{
+			if (i > 0) text.append(' ');
+			text.append(ATTRIBUTES[(first + i) % ATTRIBUTES.length]);
+		}
+		text.append(']');
+	}
+}
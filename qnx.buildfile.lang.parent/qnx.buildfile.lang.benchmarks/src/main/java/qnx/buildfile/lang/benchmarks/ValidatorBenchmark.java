@@ -0,0 +1,107 @@
+package qnx.buildfile.lang.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.emf.common.util.BasicDiagnostic;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.IResourceValidator;
+import org.eclipse.xtext.validation.Issue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.inject.Injector;
+
+import qnx.buildfile.lang.BuildfileDSLStandaloneSetup;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.ide.BuildfileDSLIncrementalResourceValidator;
+import qnx.buildfile.lang.validation.DuplicatePathValidator;
+
+/**
+ * Validation of a parsed buildfile: all the checks, through the
+ * {@link BuildfileDSLIncrementalResourceValidator} of the language server,
+ * with and without the issues of its statements cached from a previous run,
+ * through the {@link IResourceValidator} of the runtime injector, and the
+ * duplicate paths check alone.
+ */
+public class ValidatorBenchmark extends BuildfileBenchmark
+{
+	private XtextResource resource;
+	private Model model;
+	private BuildfileDSLIncrementalResourceValidator resourceValidator;
+	private DuplicatePathValidator duplicatePathValidator;
+
+	/**
+	 * A buildfile parsed with the runtime injector, which the CLI and
+	 * {@link qnx.buildfile.lang.utils.Parser} use, and its validator.
+	 */
+	@State(Scope.Benchmark)
+	public static class Standalone
+	{
+		private XtextResource resource;
+		private IResourceValidator resourceValidator;
+
+		@Setup
+		public void setUp(ValidatorBenchmark benchmark) throws IOException
+		{
+			// Registered last, so that the resource is created by the runtime services
+			Injector injector = new BuildfileDSLStandaloneSetup().createInjectorAndDoEMFRegistration();
+			resource = load(injector, benchmark.text());
+			resourceValidator = injector.getInstance(IResourceValidator.class);
+		}
+	}
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		Injector injector = createInjector();
+		resource = load(injector, text());
+		model = model(resource);
+		resourceValidator = injector.getInstance(BuildfileDSLIncrementalResourceValidator.class);
+		duplicatePathValidator = injector.getInstance(DuplicatePathValidator.class);
+	}
+
+	/**
+	 * All the checks of all the statements, as when a buildfile is opened.
+	 */
+	@Benchmark
+	public List<Issue> validate()
+	{
+		// Else the issues of the previous invocation are replayed
+		resourceValidator.invalidate(resource.getURI());
+		return resourceValidator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
+	}
+
+	/**
+	 * The same buildfile validated again: the issues of its statements are
+	 * replayed from the cache, only the document-level checks run.
+	 */
+	@Benchmark
+	public List<Issue> validateUnchanged()
+	{
+		return resourceValidator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
+	}
+
+	/**
+	 * All the checks of all the statements, without the cache of the
+	 * language server, as from the CLI.
+	 */
+	@Benchmark
+	public List<Issue> validateStandalone(Standalone standalone)
+	{
+		return standalone.resourceValidator.validate(standalone.resource, CheckMode.ALL, CancelIndicator.NullImpl);
+	}
+
+	@Benchmark
+	public BasicDiagnostic duplicatePaths()
+	{
+		BasicDiagnostic diagnostics = new BasicDiagnostic();
+		duplicatePathValidator.validate(model, diagnostics, new HashMap<>());
+		return diagnostics;
+	}
+}
@@ -0,0 +1,132 @@
+package qnx.buildfile.lang.cli;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import qnx.buildfile.lang.utils.ContentHashes;
+import qnx.buildfile.lang.utils.FileFormatter;
+import qnx.buildfile.lang.utils.FileFormatter.Result;
+import qnx.buildfile.lang.utils.FileFormatter.Status;
+
+@Command(
+		name = "format",
+		description = "format buildfiles in place, or check that they are formatted"
+		)
+public class FormatCommand implements Callable<Integer>
+{
+	/** Extensions of the buildfiles found in directories. */
+	private static final List<String> EXTENSIONS = List.of(".build", ".bld");
+
+	@Parameters(
+			paramLabel = "FILE",
+			description = "buildfile, or directory searched for *.build and *.bld files",
+			arity = "1..*"
+			)
+	private List<Path> paths = new ArrayList<>();
+
+	@Option(
+			names = "--check",
+			description = "do not write the files, print the diffs of the ones that are not formatted and fail if any",
+			required = false
+			)
+	private boolean check;
+
+	@Option(
+			names = "--no-cache",
+			description = "read every file, rather than skipping the ones formatted in previous runs",
+			required = false
+			)
+	private boolean noCache;
+
+	@Override
+	public Integer call() throws Exception
+	{
+		List<Path> files = new ArrayList<>(buildfiles());
+		FileFormatter formatter = noCache
+				? new FileFormatter(null, null)
+				: new FileFormatter(new ContentHashes(ContentHashes.getDefaultStore()), FileFormatter.getDefaultStore());
+
+		int failures = 0;
+		int formatted = 0;
+		for (Result result : formatter.format(files, check))
+		{
+			if (result.status == Status.UNFORMATTED)
+			{
+				// The diff has the bytes of the file, as ISO-8859-1
+				System.out.write(result.diff.getBytes(StandardCharsets.ISO_8859_1));
+				failures++;
+			}
+			else if (result.status == Status.FORMATTED)
+			{
+				System.out.println("Formatted " + result.file);
+				formatted++;
+			}
+			else if (result.status == Status.FAILED)
+			{
+				System.err.println("ERROR at " + result.file + ": " + result.error);
+				failures++;
+			}
+		}
+		System.out.flush();
+
+		try
+		{
+			formatter.save();
+		}
+		catch (IOException e)
+		{
+			// The next run reads the files again
+			System.err.println("WARNING: cannot save the formatting cache: " + e);
+		}
+
+		System.out.println("Done - " + files.size() + " file" + ((files.size() == 1) ? "" : "s") + ", "
+				+ (check ? failures + " not formatted or failed" : formatted + " formatted, " + failures + " failed"));
+		// Exit statuses are taken modulo 256
+		return failures > 0 ? 1 : 0;
+	}
+
+	/**
+	 * @return the files given, and the buildfiles in the directories given
+	 */
+	private Set<Path> buildfiles() throws IOException
+	{
+		Set<Path> files = new LinkedHashSet<>();
+		for (Path path : paths)
+		{
+			if (Files.isDirectory(path))
+			{
+				try (Stream<Path> walk = Files.walk(path))
+				{
+					walk.filter(file -> Files.isRegularFile(file) && isBuildfile(file)).sorted().forEach(files::add);
+				}
+			}
+			else if (Files.exists(path))
+			{
+				files.add(path);
+			}
+			else
+			{
+				throw new FileNotFoundException(path.toString());
+			}
+		}
+		return files;
+	}
+
+	private static boolean isBuildfile(Path file)
+	{
+		String name = file.getFileName().toString();
+		return EXTENSIONS.stream().anyMatch(name::endsWith);
+	}
+}
@@ -9,17 +9,32 @@ import java.util.concurrent.Callable;
 import org.eclipse.xtext.validation.Issue;
 
 import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
+import qnx.buildfile.lang.generator.BuildfileDSLGenerator;
+import qnx.buildfile.lang.utils.ImageSizeEstimate;
+import qnx.buildfile.lang.utils.ImageSizeEstimator;
 import qnx.buildfile.lang.utils.Parser;
 import qnx.buildfile.lang.utils.ParsingResult;
+import qnx.buildfile.lang.validation.HostFileValidator;
 import qnx.buildfile.lang.validation.SystemPropertyCustomValidatorJarPathProvider;
 
+@Command(
+		subcommands = FormatCommand.class
+		)
 public class Main implements Callable<Integer>
 {
+	@Spec
+	private CommandSpec spec;
+
+	// Checked in call(), a required option would be required by the subcommands too
 	@Option(
 			names = "-i",
 			description = "buildfile",
-			required = true,
+			required = false,
 			split = ","
 			)
 	private List<String> inputs = new ArrayList<>();
@@ -31,9 +46,49 @@ public class Main implements Callable<Integer>
 			)
 	private File customValidator;
 
+	@Option(
+			names = "--check-host-files",
+			description = "check that deployment sources exist in the search directories",
+			required = false
+			)
+	private boolean checkHostFiles;
+
+	@Option(
+			names = "--estimate-size",
+			description = "estimate the size of the image, by directory",
+			required = false
+			)
+	private boolean estimateSize;
+
+	@Option(
+			names = "--manifest",
+			description = "write a manifest of the image contents, with their SHA-256, to the directory",
+			required = false
+			)
+	private File manifestDirectory;
+
+	@Option(
+			names = "--headless",
+			description = "drop the node model of each buildfile once validated, to use less memory on large batches",
+			required = false
+			)
+	private boolean headless;
+
+	@Option(
+			names = "--threads",
+			description = "parse each large buildfile in chunks on this many threads, headless",
+			required = false
+			)
+	private int threads = 1;
+
 	@Override
 	public Integer call() throws Exception
 	{
+		if (inputs.isEmpty())
+		{
+			throw new ParameterException(spec.commandLine(), "Missing required option: '-i=<inputs>'");
+		}
+
 		if (customValidator != null)
 		{
 			if (!customValidator.exists())
@@ -45,28 +100,50 @@ public class Main implements Callable<Integer>
 					customValidator.getAbsolutePath());
 		}
 
-		Parser parser = new Parser();
-		Integer failures = 0;
+		if (checkHostFiles)
+		{
+			System.setProperty(HostFileValidator.SYSTEM_PROPERTY, "true");
+		}
 
-		for (String filename : inputs)
+		if (manifestDirectory != null)
 		{
-			System.out.println("Processing " + filename);
-			File file = new File(filename);
+			System.setProperty(BuildfileDSLGenerator.SYSTEM_PROPERTY, "true");
+		}
 
-			if (!file.exists())
+		Integer failures = 0;
+		try (Parser parser = threads > 1 ? new Parser(threads) : new Parser(headless))
+		{
+			for (String filename : inputs)
 			{
-				throw new FileNotFoundException(filename);
-			}
+				System.out.println("Processing " + filename);
+				File file = new File(filename);
 
-			ParsingResult parseResult = parser.parse(file);
-			parseResult.issues.forEach(issue -> printIssue(filename, issue));
+				if (!file.exists())
+				{
+					throw new FileNotFoundException(filename);
+				}
 
-			if (parseResult.hasErrors())
-			{
-				failures++;
-			}
+				ParsingResult parseResult = parser.parse(file);
+				parseResult.issues.forEach(issue -> printIssue(filename, issue));
 
-			System.out.println("Done - " + failures + " failure" + ((failures == 1) ? "" : "s"));
+				if (parseResult.hasErrors())
+				{
+					failures++;
+				}
+				else
+				{
+					if (estimateSize)
+					{
+						printEstimate(new ImageSizeEstimator().estimate(parseResult.model));
+					}
+					if (manifestDirectory != null)
+					{
+						parser.generate(parseResult, manifestDirectory);
+					}
+				}
+
+				System.out.println("Done - " + failures + " failure" + ((failures == 1) ? "" : "s"));
+			}
 		}
 
 		return failures;
@@ -77,6 +154,25 @@ public class Main implements Callable<Integer>
 		System.err.println(issue.getSeverity() + " at " + filename + ":" + issue.getLineNumber() + ": " + issue.getMessage());
 	}
 
+	private void printEstimate(ImageSizeEstimate estimate)
+	{
+		System.out.println("Estimated image size: " + formatSize(estimate.getTotalSize())
+				+ " (" + formatSize(estimate.getDataSize()) + " of contents before compression)");
+		estimate.getSizesByDirectory().forEach((directory, size) ->
+				System.out.println("  " + directory + ": " + formatSize(size)));
+		if (!estimate.getMissingSources().isEmpty())
+		{
+			System.out.println("  Not found, not counted: " + String.join(", ", estimate.getMissingSources()));
+		}
+	}
+
+	private static String formatSize(long size)
+	{
+		if (size < 1024) return size + " bytes";
+		if (size < 1024 * 1024) return String.format("%d bytes (%.1f KiB)", size, size / 1024.0);
+		return String.format("%d bytes (%.1f MiB)", size, size / (1024.0 * 1024.0));
+	}
+
 	public static void main(String[] args)
 	{
 		String version = Main.class.getPackage().getImplementationVersion();
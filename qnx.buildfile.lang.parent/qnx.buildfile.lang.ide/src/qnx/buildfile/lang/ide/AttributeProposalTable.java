@@ -0,0 +1,111 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.eclipse.xtext.ide.editor.contentassist.ContentAssistEntry;
+
+/**
+ * Pre-built content assist proposals for a fixed list of keywords, looked up
+ * by prefix.
+ * <p>
+ * The proposals are sorted by their lowercase text, so that the ones
+ * matching a prefix (ignoring case, as the default prefix matcher) form a
+ * range that starts where a binary search for the prefix lands. Only the matching proposals are
+ * turned into {@link ContentAssistEntry}s; entries are mutable and kept by
+ * the acceptor, so they are created for each request.
+ */
+public final class AttributeProposalTable {
+
+    /**
+     * A proposal, without the request specific prefix.
+     */
+    public static final class Proposal {
+        private final String proposal;
+        private final String label;
+        private final String kind;
+        private final String description;
+        private final String key;
+
+        public Proposal(String proposal, String label, String kind, String description) {
+            this.proposal = proposal;
+            this.label = label;
+            this.kind = kind;
+            this.description = description;
+            this.key = proposal.toLowerCase(Locale.ROOT);
+        }
+
+        public String getProposal() { return proposal; }
+        public String getLabel() { return label; }
+        public String getKind() { return kind; }
+        public String getDescription() { return description; }
+
+        /**
+         * @return a new entry for this proposal
+         */
+        public ContentAssistEntry toEntry(String prefix) {
+            ContentAssistEntry entry = new ContentAssistEntry();
+            entry.setProposal(proposal);
+            entry.setPrefix(prefix);
+            entry.setLabel(label);
+            entry.setKind(kind);
+            entry.setDescription(description);
+            return entry;
+        }
+    }
+
+    private final Proposal[] proposals;
+    private final String[] keys;
+
+    public AttributeProposalTable(Collection<Proposal> proposals) {
+        this.proposals = proposals.stream()
+                .sorted(Comparator.comparing((Proposal proposal) -> proposal.key))
+                .toArray(Proposal[]::new);
+        this.keys = new String[this.proposals.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = this.proposals[i].key;
+        }
+    }
+
+    /**
+     * @return the proposals whose text starts with the prefix, ignoring case,
+     *         sorted by text
+     */
+    public List<Proposal> matching(String prefix) {
+        String key = prefix != null ? prefix.toLowerCase(Locale.ROOT) : "";
+        int from = lowerBound(key);
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(key)) {
+            to++;
+        }
+        List<Proposal> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(proposals[i]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return proposals.length;
+    }
+
+    /**
+     * @return the index of the first key not less than the given one
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
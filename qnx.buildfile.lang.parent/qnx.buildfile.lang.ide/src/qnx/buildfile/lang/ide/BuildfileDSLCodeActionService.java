@@ -1,16 +1,30 @@
 package qnx.buildfile.lang.ide;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.lsp4j.CodeAction;
 import org.eclipse.lsp4j.CodeActionKind;
 import org.eclipse.lsp4j.Command;
 import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.WorkspaceEdit;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.xtext.ide.server.Document;
 import org.eclipse.xtext.ide.server.codeActions.ICodeActionService2;
+import org.eclipse.xtext.validation.IResourceValidator;
+import org.eclipse.xtext.validation.Issue;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.inject.Inject;
+
+import qnx.buildfile.lang.validation.IssueData;
 
 /**
  * LSP code action (quickfix) service for VSCode.
@@ -21,12 +35,30 @@ import org.eclipse.xtext.ide.server.codeActions.ICodeActionService2;
  * <p>
  * Handles:
  * <ul>
- *   <li>{@code invalidName} — suggests closest matching attribute keyword names
- *       using Levenshtein distance (via {@link BuildfileDSLQuickfixResolvers})</li>
+ *   <li>{@code invalidName} — suggests closest matching attribute keyword names</li>
+ *   <li>{@code invalidAutoso}, {@code invalidCompress}, {@code invalidType} —
+ *       suggests the closest allowed values</li>
  * </ul>
+ * The candidates are read from {@code Diagnostic.data}, filled in from the
+ * {@link IssueData} attached by the validators, so nothing is recomputed
+ * here (see {@link BuildfileDSLQuickfixResolvers#getCandidates(String[], String)}).
+ * When more than one issue with the same code can be fixed in the file, a
+ * "fix all" action applying the best candidate to each of them is offered too.
  */
 public class BuildfileDSLCodeActionService implements ICodeActionService2 {
 
+    /** Codes of the issues that come with replacement candidates. */
+    private static final Map<String, String> FIXABLE_CODES = new LinkedHashMap<>();
+    static {
+        FIXABLE_CODES.put("invalidName", "unknown attribute names");
+        FIXABLE_CODES.put("invalidAutoso", "invalid autoso values");
+        FIXABLE_CODES.put("invalidCompress", "invalid compress values");
+        FIXABLE_CODES.put("invalidType", "invalid type values");
+    }
+
+    @Inject
+    private IResourceValidator resourceValidator;
+
     @Override
     public List<Either<Command, CodeAction>> getCodeActions(Options options) {
         List<Either<Command, CodeAction>> actions = new ArrayList<>();
@@ -38,40 +70,40 @@ public class BuildfileDSLCodeActionService implements ICodeActionService2 {
         }
 
         String uri = options.getCodeActionParams().getTextDocument().getUri();
+        Set<String> fixAllCodes = new LinkedHashSet<>();
 
         for (Diagnostic diagnostic : options.getCodeActionParams().getContext().getDiagnostics()) {
             String code = diagnostic.getCode() != null ? diagnostic.getCode().getLeft() : null;
 
-            if ("invalidName".equals(code)) {
-                actions.addAll(createInvalidNameFixes(diagnostic, uri));
+            if (FIXABLE_CODES.containsKey(code)) {
+                List<Either<Command, CodeAction>> fixes = createReplacementFixes(diagnostic, uri);
+                if (!fixes.isEmpty()) {
+                    actions.addAll(fixes);
+                    fixAllCodes.add(code);
+                }
             }
         }
 
+        if (!fixAllCodes.isEmpty()) {
+            actions.addAll(createFixAllActions(options, uri, fixAllCodes));
+        }
+
         return actions;
     }
 
-    private List<Either<Command, CodeAction>> createInvalidNameFixes(Diagnostic diagnostic, String documentUri) {
+    private List<Either<Command, CodeAction>> createReplacementFixes(Diagnostic diagnostic, String documentUri) {
         List<Either<Command, CodeAction>> actions = new ArrayList<>();
 
-        String badName = BuildfileDSLQuickfixResolvers.extractBadNameFromMessage(diagnostic.getMessage());
-        if (badName == null || badName.isEmpty()) {
-            return actions;
-        }
-
-        var suggestions = BuildfileDSLQuickfixResolvers.suggestAttributeNames(badName);
+        List<String> candidates = BuildfileDSLQuickfixResolvers.getCandidates(toIssueData(diagnostic.getData()),
+                diagnostic.getMessage());
 
-        for (int i = 0; i < suggestions.size(); i++) {
-            String replacement = suggestions.get(i).getKeyword();
-
-            TextEdit textEdit = new TextEdit(diagnostic.getRange(), replacement);
-
-            WorkspaceEdit workspaceEdit = new WorkspaceEdit();
-            workspaceEdit.getChanges().put(documentUri, List.of(textEdit));
+        for (int i = 0; i < candidates.size(); i++) {
+            String replacement = candidates.get(i);
 
             CodeAction action = new CodeAction("Change to '" + replacement + "'");
             action.setKind(CodeActionKind.QuickFix);
             action.setDiagnostics(List.of(diagnostic));
-            action.setEdit(workspaceEdit);
+            action.setEdit(createEdit(documentUri, List.of(new TextEdit(diagnostic.getRange(), replacement))));
             action.setIsPreferred(i == 0);
 
             actions.add(Either.forRight(action));
@@ -79,4 +111,114 @@ public class BuildfileDSLCodeActionService implements ICodeActionService2 {
 
         return actions;
     }
+
+    /**
+     * One action per issue code, replacing every fixable issue of the file
+     * having that code with its best candidate.
+     * <p>
+     * The issues are those of the last validation of the document, kept by
+     * the {@link BuildfileDSLIncrementalResourceValidator}, so the document
+     * is not analyzed again. Without them, only the diagnostics of the
+     * request are fixed.
+     */
+    private List<Either<Command, CodeAction>> createFixAllActions(Options options, String documentUri,
+            Set<String> codes) {
+        List<Either<Command, CodeAction>> actions = new ArrayList<>();
+        Map<String, List<TextEdit>> editsByCode = new LinkedHashMap<>();
+        for (String code : codes) {
+            editsByCode.put(code, new ArrayList<>());
+        }
+
+        List<Issue> issues = getValidatedIssues(options);
+        if (issues != null) {
+            Document document = options.getDocument();
+            for (Issue issue : issues) {
+                List<TextEdit> edits = editsByCode.get(issue.getCode());
+                if (edits == null || issue.getOffset() == null || issue.getLength() == null) {
+                    continue;
+                }
+                List<String> candidates = BuildfileDSLQuickfixResolvers.getCandidates(issue.getData(),
+                        issue.getMessage());
+                if (!candidates.isEmpty()) {
+                    Range range = new Range(document.getPosition(issue.getOffset()),
+                            document.getPosition(issue.getOffset() + issue.getLength()));
+                    edits.add(new TextEdit(range, candidates.get(0)));
+                }
+            }
+        } else {
+            for (Diagnostic diagnostic : options.getCodeActionParams().getContext().getDiagnostics()) {
+                List<TextEdit> edits = diagnostic.getCode() != null ? editsByCode.get(diagnostic.getCode().getLeft()) : null;
+                if (edits == null) {
+                    continue;
+                }
+                List<String> candidates = BuildfileDSLQuickfixResolvers.getCandidates(
+                        toIssueData(diagnostic.getData()), diagnostic.getMessage());
+                if (!candidates.isEmpty()) {
+                    edits.add(new TextEdit(diagnostic.getRange(), candidates.get(0)));
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<TextEdit>> entry : editsByCode.entrySet()) {
+            List<TextEdit> edits = entry.getValue();
+            if (edits.size() > 1) {
+                CodeAction action = new CodeAction("Fix all " + FIXABLE_CODES.get(entry.getKey()) + " in file ("
+                        + edits.size() + ")");
+                action.setKind(CodeActionKind.QuickFix);
+                action.setEdit(createEdit(documentUri, edits));
+                actions.add(Either.forRight(action));
+            }
+        }
+
+        return actions;
+    }
+
+    /**
+     * @return the issues the document was last validated with, or null if
+     *         they are not known for its current text
+     */
+    private List<Issue> getValidatedIssues(Options options) {
+        if (!(resourceValidator instanceof BuildfileDSLIncrementalResourceValidator)
+                || options.getResource() == null || options.getResource().getURI() == null
+                || options.getDocument() == null) {
+            return null;
+        }
+        return ((BuildfileDSLIncrementalResourceValidator) resourceValidator).getIssues(
+                options.getResource().getURI(), options.getDocument().getContents());
+    }
+
+    private static WorkspaceEdit createEdit(String documentUri, List<TextEdit> edits) {
+        WorkspaceEdit workspaceEdit = new WorkspaceEdit();
+        workspaceEdit.getChanges().put(documentUri, edits);
+        return workspaceEdit;
+    }
+
+    /**
+     * {@code Diagnostic.data} is the issue data array when the diagnostic
+     * comes straight from the server, and a JSON array when the client sends
+     * it back with the code action request.
+     */
+    public static String[] toIssueData(Object data) {
+        if (data instanceof String[]) {
+            return (String[]) data;
+        }
+        if (data instanceof JsonArray) {
+            JsonArray array = (JsonArray) data;
+            String[] result = new String[array.size()];
+            for (int i = 0; i < result.length; i++) {
+                JsonElement element = array.get(i);
+                result[i] = element.isJsonNull() ? null : element.getAsString();
+            }
+            return result;
+        }
+        if (data instanceof List<?>) {
+            List<?> list = (List<?>) data;
+            String[] result = new String[list.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = list.get(i) != null ? list.get(i).toString() : null;
+            }
+            return result;
+        }
+        return null;
+    }
 }
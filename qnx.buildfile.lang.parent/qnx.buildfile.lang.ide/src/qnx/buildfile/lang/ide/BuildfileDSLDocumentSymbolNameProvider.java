@@ -3,6 +3,8 @@ package qnx.buildfile.lang.ide;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.ide.server.symbol.DocumentSymbolMapper;
 
+import com.google.inject.Inject;
+
 /**
  * Maps the buildfile AST to a flat list of named elements for the LSP
  * {@code textDocument/documentSymbol} request.
@@ -11,12 +13,16 @@ import org.eclipse.xtext.ide.server.symbol.DocumentSymbolMapper;
  * name computation via {@link BuildfileDSLOutlineLabels}. The actual
  * conversion to {@code DocumentSymbol} (lsp4j type) is handled by
  * the Xtext framework — this class never imports lsp4j directly.
+ * The names are shared with the outline through {@link BuildfileDSLOutlineLabelCache}.
  */
 public class BuildfileDSLDocumentSymbolNameProvider extends DocumentSymbolMapper.DocumentSymbolNameProvider {
 
+    @Inject
+    private BuildfileDSLOutlineLabelCache labelCache;
+
     @Override
     public String getName(EObject object) {
-        String name = BuildfileDSLOutlineLabels.getName(object);
+        String name = labelCache.getName(object);
         return name != null ? name : super.getName(object);
     }
 }
@@ -0,0 +1,142 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.ReferenceParams;
+import org.eclipse.xtext.findReferences.IReferenceFinder;
+import org.eclipse.xtext.ide.server.Document;
+import org.eclipse.xtext.ide.server.UriExtensions;
+import org.eclipse.xtext.ide.server.symbol.DocumentSymbolService;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.CancelIndicator;
+
+import com.google.inject.Inject;
+
+import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.validation.DeploymentLocation;
+import qnx.buildfile.lang.validation.WorkspaceDeploymentIndex;
+
+/**
+ * Navigation between the deployments of a same target path.
+ * <p>
+ * Buildfiles have no cross-references, so on the path of a deployment
+ * "go to definition" lists the other deployments of that path, in the same
+ * buildfile first and then in the rest of the workspace, and "find references"
+ * lists all of them. Anywhere else the default behaviour applies.
+ */
+public class BuildfileDSLDocumentSymbolService extends DocumentSymbolService {
+
+    @Inject
+    private WorkspaceDeploymentIndex workspaceIndex;
+
+    @Inject
+    private UriExtensions uriExtensions;
+
+    @Override
+    public List<? extends Location> getDefinitions(XtextResource resource, int offset,
+            IReferenceFinder.IResourceAccess resourceAccess, CancelIndicator cancelIndicator) {
+        DeploymentStatement deployment = getDeploymentAt(resource, offset);
+        if (deployment == null) {
+            return super.getDefinitions(resource, offset, resourceAccess, cancelIndicator);
+        }
+        return toLocations(getOtherDeployments(resource, deployment));
+    }
+
+    @Override
+    public List<? extends Location> getReferences(Document document, XtextResource resource, ReferenceParams params,
+            IReferenceFinder.IResourceAccess resourceAccess, IResourceDescriptions indexData,
+            CancelIndicator cancelIndicator) {
+        DeploymentStatement deployment = getDeploymentAt(resource, document.getOffSet(params.getPosition()));
+        if (deployment == null) {
+            return super.getReferences(document, resource, params, resourceAccess, indexData, cancelIndicator);
+        }
+        List<DeploymentLocation> deployments = new ArrayList<>();
+        if (params.getContext() != null && params.getContext().isIncludeDeclaration()) {
+            DeploymentLocation self = DeploymentLocation.of(deployment);
+            if (self != null) {
+                deployments.add(self);
+            }
+        }
+        deployments.addAll(getOtherDeployments(resource, deployment));
+        return toLocations(deployments);
+    }
+
+    /**
+     * @return the deployment whose target path is at (or ends at) the offset,
+     *         or null
+     */
+    protected DeploymentStatement getDeploymentAt(XtextResource resource, int offset) {
+        if (resource.getParseResult() == null) {
+            return null;
+        }
+        INode root = resource.getParseResult().getRootNode();
+        DeploymentStatement deployment = getDeploymentPathAt(root, offset);
+        if (deployment == null && offset > 0) {
+            deployment = getDeploymentPathAt(root, offset - 1);
+        }
+        return deployment;
+    }
+
+    private static DeploymentStatement getDeploymentPathAt(INode root, int offset) {
+        ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(root, offset);
+        if (leaf == null) {
+            return null;
+        }
+        EObject element = NodeModelUtils.findActualSemanticObjectFor(leaf);
+        if (!(element instanceof DeploymentStatement)) {
+            return null;
+        }
+        for (INode node : NodeModelUtils.findNodesForFeature(element, BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH)) {
+            if (node.getOffset() <= offset && offset < node.getEndOffset()) {
+                return (DeploymentStatement) element;
+            }
+        }
+        return null;
+    }
+
+    private List<DeploymentLocation> getOtherDeployments(XtextResource resource, DeploymentStatement deployment) {
+        List<DeploymentLocation> result = new ArrayList<>();
+        String path = deployment.getPath();
+        if (path == null) {
+            return result;
+        }
+        if (deployment.eContainer() instanceof Model) {
+            for (Statement statement : ((Model) deployment.eContainer()).getStatements()) {
+                if (statement != deployment && statement instanceof DeploymentStatement
+                        && path.equals(((DeploymentStatement) statement).getPath())) {
+                    DeploymentLocation location = DeploymentLocation.of((DeploymentStatement) statement);
+                    if (location != null) {
+                        result.add(location);
+                    }
+                }
+            }
+        }
+        List<DeploymentLocation> elsewhere = workspaceIndex.getOtherDeployments(resource, List.of(path)).get(path);
+        if (elsewhere != null) {
+            result.addAll(elsewhere);
+        }
+        return result;
+    }
+
+    private List<Location> toLocations(List<DeploymentLocation> deployments) {
+        List<Location> locations = new ArrayList<>(deployments.size());
+        for (DeploymentLocation deployment : deployments) {
+            Position start = new Position(deployment.getLine() - 1, deployment.getColumn() - 1);
+            Position end = new Position(deployment.getLine() - 1, deployment.getColumn() - 1 + deployment.getLength());
+            locations.add(new Location(uriExtensions.toUriString(deployment.getUri()), new Range(start, end)));
+        }
+        return locations;
+    }
+}
@@ -0,0 +1,35 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.lsp4j.FormattingOptions;
+import org.eclipse.lsp4j.TextEdit;
+import org.eclipse.xtext.ide.server.Document;
+import org.eclipse.xtext.ide.server.formatting.FormattingService;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.ReplaceRegion;
+
+import qnx.buildfile.lang.formatting2.LineFormatter;
+
+/**
+ * Document and range formatting with the {@link LineFormatter}, which sets
+ * the spaces {@link qnx.buildfile.lang.formatting2.BuildfileDSLFormatter}
+ * would set from the text of the document, without building the text
+ * regions of the whole model. As with the default service, the edits of a
+ * range are the ones within it.
+ */
+public class BuildfileDSLFormattingService extends FormattingService {
+
+    private final LineFormatter formatter = new LineFormatter();
+
+    @Override
+    public List<TextEdit> format(XtextResource resource, Document document, int offset, int length,
+            FormattingOptions options) {
+        List<TextEdit> edits = new ArrayList<>();
+        for (ReplaceRegion replacement : formatter.format(document.getContents(), offset, length)) {
+            edits.add(toTextEdit(document, replacement.getText(), replacement.getOffset(), replacement.getLength()));
+        }
+        return edits;
+    }
+}
@@ -0,0 +1,132 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.lsp4j.DocumentSymbol;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.SymbolKind;
+import org.eclipse.xtext.ide.server.symbol.DocumentSymbolMapper;
+import org.eclipse.xtext.ide.server.symbol.HierarchicalDocumentSymbolService;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.service.OperationCanceledManager;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.util.IResourceScopeCache;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.ide.BuildfileDSLOutlineGroups.Group;
+
+/**
+ * Document symbols of a buildfile, for the VSCode outline and breadcrumbs.
+ * <p>
+ * Small buildfiles get a flat list of statements with their attributes as
+ * children. Large ones are grouped as in the Eclipse outline (see
+ * {@link BuildfileDSLOutlineGroups}) and list only the statements, since LSP
+ * sends the whole tree at once.
+ * <p>
+ * The symbols are built from the model's statements rather than from all the
+ * contents of the resource, and are kept until the buildfile changes: the
+ * client asks for them again for the outline, the breadcrumbs and the sticky
+ * scroll.
+ */
+@Singleton
+public class BuildfileDSLHierarchicalDocumentSymbolService extends HierarchicalDocumentSymbolService {
+
+    private static final String CACHE_KEY = BuildfileDSLHierarchicalDocumentSymbolService.class.getName() + "#symbols";
+
+    @Inject
+    private DocumentSymbolMapper symbolMapper;
+
+    @Inject
+    private OperationCanceledManager operationCanceledManager;
+
+    @Inject
+    private IResourceScopeCache cache;
+
+    @Override
+    public List<DocumentSymbol> getSymbols(XtextResource resource, CancelIndicator cancelIndicator) {
+        if (resource.getContents().isEmpty() || !(resource.getContents().get(0) instanceof Model)) {
+            return Collections.emptyList();
+        }
+        Model model = (Model) resource.getContents().get(0);
+        return cache.get(CACHE_KEY, resource, () -> computeSymbols(model, cancelIndicator));
+    }
+
+    protected List<DocumentSymbol> computeSymbols(Model model, CancelIndicator cancelIndicator) {
+        List<Group> groups = BuildfileDSLOutlineGroups.group(model);
+        if (groups.isEmpty()) {
+            return toSymbols(model.getStatements(), true, cancelIndicator);
+        }
+        List<DocumentSymbol> symbols = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            addIfValid(symbols, toSymbol(model, group, cancelIndicator));
+        }
+        return symbols;
+    }
+
+    private DocumentSymbol toSymbol(Model model, Group group, CancelIndicator cancelIndicator) {
+        List<DocumentSymbol> children = new ArrayList<>();
+        if (group.getPages().isEmpty()) {
+            children.addAll(toSymbols(group.getStatements(model), false, cancelIndicator));
+        } else {
+            for (Group page : group.getPages()) {
+                addIfValid(children, toSymbol(model, page, cancelIndicator));
+            }
+        }
+
+        EObject element = group.getElement(model);
+        DocumentSymbol head = element instanceof Statement ? symbolMapper.toDocumentSymbol(element) : null;
+        Range first = head != null ? head.getRange() : children.isEmpty() ? null : children.get(0).getRange();
+        Range last = children.isEmpty() ? first : children.get(children.size() - 1).getRange();
+        if (first == null || last == null) {
+            return null;
+        }
+
+        DocumentSymbol symbol = new DocumentSymbol();
+        symbol.setName(group.getLabel());
+        symbol.setKind(element instanceof AttributeStatement || element instanceof Model ? SymbolKind.Namespace : SymbolKind.Array);
+        symbol.setRange(new Range(first.getStart(), last.getEnd()));
+        symbol.setSelectionRange(head != null ? head.getSelectionRange() : children.get(0).getSelectionRange());
+        symbol.setChildren(children);
+        return symbol;
+    }
+
+    private List<DocumentSymbol> toSymbols(List<Statement> statements, boolean withAttributes, CancelIndicator cancelIndicator) {
+        List<DocumentSymbol> symbols = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            operationCanceledManager.checkCanceled(cancelIndicator);
+            DocumentSymbol symbol = symbolMapper.toDocumentSymbol(statement);
+            if (withAttributes) {
+                var section = statement instanceof AttributeStatement
+                        ? ((AttributeStatement) statement).getAttributesection()
+                        : ((DeploymentStatement) statement).getAttributesection();
+                if (section != null) {
+                    for (EObject attribute : section.getAttributes()) {
+                        addIfValid(symbol.getChildren(), symbolMapper.toDocumentSymbol(attribute));
+                    }
+                }
+            }
+            addIfValid(symbols, symbol);
+        }
+        return symbols;
+    }
+
+    /**
+     * Same check as {@link HierarchicalDocumentSymbolService#isValid(DocumentSymbol)}
+     * without going through reflection for every symbol.
+     */
+    private static void addIfValid(List<DocumentSymbol> symbols, DocumentSymbol symbol) {
+        if (symbol != null && symbol.getName() != null && symbol.getKind() != null
+                && symbol.getRange() != null && symbol.getSelectionRange() != null) {
+            symbols.add(symbol);
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package qnx.buildfile.lang.ide;
 
-import java.util.Arrays;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.Assignment;
+import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.GrammarUtil;
-import org.eclipse.xtext.RuleCall;
 import org.eclipse.xtext.ide.editor.contentassist.ContentAssistContext;
 import org.eclipse.xtext.ide.editor.contentassist.ContentAssistEntry;
 import org.eclipse.xtext.ide.editor.contentassist.IIdeContentProposalAcceptor;
 import org.eclipse.xtext.ide.editor.contentassist.IdeContentProposalProvider;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+
+import com.google.inject.Inject;
 
 import qnx.buildfile.lang.attributes.AttributeKeywords;
+import qnx.buildfile.lang.attributes.AttributeValues;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
 import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+import qnx.buildfile.lang.ide.AttributeProposalTable.Proposal;
+import qnx.buildfile.lang.utils.SearchPath;
 
 /**
  * Content assist proposals for the LSP server (VSCode).
@@ -24,20 +38,39 @@ import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
  * <ul>
  *   <li>Boolean attribute names after {@code +} or {@code -} inside {@code [...]}</li>
  *   <li>Valued attribute names (with trailing {@code =}) inside {@code [...]}</li>
- *   <li>Known values for specific attributes ({@code type}, {@code autoso}, {@code compress})</li>
+ *   <li>Known values for specific attributes, see {@link AttributeValues}</li>
+ *   <li>Host paths for the source of a deployment, relative to the directories
+ *       of the {@code search} attribute or {@code MKIFS_PATH} (see
+ *       {@link SearchPath}), from the {@link HostPathIndex}</li>
  * </ul>
+ * The proposals are built once in {@link AttributeProposalTable}s, and only
+ * the ones matching the typed prefix are created for a request.
  */
 public class BuildfileDSLIdeContentProposalProvider extends IdeContentProposalProvider {
 
-    /** Known values for valued attributes that have a fixed set of options. */
-    private static final Map<String, List<String>> KNOWN_VALUES = new LinkedHashMap<>();
+    /** Maximum number of host paths proposed at once. */
+    public static final int MAX_HOST_PATHS = 500;
+
+    @Inject
+    private HostPathIndex hostPathIndex;
+
+    private static final AttributeProposalTable BOOLEAN_NAMES = new AttributeProposalTable(
+            AttributeKeywords.ALL_BOOLEAN_ATTRIBUTE_KEYWORDS.stream()
+                    .map(keyword -> new Proposal(keyword, keyword, ContentAssistEntry.KIND_KEYWORD, "Boolean attribute"))
+                    .collect(Collectors.toList()));
+
+    private static final AttributeProposalTable VALUED_NAMES = new AttributeProposalTable(
+            AttributeKeywords.ALL_VALUED_ATTRIBUTE_KEYWORDS.stream()
+                    .map(keyword -> new Proposal(keyword + "=", keyword, ContentAssistEntry.KIND_KEYWORD, "Valued attribute"))
+                    .collect(Collectors.toList()));
+
+    private static final Map<String, AttributeProposalTable> VALUES = new LinkedHashMap<>();
 
     static {
-        KNOWN_VALUES.put("type", Arrays.asList("link", "fifo", "file", "dir"));
-        KNOWN_VALUES.put("autoso", Arrays.asList("none", "list", "add"));
-        KNOWN_VALUES.put("compress", Arrays.asList("1", "2", "3"));
-        KNOWN_VALUES.put("code", Arrays.asList("u", "c"));
-        KNOWN_VALUES.put("data", Arrays.asList("u", "c"));
+        AttributeValues.PROPOSED_VALUES.forEach((attribute, values) -> VALUES.put(attribute,
+                new AttributeProposalTable(values.stream()
+                        .map(value -> new Proposal(value, value, ContentAssistEntry.KIND_VALUE, attribute + " value"))
+                        .collect(Collectors.toList()))));
     }
 
     @Override
@@ -48,12 +81,12 @@ public class BuildfileDSLIdeContentProposalProvider extends IdeContentProposalPr
         String ruleName = GrammarUtil.containingRule(assignment).getName();
 
         if ("BooleanAttribute".equals(ruleName) && "name".equals(feature)) {
-            proposeBooleanAttributeNames(context, acceptor);
+            accept(BOOLEAN_NAMES, context, acceptor);
             return;
         }
 
         if ("ValuedAttribute".equals(ruleName) && "name".equals(feature)) {
-            proposeValuedAttributeNames(context, acceptor);
+            accept(VALUED_NAMES, context, acceptor);
             return;
         }
 
@@ -62,55 +95,118 @@ public class BuildfileDSLIdeContentProposalProvider extends IdeContentProposalPr
             return;
         }
 
+        if ("Path".equals(ruleName) && "value".equals(feature)) {
+            proposeHostPaths(context, acceptor);
+            return;
+        }
+
         // Fall back to default for all other assignments (path, content, etc.)
         super._createProposals(assignment, context, acceptor);
     }
 
-    private void proposeBooleanAttributeNames(ContentAssistContext context,
+    private void proposeAttributeValues(ContentAssistContext context,
             IIdeContentProposalAcceptor acceptor) {
-        for (String keyword : AttributeKeywords.ALL_BOOLEAN_ATTRIBUTE_KEYWORDS) {
-            ContentAssistEntry entry = getProposalCreator().createProposal(
-                    keyword, context, (e) -> {
-                        e.setLabel(keyword);
-                        e.setKind(ContentAssistEntry.KIND_KEYWORD);
-                        e.setDescription("Boolean attribute");
-                    });
-            acceptor.accept(entry, getProposalPriorities().getDefaultPriority(entry));
+        String attributeName = getAttributeName(context);
+        AttributeProposalTable values = attributeName != null ? VALUES.get(attributeName) : null;
+        if (values != null) {
+            accept(values, context, acceptor);
         }
     }
 
-    private void proposeValuedAttributeNames(ContentAssistContext context,
-            IIdeContentProposalAcceptor acceptor) {
-        for (String keyword : AttributeKeywords.ALL_VALUED_ATTRIBUTE_KEYWORDS) {
-            String proposalText = keyword + "=";
-            ContentAssistEntry entry = getProposalCreator().createProposal(
-                    proposalText, context, (e) -> {
-                        e.setLabel(keyword);
-                        e.setKind(ContentAssistEntry.KIND_KEYWORD);
-                        e.setDescription("Valued attribute");
-                    });
-            acceptor.accept(entry, getProposalPriorities().getDefaultPriority(entry));
+    /**
+     * @return the name of the valued attribute whose value is completed: the
+     *         name before the {@code =} when no attribute could be parsed yet,
+     *         as in {@code [type=}
+     */
+    private String getAttributeName(ContentAssistContext context) {
+        EObject model = context.getCurrentModel();
+        if (model instanceof ValuedAttribute && ((ValuedAttribute) model).getName() != null) {
+            return ((ValuedAttribute) model).getName();
+        }
+        INode last = context.getLastCompleteNode();
+        if (last == null || !"=".equals(last.getText()) || context.getRootNode() == null) {
+            return null;
         }
+        int offset = last.getOffset();
+        while (offset > 0) {
+            ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(context.getRootNode(), offset - 1);
+            if (leaf == null) {
+                return null;
+            }
+            if (!leaf.isHidden()) {
+                return leaf.getText();
+            }
+            offset = leaf.getOffset();
+        }
+        return null;
     }
 
-    private void proposeAttributeValues(ContentAssistContext context,
-            IIdeContentProposalAcceptor acceptor) {
-        EObject model = context.getCurrentModel();
-        if (model instanceof ValuedAttribute) {
-            String attrName = ((ValuedAttribute) model).getName();
-            if (attrName != null && KNOWN_VALUES.containsKey(attrName)) {
-                for (String value : KNOWN_VALUES.get(attrName)) {
-                    ContentAssistEntry entry = getProposalCreator().createProposal(
-                            value, context, (e) -> {
-                                e.setLabel(value);
-                                e.setKind(ContentAssistEntry.KIND_VALUE);
-                                e.setDescription(attrName + " value");
-                            });
+    private void proposeHostPaths(ContentAssistContext context, IIdeContentProposalAcceptor acceptor) {
+        String prefix = context.getPrefix();
+        if (prefix.startsWith("/") || prefix.contains("${")) {
+            return;
+        }
+        Set<String> paths = new LinkedHashSet<>();
+        for (Path directory : getSearchDirectories(context)) {
+            for (String path : hostPathIndex.complete(directory, prefix)) {
+                if (paths.size() >= MAX_HOST_PATHS) {
+                    break;
+                }
+                if (paths.add(path)) {
+                    String name = path.substring(path.lastIndexOf('/', path.length() - 2) + 1);
+                    ContentAssistEntry entry = new ContentAssistEntry();
+                    entry.setProposal(path);
+                    entry.setPrefix(prefix);
+                    entry.setLabel(name);
+                    entry.setKind(ContentAssistEntry.KIND_FILE);
+                    entry.setDescription(directory.toString());
                     acceptor.accept(entry, getProposalPriorities().getDefaultPriority(entry));
                 }
-                return;
             }
         }
+    }
 
+    /**
+     * @return the directories the source completed in the context is looked
+     *         up in, as {@link SearchPath#getSearched} gives them to the checks
+     */
+    private List<Path> getSearchDirectories(ContentAssistContext context) {
+        Path base = SearchPath.getBaseDirectory(context.getResource());
+        DeploymentStatement statement = EcoreUtil2.getContainerOfType(context.getCurrentModel(), DeploymentStatement.class);
+        if (statement != null) {
+            return SearchPath.getSearched(SearchPath.getDirectories(statement, getEnvironment()), base);
+        }
+        // Nothing parsed for the deployment, use the attribute statements before it
+        String search = null;
+        if (context.getRootModel() instanceof Model) {
+            Model model = (Model) context.getRootModel();
+            int end = 0;
+            for (Statement candidate : model.getStatements()) {
+                INode node = NodeModelUtils.getNode(candidate);
+                if (node == null || node.getOffset() >= context.getOffset()) {
+                    break;
+                }
+                end++;
+            }
+            search = SearchPath.getSearch(model, end);
+        }
+        return SearchPath.getSearched(SearchPath.getDirectories(search, getEnvironment(), base), base);
+    }
+
+    /**
+     * @return the environment of the server, for {@code MKIFS_PATH} and the
+     *         variables of the {@code search} attribute
+     */
+    protected Map<String, String> getEnvironment() {
+        return System.getenv();
+    }
+
+    private void accept(AttributeProposalTable table, ContentAssistContext context,
+            IIdeContentProposalAcceptor acceptor) {
+        List<Proposal> proposals = table.matching(context.getPrefix());
+        for (Proposal proposal : proposals) {
+            ContentAssistEntry entry = proposal.toEntry(context.getPrefix());
+            acceptor.accept(entry, getProposalPriorities().getDefaultPriority(entry));
+        }
     }
 }
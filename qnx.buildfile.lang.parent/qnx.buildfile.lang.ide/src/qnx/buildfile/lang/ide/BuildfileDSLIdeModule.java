@@ -6,15 +6,34 @@ package qnx.buildfile.lang.ide;
 import org.eclipse.xtext.ide.editor.contentassist.IdeContentProposalProvider;
 import org.eclipse.xtext.ide.editor.syntaxcoloring.ISemanticHighlightingCalculator;
 import org.eclipse.xtext.ide.server.codeActions.ICodeActionService2;
+import org.eclipse.xtext.ide.server.commands.IExecutableCommandService;
+import org.eclipse.xtext.ide.server.formatting.FormattingService;
 import org.eclipse.xtext.ide.server.symbol.DocumentSymbolMapper;
+import org.eclipse.xtext.ide.server.symbol.DocumentSymbolService;
+import org.eclipse.xtext.ide.server.symbol.HierarchicalDocumentSymbolService;
 import org.eclipse.xtext.resource.IDefaultResourceDescriptionStrategy;
+import org.eclipse.xtext.validation.IResourceValidator;
+
+import qnx.buildfile.lang.ide.server.BuildfileDSLExecutableCommandService;
+import qnx.buildfile.lang.ide.server.LanguageServerCustomValidatorJarPathProvider;
+import qnx.buildfile.lang.validation.CustomValidatorJarPathProvider;
+import qnx.buildfile.lang.validation.WorkspaceDeploymentIndex;
 
 /**
  * Use this class to register ide components.
  * <p>
- * Custom validator JAR support is provided by the default
- * {@link qnx.buildfile.lang.validation.SystemPropertyCustomValidatorJarPathProvider}
- * bound via {@code @ImplementedBy} — no explicit binding needed here.
+ * The custom validator JAR path starts with the {@code customValidatorJar}
+ * system property and can then be changed at runtime by the language server,
+ * see {@link LanguageServerCustomValidatorJarPathProvider}.
+ * <p>
+ * Deployments are checked and navigated across all the buildfiles of the
+ * workspace, see {@link BuildfileDSLWorkspaceDeploymentIndex}.
+ * <p>
+ * Document symbols of large buildfiles are grouped like the Eclipse outline,
+ * see {@link BuildfileDSLOutlineGroups}.
+ * <p>
+ * Documents and ranges are formatted line by line, see
+ * {@link BuildfileDSLFormattingService}.
  */
 public class BuildfileDSLIdeModule extends AbstractBuildfileDSLIdeModule {
 
@@ -37,4 +56,32 @@ public class BuildfileDSLIdeModule extends AbstractBuildfileDSLIdeModule {
 	public Class<? extends IdeContentProposalProvider> bindIdeContentProposalProvider() {
 		return BuildfileDSLIdeContentProposalProvider.class;
 	}
+
+	public Class<? extends IResourceValidator> bindIResourceValidator() {
+		return BuildfileDSLIncrementalResourceValidator.class;
+	}
+
+	public Class<? extends CustomValidatorJarPathProvider> bindCustomValidatorJarPathProvider() {
+		return LanguageServerCustomValidatorJarPathProvider.class;
+	}
+
+	public Class<? extends IExecutableCommandService> bindIExecutableCommandService() {
+		return BuildfileDSLExecutableCommandService.class;
+	}
+
+	public Class<? extends WorkspaceDeploymentIndex> bindWorkspaceDeploymentIndex() {
+		return BuildfileDSLWorkspaceDeploymentIndex.class;
+	}
+
+	public Class<? extends DocumentSymbolService> bindDocumentSymbolService() {
+		return BuildfileDSLDocumentSymbolService.class;
+	}
+
+	public Class<? extends HierarchicalDocumentSymbolService> bindHierarchicalDocumentSymbolService() {
+		return BuildfileDSLHierarchicalDocumentSymbolService.class;
+	}
+
+	public Class<? extends FormattingService> bindFormattingService() {
+		return BuildfileDSLFormattingService.class;
+	}
 }
@@ -0,0 +1,386 @@
+package qnx.buildfile.lang.ide;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.emf.common.util.BasicDiagnostic;
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EValidator;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextSyntaxDiagnostic;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.util.IAcceptor;
+import org.eclipse.xtext.validation.AbstractInjectableValidator;
+import org.eclipse.xtext.validation.CancelableDiagnostician;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.Issue;
+import org.eclipse.xtext.validation.ResourceValidatorImpl;
+import org.eclipse.xtext.validation.impl.ConcreteSyntaxEValidator;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.validation.CustomValidatorJarPathProvider;
+import qnx.buildfile.lang.validation.DuplicatePathIndex;
+import qnx.buildfile.lang.validation.ValidationScope;
+
+/**
+ * Resource validator used by the language server that only re-runs the
+ * validation checks of the statements that changed since the last run.
+ * <p>
+ * The language server re-parses the whole document on every edit, so the
+ * EObjects are brand new each time. Statement-level checks only look at the
+ * statement itself though, which makes the statement text a good cache key:
+ * <ul>
+ *   <li>issues of an unchanged statement are replayed from the cache, shifted
+ *       to the statement's new offset and line;</li>
+ *   <li>the {@link DuplicatePathIndex} of the document is kept alive and
+ *       updated with the paths of the statements that appeared or vanished,
+ *       then handed to the model-level checks through the validation context;</li>
+ *   <li>statements overlapping a syntax error are always validated again.</li>
+ * </ul>
+ * The checks of a custom validator JAR may look at other statements, such as
+ * the attribute statements before, so while one is configured the statements
+ * are all validated again and only the path index is kept.
+ * <p>
+ * The issues of the last run are kept as well, with the text they were found
+ * in, for the requests answered from the diagnostics of the document (see
+ * {@link #getIssues(URI, String)}).
+ * <p>
+ * The cache of a document is dropped whenever the check mode or the custom
+ * validator JAR changes, or if a validation run gets cancelled halfway.
+ */
+@Singleton
+public class BuildfileDSLIncrementalResourceValidator extends ResourceValidatorImpl {
+
+    /** Number of documents whose validation state is kept around. */
+    private static final int MAX_DOCUMENTS = 32;
+
+    @Inject
+    private EValidator.Registry validatorRegistry;
+
+    @Inject(optional = true)
+    private CustomValidatorJarPathProvider jarPathProvider;
+
+    private final Map<URI, DocumentState> documents = Collections.synchronizedMap(
+        new LinkedHashMap<URI, DocumentState>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI, DocumentState> eldest) {
+                return size() > MAX_DOCUMENTS;
+            }
+        });
+
+    /** Validation state of one document, as of its last completed validation. */
+    private static final class DocumentState {
+        final CheckMode mode;
+        final String validatorFingerprint;
+        final DuplicatePathIndex pathIndex = new DuplicatePathIndex();
+        Map<String, StatementResult> results = new HashMap<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        /** Text and issues of the last run, {@code null} until known. */
+        String text;
+        List<Issue> issues;
+
+        DocumentState(CheckMode mode, String validatorFingerprint) {
+            this.mode = mode;
+            this.validatorFingerprint = validatorFingerprint;
+        }
+    }
+
+    /** Cached validation outcome of one statement text. */
+    private static final class StatementResult {
+        final boolean deployment;
+        final String path;
+        /** Issues relative to the statement start, {@code null} until known. */
+        List<Issue> issues;
+
+        StatementResult(Statement statement) {
+            this.deployment = statement instanceof DeploymentStatement;
+            this.path = deployment ? ((DeploymentStatement) statement).getPath() : null;
+        }
+    }
+
+    @Override
+    protected void validate(Resource resource, CheckMode mode, CancelIndicator monitor, IAcceptor<Issue> acceptor) {
+        Model model = resource.getContents().isEmpty() || !(resource.getContents().get(0) instanceof Model)
+            ? null : (Model) resource.getContents().get(0);
+        if (model == null || resource.getURI() == null) {
+            super.validate(resource, mode, monitor, acceptor);
+            return;
+        }
+
+        URI uri = resource.getURI();
+        String fingerprint = validatorFingerprint();
+        DocumentState state = documents.get(uri);
+        if (state == null || !state.mode.equals(mode) || !state.validatorFingerprint.equals(fingerprint)) {
+            state = new DocumentState(mode, fingerprint);
+            documents.put(uri, state);
+        }
+
+        synchronized (state) {
+            try {
+                validate(resource, model, state, mode, monitor, acceptor);
+            } catch (RuntimeException | Error e) {
+                // The state may be half updated, start from scratch next time
+                documents.remove(uri);
+                throw e;
+            }
+        }
+    }
+
+    private void validate(Resource resource, Model model, DocumentState state, CheckMode mode,
+            CancelIndicator monitor, IAcceptor<Issue> acceptor) {
+        List<Statement> statements = model.getStatements();
+        List<Issue> accepted = new ArrayList<>();
+        IAcceptor<Issue> recording = issue -> {
+            accepted.add(issue);
+            acceptor.accept(issue);
+        };
+        String[] keys = new String[statements.size()];
+        int[][] syntaxErrors = syntaxErrorRanges(resource);
+
+        // Collect the statements of the document and update the path index
+        Map<String, StatementResult> results = new HashMap<>(state.results.size() * 2 + 16);
+        Map<String, Integer> occurrences = new HashMap<>(state.occurrences.size() * 2 + 16);
+        for (int i = 0; i < statements.size(); i++) {
+            Statement statement = statements.get(i);
+            String key = NodeModelUtils.getNode(statement).getText();
+            keys[i] = key;
+            occurrences.merge(key, 1, Integer::sum);
+            if (!results.containsKey(key)) {
+                StatementResult previous = state.results.get(key);
+                results.put(key, previous != null ? previous : new StatementResult(statement));
+            }
+        }
+        updatePathIndex(state, results, occurrences);
+
+        Map<Object, Object> options = createOptions(resource, mode, monitor);
+        options.put(DuplicatePathIndex.class, state.pathIndex);
+        // Only the built-in checks are known to look at the statement alone
+        boolean builtInOnly = state.validatorFingerprint.isEmpty();
+
+        // One scope for the whole document, keeping the custom validator JAR
+        // loaded by the model-level checks until the last statement is done
+        ValidationScope scope = ValidationScope.open(options);
+        try {
+            // Model-level checks first (that's where the custom validator is loaded),
+            // without descending into the statements
+            getOperationCanceledManager().checkCanceled(monitor);
+            validateModelOnly(model, options, recording);
+
+            // Statement-level checks, replayed from the cache where possible
+            for (int i = 0; i < statements.size(); i++) {
+                getOperationCanceledManager().checkCanceled(monitor);
+                Statement statement = statements.get(i);
+                ICompositeNode node = NodeModelUtils.getNode(statement);
+                StatementResult result = results.get(keys[i]);
+                boolean cacheable = builtInOnly && !overlaps(syntaxErrors, node.getTotalOffset(), node.getTotalEndOffset());
+
+                if (cacheable && result.issues != null) {
+                    replay(resource, statement, node, result.issues, recording);
+                    continue;
+                }
+
+                List<Issue> issues = new ArrayList<>();
+                Diagnostic diagnostic = getDiagnostician().validate(statement, options);
+                for (Diagnostic child : diagnostic.getChildren()) {
+                    issueFromEValidatorDiagnostic(child, issues::add);
+                }
+                issues.forEach(recording::accept);
+                if (cacheable) {
+                    result.issues = relativize(resource, statement, node, issues);
+                }
+            }
+        } finally {
+            if (scope != null) scope.close();
+        }
+
+        state.results = results;
+        state.occurrences = occurrences;
+        state.text = getText(resource);
+        state.issues = Collections.unmodifiableList(accepted);
+    }
+
+    private static String getText(Resource resource) {
+        if (!(resource instanceof XtextResource) || ((XtextResource) resource).getParseResult() == null) return null;
+        return ((XtextResource) resource).getParseResult().getRootNode().getText();
+    }
+
+    private Map<Object, Object> createOptions(Resource resource, CheckMode mode, CancelIndicator monitor) {
+        // Same options as ResourceValidatorImpl#validate(Resource, EObject, ...)
+        Map<Object, Object> options = new HashMap<>();
+        options.put(CheckMode.KEY, mode);
+        options.put(CancelableDiagnostician.CANCEL_INDICATOR, monitor);
+        options.put(ConcreteSyntaxEValidator.DISABLE_CONCRETE_SYNTAX_EVALIDATOR, Boolean.TRUE);
+        options.put(EValidator.class, getDiagnostician());
+        if (resource instanceof XtextResource) {
+            options.put(AbstractInjectableValidator.CURRENT_LANGUAGE_NAME,
+                ((XtextResource) resource).getLanguageName());
+        }
+        return options;
+    }
+
+    private void validateModelOnly(Model model, Map<Object, Object> options, IAcceptor<Issue> acceptor) {
+        EValidator validator = validatorRegistry.getEValidator(model.eClass().getEPackage());
+        if (validator == null) return;
+
+        BasicDiagnostic diagnostic = new BasicDiagnostic();
+        validator.validate(model.eClass(), model, diagnostic, options);
+        for (Diagnostic child : diagnostic.getChildren()) {
+            issueFromEValidatorDiagnostic(child, acceptor);
+        }
+    }
+
+    /**
+     * Apply the difference between the previous and the current statement
+     * occurrences to the path index of the document.
+     */
+    private static void updatePathIndex(DocumentState state, Map<String, StatementResult> results,
+            Map<String, Integer> occurrences) {
+        DuplicatePathIndex index = state.pathIndex;
+
+        for (Map.Entry<String, Integer> entry : occurrences.entrySet()) {
+            int delta = entry.getValue() - state.occurrences.getOrDefault(entry.getKey(), 0);
+            StatementResult result = results.get(entry.getKey());
+            if (delta == 0 || !result.deployment) continue;
+            for (; delta > 0; delta--) index.add(result.path);
+            for (; delta < 0; delta++) index.remove(result.path);
+        }
+
+        for (Map.Entry<String, Integer> entry : state.occurrences.entrySet()) {
+            if (occurrences.containsKey(entry.getKey())) continue;
+            StatementResult result = state.results.get(entry.getKey());
+            if (result == null || !result.deployment) continue;
+            for (int n = entry.getValue(); n > 0; n--) index.remove(result.path);
+        }
+    }
+
+    private List<Issue> relativize(Resource resource, Statement statement, ICompositeNode node, List<Issue> issues) {
+        if (issues.isEmpty()) return Collections.emptyList();
+
+        String fragment = resource.getURIFragment(statement);
+        List<Issue> relative = new ArrayList<>(issues.size());
+        for (Issue issue : issues) {
+            Issue.IssueImpl copy = copy(issue);
+            if (issue.getOffset() != null) copy.setOffset(issue.getOffset() - node.getTotalOffset());
+            if (issue.getLineNumber() != null) copy.setLineNumber(issue.getLineNumber() - node.getTotalStartLine());
+            if (issue.getLineNumberEnd() != null) copy.setLineNumberEnd(issue.getLineNumberEnd() - node.getTotalStartLine());
+            URI problem = issue.getUriToProblem();
+            if (problem != null && problem.fragment() != null && problem.fragment().startsWith(fragment)) {
+                copy.setUriToProblem(URI.createURI("#" + problem.fragment().substring(fragment.length())));
+            }
+            relative.add(copy);
+        }
+        return relative;
+    }
+
+    private void replay(Resource resource, Statement statement, ICompositeNode node, List<Issue> issues,
+            IAcceptor<Issue> acceptor) {
+        if (issues.isEmpty()) return;
+
+        String fragment = resource.getURIFragment(statement);
+        for (Issue issue : issues) {
+            Issue.IssueImpl copy = copy(issue);
+            if (issue.getOffset() != null) copy.setOffset(issue.getOffset() + node.getTotalOffset());
+            if (issue.getLineNumber() != null) copy.setLineNumber(issue.getLineNumber() + node.getTotalStartLine());
+            if (issue.getLineNumberEnd() != null) copy.setLineNumberEnd(issue.getLineNumberEnd() + node.getTotalStartLine());
+            URI problem = issue.getUriToProblem();
+            if (problem != null && problem.fragment() != null) {
+                copy.setUriToProblem(resource.getURI().appendFragment(fragment + problem.fragment()));
+            }
+            acceptor.accept(copy);
+        }
+    }
+
+    private static Issue.IssueImpl copy(Issue issue) {
+        Issue.IssueImpl copy = new Issue.IssueImpl();
+        copy.setOffset(issue.getOffset());
+        copy.setLength(issue.getLength());
+        copy.setLineNumber(issue.getLineNumber());
+        copy.setLineNumberEnd(issue.getLineNumberEnd());
+        copy.setColumn(issue.getColumn());
+        copy.setColumnEnd(issue.getColumnEnd());
+        copy.setMessage(issue.getMessage());
+        copy.setUriToProblem(issue.getUriToProblem());
+        copy.setSeverity(issue.getSeverity());
+        copy.setCode(issue.getCode());
+        copy.setData(issue.getData());
+        copy.setType(issue.getType());
+        copy.setSyntaxError(issue.isSyntaxError());
+        return copy;
+    }
+
+    private static int[][] syntaxErrorRanges(Resource resource) {
+        List<int[]> ranges = new ArrayList<>();
+        for (Resource.Diagnostic error : resource.getErrors()) {
+            if (error instanceof XtextSyntaxDiagnostic) {
+                XtextSyntaxDiagnostic syntaxError = (XtextSyntaxDiagnostic) error;
+                ranges.add(new int[] { syntaxError.getOffset(), syntaxError.getOffset() + syntaxError.getLength() });
+            }
+        }
+        return ranges.toArray(new int[0][]);
+    }
+
+    private static boolean overlaps(int[][] ranges, int start, int end) {
+        for (int[] range : ranges) {
+            if (range[0] <= end && range[1] >= start) return true;
+        }
+        return false;
+    }
+
+    private String validatorFingerprint() {
+        String jarPath = jarPathProvider != null ? jarPathProvider.getJarPath() : null;
+        if (jarPath == null || jarPath.isBlank()) return "";
+        return jarPath + "@" + new File(jarPath).lastModified();
+    }
+
+    /**
+     * Forget the cached validation state of a document.
+     */
+    public void invalidate(URI uri) {
+        documents.remove(uri);
+    }
+
+    /**
+     * Forget the cached validation state of all documents.
+     */
+    public void invalidateAll() {
+        documents.clear();
+    }
+
+    /**
+     * @return the validation issues of the last run over the document, if it
+     *         was run over the given text, else {@code null}; syntax and
+     *         linking errors are not included
+     */
+    public List<Issue> getIssues(URI uri, String text) {
+        DocumentState state = documents.get(Objects.requireNonNull(uri));
+        if (state == null) return null;
+
+        synchronized (state) {
+            return state.text != null && state.text.equals(text) ? state.issues : null;
+        }
+    }
+
+    /**
+     * @return true if a validation state is cached for the given document
+     */
+    public boolean isCached(URI uri) {
+        return documents.containsKey(Objects.requireNonNull(uri));
+    }
+}
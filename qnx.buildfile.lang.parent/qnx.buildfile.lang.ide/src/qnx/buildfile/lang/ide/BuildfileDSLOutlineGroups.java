@@ -0,0 +1,133 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+
+import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+
+/**
+ * Grouping of the statements of large buildfiles into collapsible ranges,
+ * shared by the Eclipse outline and the LSP document symbols.
+ * <p>
+ * Up to {@link #GROUPING_THRESHOLD} statements the outline stays a flat list.
+ * Above, the statements are grouped by attribute scope: an attribute
+ * statement heads the statements that follow it, up to the next attribute
+ * statement, and the statements before the first one form a group of their
+ * own. A scope of more than {@link #PAGE_SIZE} statements is split further
+ * into pages.
+ * <p>
+ * Groups only hold statement indexes and labels, never model elements, so
+ * that they can be kept by outline nodes and resolved again when expanded.
+ */
+public final class BuildfileDSLOutlineGroups {
+
+    /** Number of statements above which the outline is grouped. */
+    public static final int GROUPING_THRESHOLD = 200;
+
+    /** Maximum number of statements shown under a single outline node. */
+    public static final int PAGE_SIZE = 500;
+
+    private BuildfileDSLOutlineGroups() {}
+
+    /**
+     * A range of statements of the model.
+     */
+    public static final class Group {
+        private final int elementIndex;
+        private final int start;
+        private final int end;
+        private final String label;
+        private final List<Group> pages;
+
+        private Group(int elementIndex, int start, int end, String label, List<Group> pages) {
+            this.elementIndex = elementIndex;
+            this.start = start;
+            this.end = end;
+            this.label = label;
+            this.pages = pages;
+        }
+
+        /**
+         * @return the element the group stands for in the model: the scope
+         *         attribute statement, the first statement of a page, or the
+         *         model itself for the statements before any scope
+         */
+        public EObject getElement(Model model) {
+            return elementIndex < 0 ? model : model.getStatements().get(elementIndex);
+        }
+
+        /** @return index of the first statement of the range */
+        public int getStart() { return start; }
+
+        /** @return index after the last statement of the range */
+        public int getEnd() { return end; }
+
+        public int size() { return end - start; }
+
+        public String getLabel() { return label; }
+
+        /** @return the pages of a large scope, empty if the statements are listed directly */
+        public List<Group> getPages() { return pages; }
+
+        /** @return the statements of the range, without the heading scope statement */
+        public List<Statement> getStatements(Model model) {
+            return model.getStatements().subList(start, end);
+        }
+    }
+
+    /**
+     * @return the groups of the model's statements, empty if the model is
+     *         small enough to be shown flat
+     */
+    public static List<Group> group(Model model) {
+        List<Statement> statements = model.getStatements();
+        if (statements.size() <= GROUPING_THRESHOLD) {
+            return Collections.emptyList();
+        }
+
+        List<Group> groups = new ArrayList<>();
+        int scope = -1;
+        for (int i = 0; i <= statements.size(); i++) {
+            if (i == statements.size() || statements.get(i) instanceof AttributeStatement) {
+                if (scope >= 0 || i > 0) {
+                    groups.add(scopeGroup(statements, scope, i));
+                }
+                scope = i;
+            }
+        }
+        return groups;
+    }
+
+    private static Group scopeGroup(List<Statement> statements, int scope, int end) {
+        int start = scope + 1;
+        String label = scope < 0
+                ? "(no attributes)"
+                : BuildfileDSLOutlineLabels.getAttributeStatementLabel((AttributeStatement) statements.get(scope));
+        label = label + " (" + (end - start) + ")";
+
+        List<Group> pages = Collections.emptyList();
+        if (end - start > PAGE_SIZE) {
+            pages = new ArrayList<>();
+            for (int pageStart = start; pageStart < end; pageStart += PAGE_SIZE) {
+                int pageEnd = Math.min(pageStart + PAGE_SIZE, end);
+                String pageLabel = name(statements.get(pageStart)) + " … " + name(statements.get(pageEnd - 1))
+                        + " (" + (pageEnd - pageStart) + ")";
+                pages.add(new Group(pageStart, pageStart, pageEnd, pageLabel, Collections.emptyList()));
+            }
+        }
+        return new Group(scope, start, end, label, pages);
+    }
+
+    private static String name(Statement statement) {
+        if (statement instanceof DeploymentStatement) {
+            return ((DeploymentStatement) statement).getPath();
+        }
+        return BuildfileDSLOutlineLabels.getName(statement);
+    }
+}
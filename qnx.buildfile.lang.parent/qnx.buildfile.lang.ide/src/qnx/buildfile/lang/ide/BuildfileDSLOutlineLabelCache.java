@@ -0,0 +1,66 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.util.IResourceScopeCache;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Outline labels of {@link BuildfileDSLOutlineLabels}, computed once per
+ * element and kept until the buildfile changes.
+ * <p>
+ * The labels are kept in the resource's {@link IResourceScopeCache}, so
+ * refreshing the outline, expanding nodes or answering the same document
+ * symbol request again reuses them. Equal labels (the same {@code uid=0}
+ * all over a buildfile) are interned.
+ */
+@Singleton
+public class BuildfileDSLOutlineLabelCache {
+
+    private static final String NAMES = BuildfileDSLOutlineLabelCache.class.getName() + "#names";
+    private static final String LABELS = BuildfileDSLOutlineLabelCache.class.getName() + "#labels";
+
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+    @Inject
+    private IResourceScopeCache cache;
+
+    /**
+     * @see BuildfileDSLOutlineLabels#getName(EObject)
+     */
+    public String getName(EObject element) {
+        return get(NAMES, element, BuildfileDSLOutlineLabels::getName);
+    }
+
+    /**
+     * @see BuildfileDSLOutlineLabels#getLabel(EObject)
+     */
+    public String getLabel(EObject element) {
+        return get(LABELS, element, BuildfileDSLOutlineLabels::getLabel);
+    }
+
+    private String get(String key, EObject element, Function<EObject, String> compute) {
+        Resource resource = element.eResource();
+        if (resource == null) {
+            return compute.apply(element);
+        }
+        Map<EObject, String> labels = cache.get(key, resource, ConcurrentHashMap::new);
+        String label = labels.get(element);
+        if (label == null) {
+            label = compute.apply(element);
+            if (label != null) {
+                label = INTERNER.intern(label);
+                labels.put(element, label);
+            }
+        }
+        return label;
+    }
+}
@@ -16,6 +16,8 @@ import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
  * and indirectly by the LSP document symbol provider.
  * <p>
  * All methods are static utilities with no lsp4j or Eclipse UI dependencies.
+ * The outline and the document symbols go through
+ * {@link BuildfileDSLOutlineLabelCache}, which computes each label once.
  */
 public final class BuildfileDSLOutlineLabels {
 
@@ -42,6 +44,17 @@ public final class BuildfileDSLOutlineLabels {
         return null;
     }
 
+    /**
+     * Compute the label shown in the Eclipse outline: the name, followed by
+     * the assignment target for deployments.
+     */
+    public static String getLabel(EObject element) {
+        if (element instanceof DeploymentStatement) {
+            return getDeploymentLabel((DeploymentStatement) element);
+        }
+        return getName(element);
+    }
+
     /**
      * Compute a detail/description string (e.g. the assignment target).
      */
@@ -1,10 +1,12 @@
 package qnx.buildfile.lang.ide;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
-import qnx.buildfile.lang.attributes.AttributeKeywords;
+import qnx.buildfile.lang.utils.KeywordIndex;
+import qnx.buildfile.lang.utils.KeywordIndex.Match;
+import qnx.buildfile.lang.validation.AttributeSuggestions;
+import qnx.buildfile.lang.validation.IssueData;
 
 /**
  * Shared quickfix resolution logic for buildfile validation issues.
@@ -12,15 +14,13 @@ import qnx.buildfile.lang.attributes.AttributeKeywords;
  * and the LSP code action service ({@code BuildfileDSLCodeActionService}).
  * <p>
  * No Eclipse UI or lsp4j dependencies — pure Java utility.
+ * <p>
+ * The validators attach the replacement candidates to their issues (see
+ * {@link IssueData}); the message based lookups are only a fallback for
+ * issues without data.
  */
 public final class BuildfileDSLQuickfixResolvers {
 
-    /** Maximum Levenshtein distance to consider a suggestion relevant. */
-    private static final int MAX_DISTANCE = 4;
-
-    /** Maximum number of suggestions to offer. */
-    private static final int MAX_SUGGESTIONS = 3;
-
     private BuildfileDSLQuickfixResolvers() {}
 
     /**
@@ -43,13 +43,17 @@ public final class BuildfileDSLQuickfixResolvers {
      * Find the closest matching attribute keywords for an unknown attribute name.
      *
      * @param badName the unrecognized attribute name
-     * @return up to {@value #MAX_SUGGESTIONS} closest matches, sorted by distance
+     * @return up to {@value AttributeSuggestions#MAX_SUGGESTIONS} closest matches, sorted by distance
      */
     public static List<Suggestion> suggestAttributeNames(String badName) {
         if (badName == null || badName.isEmpty()) {
             return List.of();
         }
-        return findClosestMatches(badName, AttributeKeywords.ALL_ATTRIBUTE_KEYWORDS);
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (Match match : AttributeSuggestions.attributeNames(badName)) {
+            suggestions.add(new Suggestion(match.getKeyword(), match.getDistance()));
+        }
+        return suggestions;
     }
 
     /**
@@ -74,46 +78,50 @@ public final class BuildfileDSLQuickfixResolvers {
         return null;
     }
 
-    private static List<Suggestion> findClosestMatches(String badName, List<String> keywords) {
-        List<Suggestion> candidates = new ArrayList<>();
-        String lowerBadName = badName.toLowerCase();
-
-        for (String keyword : keywords) {
-            int distance = levenshteinDistance(lowerBadName, keyword.toLowerCase());
-            if (distance <= MAX_DISTANCE && distance > 0) {
-                candidates.add(new Suggestion(keyword, distance));
-            }
+    /**
+     * Replacement candidates for an issue: taken from its {@link IssueData}
+     * when the validator attached some, otherwise looked up again from the
+     * bad attribute name found in the message.
+     *
+     * @param data the issue data, possibly {@code null}
+     * @param message the issue message
+     */
+    public static List<String> getCandidates(String[] data, String message) {
+        if (IssueData.isValid(data)) {
+            return IssueData.getCandidates(data);
         }
-
-        candidates.sort(Comparator.comparingInt(Suggestion::getDistance));
-
-        if (candidates.size() > MAX_SUGGESTIONS) {
-            candidates = candidates.subList(0, MAX_SUGGESTIONS);
+        String badName = extractBadNameFromMessage(message);
+        List<String> candidates = new ArrayList<>();
+        for (Suggestion suggestion : suggestAttributeNames(badName)) {
+            candidates.add(suggestion.getKeyword());
         }
-
         return candidates;
     }
 
+    /**
+     * The offending token of an issue, from its {@link IssueData} or its message.
+     */
+    public static String getBadToken(String[] data, String message) {
+        if (IssueData.isValid(data)) {
+            return IssueData.getBadToken(data);
+        }
+        return extractBadNameFromMessage(message);
+    }
+
     /**
      * Compute the Levenshtein distance between two strings.
      */
     public static int levenshteinDistance(String a, String b) {
-        int lenA = a.length();
-        int lenB = b.length();
-        int[][] dp = new int[lenA + 1][lenB + 1];
-
-        for (int i = 0; i <= lenA; i++) dp[i][0] = i;
-        for (int j = 0; j <= lenB; j++) dp[0][j] = j;
-
-        for (int i = 1; i <= lenA; i++) {
-            for (int j = 1; j <= lenB; j++) {
-                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + cost);
-            }
-        }
+        return KeywordIndex.levenshteinDistance(a, b);
+    }
 
-        return dp[lenA][lenB];
+    /**
+     * Compute the Levenshtein distance between two strings, giving up as soon
+     * as it is known to exceed {@code max}.
+     *
+     * @return the distance, or {@code max + 1} if it is greater than {@code max}
+     */
+    public static int boundedLevenshteinDistance(String a, String b, int max) {
+        return KeywordIndex.boundedLevenshteinDistance(a, b, max);
     }
 }
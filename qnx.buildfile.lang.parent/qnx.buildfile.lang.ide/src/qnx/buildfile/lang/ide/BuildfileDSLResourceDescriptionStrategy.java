@@ -1,5 +1,9 @@
 package qnx.buildfile.lang.ide;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.EObjectDescription;
@@ -7,31 +11,103 @@ import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionStrategy;
 import org.eclipse.xtext.util.IAcceptor;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import qnx.buildfile.lang.buildfileDSL.AttributeSection;
 import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
-import qnx.buildfile.lang.buildfileDSL.BooleanAttribute;
 import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
-import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.validation.DeploymentLocation;
 
 /**
- * Controls which buildfile elements are exported to the resource description
- * (and thus appear in document symbols / outline for LSP).
+ * Controls which buildfile elements are exported to the workspace index, see
+ * {@link IndexExportPolicy}.
+ * <p>
+ * {@link DeploymentStatement}s are always exported, named by their target
+ * path, with the position of the path and the deployed source as user data so
+ * that {@link BuildfileDSLWorkspaceDeploymentIndex} can answer without loading
+ * the buildfile. The outline / document symbols are computed from the model,
+ * not from the index, so attributes are only exported on request.
  * <p>
- * Exports:
- * <ul>
- *   <li>{@link AttributeStatement} — named by their bracket content</li>
- *   <li>{@link DeploymentStatement} — named by their target path</li>
- *   <li>{@link BooleanAttribute} and {@link ValuedAttribute} — as children</li>
- * </ul>
+ * The index keeps a copy of every exported description for as long as the
+ * server runs. Names and user data values are interned: a workspace deploys
+ * the same host paths and repeats the same few attributes over and over.
  */
 public class BuildfileDSLResourceDescriptionStrategy extends DefaultResourceDescriptionStrategy {
 
+    public static final String LINE = "line";
+    public static final String COLUMN = "column";
+    public static final String LENGTH = "length";
+    public static final String SOURCE = "source";
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+    private static final Interner<QualifiedName> NAMES = Interners.newWeakInterner();
+
+    private IndexExportPolicy exportPolicy = IndexExportPolicy.fromSystemProperty();
+
+    public IndexExportPolicy getExportPolicy() {
+        return exportPolicy;
+    }
+
+    public void setExportPolicy(IndexExportPolicy exportPolicy) {
+        this.exportPolicy = exportPolicy;
+    }
+
     @Override
     public boolean createEObjectDescriptions(EObject eObject, IAcceptor<IEObjectDescription> acceptor) {
-        String name = BuildfileDSLOutlineLabels.getName(eObject);
-        if (name != null && !name.isEmpty()) {
-            acceptor.accept(EObjectDescription.create(QualifiedName.create(name), eObject));
+        if (eObject instanceof DeploymentStatement) {
+            DeploymentLocation location = DeploymentLocation.of((DeploymentStatement) eObject);
+            if (location != null && location.getPath() != null && !location.getPath().isEmpty()) {
+                Map<String, String> userData = new HashMap<>(4);
+                userData.put(LINE, intern(Integer.toString(location.getLine())));
+                userData.put(COLUMN, intern(Integer.toString(location.getColumn())));
+                userData.put(LENGTH, intern(Integer.toString(location.getLength())));
+                userData.put(SOURCE, intern(location.getSource()));
+                acceptor.accept(EObjectDescription.create(name(location.getPath()), eObject, userData));
+            }
+            return exportPolicy == IndexExportPolicy.ALL;
         }
-        // Return true to continue descending into children
-        return true;
+        if (eObject instanceof Model || eObject instanceof AttributeSection) {
+            return true;
+        }
+        if (exportPolicy == IndexExportPolicy.ALL) {
+            String name = BuildfileDSLOutlineLabels.getName(eObject);
+            if (name != null && !name.isEmpty()) {
+                acceptor.accept(EObjectDescription.create(name(name), eObject));
+            }
+            return eObject instanceof AttributeStatement;
+        }
+        return false;
+    }
+
+    /**
+     * @return the deployment location stored by
+     *         {@link #createEObjectDescriptions(EObject, IAcceptor)}, or null
+     *         if the description was not created by this strategy
+     */
+    public static DeploymentLocation toDeploymentLocation(IEObjectDescription description) {
+        String line = description.getUserData(LINE);
+        String column = description.getUserData(COLUMN);
+        String length = description.getUserData(LENGTH);
+        String source = description.getUserData(SOURCE);
+        if (line == null || column == null || length == null || source == null) {
+            return null;
+        }
+        try {
+            URI uri = description.getEObjectURI().trimFragment();
+            return new DeploymentLocation(uri, description.getName().toString(), source,
+                    Integer.parseInt(line), Integer.parseInt(column), Integer.parseInt(length));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String intern(String value) {
+        return value != null ? STRINGS.intern(value) : null;
+    }
+
+    private static QualifiedName name(String name) {
+        return NAMES.intern(QualifiedName.create(intern(name)));
     }
 }
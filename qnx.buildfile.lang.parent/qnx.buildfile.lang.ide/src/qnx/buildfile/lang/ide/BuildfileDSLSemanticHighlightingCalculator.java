@@ -1,22 +1,23 @@
 package qnx.buildfile.lang.ide;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.xtext.ide.editor.syntaxcoloring.IHighlightedPositionAcceptor;
 import org.eclipse.xtext.ide.editor.syntaxcoloring.ISemanticHighlightingCalculator;
 import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.nodemodel.ILeafNode;
-import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.util.CancelIndicator;
 
-import qnx.buildfile.lang.buildfileDSL.AttributeSection;
-import qnx.buildfile.lang.buildfileDSL.BooleanAttribute;
-import qnx.buildfile.lang.buildfileDSL.ContentBlock;
-import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
-import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
-import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
+import com.google.inject.Inject;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.services.BuildfileDSLGrammarAccess;
 
 /**
  * Semantic highlighting for BuildfileDSL.
@@ -26,6 +27,11 @@ import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
  *   <li>Eclipse syntax coloring (via the UI module)</li>
  *   <li>LSP semantic tokens (used by VSCode)</li>
  * </ul>
+ * All positions are computed in a single pass over the leaf nodes, in
+ * document order. Each leaf is classified by the grammar element it was
+ * parsed from, with a single identity lookup: no semantic element or
+ * feature node search is needed. {@link #provideHighlightingFor(XtextResource, int, int, IHighlightedPositionAcceptor, CancelIndicator)}
+ * restricts that pass to a range of the document.
  */
 public class BuildfileDSLSemanticHighlightingCalculator implements ISemanticHighlightingCalculator {
 
@@ -50,6 +56,33 @@ public class BuildfileDSLSemanticHighlightingCalculator implements ISemanticHigh
     /** Content blocks { ... } */
     public static final String CONTENT_BLOCK = "string";
 
+    /** Style of the leaves, by the grammar element they were parsed from. */
+    private final Map<EObject, String> styles = new IdentityHashMap<>();
+
+    @Inject
+    private void initStyles(BuildfileDSLGrammarAccess grammarAccess) {
+        // Brackets [ ]
+        styles.put(grammarAccess.getAttributeSectionAccess().getLeftSquareBracketKeyword_0(), BRACKET);
+        styles.put(grammarAccess.getAttributeSectionAccess().getRightSquareBracketKeyword_2(), BRACKET);
+
+        // Boolean attribute: + or - prefix and the attribute name
+        styles.put(grammarAccess.getBooleanAttributeAccess().getEnabledPlusSignKeyword_0_0_0(), BOOLEAN_MODIFIER);
+        styles.put(grammarAccess.getBooleanAttributeAccess().getHyphenMinusKeyword_0_1(), BOOLEAN_MODIFIER);
+        styles.put(grammarAccess.getBooleanAttributeAccess().getNameALMOST_ANYTHINGTerminalRuleCall_1_0(), ATTRIBUTE_NAME);
+
+        // Valued attribute: name = value
+        styles.put(grammarAccess.getValuedAttributeAccess().getNameALMOST_ANYTHINGTerminalRuleCall_0_0(), ATTRIBUTE_NAME);
+        styles.put(grammarAccess.getValuedAttributeAccess().getEqualsSignKeyword_1(), OPERATOR);
+        styles.put(grammarAccess.getValuedAttributeAccess().getValueALMOST_ANYTHINGTerminalRuleCall_2_0(), ATTRIBUTE_VALUE);
+
+        // Deployment statement: the target path, and the = sign
+        styles.put(grammarAccess.getDeploymentStatementAccess().getPathALMOST_ANYTHINGTerminalRuleCall_1_0(), PATH);
+        styles.put(grammarAccess.getDeploymentStatementAccess().getAssignmentEqualsSignKeyword_2_0_0(), OPERATOR);
+
+        // Content block { ... }
+        styles.put(grammarAccess.getContentBlockAccess().getValueBLOCKTerminalRuleCall_0(), CONTENT_BLOCK);
+    }
+
     @Override
     public void provideHighlightingFor(XtextResource resource, IHighlightedPositionAcceptor acceptor,
             CancelIndicator cancelIndicator) {
@@ -63,77 +96,68 @@ public class BuildfileDSLSemanticHighlightingCalculator implements ISemanticHigh
             if (cancelIndicator.isCanceled()) {
                 return;
             }
+            highlight(leaf, acceptor);
+        }
+    }
 
-            EObject semanticElement = leaf.getSemanticElement();
-            if (semanticElement == null) {
-                continue;
-            }
-            String text = leaf.getText();
+    /**
+     * Highlights only the leaves overlapping {@code [offset, offset + length)},
+     * e.g. the viewport of a {@code semanticTokens/range} request.
+     * <p>
+     * The first statement in range is found with a binary search over the
+     * statements of the model, so the cost only depends on the size of the range.
+     */
+    public void provideHighlightingFor(XtextResource resource, int offset, int length,
+            IHighlightedPositionAcceptor acceptor, CancelIndicator cancelIndicator) {
+        if (resource == null || resource.getParseResult() == null) {
+            return;
+        }
 
-            // Brackets [ ]
-            if (semanticElement instanceof AttributeSection) {
-                if ("[".equals(text) || "]".equals(text)) {
-                    acceptor.addPosition(leaf.getOffset(), leaf.getLength(), BRACKET);
-                }
-            }
+        EObject root = resource.getParseResult().getRootASTElement();
+        if (!(root instanceof Model)) {
+            return;
+        }
 
-            // Boolean attribute: + or - prefix and the attribute name
-            if (semanticElement instanceof BooleanAttribute) {
-                if ("+".equals(text) || "-".equals(text)) {
-                    acceptor.addPosition(leaf.getOffset(), leaf.getLength(), BOOLEAN_MODIFIER);
-                } else if (!leaf.isHidden()) {
-                    acceptor.addPosition(leaf.getOffset(), leaf.getLength(), ATTRIBUTE_NAME);
-                }
+        List<Statement> statements = ((Model) root).getStatements();
+        int end = offset + length;
+        for (int i = firstStatementEndingAfter(statements, offset); i < statements.size(); i++) {
+            if (cancelIndicator.isCanceled()) {
+                return;
             }
-
-            // Valued attribute: name = value
-            if (semanticElement instanceof ValuedAttribute) {
-                if ("=".equals(text)) {
-                    acceptor.addPosition(leaf.getOffset(), leaf.getLength(), OPERATOR);
-                } else if (!leaf.isHidden()) {
-                    ValuedAttribute attr = (ValuedAttribute) semanticElement;
-                    INode nameNode = getFirstNode(attr, BuildfileDSLPackage.Literals.ATTRIBUTE__NAME);
-                    if (nameNode != null && leaf.getOffset() == nameNode.getOffset()) {
-                        acceptor.addPosition(leaf.getOffset(), leaf.getLength(), ATTRIBUTE_NAME);
-                    } else {
-                        acceptor.addPosition(leaf.getOffset(), leaf.getLength(), ATTRIBUTE_VALUE);
-                    }
-                }
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(i));
+            if (node == null) {
+                continue;
             }
-
-            // Deployment statement: path = content, and the = sign
-            if (semanticElement instanceof DeploymentStatement) {
-                if ("=".equals(text)) {
-                    acceptor.addPosition(leaf.getOffset(), leaf.getLength(), OPERATOR);
-                }
+            if (node.getTotalOffset() >= end) {
+                return;
             }
-
-            // Content block { ... }
-            if (semanticElement instanceof ContentBlock && !leaf.isHidden()) {
-                acceptor.addPosition(leaf.getOffset(), leaf.getLength(), CONTENT_BLOCK);
+            for (ILeafNode leaf : node.getLeafNodes()) {
+                if (leaf.getTotalEndOffset() > offset && leaf.getTotalOffset() < end) {
+                    highlight(leaf, acceptor);
+                }
             }
         }
+    }
 
-        // Highlight deployment paths using node model
-        for (INode node : rootNode.getAsTreeIterable()) {
-            if (cancelIndicator.isCanceled()) {
-                return;
-            }
-            EObject element = node.getSemanticElement();
-            if (element instanceof DeploymentStatement) {
-                DeploymentStatement ds = (DeploymentStatement) element;
-                if (ds.getPath() != null) {
-                    INode pathNode = getFirstNode(ds, BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH);
-                    if (pathNode != null) {
-                        acceptor.addPosition(pathNode.getOffset(), pathNode.getLength(), PATH);
-                    }
-                }
+    private static int firstStatementEndingAfter(List<Statement> statements, int offset) {
+        int low = 0;
+        int high = statements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(middle));
+            if (node != null && node.getTotalEndOffset() <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
             }
         }
+        return low;
     }
 
-    private INode getFirstNode(EObject element, EStructuralFeature feature) {
-        var nodes = NodeModelUtils.findNodesForFeature(element, feature);
-        return nodes.isEmpty() ? null : nodes.get(0);
+    private void highlight(ILeafNode leaf, IHighlightedPositionAcceptor acceptor) {
+        String style = styles.get(leaf.getGrammarElement());
+        if (style != null) {
+            acceptor.addPosition(leaf.getOffset(), leaf.getLength(), style);
+        }
     }
 }
@@ -0,0 +1,130 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsProvider;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
+import qnx.buildfile.lang.validation.DeploymentLocation;
+import qnx.buildfile.lang.validation.WorkspaceDeploymentIndex;
+
+/**
+ * Deployment paths of all the buildfiles known to the workspace index (the
+ * language server's index, or the resource set when there is none).
+ * <p>
+ * The deployments are read from the exported objects, see
+ * {@link BuildfileDSLResourceDescriptionStrategy}, and kept by path. The index
+ * is refreshed on each lookup, but only for the buildfiles whose resource
+ * description changed since the previous lookup: the builder replaces the
+ * description of a rebuilt buildfile and keeps the others as they are.
+ */
+@Singleton
+public class BuildfileDSLWorkspaceDeploymentIndex implements WorkspaceDeploymentIndex {
+
+    private static final Comparator<DeploymentLocation> ORDER = Comparator
+            .comparing((DeploymentLocation location) -> location.getUri().toString())
+            .thenComparingInt(DeploymentLocation::getLine);
+
+    private static final class IndexedFile {
+        final IResourceDescription description;
+        final List<DeploymentLocation> deployments;
+
+        IndexedFile(IResourceDescription description, List<DeploymentLocation> deployments) {
+            this.description = description;
+            this.deployments = deployments;
+        }
+    }
+
+    @Inject
+    private ResourceDescriptionsProvider resourceDescriptionsProvider;
+
+    private final Map<URI, IndexedFile> files = new HashMap<>();
+    private final Map<String, List<DeploymentLocation>> deploymentsByPath = new HashMap<>();
+
+    @Override
+    public synchronized Map<String, List<DeploymentLocation>> getOtherDeployments(Resource resource, Collection<String> paths) {
+        if (resource.getResourceSet() == null) {
+            return Collections.emptyMap();
+        }
+        refresh(resourceDescriptionsProvider.getResourceDescriptions(resource.getResourceSet()));
+
+        // The index knows the buildfiles by their normalized URI
+        URI uri = EcoreUtil2.getNormalizedURI(resource);
+        Map<String, List<DeploymentLocation>> result = new HashMap<>();
+        for (String path : paths) {
+            List<DeploymentLocation> others = new ArrayList<>();
+            for (DeploymentLocation location : deploymentsByPath.getOrDefault(path, Collections.emptyList())) {
+                if (!location.getUri().equals(uri)) {
+                    others.add(location);
+                }
+            }
+            if (!others.isEmpty()) {
+                others.sort(ORDER);
+                result.put(path, others);
+            }
+        }
+        return result;
+    }
+
+    private void refresh(IResourceDescriptions descriptions) {
+        Set<URI> seen = new HashSet<>();
+        for (IResourceDescription description : descriptions.getAllResourceDescriptions()) {
+            URI uri = description.getURI();
+            seen.add(uri);
+            IndexedFile indexed = files.get(uri);
+            if (indexed != null && indexed.description == description) {
+                continue;
+            }
+            if (indexed != null) {
+                unindex(indexed);
+            }
+            List<DeploymentLocation> deployments = new ArrayList<>();
+            for (IEObjectDescription exported : description.getExportedObjectsByType(BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT)) {
+                DeploymentLocation location = BuildfileDSLResourceDescriptionStrategy.toDeploymentLocation(exported);
+                if (location != null) {
+                    deployments.add(location);
+                    deploymentsByPath.computeIfAbsent(location.getPath(), path -> new ArrayList<>(2)).add(location);
+                }
+            }
+            files.put(uri, new IndexedFile(description, deployments));
+        }
+
+        for (Iterator<Map.Entry<URI, IndexedFile>> it = files.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<URI, IndexedFile> entry = it.next();
+            if (!seen.contains(entry.getKey())) {
+                unindex(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private void unindex(IndexedFile indexed) {
+        for (DeploymentLocation location : indexed.deployments) {
+            List<DeploymentLocation> locations = deploymentsByPath.get(location.getPath());
+            if (locations != null) {
+                locations.remove(location);
+                if (locations.isEmpty()) {
+                    deploymentsByPath.remove(location.getPath());
+                }
+            }
+        }
+    }
+}
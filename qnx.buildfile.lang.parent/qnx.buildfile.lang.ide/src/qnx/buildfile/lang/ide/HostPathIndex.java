@@ -0,0 +1,366 @@
+package qnx.buildfile.lang.ide;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.inject.Singleton;
+
+/**
+ * In-memory index of the host directories deployments take their sources
+ * from, for the completion of source paths.
+ * <p>
+ * Completion never lists a directory itself: {@link #complete(Path, String)}
+ * answers from the index, and an unknown directory is only queued for
+ * indexing on a background thread, so the first request for it gets nothing.
+ * Indexed directories are then kept up to date by a {@link WatchService}.
+ * <p>
+ * Entries are paths relative to the indexed directory, with {@code /}
+ * separators and a trailing {@code /} for directories. At most
+ * {@link #MAX_ROOTS} directories are indexed, the least recently completed
+ * ones are dropped first, and all the indexes together hold at most
+ * {@link #MAX_ENTRIES} entries: a directory that does not fit is indexed
+ * partially.
+ * <p>
+ * On Linux each watched directory takes an inotify watch, out of a budget
+ * shared by all the processes of the user, so at most {@link #MAX_WATCHES}
+ * directories are watched, the shallowest of each indexed directory first.
+ * The ones indexed beyond are not refreshed.
+ */
+@Singleton
+public class HostPathIndex {
+
+    /** Maximum number of indexed directories. */
+    public static final int MAX_ROOTS = 16;
+
+    /** Maximum number of entries over all the indexed directories. */
+    public static final int MAX_ENTRIES = 200_000;
+
+    /** Depth below the indexed directories up to which entries are indexed. */
+    public static final int MAX_DEPTH = 8;
+
+    /** Maximum number of watched directories over all the indexed directories. */
+    public static final int MAX_WATCHES = 1024;
+
+    /**
+     * The index of a directory.
+     */
+    private final class Root {
+        final Path directory;
+        final NavigableSet<String> entries = new ConcurrentSkipListSet<>();
+        final Set<WatchKey> keys = new HashSet<>();
+        final CompletableFuture<Void> indexed = new CompletableFuture<>();
+        volatile boolean dropped;
+        volatile boolean truncated;
+
+        Root(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Index the directory at the relative path and below, breadth first,
+         * so that the entries and the watches that fit are the shallowest.
+         */
+        void index(String relative) {
+            Deque<String> pending = new ArrayDeque<>();
+            pending.add(relative);
+            while (!pending.isEmpty()) {
+                String next = pending.remove();
+                Path path = next.isEmpty() ? directory : directory.resolve(next);
+                watch(this, path, next);
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
+                    for (Path child : children) {
+                        if (dropped) {
+                            return;
+                        }
+                        boolean isDirectory = Files.isDirectory(child);
+                        String entry = next + child.getFileName().toString() + (isDirectory ? "/" : "");
+                        if (!add(entry)) {
+                            return;
+                        }
+                        if (isDirectory && depth(entry) < MAX_DEPTH) {
+                            pending.add(entry);
+                        }
+                    }
+                } catch (IOException | SecurityException e) {
+                    // Not readable, nothing to complete there
+                }
+            }
+        }
+
+        boolean add(String entry) {
+            if (entries.contains(entry)) {
+                return true;
+            }
+            if (entryCount.incrementAndGet() > MAX_ENTRIES) {
+                entryCount.decrementAndGet();
+                truncated = true;
+                return false;
+            }
+            if (!entries.add(entry)) {
+                entryCount.decrementAndGet();
+            }
+            return true;
+        }
+
+        /**
+         * Remove the entry and, for a directory, everything below it.
+         */
+        void remove(String name) {
+            for (String entry : new String[] { name, name + "/" }) {
+                if (entries.remove(entry)) {
+                    entryCount.decrementAndGet();
+                }
+            }
+            clear(name + "/");
+        }
+
+        /**
+         * Remove everything below the directory entry, {@code ""} for all.
+         */
+        void clear(String directoryEntry) {
+            NavigableSet<String> below = entries.subSet(directoryEntry, false, directoryEntry + Character.MAX_VALUE, false);
+            for (Iterator<String> it = below.iterator(); it.hasNext();) {
+                it.next();
+                it.remove();
+                entryCount.decrementAndGet();
+            }
+            for (Iterator<WatchKey> it = keys.iterator(); it.hasNext();) {
+                WatchKey key = it.next();
+                String relative = watched.getOrDefault(key, Map.of()).get(this);
+                if (relative == null || relative.startsWith(directoryEntry)) {
+                    unwatch(this, key);
+                    it.remove();
+                }
+            }
+        }
+
+        void drop() {
+            dropped = true;
+            clear("");
+        }
+    }
+
+    private final Map<Path, Root> roots = new LinkedHashMap<>(16, 0.75f, true);
+    /** The roots watching each directory, with its path relative to them. */
+    private final Map<WatchKey, Map<Root, String>> watched = new ConcurrentHashMap<>();
+    private final AtomicInteger entryCount = new AtomicInteger();
+
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Host path indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WatchService watchService;
+
+    /**
+     * @return the entries of the indexed directory that complete the prefix:
+     *         the entries of the prefix's directory whose name starts with
+     *         the rest of the prefix, sorted; empty if the directory is not
+     *         indexed yet, in which case it is queued for indexing
+     */
+    public List<String> complete(Path directory, String prefix) {
+        Root root = getRoot(directory);
+        List<String> result = new ArrayList<>();
+        if (!root.indexed.isDone()) {
+            return result;
+        }
+        String from = prefix != null ? prefix : "";
+        String next = root.entries.ceiling(from);
+        if (next != null && from.endsWith("/") && next.equals(from)) {
+            // The directory itself
+            next = root.entries.higher(next);
+        }
+        while (next != null && next.startsWith(from)) {
+            int slash = next.indexOf('/', from.length());
+            if (slash >= 0 && slash < next.length() - 1) {
+                // Below a directory that is not listed itself, continue after it
+                next = root.entries.higher(next.substring(0, slash + 1) + Character.MAX_VALUE);
+                continue;
+            }
+            result.add(next);
+            next = root.entries.higher(slash >= 0 ? next + Character.MAX_VALUE : next);
+        }
+        return result;
+    }
+
+    /**
+     * Queue the directory for indexing, if it is not indexed yet.
+     *
+     * @return completed once the directory is indexed
+     */
+    public CompletableFuture<Void> index(Path directory) {
+        return getRoot(directory).indexed;
+    }
+
+    /**
+     * @return true if the index of the directory had to leave entries out
+     */
+    public boolean isTruncated(Path directory) {
+        synchronized (roots) {
+            Root root = roots.get(directory.toAbsolutePath().normalize());
+            return root != null && root.truncated;
+        }
+    }
+
+    /**
+     * @return the number of entries over all the indexed directories
+     */
+    public int getEntryCount() {
+        return entryCount.get();
+    }
+
+    /**
+     * @return the number of watched directories
+     */
+    public int getWatchCount() {
+        return watched.size();
+    }
+
+    private Root getRoot(Path directory) {
+        Path key = directory.toAbsolutePath().normalize();
+        synchronized (roots) {
+            Root root = roots.get(key);
+            if (root != null) {
+                return root;
+            }
+            root = new Root(key);
+            roots.put(key, root);
+            if (roots.size() > MAX_ROOTS) {
+                Iterator<Root> eldest = roots.values().iterator();
+                Root dropped = eldest.next();
+                eldest.remove();
+                dropped.dropped = true;
+                indexer.execute(dropped::drop);
+            }
+            Root indexed = root;
+            indexer.execute(() -> {
+                try {
+                    if (!indexed.dropped) {
+                        indexed.index("");
+                    }
+                } finally {
+                    indexed.indexed.complete(null);
+                }
+            });
+            return root;
+        }
+    }
+
+    private void watch(Root root, Path directory, String relative) {
+        if (watched.size() >= MAX_WATCHES) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (watchService == null) {
+                    watchService = directory.getFileSystem().newWatchService();
+                    Thread watcher = new Thread(this::processEvents, "Host path watcher");
+                    watcher.setDaemon(true);
+                    watcher.start();
+                }
+            }
+            // Registering a directory again gives the same key
+            WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+            root.keys.add(key);
+            watched.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(root, relative);
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // Still indexed, just not refreshed
+        }
+    }
+
+    private void unwatch(Root root, WatchKey key) {
+        Map<Root, String> roots = watched.get(key);
+        if (roots != null) {
+            roots.remove(root);
+            if (roots.isEmpty()) {
+                watched.remove(key);
+                key.cancel();
+            }
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            List<WatchEvent<?>> events = key.pollEvents();
+            key.reset();
+            indexer.execute(() -> apply(key, events));
+        }
+    }
+
+    private void apply(WatchKey key, List<WatchEvent<?>> events) {
+        Map<Root, String> roots = watched.get(key);
+        if (roots == null) {
+            return;
+        }
+        roots.forEach((root, relative) -> {
+            if (!root.dropped) {
+                apply(root, relative, events);
+            }
+        });
+    }
+
+    private void apply(Root root, String relative, List<WatchEvent<?>> events) {
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == OVERFLOW) {
+                // Events were lost, list the directory again
+                root.clear(relative);
+                root.index(relative);
+                continue;
+            }
+            String entry = relative + event.context().toString();
+            if (event.kind() == ENTRY_DELETE) {
+                root.remove(entry);
+            } else if (Files.isDirectory(root.directory.resolve(entry))) {
+                String directoryEntry = entry + "/";
+                if (root.add(directoryEntry) && depth(directoryEntry) < MAX_DEPTH) {
+                    root.index(directoryEntry);
+                }
+            } else {
+                root.add(entry);
+            }
+        }
+    }
+
+    private static int depth(String relative) {
+        int depth = 0;
+        for (int i = 0; i < relative.length(); i++) {
+            if (relative.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+}
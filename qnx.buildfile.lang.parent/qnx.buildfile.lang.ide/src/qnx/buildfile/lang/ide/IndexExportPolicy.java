@@ -0,0 +1,39 @@
+package qnx.buildfile.lang.ide;
+
+import java.util.Locale;
+
+/**
+ * Which buildfile elements {@link BuildfileDSLResourceDescriptionStrategy}
+ * exports to the workspace index.
+ * <p>
+ * The policy is read from the {@code indexExport} system property, which the
+ * VSCode extension sets from the {@code qnx-buildfile-lang.server.indexExport}
+ * setting when launching the server.
+ */
+public enum IndexExportPolicy {
+
+    /** Only the deployment target paths, which is all the index is used for. */
+    DEPLOYMENTS,
+
+    /** Deployment target paths, attribute statements and every attribute. */
+    ALL;
+
+    /** System property name set by the VSCode extension at launch time. */
+    public static final String SYSTEM_PROPERTY = "indexExport";
+
+    /**
+     * @return the policy named by the system property, {@link #DEPLOYMENTS}
+     *         if it is not set or names no policy
+     */
+    public static IndexExportPolicy fromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value != null) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                // Fall back to the default
+            }
+        }
+        return DEPLOYMENTS;
+    }
+}
@@ -0,0 +1,35 @@
+package qnx.buildfile.lang.ide.server;
+
+import java.util.List;
+
+import org.eclipse.lsp4j.ExecuteCommandParams;
+import org.eclipse.xtext.ide.server.ILanguageServerAccess;
+import org.eclipse.xtext.ide.server.commands.IExecutableCommandService;
+import org.eclipse.xtext.util.CancelIndicator;
+
+/**
+ * {@code workspace/executeCommand} commands of the language server.
+ * <p>
+ * <ul>
+ *   <li>{@value #SERVER_STATISTICS} — heap, GC and thread figures of the
+ *       server JVM, see {@link ServerStatistics}; used by the VSCode
+ *       extension to check the effect of its JVM settings.</li>
+ * </ul>
+ */
+public class BuildfileDSLExecutableCommandService implements IExecutableCommandService {
+
+    public static final String SERVER_STATISTICS = "qnx-buildfile-lang.server.statistics";
+
+    @Override
+    public List<String> initialize() {
+        return List.of(SERVER_STATISTICS);
+    }
+
+    @Override
+    public Object execute(ExecuteCommandParams params, ILanguageServerAccess access, CancelIndicator cancelIndicator) {
+        if (SERVER_STATISTICS.equals(params.getCommand())) {
+            return ServerStatistics.collect();
+        }
+        return null;
+    }
+}
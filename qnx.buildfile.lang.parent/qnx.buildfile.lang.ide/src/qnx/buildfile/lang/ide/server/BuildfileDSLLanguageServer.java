@@ -0,0 +1,161 @@
+package qnx.buildfile.lang.ide.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.lsp4j.DidChangeConfigurationParams;
+import org.eclipse.lsp4j.DidCloseTextDocumentParams;
+import org.eclipse.lsp4j.DidOpenTextDocumentParams;
+import org.eclipse.lsp4j.InitializeParams;
+import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensDelta;
+import org.eclipse.lsp4j.SemanticTokensDeltaParams;
+import org.eclipse.lsp4j.SemanticTokensRangeParams;
+import org.eclipse.lsp4j.SemanticTokensServerFull;
+import org.eclipse.lsp4j.SemanticTokensWithRegistrationOptions;
+import org.eclipse.lsp4j.ServerCapabilities;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.xtext.ide.server.BuildManager.Buildable;
+import org.eclipse.xtext.ide.server.LanguageServerImpl;
+import org.eclipse.xtext.resource.IResourceServiceProvider;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.inject.Inject;
+
+import qnx.buildfile.lang.validation.CustomValidatorJarPathProvider;
+
+/**
+ * Language server for buildfiles.
+ * <p>
+ * On top of what {@link LanguageServerImpl} provides, it advertises and
+ * implements {@code semanticTokens/range} and {@code semanticTokens/full/delta}
+ * through {@link BuildfileDSLSemanticTokensService}, and swaps the custom
+ * validator JAR when the {@code qnx-buildfile-lang.customValidatorJarPath}
+ * setting changes, without restarting.
+ */
+public class BuildfileDSLLanguageServer extends LanguageServerImpl {
+
+    /** Settings section of the VSCode extension, see its package.json. */
+    public static final String SETTINGS_SECTION = "qnx-buildfile-lang";
+
+    public static final String CUSTOM_VALIDATOR_JAR_PATH_SETTING = "customValidatorJarPath";
+
+    @Inject
+    private BuildfileDSLSemanticTokensService semanticTokensService;
+
+    private final Set<URI> openDocuments = ConcurrentHashMap.newKeySet();
+
+    @Override
+    protected ServerCapabilities createServerCapabilities(InitializeParams params) {
+        ServerCapabilities capabilities = super.createServerCapabilities(params);
+        SemanticTokensWithRegistrationOptions semanticTokens = capabilities.getSemanticTokensProvider();
+        if (semanticTokens != null) {
+            semanticTokens.setRange(true);
+            semanticTokens.setFull(new SemanticTokensServerFull(true));
+        }
+        return capabilities;
+    }
+
+    @Override
+    public CompletableFuture<Either<SemanticTokens, SemanticTokensDelta>> semanticTokensFullDelta(
+            SemanticTokensDeltaParams params) {
+        return getRequestManager().runRead(cancelIndicator -> {
+            URI uri = getURI(params.getTextDocument());
+            return getWorkspaceManager().doRead(uri,
+                (document, resource) -> semanticTokensService.semanticTokensFullDelta(document, resource, params,
+                    cancelIndicator));
+        });
+    }
+
+    @Override
+    public CompletableFuture<SemanticTokens> semanticTokensRange(SemanticTokensRangeParams params) {
+        return getRequestManager().runRead(cancelIndicator -> {
+            URI uri = getURI(params.getTextDocument());
+            return getWorkspaceManager().doRead(uri,
+                (document, resource) -> semanticTokensService.semanticTokensRange(document, resource, params,
+                    cancelIndicator));
+        });
+    }
+
+    @Override
+    public void didOpen(DidOpenTextDocumentParams params) {
+        openDocuments.add(getURI(params.getTextDocument()));
+        super.didOpen(params);
+    }
+
+    @Override
+    public void didClose(DidCloseTextDocumentParams params) {
+        URI uri = getURI(params.getTextDocument());
+        openDocuments.remove(uri);
+        semanticTokensService.forget(uri.toString());
+        super.didClose(params);
+    }
+
+    /**
+     * A new custom validator JAR path only revalidates the open documents:
+     * the validator picks up the new JAR on its next run, and the class
+     * loader of the old one is closed once the validations using it are done
+     * (see {@link qnx.buildfile.lang.utils.JarLoader#acquire}).
+     * Other settings changes are handled as usual.
+     */
+    @Override
+    public void didChangeConfiguration(DidChangeConfigurationParams params) {
+        String jarPath = getCustomValidatorJarPath(params.getSettings());
+        if (jarPath == null) {
+            super.didChangeConfiguration(params);
+            return;
+        }
+
+        runBuildable(() -> revalidateOpenDocuments(jarPath));
+    }
+
+    private Buildable revalidateOpenDocuments(String jarPath) {
+        if (!setCustomValidatorJarPath(jarPath) || openDocuments.isEmpty()) {
+            return cancelIndicator -> Collections.emptyList();
+        }
+        return getWorkspaceManager().didChangeFiles(new ArrayList<>(openDocuments), Collections.emptyList());
+    }
+
+    /**
+     * @return true if the path changed for at least one language
+     */
+    private boolean setCustomValidatorJarPath(String jarPath) {
+        boolean changed = false;
+        for (String extension : getLanguagesRegistry().getExtensionToFactoryMap().keySet()) {
+            IResourceServiceProvider provider = getLanguagesRegistry()
+                .getResourceServiceProvider(URI.createURI("synth:///file." + extension));
+            CustomValidatorJarPathProvider jarPathProvider = provider != null
+                ? provider.get(CustomValidatorJarPathProvider.class) : null;
+            if (jarPathProvider instanceof LanguageServerCustomValidatorJarPathProvider) {
+                changed |= ((LanguageServerCustomValidatorJarPathProvider) jarPathProvider).setJarPath(jarPath);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Reads {@code qnx-buildfile-lang.customValidatorJarPath} from the settings
+     * of a {@code workspace/didChangeConfiguration} notification.
+     *
+     * @return the path, empty if cleared, or {@code null} if the settings don't mention it
+     */
+    public static String getCustomValidatorJarPath(Object settings) {
+        if (!(settings instanceof JsonObject)) {
+            return null;
+        }
+        JsonElement section = ((JsonObject) settings).get(SETTINGS_SECTION);
+        if (section == null || !section.isJsonObject()) {
+            return null;
+        }
+        JsonElement jarPath = section.getAsJsonObject().get(CUSTOM_VALIDATOR_JAR_PATH_SETTING);
+        if (jarPath == null) {
+            return null;
+        }
+        return jarPath.isJsonNull() ? "" : jarPath.getAsString().trim();
+    }
+}
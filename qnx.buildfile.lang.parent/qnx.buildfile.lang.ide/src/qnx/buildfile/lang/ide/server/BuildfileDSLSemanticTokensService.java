@@ -0,0 +1,484 @@
+package qnx.buildfile.lang.ide.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.SemanticTokens;
+import org.eclipse.lsp4j.SemanticTokensDelta;
+import org.eclipse.lsp4j.SemanticTokensDeltaParams;
+import org.eclipse.lsp4j.SemanticTokensEdit;
+import org.eclipse.lsp4j.SemanticTokensParams;
+import org.eclipse.lsp4j.SemanticTokensRangeParams;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.xtext.ide.editor.syntaxcoloring.IHighlightedPositionAcceptor;
+import org.eclipse.xtext.ide.editor.syntaxcoloring.ISemanticHighlightingCalculator;
+import org.eclipse.xtext.ide.server.Document;
+import org.eclipse.xtext.ide.server.semantictokens.SemanticTokensService;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.CancelIndicator;
+
+import com.google.inject.Singleton;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.ide.BuildfileDSLSemanticHighlightingCalculator;
+
+/**
+ * Semantic tokens with {@code semanticTokens/range} and
+ * {@code semanticTokens/full/delta} support.
+ * <p>
+ * <ul>
+ *   <li>range requests only highlight the statements overlapping the range,
+ *       see {@link BuildfileDSLSemanticHighlightingCalculator};</li>
+ *   <li>full requests get a result id, and the tokens are kept per document
+ *       with the text and the statement boundaries they were computed for;</li>
+ *   <li>delta requests only highlight the statements between the common
+ *       prefix and suffix of the previous and the current text, and only send
+ *       the edited slice of the token array. When the statements next to the
+ *       edit are not the ones of the previous parse (e.g. a block was opened),
+ *       the whole document is highlighted again and the token arrays are diffed.</li>
+ * </ul>
+ */
+@Singleton
+public class BuildfileDSLSemanticTokensService extends SemanticTokensService {
+
+    /** Number of documents whose last tokens are kept for delta requests. */
+    private static final int MAX_DOCUMENTS = 32;
+
+    private final AtomicLong resultIds = new AtomicLong();
+
+    private final Map<String, PreviousResult> previousResults = Collections.synchronizedMap(
+        new LinkedHashMap<String, PreviousResult>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreviousResult> eldest) {
+                return size() > MAX_DOCUMENTS;
+            }
+        });
+
+    private static final class PreviousResult {
+        final String resultId;
+        final String text;
+        /** Total offsets of the statements. */
+        final int[] statementStarts;
+        final int[] statementEnds;
+        /** Offset of each token of the data. */
+        final int[] tokenOffsets;
+        final List<Integer> data;
+
+        PreviousResult(String resultId, String text, int[] statementStarts, int[] statementEnds, int[] tokenOffsets,
+                List<Integer> data) {
+            this.resultId = resultId;
+            this.text = text;
+            this.statementStarts = statementStarts;
+            this.statementEnds = statementEnds;
+            this.tokenOffsets = tokenOffsets;
+            this.data = data;
+        }
+    }
+
+    public BuildfileDSLSemanticTokensService() {
+        super();
+    }
+
+    @Override
+    public SemanticTokens semanticTokensFull(Document document, XtextResource resource, SemanticTokensParams params,
+            CancelIndicator cancelIndicator) {
+        if (document == null || resource == null) {
+            return new SemanticTokens(Collections.emptyList());
+        }
+        List<int[]> positions = collect(resource, -1, -1, cancelIndicator);
+        List<Integer> data = encode(document, positions);
+        SemanticTokens tokens = new SemanticTokens(data);
+        tokens.setResultId(remember(document, resource, positions, data));
+        return tokens;
+    }
+
+    /**
+     * If the client still has the previous result, only highlights the
+     * edited statements and returns the edit turning the previous tokens into
+     * the new ones, else computes the tokens of the whole document.
+     */
+    public Either<SemanticTokens, SemanticTokensDelta> semanticTokensFullDelta(Document document,
+            XtextResource resource, SemanticTokensDeltaParams params, CancelIndicator cancelIndicator) {
+        if (document == null || resource == null) {
+            return Either.forLeft(new SemanticTokens(Collections.emptyList()));
+        }
+        PreviousResult previous = previousResults.get(key(resource));
+        if (previous == null || !previous.resultId.equals(params.getPreviousResultId())) {
+            return Either.forLeft(semanticTokensFull(document, resource, null, cancelIndicator));
+        }
+
+        SemanticTokensDelta delta = highlightEdited(document, resource, previous, cancelIndicator);
+        if (delta == null) {
+            List<int[]> positions = collect(resource, -1, -1, cancelIndicator);
+            List<Integer> data = encode(document, positions);
+            delta = new SemanticTokensDelta(diff(previous.data, data), remember(document, resource, positions, data));
+        }
+        return Either.forRight(delta);
+    }
+
+    /**
+     * Highlights the statements between the common prefix and suffix of the
+     * previous and the current text, and splices their tokens into the
+     * previous ones.
+     *
+     * @return the edit of the previous tokens, or null if the statements next
+     *         to the edited ones changed as well
+     */
+    private SemanticTokensDelta highlightEdited(Document document, XtextResource resource, PreviousResult previous,
+            CancelIndicator cancelIndicator) {
+        if (previous.text == null || !(getCalculator(resource) instanceof BuildfileDSLSemanticHighlightingCalculator)
+                || resource.getParseResult() == null
+                || !(resource.getParseResult().getRootASTElement() instanceof Model)) {
+            return null;
+        }
+        String text = document.getContents();
+        String old = previous.text;
+        int max = Math.min(old.length(), text.length());
+        int prefix = 0;
+        while (prefix < max && old.charAt(prefix) == text.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix && old.charAt(old.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix)) {
+            suffix++;
+        }
+        int shift = text.length() - old.length();
+
+        // The statements touching the edited text, between two that must be
+        // the same as in the previous parse, at the same index from each end
+        List<Statement> statements = ((Model) resource.getParseResult().getRootASTElement()).getStatements();
+        int before = firstEndingAfter(statements, prefix - 1) - 1;
+        int after = firstStartingAfter(statements, text.length() - suffix);
+        int oldCount = previous.statementStarts.length;
+        int oldAfter = after + oldCount - statements.size();
+        if (before >= oldCount || oldAfter <= before || oldAfter > oldCount) {
+            return null;
+        }
+        if (before >= 0) {
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(before));
+            if (node == null || node.getTotalOffset() != previous.statementStarts[before]
+                    || node.getTotalEndOffset() != previous.statementEnds[before]) {
+                return null;
+            }
+        }
+        if (after < statements.size()) {
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(after));
+            if (node == null || node.getTotalOffset() - shift != previous.statementStarts[oldAfter]
+                    || node.getTotalEndOffset() - shift != previous.statementEnds[oldAfter]) {
+                return null;
+            }
+        }
+
+        int start = before >= 0 ? previous.statementEnds[before] : 0;
+        int end = after < statements.size() ? previous.statementStarts[oldAfter] + shift : text.length();
+        List<int[]> edited = collect(resource, start, end - start, cancelIndicator);
+
+        // The edited tokens replace the previous ones of the range; the token
+        // after them is encoded again, relative to the last edited one
+        int[] oldOffsets = previous.tokenOffsets;
+        int first = lowerBound(oldOffsets, start);
+        int next = lowerBound(oldOffsets, end - shift);
+        List<int[]> encoding = new ArrayList<>(edited.size() + 2);
+        if (first > 0) {
+            encoding.add(token(previous, first - 1, 0));
+        }
+        encoding.addAll(edited);
+        if (next < oldOffsets.length) {
+            encoding.add(token(previous, next, shift));
+        }
+        List<Integer> encoded = encode(document, encoding);
+        if (first > 0) {
+            encoded = encoded.subList(5, encoded.size());
+        }
+        int replaced = (next < oldOffsets.length ? next + 1 : next) - first;
+
+        List<Integer> data = new ArrayList<>(previous.data.size() + encoded.size() - replaced * 5);
+        data.addAll(previous.data.subList(0, first * 5));
+        data.addAll(encoded);
+        data.addAll(previous.data.subList((first + replaced) * 5, previous.data.size()));
+
+        int[] tokenOffsets = new int[data.size() / 5];
+        System.arraycopy(oldOffsets, 0, tokenOffsets, 0, first);
+        for (int i = 0; i < edited.size(); i++) {
+            tokenOffsets[first + i] = edited.get(i)[0];
+        }
+        for (int i = next; i < oldOffsets.length; i++) {
+            tokenOffsets[first + edited.size() + i - next] = oldOffsets[i] + shift;
+        }
+
+        int count = statements.size();
+        int[] statementStarts = new int[count];
+        int[] statementEnds = new int[count];
+        System.arraycopy(previous.statementStarts, 0, statementStarts, 0, before + 1);
+        System.arraycopy(previous.statementEnds, 0, statementEnds, 0, before + 1);
+        for (int i = before + 1; i < after; i++) {
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(i));
+            if (node == null) {
+                return null;
+            }
+            statementStarts[i] = node.getTotalOffset();
+            statementEnds[i] = node.getTotalEndOffset();
+        }
+        for (int i = after; i < count; i++) {
+            statementStarts[i] = previous.statementStarts[i - after + oldAfter] + shift;
+            statementEnds[i] = previous.statementEnds[i - after + oldAfter] + shift;
+        }
+
+        String resultId = Long.toString(resultIds.incrementAndGet());
+        previousResults.put(key(resource),
+            new PreviousResult(resultId, text, statementStarts, statementEnds, tokenOffsets, data));
+        if (replaced == 0 && encoded.isEmpty()) {
+            return new SemanticTokensDelta(Collections.emptyList(), resultId);
+        }
+        return new SemanticTokensDelta(Collections.singletonList(
+            new SemanticTokensEdit(first * 5, replaced * 5, new ArrayList<>(encoded))), resultId);
+    }
+
+    /**
+     * Computes the tokens of the given range only.
+     */
+    public SemanticTokens semanticTokensRange(Document document, XtextResource resource,
+            SemanticTokensRangeParams params, CancelIndicator cancelIndicator) {
+        if (document == null || resource == null) {
+            return new SemanticTokens(Collections.emptyList());
+        }
+        Range range = params.getRange();
+        int start = document.getOffSet(range.getStart());
+        int end = document.getOffSet(range.getEnd());
+        return new SemanticTokens(encode(document, collect(resource, start, end - start, cancelIndicator)));
+    }
+
+    /**
+     * Forget the tokens of a document, e.g. when it gets closed.
+     */
+    public void forget(String uri) {
+        previousResults.remove(uri);
+    }
+
+    private String remember(Document document, XtextResource resource, List<int[]> positions, List<Integer> data) {
+        List<Statement> statements = resource.getParseResult() != null
+            && resource.getParseResult().getRootASTElement() instanceof Model
+                ? ((Model) resource.getParseResult().getRootASTElement()).getStatements()
+                : Collections.emptyList();
+        int[] statementStarts = new int[statements.size()];
+        int[] statementEnds = new int[statements.size()];
+        String text = document.getContents();
+        for (int i = 0; i < statements.size(); i++) {
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(i));
+            if (node == null) {
+                // No boundaries to check the next edit against
+                text = null;
+                break;
+            }
+            statementStarts[i] = node.getTotalOffset();
+            statementEnds[i] = node.getTotalEndOffset();
+        }
+        int[] tokenOffsets = new int[positions.size()];
+        for (int i = 0; i < tokenOffsets.length; i++) {
+            tokenOffsets[i] = positions.get(i)[0];
+        }
+
+        String resultId = Long.toString(resultIds.incrementAndGet());
+        previousResults.put(key(resource),
+            new PreviousResult(resultId, text, statementStarts, statementEnds, tokenOffsets, data));
+        return resultId;
+    }
+
+    /**
+     * @return the position of a previous token, moved by {@code shift}
+     */
+    private static int[] token(PreviousResult previous, int index, int shift) {
+        return new int[] { previous.tokenOffsets[index] + shift, previous.data.get(index * 5 + 2),
+            previous.data.get(index * 5 + 3), previous.data.get(index * 5 + 4) };
+    }
+
+    /**
+     * @return the index of the first statement whose total end is after the offset
+     */
+    private static int firstEndingAfter(List<Statement> statements, int offset) {
+        int low = 0;
+        int high = statements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(middle));
+            if (node != null && node.getTotalEndOffset() <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index of the first statement whose total start is after the offset
+     */
+    private static int firstStartingAfter(List<Statement> statements, int offset) {
+        int low = 0;
+        int high = statements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            ICompositeNode node = NodeModelUtils.getNode(statements.get(middle));
+            if (node != null && node.getTotalOffset() <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index of the first value not less than the key
+     */
+    private static int lowerBound(int[] values, int key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static String key(XtextResource resource) {
+        return resource.getURI().toString();
+    }
+
+    /**
+     * Collects the highlighted positions in document order; a negative offset
+     * means the whole document.
+     */
+    private List<int[]> collect(XtextResource resource, int offset, int length, CancelIndicator cancelIndicator) {
+        ISemanticHighlightingCalculator calculator = getCalculator(resource);
+        if (calculator == null) {
+            return Collections.emptyList();
+        }
+
+        List<int[]> positions = new ArrayList<>();
+        IHighlightedPositionAcceptor acceptor = (positionOffset, positionLength, ids) -> {
+            int tokenType = getTokenType(ids);
+            if (tokenType != -1) {
+                positions.add(new int[] { positionOffset, positionLength, tokenType, getTokenModifiers(ids) });
+            }
+        };
+
+        if (offset < 0) {
+            calculator.provideHighlightingFor(resource, acceptor, cancelIndicator);
+        } else if (calculator instanceof BuildfileDSLSemanticHighlightingCalculator) {
+            ((BuildfileDSLSemanticHighlightingCalculator) calculator).provideHighlightingFor(resource, offset, length,
+                acceptor, cancelIndicator);
+        } else {
+            calculator.provideHighlightingFor(resource, acceptor, cancelIndicator);
+            positions.removeIf(position -> position[0] + position[1] <= offset || position[0] >= offset + length);
+        }
+
+        positions.sort((a, b) -> Integer.compare(a[0], b[0]));
+        return positions;
+    }
+
+    protected ISemanticHighlightingCalculator getCalculator(XtextResource resource) {
+        return resource.getResourceServiceProvider().get(ISemanticHighlightingCalculator.class);
+    }
+
+    /**
+     * Encodes the positions as relative LSP tokens. Only the text between two
+     * consecutive tokens is scanned, the position of the first one comes from
+     * the document.
+     */
+    private static List<Integer> encode(Document document, List<int[]> positions) {
+        List<Integer> data = new ArrayList<>(positions.size() * 5);
+        String contents = document.getContents();
+        int line = 0;
+        int character = 0;
+        int lastLine = 0;
+        int lastCharacter = 0;
+        int cursor = -1;
+
+        for (int[] position : positions) {
+            if (cursor < 0) {
+                Position start = document.getPosition(position[0]);
+                line = start.getLine();
+                character = start.getCharacter();
+            } else {
+                for (int i = cursor; i < position[0]; i++) {
+                    if (contents.charAt(i) == '\n') {
+                        line++;
+                        character = 0;
+                    } else {
+                        character++;
+                    }
+                }
+            }
+            cursor = position[0];
+
+            int deltaLine = line - lastLine;
+            data.add(deltaLine);
+            data.add(deltaLine == 0 ? character - lastCharacter : character);
+            data.add(position[1]);
+            data.add(position[2]);
+            data.add(position[3]);
+            lastLine = line;
+            lastCharacter = character;
+        }
+        return data;
+    }
+
+    /**
+     * A single edit replacing everything between the common prefix and the
+     * common suffix of the two token arrays.
+     */
+    private static List<SemanticTokensEdit> diff(List<Integer> previous, List<Integer> current) {
+        int prefix = 0;
+        int max = Math.min(previous.size(), current.size());
+        while (prefix < max && previous.get(prefix).equals(current.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && previous.get(previous.size() - 1 - suffix).equals(current.get(current.size() - 1 - suffix))) {
+            suffix++;
+        }
+        if (prefix == previous.size() && prefix == current.size()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new SemanticTokensEdit(prefix, previous.size() - prefix - suffix,
+            new ArrayList<>(current.subList(prefix, current.size() - suffix))));
+    }
+
+    private int getTokenType(String[] ids) {
+        for (String id : ids) {
+            int index = getTokenTypes().indexOf(id);
+            if (index != -1) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int getTokenModifiers(String[] ids) {
+        int bitmask = 0;
+        for (String id : ids) {
+            int index = getTokenModifiers().indexOf(id);
+            if (index != -1) {
+                bitmask |= 1 << index;
+            }
+        }
+        return bitmask;
+    }
+}
@@ -0,0 +1,19 @@
+package qnx.buildfile.lang.ide.server;
+
+import org.eclipse.xtext.ide.server.ServerLauncher;
+import org.eclipse.xtext.ide.server.ServerModule;
+import org.eclipse.xtext.util.Modules2;
+
+/**
+ * Entry point of the language server shipped with the VS Code extension.
+ * <p>
+ * Same as {@link ServerLauncher#main(String[])}, with the buildfile specific
+ * server bindings of {@link BuildfileDSLServerModule}.
+ */
+public class BuildfileDSLServerLauncher {
+
+    public static void main(String[] args) {
+        ServerLauncher.launch(ServerLauncher.class.getName(), args,
+            Modules2.mixin(new ServerModule(), new BuildfileDSLServerModule()));
+    }
+}
@@ -0,0 +1,20 @@
+package qnx.buildfile.lang.ide.server;
+
+import org.eclipse.xtext.ide.server.LanguageServerImpl;
+import org.eclipse.xtext.ide.server.semantictokens.SemanticTokensService;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * Server-level bindings (as opposed to the language bindings of
+ * {@link qnx.buildfile.lang.ide.BuildfileDSLIdeModule}), mixed into
+ * Xtext's {@link org.eclipse.xtext.ide.server.ServerModule}.
+ */
+public class BuildfileDSLServerModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        bind(LanguageServerImpl.class).to(BuildfileDSLLanguageServer.class);
+        bind(SemanticTokensService.class).to(BuildfileDSLSemanticTokensService.class);
+    }
+}
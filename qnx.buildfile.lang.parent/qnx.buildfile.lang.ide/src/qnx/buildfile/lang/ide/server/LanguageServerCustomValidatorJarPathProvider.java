@@ -0,0 +1,39 @@
+package qnx.buildfile.lang.ide.server;
+
+import com.google.inject.Singleton;
+
+import qnx.buildfile.lang.validation.SystemPropertyCustomValidatorJarPathProvider;
+
+/**
+ * Custom validator JAR path of the language server.
+ * <p>
+ * Starts with the {@code -DcustomValidatorJar} system property passed by the
+ * VSCode extension at launch, then follows the
+ * {@code qnx-buildfile-lang.customValidatorJarPath} setting sent with
+ * {@code workspace/didChangeConfiguration}, see
+ * {@link BuildfileDSLLanguageServer#didChangeConfiguration}.
+ */
+@Singleton
+public class LanguageServerCustomValidatorJarPathProvider extends SystemPropertyCustomValidatorJarPathProvider {
+
+    private volatile String jarPath;
+    private volatile boolean configured;
+
+    @Override
+    public String getJarPath() {
+        return configured ? jarPath : super.getJarPath();
+    }
+
+    /**
+     * Replace the JAR path; {@code null} or blank disables the custom validator.
+     *
+     * @return true if the path actually changed
+     */
+    public synchronized boolean setJarPath(String path) {
+        String newPath = (path == null || path.isBlank()) ? null : path.trim();
+        String oldPath = getJarPath();
+        jarPath = newPath;
+        configured = true;
+        return newPath == null ? oldPath != null : !newPath.equals(oldPath);
+    }
+}
@@ -0,0 +1,94 @@
+package qnx.buildfile.lang.ide.server;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap, garbage collection and thread figures of the language server JVM,
+ * sent back as JSON by the {@value BuildfileDSLExecutableCommandService#SERVER_STATISTICS}
+ * command.
+ */
+public class ServerStatistics {
+
+    /** Collections and accumulated collection time of one garbage collector. */
+    public static class Collector {
+        private final String name;
+        private final long collections;
+        private final long timeMillis;
+
+        Collector(GarbageCollectorMXBean bean) {
+            this.name = bean.getName();
+            this.collections = bean.getCollectionCount();
+            this.timeMillis = bean.getCollectionTime();
+        }
+
+        public String getName() { return name; }
+        public long getCollections() { return collections; }
+        public long getTimeMillis() { return timeMillis; }
+    }
+
+    private final String vm;
+    /** {@code java.vm.info}, says whether class data sharing is in use. */
+    private final String vmInfo;
+    private final long uptimeMillis;
+    private final int availableProcessors;
+    private final List<String> inputArguments;
+    private final long heapUsed;
+    private final long heapCommitted;
+    /** -1 if undefined. */
+    private final long heapMax;
+    private final long nonHeapUsed;
+    private final long nonHeapCommitted;
+    private final List<Collector> collectors = new ArrayList<>();
+    private final int threads;
+    private final int peakThreads;
+
+    private ServerStatistics() {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+
+        vm = runtime.getVmName() + " " + runtime.getVmVersion();
+        vmInfo = System.getProperty("java.vm.info");
+        uptimeMillis = runtime.getUptime();
+        availableProcessors = Runtime.getRuntime().availableProcessors();
+        inputArguments = new ArrayList<>(runtime.getInputArguments());
+        heapUsed = heap.getUsed();
+        heapCommitted = heap.getCommitted();
+        heapMax = heap.getMax();
+        nonHeapUsed = nonHeap.getUsed();
+        nonHeapCommitted = nonHeap.getCommitted();
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.add(new Collector(bean));
+        }
+        threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+    }
+
+    /**
+     * @return the current figures of this JVM
+     */
+    public static ServerStatistics collect() {
+        return new ServerStatistics();
+    }
+
+    public String getVm() { return vm; }
+    public String getVmInfo() { return vmInfo; }
+    public long getUptimeMillis() { return uptimeMillis; }
+    public int getAvailableProcessors() { return availableProcessors; }
+    public List<String> getInputArguments() { return inputArguments; }
+    public long getHeapUsed() { return heapUsed; }
+    public long getHeapCommitted() { return heapCommitted; }
+    public long getHeapMax() { return heapMax; }
+    public long getNonHeapUsed() { return nonHeapUsed; }
+    public long getNonHeapCommitted() { return nonHeapCommitted; }
+    public List<Collector> getCollectors() { return collectors; }
+    public int getThreads() { return threads; }
+    public int getPeakThreads() { return peakThreads; }
+}
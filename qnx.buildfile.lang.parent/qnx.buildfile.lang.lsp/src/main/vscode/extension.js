@@ -1,23 +1,106 @@
+const fs = require('fs')
 const path = require('path')
 const vscode = require('vscode')
-const { LanguageClient } = require('vscode-languageclient/node')
+const { LanguageClient, ExecuteCommandRequest } = require('vscode-languageclient/node')
 
 const SERVER_JAR = 'qnx.buildfile.lang.lsp-1.1.0-shaded.jar'
+const JVM_OPTIONS = 'jvm.options'
 const CONFIG_SECTION = 'qnx-buildfile-lang'
 const CONFIG_KEY = 'customValidatorJarPath'
+const SERVER_CONFIG_SECTION = CONFIG_SECTION + '.server'
+const SERVER_STATISTICS_COMMAND = 'qnx-buildfile-lang.server.statistics'
+
+/** JVM options of each qnx-buildfile-lang.server.garbageCollector value. */
+const GARBAGE_COLLECTORS = {
+  G1: ['-XX:+UseG1GC', '-XX:MaxGCPauseMillis=50'],
+  ZGC: ['-XX:+UseZGC'],
+  Parallel: ['-XX:+UseParallelGC'],
+  Serial: ['-XX:+UseSerialGC'],
+  default: []
+}
 
 /** @type {LanguageClient | undefined} */
 let client
 
+/** @type {vscode.OutputChannel | undefined} */
+let statisticsChannel
+
+/**
+ * Read the default JVM options shipped next to the server JAR, one per line,
+ * ignoring blank lines and # comments.
+ */
+function readJvmOptions(context) {
+  const file = context.asAbsolutePath(path.join('server', JVM_OPTIONS))
+  try {
+    return fs.readFileSync(file, 'utf8')
+      .split(/\r?\n/)
+      .map(line => line.trim())
+      .filter(line => line && !line.startsWith('#'))
+  } catch (e) {
+    return []
+  }
+}
+
 /**
- * Build the java command arguments, including -DcustomValidatorJar if configured.
+ * Class data sharing: the first run dumps the loaded classes into an archive
+ * in the extension storage, the next runs map it. The archive name carries
+ * the server JAR name so an extension update starts a new one.
+ */
+function classDataSharingArgs(context) {
+  const storage = context.globalStorageUri.fsPath
+  const archive = path.join(storage, SERVER_JAR.replace(/\.jar$/, '.jsa'))
+  try {
+    fs.mkdirSync(storage, { recursive: true })
+  } catch (e) {
+    return []
+  }
+  if (fs.existsSync(archive)) {
+    return ['-XX:SharedArchiveFile=' + archive]
+  }
+  return ['-XX:ArchiveClassesAtExit=' + archive]
+}
+
+/**
+ * Build the java command arguments: the default profile of server/jvm.options,
+ * then the qnx-buildfile-lang.server.* settings, then -DcustomValidatorJar if configured.
+ *
+ * Later changes of the custom validator setting are sent to the running server
+ * with workspace/didChangeConfiguration, which swaps the validator in place.
  */
 function buildServerArgs(context) {
   const jarPath = context.asAbsolutePath(path.join('server', SERVER_JAR))
   const config = vscode.workspace.getConfiguration(CONFIG_SECTION)
   const customJar = config.get(CONFIG_KEY, '').trim()
+  const serverConfig = vscode.workspace.getConfiguration(SERVER_CONFIG_SECTION)
+
+  const args = readJvmOptions(context)
+
+  const maxHeap = serverConfig.get('maxHeap', '').trim()
+  if (maxHeap) {
+    // Only with a heap size chosen by the user: with the default heap of the
+    // JVM, a very large buildfile must not take the server down
+    args.push('-Xmx' + maxHeap, '-XX:+ExitOnOutOfMemoryError')
+  }
+
+  const collector = serverConfig.get('garbageCollector', 'G1')
+  args.push(...(GARBAGE_COLLECTORS[collector] || []))
+
+  const processorCount = serverConfig.get('processorCount', 0)
+  if (processorCount > 0) {
+    args.push('-XX:ActiveProcessorCount=' + processorCount)
+  }
+
+  if (serverConfig.get('classDataSharing', true)) {
+    args.push(...classDataSharingArgs(context))
+  }
+
+  const indexExport = serverConfig.get('indexExport', 'deployments')
+  if (indexExport !== 'deployments') {
+    args.push('-DindexExport=' + indexExport)
+  }
+
+  args.push(...serverConfig.get('jvmArgs', []).map(arg => arg.trim()).filter(arg => arg))
 
-  const args = []
   if (customJar) {
     args.push('-DcustomValidatorJar=' + customJar)
   }
@@ -26,6 +109,43 @@ function buildServerArgs(context) {
   return args
 }
 
+/**
+ * Ask the server for its heap, GC and thread figures and show them.
+ */
+async function showServerStatistics() {
+  if (!client) {
+    vscode.window.showWarningMessage('QNX Buildfile Language Server is not running')
+    return
+  }
+  const stats = await client.sendRequest(ExecuteCommandRequest.type, {
+    command: SERVER_STATISTICS_COMMAND,
+    arguments: []
+  })
+  if (!stats) {
+    return
+  }
+
+  const mb = bytes => (bytes < 0 ? 'undefined' : (bytes / (1024 * 1024)).toFixed(1) + ' MB')
+  if (!statisticsChannel) {
+    statisticsChannel = vscode.window.createOutputChannel('QNX Buildfile Server Statistics')
+  }
+  statisticsChannel.appendLine('── ' + new Date().toLocaleString() + ' ──')
+  statisticsChannel.appendLine('JVM:        ' + stats.vm + ' (' + stats.vmInfo + ')')
+  statisticsChannel.appendLine('Uptime:     ' + (stats.uptimeMillis / 1000).toFixed(0) + ' s')
+  statisticsChannel.appendLine('Heap:       ' + mb(stats.heapUsed) + ' used, ' + mb(stats.heapCommitted)
+    + ' committed, ' + mb(stats.heapMax) + ' max')
+  statisticsChannel.appendLine('Non-heap:   ' + mb(stats.nonHeapUsed) + ' used, ' + mb(stats.nonHeapCommitted)
+    + ' committed')
+  for (const collector of stats.collectors) {
+    statisticsChannel.appendLine('GC:         ' + collector.name + ': ' + collector.collections
+      + ' collections, ' + collector.timeMillis + ' ms')
+  }
+  statisticsChannel.appendLine('Threads:    ' + stats.threads + ' (peak ' + stats.peakThreads + ') on '
+    + stats.availableProcessors + ' processors')
+  statisticsChannel.appendLine('Arguments:  ' + stats.inputArguments.join(' '))
+  statisticsChannel.show(true)
+}
+
 /**
  * Create and start a new LanguageClient.
  */
@@ -40,7 +160,10 @@ function startClient(context) {
       args: args
     },
     {
-      documentSelector: [{ scheme: 'file', language: 'qnx-buildfile-lang' }]
+      documentSelector: [{ scheme: 'file', language: 'qnx-buildfile-lang' }],
+      synchronize: {
+        configurationSection: CONFIG_SECTION
+      }
     }
   )
 
@@ -74,14 +197,36 @@ function activate(context) {
     })
   )
 
-  // Auto-restart when the custom validator JAR setting changes
+  context.subscriptions.push(
+    vscode.commands.registerCommand('qnx-buildfile-lang.showServerStatistics', () =>
+      showServerStatistics().catch(e =>
+        vscode.window.showErrorMessage('Could not get the language server statistics: ' + e.message)
+      )
+    )
+  )
+
+  // JVM settings only apply to a new server process
   context.subscriptions.push(
     vscode.workspace.onDidChangeConfiguration(event => {
-      if (event.affectsConfiguration(CONFIG_SECTION + '.' + CONFIG_KEY)) {
+      if (event.affectsConfiguration(SERVER_CONFIG_SECTION)) {
         vscode.window.showInformationMessage(
-          'Custom validator setting changed. Restarting QNX Buildfile Language Server...'
-        )
-        restartClient(context)
+          'QNX Buildfile Language Server JVM settings changed. They take effect after a restart.',
+          'Restart Now'
+        ).then(choice => {
+          if (choice === 'Restart Now') {
+            restartClient(context)
+          }
+        })
+      }
+    })
+  )
+
+  // The custom validator JAR setting is synchronized with the running server
+  // (see the client options above), no restart needed
+  context.subscriptions.push(
+    vscode.workspace.onDidChangeConfiguration(event => {
+      if (event.affectsConfiguration(CONFIG_SECTION + '.' + CONFIG_KEY)) {
+        vscode.window.setStatusBarMessage('QNX Buildfile: custom validator reloaded', 3000)
       }
     })
   )
@@ -0,0 +1,144 @@
+package qnx.buildfile.lang.tests
+
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.util.EcoreUtil
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.utils.BinaryModel
+import qnx.buildfile.lang.utils.LineTable
+import qnx.buildfile.lang.utils.Parser
+import qnx.buildfile.lang.utils.ParsingResult
+
+import static org.junit.jupiter.api.Assertions.*
+
+import static extension qnx.buildfile.lang.tests.TempFiles.*
+
+/**
+ * Tests for {@link BinaryModel}, which must give back the model the parser
+ * gave.
+ */
+class BinaryModelTest {
+	@TempDir Path directory
+
+	// ── Round trip ────────────────────────────────────────────────
+
+	@Test
+	def void roundTripOfTheTestFiles() {
+		for (name : #["test1.build", "test2.bld"]) {
+			val result = new Parser().parse(new File(BinaryModelTest.getResource(name).toURI))
+			assertFalse(result.model.statements.empty)
+			assertRoundTrip(result)
+		}
+	}
+
+	@Test
+	def void roundTripOfEveryConstruct() {
+		val result = new Parser().parse(directory.write("constructs.build", '''
+			# comment
+			[uid=0 gid=0 +raw -optional perms=0755]
+			[type=link] bin/sh=ksh
+			bin/app=${QNX_TARGET}/aarch64le/bin/app
+			bin/no-assignment ${QNX_TARGET}/bin/other
+			bin/no-content
+			"/path with spaces/é"="/host/é"
+			etc/conf={
+			key=value \} still in the block
+			}
+			[+optional] lib/a.so=a.so
+			bin/app=again
+		'''))
+		assertTrue(result.noErrors, result.issues.join("\n"))
+		assertRoundTrip(result)
+	}
+
+	@Test
+	def void roundTripWithSyntaxErrors() {
+		val result = new Parser().parse(directory.write("errors.build", '''
+			[uid=0
+			bin/a=[gid=0]
+			[=] bin/b=b
+		'''))
+		assertTrue(result.hasErrors)
+		assertRoundTrip(result)
+	}
+
+	@Test
+	def void roundTripOfAHeadlessParse() {
+		val file = directory.write("headless.build", "[uid=0]\nbin/app=app\n\nbin/other=other\n")
+		val result = new Parser(true).parse(file)
+		assertRoundTrip(result)
+		assertEquals(#[1, 2, 4], (0 ..< 3).map[BinaryModel.wrap(ByteBuffer.wrap(BinaryModel.encode(result.model, result.lines))).getLine(it)].toList)
+	}
+
+	// ── Mapped file ───────────────────────────────────────────────
+
+	@Test
+	def void mappedFileReadInPlace() {
+		val file = directory.write("mapped.build", '''
+			[uid=0]
+			bin/app=app
+			bin/app=app
+			lib/a.so=a.so
+		''')
+		val result = new Parser().parse(file)
+		val binary = directory.resolve("cache/mapped.bin")
+		BinaryModel.write(result, binary)
+
+		val mapped = BinaryModel.map(binary)
+		assertEquals(4, mapped.size)
+		assertEquals(URI.createFileURI(file.absolutePath), mapped.URI)
+		assertEquals(#[false, true, true, true], (0 ..< 4).map[mapped.isDeployment(it)].toList)
+		assertEquals(#[null, "bin/app", "bin/app", "lib/a.so"], (0 ..< 4).map[mapped.getPath(it)].toList)
+		assertEquals(#[1, 2, 3, 4], (0 ..< 4).map[mapped.getLine(it)].toList)
+		assertTrue(EcoreUtil.equals(result.model.statements.get(3), mapped.getStatement(3)))
+		assertSame(mapped.getPath(1), mapped.getPath(2))
+		assertThrows(IndexOutOfBoundsException, [mapped.getStatement(4)])
+
+		// String table: each path, attribute name and value once
+		val encoded = Files.readAllBytes(binary)
+		assertEquals(1, occurrences(encoded, "bin/app"))
+		assertEquals(1, occurrences(encoded, "uid"))
+	}
+
+	@Test
+	def void notABinaryModel() {
+		assertThrows(IOException, [BinaryModel.wrap(ByteBuffer.wrap("bin/app=app".bytes))])
+		val encoded = BinaryModel.encode(new Parser().parse(directory.write("truncated.build", "bin/app=app\n")).model, null)
+		assertThrows(IOException, [BinaryModel.wrap(ByteBuffer.wrap(encoded, 0, encoded.length - 1))])
+		assertEquals(-1, BinaryModel.wrap(ByteBuffer.wrap(encoded)).getLine(0))
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private static void assertRoundTrip(ParsingResult result) {
+		val lines = result.lines ?: LineTable.of(result.model)
+		val decoded = BinaryModel.wrap(ByteBuffer.wrap(BinaryModel.encode(result.model, lines)))
+		val model = decoded.toModel
+		assertTrue(EcoreUtil.equals(result.model, model), "Same model")
+		assertEquals(result.model.eResource.URI, model.eResource.URI)
+		assertEquals(result.model.statements.size, decoded.size)
+		for (i : 0 ..< decoded.size) {
+			assertEquals(lines.getLine(i), decoded.getLine(i))
+			assertEquals(lines.getOffset(i), decoded.getOffset(i))
+			val statement = result.model.statements.get(i)
+			assertEquals(if (statement instanceof DeploymentStatement) statement.path else null, decoded.getPath(i))
+		}
+	}
+
+	def private static int occurrences(byte[] bytes, String string) {
+		val text = new String(bytes, "ISO-8859-1")
+		var count = 0
+		var index = text.indexOf(string)
+		while (index >= 0) {
+			count++
+			index = text.indexOf(string, index + 1)
+		}
+		count
+	}
+}
@@ -1,16 +1,53 @@
 package qnx.buildfile.lang.tests
 
+import com.google.gson.Gson
+import com.google.gson.JsonParser
 import com.google.inject.Inject
+import com.google.inject.Injector
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import java.util.ArrayList
+import java.util.List
+import org.eclipse.lsp4j.CodeAction
+import org.eclipse.lsp4j.CodeActionContext
+import org.eclipse.lsp4j.CodeActionParams
+import org.eclipse.lsp4j.CompletionParams
+import org.eclipse.lsp4j.Diagnostic
+import org.eclipse.lsp4j.ExecuteCommandParams
+import org.eclipse.lsp4j.Position
+import org.eclipse.lsp4j.Range
+import org.eclipse.lsp4j.TextDocumentIdentifier
+import org.eclipse.lsp4j.jsonrpc.messages.Either
+import org.eclipse.xtext.ide.server.Document
+import org.eclipse.xtext.ide.server.codeActions.ICodeActionService2
+import org.eclipse.xtext.ide.server.contentassist.ContentAssistService
+import org.eclipse.xtext.resource.XtextResource
 import org.eclipse.xtext.diagnostics.Severity
+import org.eclipse.xtext.resource.IResourceDescription
+import org.eclipse.xtext.resource.impl.DefaultResourceDescription
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription
 import org.eclipse.xtext.testing.InjectWith
 import org.eclipse.xtext.testing.extensions.InjectionExtension
 import org.eclipse.xtext.testing.util.ParseHelper
 import org.eclipse.xtext.util.CancelIndicator
+import org.eclipse.xtext.util.IResourceScopeCache
 import org.eclipse.xtext.validation.CheckMode
 import org.eclipse.xtext.validation.IResourceValidator
+import org.eclipse.xtext.validation.Issue
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.^extension.ExtendWith
+import qnx.buildfile.lang.attributes.AttributeKeywords
 import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.ide.AttributeProposalTable
+import qnx.buildfile.lang.ide.BuildfileDSLIdeSetup
+import qnx.buildfile.lang.ide.BuildfileDSLIncrementalResourceValidator
+import qnx.buildfile.lang.ide.BuildfileDSLResourceDescriptionStrategy
+import qnx.buildfile.lang.ide.IndexExportPolicy
+import qnx.buildfile.lang.ide.server.BuildfileDSLExecutableCommandService
+import qnx.buildfile.lang.ide.server.BuildfileDSLLanguageServer
+import qnx.buildfile.lang.ide.server.ServerStatistics
+import qnx.buildfile.lang.ide.server.LanguageServerCustomValidatorJarPathProvider
+import qnx.buildfile.lang.validation.SystemPropertyCustomValidatorJarPathProvider
 
 import static org.junit.jupiter.api.Assertions.*
 
@@ -25,6 +62,7 @@ import static org.junit.jupiter.api.Assertions.*
 class BuildfileDSLLspTest {
 	@Inject ParseHelper<Model> parseHelper
 	@Inject IResourceValidator resourceValidator
+	@Inject Injector injector
 
 	// ── No diagnostics for valid input ────────────────────────────
 
@@ -119,4 +157,382 @@ class BuildfileDSLLspTest {
 		assertTrue(errors.size >= 3,
 			'''Expected at least 3 error diagnostics but got «errors.size»: «errors.map[message].join(", ")»''')
 	}
+
+	// ── Incremental revalidation ──────────────────────────────────
+
+	static val DOCUMENT_URI = URI.createURI("incremental.build")
+
+	@Test
+	def void incrementalValidationMatchesFullValidationAfterEdit() {
+		val validator = injector.getInstance(BuildfileDSLIncrementalResourceValidator)
+		val before = largeBuildfile(500, -1)
+		val after = largeBuildfile(500, 250)
+
+		validator.validate(parse(before).eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		val incremental = validator.validate(parse(after).eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		val full = resourceValidator.validate(parse(after).eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+
+		assertFalse(full.isEmpty)
+		assertEquals(full.map[describe].sort, incremental.map[describe].sort)
+	}
+
+	@Test
+	def void incrementalValidationTracksDuplicatePaths() {
+		val validator = injector.getInstance(BuildfileDSLIncrementalResourceValidator)
+
+		var issues = validator.validate(parse('''
+			bin/app=src/v1
+			bin/other=src/v2
+		''').eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		assertFalse(issues.exists[code == "duplicatePath"])
+
+		issues = validator.validate(parse('''
+			bin/app=src/v1
+			bin/app=src/v2
+		''').eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		assertEquals(2, issues.filter[code == "duplicatePath"].size)
+
+		issues = validator.validate(parse('''
+			bin/app=src/v1
+			bin/app=src/v2
+			bin/app=src/v2
+		''').eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		assertEquals(3, issues.filter[code == "duplicatePath"].size)
+
+		issues = validator.validate(parse('''
+			bin/app=src/v1
+		''').eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		assertFalse(issues.exists[code == "duplicatePath"])
+	}
+
+	@Test
+	def void incrementalValidationShiftsCachedIssues() {
+		val validator = injector.getInstance(BuildfileDSLIncrementalResourceValidator)
+
+		validator.validate(parse('''
+			[uid=abc]
+			bin/app=src/app
+		''').eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		val issues = validator.validate(parse('''
+			# a new comment line
+			[uid=abc]
+			bin/app=src/app
+		''').eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+
+		val uidIssue = issues.findFirst[code == "invalidUid"]
+		assertNotNull(uidIssue)
+		assertEquals(2, uidIssue.lineNumber)
+	}
+
+	@Test
+	def void editToDiagnosticLatency() {
+		val validator = injector.getInstance(BuildfileDSLIncrementalResourceValidator)
+		val statements = 10000
+		val original = largeBuildfile(statements, -1)
+
+		var start = System.nanoTime
+		validator.validate(parse(original).eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		val coldMillis = (System.nanoTime - start) / 1_000_000
+
+		var editMillis = 0L
+		val edits = 5
+		for (i : 1 .. edits) {
+			val edited = parse(largeBuildfile(statements, i * 1000))
+			start = System.nanoTime
+			validator.validate(edited.eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+			editMillis += (System.nanoTime - start) / 1_000_000
+		}
+
+		start = System.nanoTime
+		resourceValidator.validate(parse(original).eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		val fullMillis = (System.nanoTime - start) / 1_000_000
+
+		println('''Validation of «statements» statements: full «fullMillis» ms, incremental cold «coldMillis» ms, incremental edit «editMillis / edits» ms (average of «edits» edits)''')
+		assertTrue(validator.isCached(DOCUMENT_URI))
+	}
+
+	// ── Completion ────────────────────────────────────────────────
+
+	static val COMPLETION_URI = URI.createURI("file:///workspace/completion.build")
+
+	@Test
+	def void proposalTableMatchesPrefixIgnoringCase() {
+		val table = new AttributeProposalTable(#["optional", "Optional2", "uid=", "gid=", "perms="].map[
+			new AttributeProposalTable.Proposal(it, it, "KEYWORD", null)
+		].toList)
+		assertEquals(#["optional", "Optional2"], table.matching("OPT").map[proposal])
+		assertEquals(#["gid=", "optional", "Optional2", "perms=", "uid="], table.matching("").map[proposal])
+		assertEquals(#["perms="], table.matching("perms=").map[proposal])
+		assertTrue(table.matching("x").empty)
+		assertTrue(table.matching("uid=0").empty)
+	}
+
+	@Test
+	def void completionProposesMatchingAttributeNames() {
+		val ide = new BuildfileDSLIdeSetup().createInjector
+		// Proposals for the next attribute (empty prefix) are made as well
+		val booleans = complete(ide, "[uid=0 +opt")
+		assertTrue(booleans.contains("optional"), booleans.toString)
+		assertFalse(booleans.contains("followlink"), booleans.toString)
+		val valued = complete(ide, "[uid=0 per")
+		assertTrue(valued.contains("perms"), valued.toString)
+		assertFalse(valued.contains("uid"), valued.toString)
+	}
+
+	@Test
+	def void completionProposesAttributeValues() {
+		val ide = new BuildfileDSLIdeSetup().createInjector
+		val all = complete(ide, "[type=")
+		assertTrue(all.containsAll(#["dir", "fifo", "file", "link"]), all.toString)
+		val values = complete(ide, "[type=f")
+		assertTrue(values.containsAll(#["fifo", "file"]), values.toString)
+		assertFalse(values.contains("dir"), values.toString)
+		assertTrue(complete(ide, "[autoso=a").contains("add"))
+	}
+
+	@Test
+	def void completionLatency() {
+		val ide = new BuildfileDSLIdeSetup().createInjector
+		val text = largeBuildfile(10000, -1) + "[uid=0 +\n"
+		val resource = parse(ide, text)
+		val offset = text.length - 1
+		complete(ide, resource, text, offset)
+
+		val requests = 20
+		val start = System.nanoTime
+		var proposals = 0
+		for (i : 0 ..< requests) {
+			proposals = complete(ide, resource, text, offset).size
+		}
+		val micros = (System.nanoTime - start) / 1000 / requests
+		println('''Completion after "+" at the end of 10000 statements: «proposals» items, «micros» us per request (average of «requests»)''')
+		assertTrue(proposals > 0)
+
+		// Most of a request is spent parsing for the context, the lookup itself is cheap
+		val table = new AttributeProposalTable(AttributeKeywords.ALL_VALUED_ATTRIBUTE_KEYWORDS.map[
+			new AttributeProposalTable.Proposal(it + "=", it, "KEYWORD", null)
+		].toList)
+		val lookups = 100000
+		val lookupStart = System.nanoTime
+		var matches = 0
+		for (i : 0 ..< lookups) {
+			matches += table.matching(if (i % 2 == 0) "p" else "").size
+		}
+		println('''Valued attribute lookup: «(System.nanoTime - lookupStart) / lookups» ns per lookup («matches / lookups» matches on average)''')
+	}
+
+	// ── Code actions ──────────────────────────────────────────────
+
+	@Test
+	def void fixAllUsesTheIssuesOfTheLastValidation() {
+		val ide = new BuildfileDSLIdeSetup().createInjector
+		val text = "[type=fil] bin/a=a\n[type=fil] bin/b=b\n[type=dri] bin/c=c\n"
+		val resource = parse(ide, text)
+		val issues = ide.getInstance(IResourceValidator).validate(resource, CheckMode.ALL, CancelIndicator.NullImpl)
+			.filter[code == "invalidType"].toList
+		assertEquals(3, issues.size)
+
+		// Only the diagnostic under the cursor comes with the request
+		val fixAll = codeActions(ide, resource, new Document(1, text), issues.head).findFirst[title.startsWith("Fix all")]
+		assertEquals("Fix all invalid type values in file (3)", fixAll.title)
+		assertEquals(#["file", "file", "dir"], fixAll.edit.changes.get(COMPLETION_URI.toString).map[newText])
+
+		// Not validated with that text, only the diagnostics of the request are fixed
+		val edited = new Document(2, text + "bin/d=d\n")
+		assertFalse(codeActions(ide, resource, edited, issues.head).exists[title.startsWith("Fix all")])
+	}
+
+	// ── Custom validator configuration ────────────────────────────
+
+	@Test
+	def void customValidatorJarPathReadFromSettings() {
+		assertEquals("/opt/rules.jar", BuildfileDSLLanguageServer.getCustomValidatorJarPath(
+			JsonParser.parseString('{"qnx-buildfile-lang": {"customValidatorJarPath": " /opt/rules.jar "}}')))
+		assertEquals("", BuildfileDSLLanguageServer.getCustomValidatorJarPath(
+			JsonParser.parseString('{"qnx-buildfile-lang": {"customValidatorJarPath": ""}}')))
+		assertNull(BuildfileDSLLanguageServer.getCustomValidatorJarPath(
+			JsonParser.parseString('{"other": {"customValidatorJarPath": "/opt/rules.jar"}}')))
+		assertNull(BuildfileDSLLanguageServer.getCustomValidatorJarPath(null))
+	}
+
+	@Test
+	def void customValidatorJarPathFollowsSettingsAfterStartup() {
+		val property = SystemPropertyCustomValidatorJarPathProvider.SYSTEM_PROPERTY
+		val provider = new LanguageServerCustomValidatorJarPathProvider
+		try {
+			System.setProperty(property, "/opt/startup.jar")
+			assertEquals("/opt/startup.jar", provider.jarPath)
+
+			assertFalse(provider.setJarPath("/opt/startup.jar"))
+			assertTrue(provider.setJarPath("/opt/rules.jar"))
+			assertEquals("/opt/rules.jar", provider.jarPath)
+
+			assertTrue(provider.setJarPath(""))
+			assertNull(provider.jarPath, "Cleared setting must win over the system property")
+			assertFalse(provider.setJarPath(null))
+		} finally {
+			System.clearProperty(property)
+		}
+	}
+
+	// ── Server statistics command ─────────────────────────────────
+
+	@Test
+	def void serverStatisticsCommand() {
+		val service = new BuildfileDSLExecutableCommandService
+		assertEquals(#[BuildfileDSLExecutableCommandService.SERVER_STATISTICS], service.initialize)
+
+		val stats = service.execute(new ExecuteCommandParams(BuildfileDSLExecutableCommandService.SERVER_STATISTICS, #[]),
+			null, CancelIndicator.NullImpl) as ServerStatistics
+		assertTrue(stats.heapUsed > 0)
+		assertTrue(stats.heapCommitted >= stats.heapUsed)
+		assertFalse(stats.collectors.isEmpty)
+		assertTrue(stats.threads > 0)
+
+		// Sent to the client as JSON by lsp4j
+		val json = JsonParser.parseString(new Gson().toJson(stats)).asJsonObject
+		assertEquals(stats.heapUsed, json.get("heapUsed").asLong)
+		assertEquals(stats.collectors.size, json.getAsJsonArray("collectors").size)
+		assertNotNull(json.getAsJsonArray("collectors").get(0).asJsonObject.get("timeMillis"))
+
+		assertNull(service.execute(new ExecuteCommandParams("unknown", #[]), null, CancelIndicator.NullImpl))
+	}
+
+	// ── Index export policy ───────────────────────────────────────
+
+	@Test
+	def void exportPolicyReadFromSystemProperty() {
+		val property = IndexExportPolicy.SYSTEM_PROPERTY
+		try {
+			assertEquals(IndexExportPolicy.DEPLOYMENTS, IndexExportPolicy.fromSystemProperty)
+			System.setProperty(property, " All ")
+			assertEquals(IndexExportPolicy.ALL, IndexExportPolicy.fromSystemProperty)
+			System.setProperty(property, "everything")
+			assertEquals(IndexExportPolicy.DEPLOYMENTS, IndexExportPolicy.fromSystemProperty)
+		} finally {
+			System.clearProperty(property)
+		}
+	}
+
+	@Test
+	def void exportPolicyOnFiftyFileWorkspace() {
+		val models = (0 ..< 50).map[
+			parseHelper.parse(workspaceBuildfile, URI.createURI("file:///workspace/" + it + ".build"), new ResourceSetImpl)
+		].toList
+
+		val allCount = exportedCount(index(models, IndexExportPolicy.ALL))
+		val deploymentsCount = exportedCount(index(models, IndexExportPolicy.DEPLOYMENTS))
+		assertEquals(50 * 100, deploymentsCount)
+		assertTrue(deploymentsCount * 3 < allCount)
+
+		// Equal names and sources are shared across buildfiles
+		val index = index(models.subList(0, 2), IndexExportPolicy.DEPLOYMENTS)
+		val first = index.get(0).exportedObjects.head
+		val second = index.get(1).exportedObjects.head
+		assertSame(first.qualifiedName, second.qualifiedName)
+		assertSame(first.getUserData(BuildfileDSLResourceDescriptionStrategy.SOURCE),
+			second.getUserData(BuildfileDSLResourceDescriptionStrategy.SOURCE))
+	}
+
+	def private XtextResource parse(Injector ide, String text) {
+		val model = ide.getInstance(ParseHelper).parse(text, COMPLETION_URI, new ResourceSetImpl) as Model
+		model.eResource as XtextResource
+	}
+
+	def private List<String> complete(Injector ide, String text) {
+		complete(ide, parse(ide, text), text, text.length)
+	}
+
+	/**
+	 * @return the labels of the LSP completion items at the offset
+	 */
+	def private List<String> complete(Injector ide, XtextResource resource, String text, int offset) {
+		val document = new Document(1, text)
+		val caret = document.getPosition(offset)
+		val params = new CompletionParams(new TextDocumentIdentifier(COMPLETION_URI.toString), new Position(caret.line, caret.character))
+		ide.getInstance(ContentAssistService).createCompletionList(document, resource, params, CancelIndicator.NullImpl)
+			.items.map[label].toList
+	}
+
+	/**
+	 * @return the code actions for a diagnostic of the issue, as the client
+	 *         sends it back
+	 */
+	def private List<CodeAction> codeActions(Injector ide, XtextResource resource, Document document, Issue issue) {
+		val diagnostic = new Diagnostic(new Range(document.getPosition(issue.offset),
+			document.getPosition(issue.offset + issue.length)), issue.message)
+		diagnostic.code = Either.forLeft(issue.code)
+		diagnostic.data = issue.data
+		val options = new ICodeActionService2.Options
+		options.resource = resource
+		options.document = document
+		options.codeActionParams = new CodeActionParams(new TextDocumentIdentifier(COMPLETION_URI.toString),
+			diagnostic.range, new CodeActionContext(#[diagnostic]))
+		options.cancelIndicator = CancelIndicator.NullImpl
+		ide.getInstance(ICodeActionService2).getCodeActions(options).map[getRight].toList
+	}
+
+	/**
+	 * Builds the index the language server keeps for the models: a
+	 * serializable copy of each resource description.
+	 */
+	def private List<IResourceDescription> index(List<Model> models, IndexExportPolicy policy) {
+		val strategy = injector.getInstance(BuildfileDSLResourceDescriptionStrategy)
+		strategy.exportPolicy = policy
+		// Copied eagerly, a mapped list would recompute the descriptions on each access
+		new ArrayList<IResourceDescription>(models.map[
+			SerializableResourceDescription.createCopy(
+				new DefaultResourceDescription(eResource, strategy, IResourceScopeCache.NullImpl.INSTANCE))
+		])
+	}
+
+	def private static int exportedCount(List<IResourceDescription> index) {
+		index.map[exportedObjects.size].reduce[a, b|a + b]
+	}
+
+	/**
+	 * Builds a buildfile of 100 deployments with the attributes of a typical
+	 * image, the same in every buildfile of the workspace.
+	 */
+	def private String workspaceBuildfile() {
+		val builder = new StringBuilder
+		builder.append("[uid=0 gid=0 perms=0755 type=file]\n")
+		for (i : 0 ..< 100) {
+			if (i % 10 == 0) {
+				builder.append("[uid=0 gid=0 perms=0644 +optional]\n")
+			}
+			builder.append("[perms=0555 uid=0 gid=0] bin/app").append(i).append("=aarch64le/bin/app").append(i).append("\n")
+		}
+		builder.toString
+	}
+
+	/**
+	 * Builds a buildfile with some invalid attributes and duplicate paths;
+	 * the statement at index {@code edited} (if any) is replaced.
+	 */
+	def private String largeBuildfile(int statements, int edited) {
+		val builder = new StringBuilder
+		for (i : 0 ..< statements) {
+			if (i == edited) {
+				builder.append("[uid=edited").append(i).append("]\n")
+			} else if (i % 100 == 0) {
+				builder.append("[uid=0 gid=0 perms=0755 type=file]\n")
+			} else if (i % 97 == 0) {
+				builder.append("[perms=9999]\n")
+			} else if (i % 50 == 0) {
+				builder.append("bin/duplicate=src/").append(i).append("\n")
+			} else {
+				builder.append("bin/app").append(i).append("=aarch64le/bin/app").append(i).append("\n")
+			}
+		}
+		builder.toString
+	}
+
+	def private Model parse(CharSequence text) {
+		parseHelper.parse(text, DOCUMENT_URI, new ResourceSetImpl)
+	}
+
+	def private static String describe(Issue issue) {
+		'''«issue.severity» «issue.code» «issue.offset»+«issue.length» «issue.lineNumber»:«issue.column» «issue.message» «issue.uriToProblem»'''
+	}
 }
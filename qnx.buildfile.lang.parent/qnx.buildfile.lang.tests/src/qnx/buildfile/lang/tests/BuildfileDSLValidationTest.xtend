@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.^extension.ExtendWith
 import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage
 import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.validation.IssueData
 
 import static org.junit.jupiter.api.Assertions.*
 
@@ -313,6 +314,43 @@ class BuildfileDSLValidationTest {
 			"invalidDperms")
 	}
 
+	// ── Issue data for quickfixes ─────────────────────────────────
+
+	@Test
+	def void unknownValuedAttributeCarriesCandidates() {
+		val model = parseHelper.parse('''[permjs=0755]''')
+		val issue = validationHelper.validate(model).findFirst[code == "invalidName"]
+		assertEquals("permjs", IssueData.getBadToken(issue.data))
+		assertEquals(IssueData.KIND_VALUED_ATTRIBUTE_NAME, IssueData.getKind(issue.data))
+		assertEquals("perms", IssueData.getCandidates(issue.data).head)
+	}
+
+	@Test
+	def void unknownBooleanAttributeOnlySuggestsBooleanAttributes() {
+		val model = parseHelper.parse('''[+optonal]''')
+		val issue = validationHelper.validate(model).findFirst[code == "invalidName"]
+		assertEquals(IssueData.KIND_BOOLEAN_ATTRIBUTE_NAME, IssueData.getKind(issue.data))
+		assertEquals("optional", IssueData.getCandidates(issue.data).head)
+		assertFalse(IssueData.getCandidates(issue.data).contains("uid"))
+	}
+
+	@Test
+	def void invalidValueCarriesAllowedValues() {
+		val model = parseHelper.parse('''[type=fil]''')
+		val issue = validationHelper.validate(model).findFirst[code == "invalidType"]
+		assertEquals("fil", IssueData.getBadToken(issue.data))
+		assertEquals(IssueData.KIND_ATTRIBUTE_VALUE, IssueData.getKind(issue.data))
+		assertEquals("file", IssueData.getCandidates(issue.data).head)
+	}
+
+	@Test
+	def void invalidNumericValueHasNoCandidates() {
+		val model = parseHelper.parse('''[uid=abc]''')
+		val issue = validationHelper.validate(model).findFirst[code == "invalidUid"]
+		assertTrue(IssueData.isValid(issue.data))
+		assertTrue(IssueData.getCandidates(issue.data).isEmpty)
+	}
+
 	// ── Combined validation scenarios ─────────────────────────────
 
 	@Test
@@ -0,0 +1,138 @@
+package qnx.buildfile.lang.tests
+
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.List
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils
+import org.eclipse.xtext.validation.Issue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.utils.Parser
+import qnx.buildfile.lang.utils.ParsingResult
+import qnx.buildfile.lang.validation.HostFileValidator
+
+import static org.junit.jupiter.api.Assertions.*
+
+import static extension qnx.buildfile.lang.tests.TempFiles.*
+
+/**
+ * Tests for the parsing of a buildfile in chunks on several threads, by a
+ * {@link Parser} given threads.
+ */
+class ChunkedParserTest {
+	@TempDir Path directory
+
+	// ── Results ───────────────────────────────────────────────────
+
+	@Test
+	def void sameResultsAsAWholeParse() {
+		val file = directory.write("chunks.build", (0 ..< 40).map['''
+			# group «it»
+			[uid=0 gid=0]
+			bin/app«it»=app«it»
+			[gidh=0] bin/other«it»=other
+			etc/conf«it»={
+			[uid=0]
+			bin/not«it»=a statement \} still in the block
+			}
+			"bin/with spaces «it»"="a
+			b"
+			[type=unknown] bin/app«it % 7»=again
+			lib/«it».so=${QNX_TARGET}/lib/«it».so
+		'''].join)
+		val whole = new Parser(true).parse(file)
+		for (threads : #[2, 3, 8]) {
+			val chunked = parseInChunks(file, threads, 64)
+			assertSameResults(whole, chunked)
+		}
+	}
+
+	@Test
+	def void statementsOfAllTheChunksInOrder() {
+		val file = directory.write("order.build", (0 ..< 500).map['''bin/app«it»=app«it»'''].join("\n"))
+		val result = parseInChunks(file, 4, 100)
+		assertEquals((0 ..< 500).map['''bin/app«it»'''].toList, result.model.statements.map[(it as DeploymentStatement).path])
+		assertEquals((1 .. 500).toList, result.model.statements.map[result.getLine(it)])
+		assertNull(NodeModelUtils.getNode(result.model.statements.head))
+		assertSame(result.model, result.model.eResource.contents.head)
+	}
+
+	@Test
+	def void syntaxErrorsInDocumentCoordinates() {
+		val file = directory.write("syntax.build", (0 ..< 200).map[
+			if (it == 150) '''bin/«it»=[uid=0]''' else '''bin/app«it»=app«it»'''
+		].join("\n"))
+		val whole = new Parser(true).parse(file)
+		val chunked = parseInChunks(file, 4, 100)
+		assertTrue(chunked.issues.exists[syntaxError && lineNumber == 151], chunked.issues.join("\n"))
+		assertSameResults(whole, chunked)
+	}
+
+	@Test
+	def void hostFilesSearchedWithTheAttributesOfThePreviousChunks() {
+		val host = Files.createDirectories(directory.resolve("host"))
+		Files.writeString(host.resolve("app"), "app")
+		val file = directory.write("host.build", '''
+			[search=«host»]
+			«FOR i : 0 ..< 50»
+			bin/app«i»=app
+			«ENDFOR»
+			bin/missing=missing
+			[search=«directory.resolve("elsewhere")»]
+			«FOR i : 0 ..< 50»
+			bin/other«i»=app
+			«ENDFOR»
+		''')
+		val previous = System.getProperty(HostFileValidator.SYSTEM_PROPERTY)
+		System.setProperty(HostFileValidator.SYSTEM_PROPERTY, "true")
+		try {
+			val whole = new Parser(true).parse(file)
+			val chunked = parseInChunks(file, 4, 100)
+			assertEquals(51, chunked.issues.filter[code == "missingHostFile"].size)
+			assertSameResults(whole, chunked)
+		} finally {
+			if (previous === null) {
+				System.clearProperty(HostFileValidator.SYSTEM_PROPERTY)
+			} else {
+				System.setProperty(HostFileValidator.SYSTEM_PROPERTY, previous)
+			}
+		}
+	}
+
+	@Test
+	def void shortBuildfileParsedWhole() {
+		val file = directory.write("short.build", "[uid=0]\nbin/app=app\nbin/app=app\n")
+		val result = parseInChunks(file, 4, Parser.MIN_CHUNK_LENGTH)
+		assertEquals(#[2, 3], result.issues.map[lineNumber])
+		assertEquals(#[1, 2, 3], result.model.statements.map[result.getLine(it)])
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private static void assertSameResults(ParsingResult expected, ParsingResult actual) {
+		assertEquals(describe(expected.issues), describe(actual.issues))
+		assertEquals(expected.model.statements.size, actual.model.statements.size)
+		for (i : 0 ..< expected.lines.size) {
+			assertEquals(expected.lines.getLine(i), actual.lines.getLine(i), "Line of statement " + i)
+			assertEquals(expected.lines.getOffset(i), actual.lines.getOffset(i), "Offset of statement " + i)
+		}
+		assertEquals(
+			expected.model.statements.map[if (it instanceof DeploymentStatement) path else null],
+			actual.model.statements.map[if (it instanceof DeploymentStatement) path else null])
+	}
+
+	def private static List<String> describe(List<Issue> issues) {
+		issues.map['''«lineNumber»:«column»-«lineNumberEnd»:«columnEnd» «offset»+«length» «severity» «code» «message» «uriToProblem?.fragment»'''].sort
+	}
+
+	/**
+	 * @return the result of a new parser given threads, closed once done
+	 */
+	def private static ParsingResult parseInChunks(File file, int threads, int minChunkLength) {
+		try (val parser = new Parser(threads, minChunkLength)) {
+			parser.parse(file)
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Inject
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+import java.util.HexFormat
+import java.util.Random
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.xtext.generator.GeneratorContext
+import org.eclipse.xtext.generator.IFileSystemAccess
+import org.eclipse.xtext.generator.IGenerator2
+import org.eclipse.xtext.generator.InMemoryFileSystemAccess
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.generator.BuildfileDSLGenerator
+import qnx.buildfile.lang.utils.ContentHashes
+import qnx.buildfile.lang.utils.DeploymentManifest
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the manifest of the image inputs, see {@link DeploymentManifest},
+ * {@link ContentHashes} and {@link BuildfileDSLGenerator}.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class DeploymentManifestTest {
+	@Inject ParseHelper<Model> parseHelper
+	@Inject IGenerator2 generator
+
+	@TempDir Path host
+
+	@BeforeEach
+	def void setUp() {
+		Files.createDirectories(host.resolve("a/bin"))
+		Files.writeString(host.resolve("a/bin/app"), "app")
+	}
+
+	// ── Manifest ──────────────────────────────────────────────────
+
+	@Test
+	def void oneLinePerDeployment() {
+		val manifest = manifest('''
+			[search=«host.resolve("a")»]
+			[uid=0 +optional] bin/app=bin/app
+			bin/missing=bin/missing
+			[type=link] /bin/sh=/proc/boot/ksh
+			[type=dir perms=0755] /tmp
+			etc/motd={
+			hello
+			}
+		''')
+		val search = '''search=«host.resolve("a")»'''
+		assertEquals('''
+			«sha256("app")»	/proc/boot/bin/app	«host.resolve("a/bin/app")»	+optional «search» uid=0
+			missing	/proc/boot/bin/missing	bin/missing	«search»
+			-	/bin/sh	/proc/boot/ksh	«search» type=link
+			-	/tmp	-	perms=0755 «search» type=dir
+			«sha256("hello\n")»	/proc/boot/etc/motd	{inline}	«search»
+		'''.toString, manifest)
+	}
+
+	@Test
+	def void manifestFollowsTheContents() {
+		val buildfile = '''bin/app=«host.resolve("a/bin/app")»'''
+		val before = manifest(buildfile)
+		assertEquals(before, manifest(buildfile))
+
+		Files.writeString(host.resolve("a/bin/app"), "app 2")
+		assertNotEquals(before, manifest(buildfile))
+		assertTrue(manifest(buildfile).startsWith(sha256("app 2")))
+	}
+
+	// ── Hashes ────────────────────────────────────────────────────
+
+	@Test
+	def void storedHashesAreReusedUntilTheFileChanges() {
+		val store = host.resolve("cache/hashes")
+		val app = host.resolve("a/bin/app")
+		val first = new ContentHashes(store)
+		assertEquals(sha256("app"), first.hash(app))
+		assertEquals(sha256("app"), first.hash(app))
+		assertEquals(1, first.hashedCount)
+		first.save
+		assertTrue(Files.isRegularFile(store))
+
+		val second = new ContentHashes(store)
+		assertEquals(sha256("app"), second.hash(app))
+		assertEquals(0, second.hashedCount)
+
+		// Same size, later modification time
+		Files.writeString(app, "apq")
+		Files.setLastModifiedTime(app, FileTime.fromMillis(Files.getLastModifiedTime(app).toMillis + 2000))
+		assertEquals(sha256("apq"), second.hash(app))
+		assertEquals(1, second.hashedCount)
+	}
+
+	@Test
+	def void corruptStoreIsIgnored() {
+		val store = host.resolve("hashes")
+		Files.writeString(store, "not a store\n")
+		val hashes = new ContentHashes(store)
+		assertEquals(sha256("app"), hashes.hash(host.resolve("a/bin/app")))
+		hashes.save
+		assertTrue(Files.readString(store).contains(host.resolve("a/bin/app").toString))
+	}
+
+	@Test
+	def void filesAreHashedInParallelWhateverTheirSize() {
+		val random = new Random(42)
+		val files = newArrayList
+		val expected = newHashMap
+		for (size : #[0, 1, 65_536, 65_537, 3 * 1024 * 1024 + 7]) {
+			val contents = newByteArrayOfSize(size)
+			random.nextBytes(contents)
+			val file = host.resolve("file" + size)
+			Files.write(file, contents)
+			files.add(file)
+			expected.put(file, sha256(contents))
+		}
+		val hashes = new ContentHashes(null)
+		assertEquals(expected, hashes.hash(files))
+		assertNull(hashes.hash(host.resolve("missing")))
+	}
+
+	// ── Generator ─────────────────────────────────────────────────
+
+	@Test
+	def void generatorWritesTheManifestWhenEnabled() {
+		val model = parse('''bin/app=«host.resolve("a/bin/app")»''')
+		val fsa = new InMemoryFileSystemAccess
+		generator.doGenerate(model.eResource, fsa, new GeneratorContext)
+		assertTrue(fsa.allFiles.empty)
+
+		System.setProperty(BuildfileDSLGenerator.SYSTEM_PROPERTY, "true")
+		System.setProperty(ContentHashes.SYSTEM_PROPERTY, host.resolve("cache/hashes").toString)
+		try {
+			generator.doGenerate(model.eResource, fsa, new GeneratorContext)
+		} finally {
+			System.clearProperty(BuildfileDSLGenerator.SYSTEM_PROPERTY)
+			System.clearProperty(ContentHashes.SYSTEM_PROPERTY)
+		}
+		assertEquals(manifest('''bin/app=«host.resolve("a/bin/app")»'''),
+			fsa.allFiles.get(IFileSystemAccess.DEFAULT_OUTPUT + "test.manifest").toString)
+		assertTrue(Files.isRegularFile(host.resolve("cache/hashes")))
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private static String sha256(String contents) {
+		sha256(contents.getBytes("UTF-8"))
+	}
+
+	def private static String sha256(byte[] contents) {
+		HexFormat.of.formatHex(MessageDigest.getInstance("SHA-256").digest(contents))
+	}
+
+	def private String manifest(CharSequence text) {
+		new DeploymentManifest(emptyMap, new ContentHashes(null)).generate(parse(text))
+	}
+
+	def private Model parse(CharSequence text) {
+		parseHelper.parse(text, URI.createFileURI(host.resolve("test.build").toString), new ResourceSetImpl)
+	}
+}
@@ -0,0 +1,100 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Key
+import com.google.inject.name.Names
+import java.nio.charset.StandardCharsets
+import java.util.ArrayList
+import java.util.List
+import java.util.Random
+import org.antlr.runtime.ANTLRStringStream
+import org.antlr.runtime.CommonToken
+import org.antlr.runtime.Token
+import org.eclipse.xtext.parser.antlr.Lexer
+import org.eclipse.xtext.parser.antlr.LexerBindings
+import org.junit.jupiter.api.Test
+import qnx.buildfile.lang.BuildfileDSLStandaloneSetup
+import qnx.buildfile.lang.parser.antlr.FastBuildfileDSLLexer
+import qnx.buildfile.lang.parser.antlr.internal.InternalBuildfileDSLLexer
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for {@link FastBuildfileDSLLexer}, which must produce the tokens of
+ * the generated lexer, only faster.
+ */
+class FastLexerTest {
+
+	// ── Same tokens ───────────────────────────────────────────────
+
+	@Test
+	def void sameTokensOnTheTestFiles() {
+		for (name : #["test1.build", "test2.bld"]) {
+			val text = new String(FastLexerTest.getResourceAsStream(name).readAllBytes, StandardCharsets.ISO_8859_1)
+			assertFalse(text.empty)
+			assertSameTokens(text)
+		}
+	}
+
+	@Test
+	def void sameTokensOnEdgeCases() {
+		for (text : #[
+			"",
+			"[uid=0 gid=0 +raw -optional] bin/app=${QNX_TARGET}/aarch64le/bin/app\n",
+			"\"/path with spaces/a\"=\"b\\\"c\"\r\n'single'=x",
+			"a/b.c-d+e,f:g*h /usr/lib/*.so 0755 ^id ^ ^9 ^_x",
+			"file={\nline \\} not the end\n}\nempty={\n}\ncrlf={\r\n\r\nx\r\n}\r\n",
+			"unterminated={\nno end",
+			"bad={ same line }",
+			"lone\rcarriage return {\r",
+			"/* comment */ a/* not a comment */b",
+			"$ ${unterminated ${a\\}b} $x",
+			"\"unterminated string\n",
+			"# comment\r\n#\n\t \ta#b",
+			"{",
+			"{\n",
+			"}",
+			"é€ ,: ; ! ~ ` @ ( ) < > ? | &",
+			"trailing\\",
+			"'\\"
+		]) {
+			assertSameTokens(text)
+		}
+	}
+
+	@Test
+	def void sameTokensOnRandomInput() {
+		val alphabet = "aZ_09./*-+,:=[]{}$^\"'\\#\n\r\t @é".toCharArray
+		val random = new Random(42)
+		for (i : 0 ..< 20000) {
+			val text = new StringBuilder
+			for (j : 0 ..< random.nextInt(40)) {
+				text.append(alphabet.get(random.nextInt(alphabet.length)))
+			}
+			assertSameTokens(text.toString)
+		}
+	}
+
+	@Test
+	def void runtimeModuleBindsTheFastLexer() {
+		val injector = new BuildfileDSLStandaloneSetup().createInjectorAndDoEMFRegistration
+		assertTrue(injector.getInstance(Key.get(Lexer, Names.named(LexerBindings.RUNTIME))) instanceof FastBuildfileDSLLexer)
+		assertTrue(injector.getInstance(Lexer) instanceof FastBuildfileDSLLexer)
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private static void assertSameTokens(String text) {
+		assertEquals(tokens(new InternalBuildfileDSLLexer, text), tokens(new FastBuildfileDSLLexer, text), "Tokens of: " + text)
+	}
+
+	def private static List<String> tokens(Lexer lexer, String text) {
+		lexer.charStream = new ANTLRStringStream(text)
+		val tokens = new ArrayList<String>
+		var token = lexer.nextToken as CommonToken
+		while (token.type != Token.EOF) {
+			tokens.add('''«token.type» «token.channel» «token.startIndex»-«token.stopIndex» «token.line»:«token.charPositionInLine» «token.text»''')
+			token = lexer.nextToken as CommonToken
+		}
+		tokens
+	}
+}
@@ -0,0 +1,185 @@
+package qnx.buildfile.lang.tests
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.nio.file.attribute.PosixFilePermissions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.utils.ContentHashes
+import qnx.buildfile.lang.utils.FileFormatter
+import qnx.buildfile.lang.utils.FileFormatter.Status
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for {@link FileFormatter}.
+ */
+class FileFormatterTest {
+	@TempDir Path directory
+
+	// ── Formatting in place ───────────────────────────────────────
+
+	@Test
+	def void onlyChangedFilesWritten() {
+		val formatted = write("formatted.build", "[uid=0] bin/a=a\n")
+		val unformatted = write("unformatted.build", "[uid=0]bin/a = a\n")
+		val time = FileTime.fromMillis(1_000_000)
+		Files.setLastModifiedTime(formatted, time)
+		Files.setPosixFilePermissions(unformatted, PosixFilePermissions.fromString("rwxr-x---"))
+
+		val results = newFormatter(null).format(#[formatted, unformatted], false)
+		assertEquals(#[Status.UNCHANGED, Status.FORMATTED], results.map[status])
+		assertEquals(time, Files.getLastModifiedTime(formatted))
+		assertEquals("[uid=0] bin/a=a\n", Files.readString(unformatted))
+		assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(unformatted)))
+		assertEquals(#["formatted.build", "unformatted.build"], Files.list(directory).map[fileName.toString].sorted.toList)
+	}
+
+	@Test
+	def void bytesOtherThanSpacesKept() {
+		val bytes = "\"bin/café\" = \"été\"\n".getBytes("UTF-8")
+		val file = directory.resolve("utf8.build")
+		Files.write(file, bytes)
+		assertEquals(Status.FORMATTED, newFormatter(null).format(file, false).status)
+		assertEquals("\"bin/café\"=\"été\"\n", Files.readString(file))
+	}
+
+	@Test
+	def void parallelResultsInOrder() {
+		val files = (0 ..< 200).map[write('''f«it».build''', if (it % 3 == 0) '''bin/«it» = «it»''' else '''bin/«it»=«it»''')].toList
+		val results = newFormatter(null).format(files, false)
+		assertEquals(files, results.map[file])
+		assertEquals((0 ..< 200).map[if (it % 3 == 0) Status.FORMATTED else Status.UNCHANGED].toList, results.map[status])
+		assertTrue(files.forall[!Files.readString(it).contains(" ")])
+	}
+
+	// ── Checking ──────────────────────────────────────────────────
+
+	@Test
+	def void checkPrintsTheDiffWithoutWriting() {
+		val text = "[uid=0]bin/a = a\nbin/b=b\n"
+		val file = write("check.build", text)
+		val result = newFormatter(null).format(file, true)
+		assertEquals(Status.UNFORMATTED, result.status)
+		assertEquals(text, Files.readString(file))
+		assertEquals('''
+			--- «file»
+			+++ «file»
+			@@ -1,2 +1,2 @@
+			-[uid=0]bin/a = a
+			+[uid=0] bin/a=a
+			 bin/b=b
+		'''.toString, result.diff)
+	}
+
+	@Test
+	def void diffHunks() {
+		val original = (1 .. 12).map['''bin/«it» = «it»'''].join("\n")
+		val formatted = (1 .. 12).map[if (it == 2 || it == 8 || it == 12) '''bin/«it»=«it»''' else '''bin/«it» = «it»'''].join("\n")
+		// Lines 2 and 8 are 6 lines apart, so that their contexts touch; the last line has no newline
+		assertEquals('''
+			--- a
+			+++ a
+			@@ -1,12 +1,12 @@
+			 bin/1 = 1
+			-bin/2 = 2
+			+bin/2=2
+			 bin/3 = 3
+			 bin/4 = 4
+			 bin/5 = 5
+			 bin/6 = 6
+			 bin/7 = 7
+			-bin/8 = 8
+			+bin/8=8
+			 bin/9 = 9
+			 bin/10 = 10
+			 bin/11 = 11
+			-bin/12 = 12
+			\ No newline at end of file
+			+bin/12=12
+			\ No newline at end of file
+		'''.toString, FileFormatter.diff("a", original, formatted))
+
+		// Lines 1 and 10 are 9 lines apart, so that they are in hunks of their own
+		val lines = (1 .. 10).map['''bin/«it» = «it»'''].join("\n") + "\n"
+		assertEquals('''
+			--- a
+			+++ a
+			@@ -1,4 +1,4 @@
+			-bin/1 = 1
+			+bin/1=1
+			 bin/2 = 2
+			 bin/3 = 3
+			 bin/4 = 4
+			@@ -7,4 +7,4 @@
+			 bin/7 = 7
+			 bin/8 = 8
+			 bin/9 = 9
+			-bin/10 = 10
+			+bin/10=10
+		'''.toString, FileFormatter.diff("a", lines, lines.replace("bin/1 = 1\n", "bin/1=1\n").replace("bin/10 = 10", "bin/10=10")))
+		assertEquals("", FileFormatter.diff("a", original, original))
+	}
+
+	// ── Cache ─────────────────────────────────────────────────────
+
+	@Test
+	def void formattedFilesNotReadAgain() {
+		val store = directory.resolve("cache/formatted")
+		val hashes = directory.resolve("cache/hashes")
+		val formatted = write("formatted.build", "bin/a=a\n")
+		val unformatted = write("unformatted.build", "bin/a = a\n")
+
+		var formatter = new FileFormatter(new ContentHashes(hashes), store)
+		assertEquals(#[Status.UNCHANGED, Status.UNFORMATTED], formatter.format(#[formatted, unformatted], true).map[status])
+		assertEquals(#[Status.CACHED, Status.UNFORMATTED], formatter.format(#[formatted, unformatted], true).map[status])
+		formatter.save
+
+		// Another run, with the stores
+		formatter = new FileFormatter(new ContentHashes(hashes), store)
+		assertEquals(#[Status.CACHED, Status.FORMATTED], formatter.format(#[formatted, unformatted], false).map[status])
+		formatter.save
+		formatter = new FileFormatter(new ContentHashes(hashes), store)
+		assertEquals(#[Status.CACHED, Status.CACHED], formatter.format(#[formatted, unformatted], true).map[status])
+
+		// A file that changed is read again
+		Files.writeString(formatted, "bin/b = b\n")
+		assertEquals(Status.UNFORMATTED, formatter.format(formatted, true).status)
+	}
+
+	@Test
+	def void storeOfOtherRulesIgnored() {
+		val store = directory.resolve("formatted")
+		val file = write("formatted.build", "bin/a=a\n")
+		Files.writeString(store, "# other rules\n" + ContentHashes.hash(Files.readAllBytes(file)) + "\n")
+		assertEquals(Status.UNCHANGED, newFormatter(store).format(file, true).status)
+	}
+
+	@Test
+	def void everyFileReadWithoutHashes() {
+		val formatted = write("formatted.build", "bin/a=a\n")
+		val unformatted = write("unformatted.build", "bin/a = a\n")
+		val formatter = new FileFormatter(null, null)
+		assertEquals(#[Status.UNCHANGED, Status.UNFORMATTED], formatter.format(#[formatted, unformatted], true).map[status])
+		assertEquals(#[Status.UNCHANGED, Status.UNFORMATTED], formatter.format(#[formatted, unformatted], true).map[status])
+		formatter.save
+	}
+
+	@Test
+	def void missingFileFails() {
+		val result = newFormatter(null).format(directory.resolve("missing.build"), false)
+		assertEquals(Status.FAILED, result.status)
+		assertNotNull(result.error)
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private FileFormatter newFormatter(Path store) {
+		new FileFormatter(new ContentHashes(null), store)
+	}
+
+	def private Path write(String name, String text) {
+		Files.writeString(directory.resolve(name), text)
+	}
+}
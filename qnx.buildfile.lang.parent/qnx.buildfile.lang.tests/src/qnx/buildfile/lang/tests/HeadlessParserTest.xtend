@@ -0,0 +1,78 @@
+package qnx.buildfile.lang.tests
+
+import java.nio.file.Files
+import java.nio.file.Path
+import org.eclipse.emf.common.util.URI
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.utils.ImageSizeEstimator
+import qnx.buildfile.lang.utils.Parser
+
+import static org.junit.jupiter.api.Assertions.*
+
+import static extension qnx.buildfile.lang.tests.TempFiles.*
+
+/**
+ * Tests for the headless mode of {@link Parser}, which drops the node model
+ * once a buildfile is validated.
+ */
+class HeadlessParserTest {
+	@TempDir Path directory
+
+	// ── Results ───────────────────────────────────────────────────
+
+	@Test
+	def void sameIssuesAsWithTheNodeModel() {
+		val file = directory.write("issues.build", '''
+			[uid=0 gid=0]
+			bin/app=app
+
+			[gidh=0] bin/other=other
+			bin/app=app2
+			[type=unknown] bin/third=third
+		''')
+		val full = new Parser().parse(file)
+		val headless = new Parser(true).parse(file)
+		assertFalse(full.issues.empty)
+		assertEquals(full.issues.map[lineNumber + ": " + message], headless.issues.map[lineNumber + ": " + message])
+	}
+
+	@Test
+	def void lineTableReplacesTheNodeModel() {
+		val file = directory.write("lines.build", '''
+			# comment
+			[uid=0]
+			bin/app=app
+
+			bin/block={
+			line
+			}
+			bin/last=last
+		''')
+		val result = new Parser(true).parse(file)
+		assertNull(NodeModelUtils.getNode(result.model.statements.head))
+		assertEquals(#[2, 3, 5, 8], result.model.statements.map[result.getLine(it)])
+		assertEquals(1, result.lines.indexOf(result.lines.getOffset(1) + 3))
+		assertEquals(-1, result.lines.indexOf(0))
+		assertEquals(URI.createFileURI(file.absolutePath), result.model.eResource.URI)
+
+		val full = new Parser().parse(file)
+		assertNull(full.lines)
+		assertEquals(#[2, 3, 5, 8], full.model.statements.map[full.getLine(it)])
+	}
+
+	@Test
+	def void modelStillUsableWithoutTheNodeModel() {
+		Files.writeString(directory.resolve("app"), "app")
+		val result = new Parser(true).parse(directory.write("estimate.build", '''
+			bin/app=app
+			bin/missing=missing
+		'''))
+		val estimate = new ImageSizeEstimator(emptyMap).estimate(result.model)
+		assertEquals(#["/proc/boot/bin/app"], estimate.entries.map[target])
+		assertEquals(#["missing"], estimate.missingSources)
+		assertEquals("bin/app", (result.model.statements.head as DeploymentStatement).path)
+	}
+}
@@ -0,0 +1,247 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Inject
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.ArrayList
+import java.util.HashMap
+import java.util.HashSet
+import java.util.List
+import java.util.Map
+import java.util.Set
+import java.util.concurrent.CompletionException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.LockSupport
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.eclipse.xtext.util.CancelIndicator
+import org.eclipse.xtext.validation.CheckMode
+import org.eclipse.xtext.validation.IResourceValidator
+import org.eclipse.xtext.validation.Issue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.utils.HostDirectoryListings
+import qnx.buildfile.lang.validation.HostFileValidator
+
+import static org.junit.jupiter.api.Assertions.*
+import static org.junit.jupiter.api.Assumptions.*
+
+/**
+ * Tests for the existence check of deployment sources on the host, see
+ * {@link HostFileValidator} and {@link HostDirectoryListings}.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class HostFileValidatorTest {
+	static val SEP = File.pathSeparator
+
+	@Inject ParseHelper<Model> parseHelper
+	@Inject IResourceValidator resourceValidator
+
+	@TempDir Path host
+
+	@BeforeEach
+	def void setUp() {
+		for (file : #["a/bin/app", "b/bin/tool", "b/lib/libc.so", "local"]) {
+			val path = host.resolve(file)
+			Files.createDirectories(path.parent)
+			Files.writeString(path, file)
+		}
+	}
+
+	// ── Validation ────────────────────────────────────────────────
+
+	@Test
+	def void disabledByDefault() {
+		val model = parse('''
+			[search=«host.resolve("a")»]
+			bin/missing=bin/missing
+		''')
+		val issues = resourceValidator.validate(model.eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+		assertTrue(issues.filter[code == "missingHostFile"].empty)
+	}
+
+	@Test
+	def void missingSourcesAreReported() {
+		val a = host.resolve("a")
+		val b = host.resolve("b")
+		val issues = validate('''
+			[search=«a»«SEP»«b»]
+			bin/app=bin/app
+			bin/tool=bin/tool
+			lib/libc.so="lib/libc.so"
+			bin/missing=bin/missing
+			[search=«a»] lib/libc.so=lib/libc.so
+		''')
+		assertEquals(#['''Source bin/missing not found in «a», «b»'''.toString,
+			'''Source lib/libc.so not found in «a»'''.toString], issues.map[message])
+		assertEquals(#[5, 6], issues.map[lineNumber])
+	}
+
+	@Test
+	def void absoluteSourcesAreCheckedDirectly() {
+		val issues = validate('''
+			bin/app=«host.resolve("a/bin/app")»
+			bin/missing=«host.resolve("a/bin/missing")»
+		''')
+		assertEquals(#['''Source «host.resolve("a/bin/missing")» not found'''.toString], issues.map[message])
+	}
+
+	@Test
+	def void sourcesNextToTheBuildfileWithoutSearch() {
+		assumeTrue(System.getenv("MKIFS_PATH") === null)
+		val issues = validate('''
+			etc/local=local
+			etc/missing=missing
+		''')
+		assertEquals(#["Source missing not found in " + host], issues.map[message])
+	}
+
+	@Test
+	def void onlyResolvedFilesAreChecked() {
+		val issues = validate('''
+			[search=«host.resolve("a")»]
+			[type=link] bin/sh=missing
+			[type=dir] missing
+			bin/inline={
+				contents
+			}
+			[type=link]
+			bin/ksh=missing
+			[type=file] bin/unresolved=${HOST_FILE_VALIDATOR_TEST_UNDEFINED}/missing
+		''')
+		assertTrue(issues.empty, '''Unexpected warnings: «issues.map[message].join(", ")»''')
+	}
+
+	@Test
+	def void deploymentsWithoutContentsAreChecked() {
+		val issues = validate('''
+			[search=«host.resolve("a")»]
+			bin/app
+			[uid=0] bin/missing
+			[type=file] bin/tool
+		''')
+		assertEquals(#['''Source bin/missing not found in «host.resolve("a")»'''.toString,
+			'''Source bin/tool not found in «host.resolve("a")»'''.toString], issues.map[message])
+		assertEquals(#[3, 4], issues.map[lineNumber])
+	}
+
+	// ── Listings ──────────────────────────────────────────────────
+
+	@Test
+	def void eachDirectoryIsListedOnce() {
+		val listings = new HostDirectoryListings
+		val directories = #[host.resolve("a/bin"), host.resolve("b/bin"), host.resolve("b/lib")]
+		listings.prefetch(directories)
+		listings.prefetch(directories)
+		assertTrue(listings.exists(host.resolve("a/bin/app")))
+		assertTrue(listings.exists(host.resolve("b/lib/libc.so")))
+		assertFalse(listings.exists(host.resolve("a/bin/tool")))
+		assertEquals(3, listings.listedCount)
+
+		// Without prefetching, listed on first use
+		assertFalse(listings.exists(host.resolve("missing/file")))
+		assertFalse(listings.exists(host.resolve("missing/other")))
+		assertEquals(4, listings.listedCount)
+	}
+
+	@Test
+	def void listingsOutperformStatsOnSlowDirectories() {
+		// 20k sources over 200 directories of a slow network file system:
+		// a round trip for a stat, five for a listing
+		val roundTrip = 50_000L
+		val directories = (0 ..< 200).map[host.resolve("nfs/dir" + it)].toList
+		val files = new ArrayList<Path>
+		for (i : 0 ..< 20_000) {
+			// Not +=, a Path is an Iterable of its names
+			files.add(directories.get(i % directories.size).resolve("file" + i))
+		}
+		val existing = new HashSet<Path>(files.filter[it.fileName.toString.hashCode % 10 != 0].toList)
+
+		var start = System.nanoTime
+		var statFound = 0
+		for (file : files) {
+			LockSupport.parkNanos(roundTrip)
+			if (existing.contains(file)) statFound++
+		}
+		val statNanos = System.nanoTime - start
+
+		start = System.nanoTime
+		val listings = new SimulatedListings(existing, 5 * roundTrip)
+		listings.prefetch(directories)
+		var listedFound = 0
+		for (file : files) {
+			if (listings.exists(file)) listedFound++
+		}
+		val listedNanos = System.nanoTime - start
+
+		assertEquals(statFound, listedFound)
+		assertEquals(directories.size, listings.listedCount)
+		System.out.println('''Host file check of «files.size» sources: «statNanos / 1_000_000» ms with one stat each, «listedNanos / 1_000_000» ms from listings''')
+		assertTrue(listedNanos * 5 < statNanos, "Listings should be much faster than one stat per source")
+	}
+
+	@Test
+	def void failedListingsAreReadAgain() {
+		val calls = new AtomicInteger
+		val listings = new HostDirectoryListings {
+			override protected list(Path directory) {
+				if (calls.getAndIncrement == 0) throw new SecurityException("denied")
+				super.list(directory)
+			}
+		}
+		val directory = host.resolve("a/bin")
+		val error = assertThrows(CompletionException)[listings.prefetch(#[directory])]
+		assertTrue(error.cause instanceof SecurityException)
+		assertTrue(listings.exists(directory.resolve("app")))
+		assertEquals(2, listings.listedCount)
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	/**
+	 * Listings of a simulated file system, each taking the given time.
+	 */
+	static class SimulatedListings extends HostDirectoryListings {
+		val Map<Path, Set<String>> directories = new HashMap
+		val long latency
+
+		new(Set<Path> files, long latency) {
+			for (file : files) {
+				directories.computeIfAbsent(file.parent)[new HashSet].add(file.fileName.toString)
+			}
+			this.latency = latency
+		}
+
+		override protected list(Path directory) {
+			LockSupport.parkNanos(latency)
+			directories.getOrDefault(directory, emptySet)
+		}
+	}
+
+	def private List<Issue> validate(CharSequence text) {
+		val previous = System.getProperty(HostFileValidator.SYSTEM_PROPERTY)
+		System.setProperty(HostFileValidator.SYSTEM_PROPERTY, "true")
+		try {
+			val issues = resourceValidator.validate(parse(text).eResource, CheckMode.ALL, CancelIndicator.NullImpl)
+			new ArrayList(issues.filter[code == "missingHostFile"].toList)
+		} finally {
+			if (previous === null) {
+				System.clearProperty(HostFileValidator.SYSTEM_PROPERTY)
+			} else {
+				System.setProperty(HostFileValidator.SYSTEM_PROPERTY, previous)
+			}
+		}
+	}
+
+	def private Model parse(CharSequence text) {
+		parseHelper.parse(text, URI.createFileURI(host.resolve("test.build").toString), new ResourceSetImpl)
+	}
+}
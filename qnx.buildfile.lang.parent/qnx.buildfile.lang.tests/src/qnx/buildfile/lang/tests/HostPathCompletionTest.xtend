@@ -0,0 +1,197 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Injector
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.List
+import java.util.concurrent.TimeUnit
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.lsp4j.CompletionParams
+import org.eclipse.lsp4j.Position
+import org.eclipse.lsp4j.TextDocumentIdentifier
+import org.eclipse.xtext.ide.server.Document
+import org.eclipse.xtext.ide.server.contentassist.ContentAssistService
+import org.eclipse.xtext.resource.XtextResource
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.eclipse.xtext.util.CancelIndicator
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.ide.BuildfileDSLIdeSetup
+import qnx.buildfile.lang.ide.HostPathIndex
+import qnx.buildfile.lang.utils.SearchPath
+
+import static org.junit.jupiter.api.Assertions.*
+import static org.junit.jupiter.api.Assumptions.*
+
+/**
+ * Tests for the completion of deployment sources from the host directories
+ * of the {@code search} attribute, see {@link SearchPath} and
+ * {@link HostPathIndex}.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class HostPathCompletionTest {
+	static val SEP = File.pathSeparator
+
+	@TempDir Path host
+	Injector injector
+
+	@BeforeEach
+	def void setUp() {
+		injector = new BuildfileDSLIdeSetup().createInjector
+		for (file : #["aarch64le/bin/app", "aarch64le/bin/apt", "aarch64le/lib/libc.so", "etc/config"]) {
+			val path = host.resolve(file)
+			Files.createDirectories(path.parent)
+			Files.writeString(path, file)
+		}
+	}
+
+	// ── Search directories ────────────────────────────────────────
+
+	@Test
+	def void searchInEffectForDeployments() {
+		val model = parse('''
+			[search=/a«SEP»/b]
+			bin/first=first
+			[uid=0]
+			[search=/c] bin/own=own
+			bin/last=last
+		''')
+		val deployments = model.statements.filter(DeploymentStatement).toList
+		assertEquals('''/a«SEP»/b'''.toString, SearchPath.getSearch(deployments.get(0)))
+		assertEquals("/c", SearchPath.getSearch(deployments.get(1)))
+		assertEquals('''/a«SEP»/b'''.toString, SearchPath.getSearch(deployments.get(2)))
+		assertNull(SearchPath.getSearch(parse("bin/app=app").statements.head as DeploymentStatement))
+	}
+
+	@Test
+	def void searchDirectoriesFromAttributeOrEnvironment() {
+		val base = host.resolve("project")
+		val env = #{"MKIFS_PATH" -> '''/mkifs«SEP»relative''', "QNX_TARGET" -> "/qnx"}
+		assertEquals(#[Path.of("/qnx/aarch64le"), base.resolve("local"), Path.of("/qnx")],
+			SearchPath.getDirectories('''${QNX_TARGET}/aarch64le«SEP»local«SEP»${UNKNOWN}/x«SEP»/qnx/.«SEP»''', env, base))
+		assertEquals(#[Path.of("/mkifs"), base.resolve("relative")], SearchPath.getDirectories(null, env, base))
+		assertEquals(#[Path.of("/mkifs")], SearchPath.getDirectories(null, env, null))
+		assertTrue(SearchPath.getDirectories(null, emptyMap, base).empty)
+	}
+
+	// ── Index ─────────────────────────────────────────────────────
+
+	@Test
+	def void indexCompletesOneSegmentAtATime() {
+		val index = indexed
+		assertEquals(#["aarch64le/", "etc/"], index.complete(host, ""))
+		assertEquals(#["aarch64le/bin/", "aarch64le/lib/"], index.complete(host, "aarch64le/"))
+		assertEquals(#["aarch64le/bin/app", "aarch64le/bin/apt"], index.complete(host, "aarch64le/bin/ap"))
+		assertEquals(#["aarch64le/lib/libc.so"], index.complete(host, "aarch64le/l").flatMap[
+			index.complete(host, it)
+		].toList)
+		assertTrue(index.complete(host, "missing/").empty)
+		assertEquals(8, index.entryCount)
+		assertFalse(index.isTruncated(host))
+	}
+
+	@Test
+	def void indexFollowsHostChanges() {
+		val index = indexed
+		Files.createDirectories(host.resolve("aarch64le/sbin"))
+		Files.writeString(host.resolve("aarch64le/sbin/init"), "")
+		waitFor[index.complete(host, "aarch64le/sbin/") == #["aarch64le/sbin/init"]]
+
+		Files.delete(host.resolve("aarch64le/bin/apt"))
+		waitFor[index.complete(host, "aarch64le/bin/") == #["aarch64le/bin/app"]]
+
+		Files.delete(host.resolve("etc/config"))
+		Files.delete(host.resolve("etc"))
+		waitFor[index.complete(host, "") == #["aarch64le/"]]
+		waitFor[index.entryCount == 7]
+	}
+
+	@Test
+	def void watchesCappedButEverythingIndexed() {
+		for (i : 0 ..< HostPathIndex.MAX_WATCHES + 10) {
+			Files.createDirectories(host.resolve('''tree/d«i / 100»/d«i»'''))
+		}
+		val index = indexed
+		assertTrue(index.watchCount <= HostPathIndex.MAX_WATCHES, '''«index.watchCount» watches''')
+		assertEquals(8 + 1 + 11 + HostPathIndex.MAX_WATCHES + 10, index.entryCount)
+		// The shallowest directories are watched first
+		Files.writeString(host.resolve("tree/file"), "")
+		waitFor[index.complete(host, "tree/fi") == #["tree/file"]]
+	}
+
+	// ── Completion ────────────────────────────────────────────────
+
+	@Test
+	def void completionProposesHostPathsFromSearchDirectories() {
+		indexed
+		val prefix = '''
+			[search=«host»]
+			bin/app=aarch64le/bin/ap'''
+		assertEquals(#["app", "apt"], complete(prefix))
+		assertEquals(#["bin/", "lib/"], complete(prefix.replace("aarch64le/bin/ap", "aarch64le/")))
+		// Not for the target path
+		assertFalse(complete('''
+			[search=«host»]
+			aarch64le/b''').contains("bin/"))
+	}
+
+	@Test
+	def void completionInTheBuildfileDirectoryWithoutSearch() {
+		assumeTrue(System.getenv("MKIFS_PATH") === null)
+		indexed
+		assertEquals(#["app", "apt"], complete("bin/app=aarch64le/bin/ap"))
+	}
+
+	@Test
+	def void completionDoesNotWaitForIndexing() {
+		val other = Files.createDirectories(host.resolve("other"))
+		Files.writeString(other.resolve("file"), "")
+		val prefix = '''
+			[search=«other»]
+			bin/file=fi'''
+		// The first request only queues the directory
+		complete(prefix)
+		injector.getInstance(HostPathIndex).index(other).get(10, TimeUnit.SECONDS)
+		assertEquals(#["file"], complete(prefix))
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private HostPathIndex getIndexed() {
+		val index = injector.getInstance(HostPathIndex)
+		index.index(host).get(10, TimeUnit.SECONDS)
+		index
+	}
+
+	def private static void waitFor(() => boolean condition) {
+		val deadline = System.currentTimeMillis + 10_000
+		while (!condition.apply) {
+			assertTrue(System.currentTimeMillis < deadline, "Host change not indexed in time")
+			Thread.sleep(20)
+		}
+	}
+
+	def private Model parse(CharSequence text) {
+		injector.getInstance(ParseHelper).parse(text, URI.createFileURI(host.resolve("test.build").toString),
+			new ResourceSetImpl) as Model
+	}
+
+	def private List<String> complete(String text) {
+		val resource = parse(text).eResource as XtextResource
+		val document = new Document(1, text)
+		val caret = document.getPosition(text.length)
+		val params = new CompletionParams(new TextDocumentIdentifier(resource.URI.toString),
+			new Position(caret.line, caret.character))
+		injector.getInstance(ContentAssistService).createCompletionList(document, resource, params,
+			CancelIndicator.NullImpl).items.map[label].toList
+	}
+}
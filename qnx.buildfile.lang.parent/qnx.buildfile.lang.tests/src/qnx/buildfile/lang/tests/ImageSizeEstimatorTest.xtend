@@ -0,0 +1,163 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Inject
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.utils.HostDirectoryListings
+import qnx.buildfile.lang.utils.ImageSizeEstimate
+import qnx.buildfile.lang.utils.ImageSizeEstimator
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the estimate of the image size, see {@link ImageSizeEstimator}.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class ImageSizeEstimatorTest {
+	static val SEP = File.pathSeparator
+
+	@Inject ParseHelper<Model> parseHelper
+
+	@TempDir Path host
+
+	@BeforeEach
+	def void setUp() {
+		write("a/bin/app", 100)
+		write("a/lib/libc.so", 1000)
+		write("b/bin/tool", 10)
+	}
+
+	// ── Sizes ─────────────────────────────────────────────────────
+
+	@Test
+	def void filesFromTheSearchDirectories() {
+		val estimate = estimate('''
+			[search=«host.resolve("a")»]
+			bin/app=bin/app
+			lib/libc.so
+			[search=«host.resolve("b")»] /usr/bin/tool=bin/tool
+		''')
+		assertEquals(#["/proc/boot/bin/app", "/proc/boot/lib/libc.so", "/usr/bin/tool"], estimate.entries.map[target])
+		assertEquals(#[host.resolve("a/bin/app"), host.resolve("a/lib/libc.so"), host.resolve("b/bin/tool")],
+			estimate.entries.map[source])
+		assertEquals(#[entry("/proc/boot/bin/app") + 100, entry("/proc/boot/lib/libc.so") + 1000,
+			entry("/usr/bin/tool") + 12], estimate.entries.map[size])
+		assertEquals(1110, estimate.dataSize)
+		assertEquals(estimate.entries.map[size].reduce[a, b|a + b], estimate.totalSize)
+		assertTrue(estimate.missingSources.empty)
+	}
+
+	@Test
+	def void inlineContentsDirectoriesAndLinks() {
+		val estimate = estimate('''
+			[prefix=/etc]
+			motd={
+			hello \}
+			}
+			[type=dir] /usr/bin
+			[type=link] /bin/sh=/proc/boot/ksh
+		''')
+		assertEquals(#[entry("/etc/motd") + 8, entry("/usr/bin"), entry("/bin/sh") + 4 + 16],
+			estimate.entries.map[size])
+		assertEquals(8, estimate.entries.head.dataSize)
+	}
+
+	@Test
+	def void compressionAndAlignment() {
+		val source = host.resolve("a/lib/libc.so")
+		val estimate = estimate('''
+			[compress=1] /a=«source»
+			[+compress] /b=«source»
+			[phys_align=4k] /c=«source»
+			[+page_align pagesizes=64k,4k] /d=«source»
+			[+page_align] /e=«source»
+			[+compress -compress] /f=«source»
+		''')
+		assertEquals(#[452L, 500L, 4096L, 65536L, 4096L, 1000L], estimate.entries.map[size - entry(target)])
+		assertEquals(6000, estimate.dataSize)
+	}
+
+	@Test
+	def void breakdownByDirectoryAndMissingSources() {
+		val estimate = estimate('''
+			[search=«host.resolve("a")»]
+			bin/app=bin/app
+			bin/missing=bin/missing
+			lib/libc.so=lib/libc.so
+			lib/unresolved=${IMAGE_SIZE_ESTIMATOR_TEST_UNDEFINED}/libc.so
+		''')
+		assertEquals(#{"/proc/boot/bin" -> entry("/proc/boot/bin/app") + 100,
+			"/proc/boot/lib" -> entry("/proc/boot/lib/libc.so") + 1000}, estimate.sizesByDirectory)
+		assertEquals(#["bin/missing", "${IMAGE_SIZE_ESTIMATOR_TEST_UNDEFINED}/libc.so"], estimate.missingSources)
+	}
+
+	@Test
+	def void sizes() {
+		assertEquals(4096, ImageSizeEstimator.parseSize("4096"))
+		assertEquals(4096, ImageSizeEstimator.parseSize("0x1000"))
+		assertEquals(4096, ImageSizeEstimator.parseSize("4k"))
+		assertEquals(2 * 1024 * 1024, ImageSizeEstimator.parseSize("2M"))
+		assertEquals(-1, ImageSizeEstimator.parseSize("big"))
+		assertEquals(-1, ImageSizeEstimator.parseSize(""))
+	}
+
+	// ── Host lookups ──────────────────────────────────────────────
+
+	@Test
+	def void eachDirectoryListedAndEachFileReadOnce() {
+		val counted = new HostDirectoryListings
+		val estimator = new ImageSizeEstimator(emptyMap) {
+			override protected createListings() {
+				counted
+			}
+		}
+		val estimate = estimator.estimate(parse('''
+			[search=«host.resolve("b")»«SEP»«host.resolve("a")»]
+			bin/app=bin/app
+			bin/app2=bin/app
+			lib/libc.so=lib/libc.so
+			lib/libc2.so=lib/libc.so
+			bin/tool=bin/tool
+		'''))
+		assertEquals(#[host.resolve("a/bin/app"), host.resolve("a/bin/app"), host.resolve("a/lib/libc.so"),
+			host.resolve("a/lib/libc.so"), host.resolve("b/bin/tool")], estimate.entries.map[source])
+		// a/bin, a/lib, b/bin and b/lib
+		assertEquals(4, counted.listedCount)
+		assertEquals(3, counted.statCount)
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	/**
+	 * @return the size of the directory entry of the target
+	 */
+	def private static long entry(String target) {
+		ImageSizeEstimator.ENTRY_OVERHEAD + (target.length + 1 + 3) / 4 * 4
+	}
+
+	def private void write(String file, int size) {
+		val path = host.resolve(file)
+		Files.createDirectories(path.parent)
+		Files.write(path, newByteArrayOfSize(size))
+	}
+
+	def private ImageSizeEstimate estimate(CharSequence text) {
+		new ImageSizeEstimator(emptyMap).estimate(parse(text))
+	}
+
+	def private Model parse(CharSequence text) {
+		parseHelper.parse(text, URI.createFileURI(host.resolve("test.build").toString), new ResourceSetImpl)
+	}
+}
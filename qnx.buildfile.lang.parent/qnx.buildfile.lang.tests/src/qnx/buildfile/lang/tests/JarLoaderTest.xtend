@@ -3,6 +3,7 @@ package qnx.buildfile.lang.tests
 import java.io.FileOutputStream
 import java.nio.file.Files
 import java.nio.file.Path
+import java.nio.file.attribute.FileTime
 import java.util.jar.Attributes
 import java.util.jar.JarEntry
 import java.util.jar.JarOutputStream
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.io.TempDir
 import qnx.buildfile.lang.utils.JarLoader
 import qnx.buildfile.lang.utils.JarLoader.JarLoadException
+import qnx.buildfile.lang.validation.ValidationScope
 
 import static org.junit.jupiter.api.Assertions.*
 
@@ -157,12 +159,82 @@ class JarLoaderTest {
 		}
 	}
 
+	// ── Leases ────────────────────────────────────────────────────
+
+	@Test
+	def void leaseKeepsClassLoaderOpenAcrossReload(@TempDir Path tempDir) {
+		val jarPath = createValidTestJar(tempDir, "leased.jar")
+		val lease = jarLoader.acquire(jarPath)
+		val classLoader = lease.classLoader
+		assertSame(lease.instance, jarLoader.loadJar(jarPath))
+
+		touch(jarPath)
+		val reloaded = jarLoader.loadJar(jarPath)
+		assertNotSame(lease.instance, reloaded)
+		assertNotNull(classLoader.getResource("META-INF/dummy.txt"),
+			"The class loader of a leased instance must stay open")
+
+		lease.close()
+		assertNull(classLoader.getResource("META-INF/dummy.txt"),
+			"The replaced class loader must be closed with its last lease")
+	}
+
+	@Test
+	def void unloadWaitsForLastLease(@TempDir Path tempDir) {
+		val jarPath = createValidTestJar(tempDir, "unloaded.jar")
+		val first = jarLoader.acquire(jarPath)
+		val second = jarLoader.acquire(jarPath)
+		val classLoader = first.classLoader
+
+		jarLoader.unload(jarPath)
+		first.close()
+		first.close()
+		assertNotNull(classLoader.getResource("META-INF/dummy.txt"))
+		second.close()
+		assertNull(classLoader.getResource("META-INF/dummy.txt"))
+	}
+
+	@Test
+	def void unloadClosesUnusedClassLoader(@TempDir Path tempDir) {
+		val jarPath = createValidTestJar(tempDir, "unused.jar")
+		val lease = jarLoader.acquire(jarPath)
+		val classLoader = lease.classLoader
+		lease.close()
+		assertNotNull(classLoader.getResource("META-INF/dummy.txt"), "Still cached")
+
+		jarLoader.unload(jarPath)
+		assertNull(classLoader.getResource("META-INF/dummy.txt"))
+		assertNotSame(lease.instance, jarLoader.loadJar(jarPath))
+	}
+
+	@Test
+	def void validationScopeReleasesLeasesWhenClosed(@TempDir Path tempDir) {
+		val jarPath = createValidTestJar(tempDir, "scoped.jar")
+		val context = <Object, Object>newHashMap
+		val scope = ValidationScope.open(context)
+		assertNull(ValidationScope.open(context), "Nested validations join the open scope")
+
+		val lease = jarLoader.acquire(jarPath)
+		assertTrue(ValidationScope.register(context, lease))
+		jarLoader.unload(jarPath)
+		assertNotNull(lease.classLoader.getResource("META-INF/dummy.txt"))
+
+		scope.close()
+		assertNull(lease.classLoader.getResource("META-INF/dummy.txt"))
+		assertFalse(context.containsKey(ValidationScope))
+		assertFalse(ValidationScope.register(context, lease))
+	}
+
 	// ── Helper methods ────────────────────────────────────────────
 
 	/**
 	 * Creates a valid JAR containing java.util.HashMap as Main-Class.
 	 * HashMap is always on the classpath and has a no-arg constructor.
 	 */
+	private def void touch(Path path) {
+		Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis + 2000))
+	}
+
 	private def Path createValidTestJar(Path dir, String name) {
 		val jarPath = dir.resolve(name)
 		createJarWithManifest(jarPath, "java.util.HashMap")
@@ -0,0 +1,192 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Inject
+import com.google.inject.Injector
+import java.io.File
+import java.nio.file.Files
+import java.util.Random
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.xtext.formatting2.FormatterRequest
+import org.eclipse.xtext.formatting2.IFormatter2
+import org.eclipse.xtext.formatting2.regionaccess.TextRegionAccessBuilder
+import org.eclipse.xtext.resource.XtextResource
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.formatting2.BuildfileDSLFormatter
+import qnx.buildfile.lang.formatting2.LineFormatter
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for {@link LineFormatter}, which must format as
+ * {@link BuildfileDSLFormatter} does.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class LineFormatterTest {
+	@Inject ParseHelper<Model> parseHelper
+	@Inject Injector injector
+
+	val formatter = new LineFormatter
+
+	// ── Formatting rules ──────────────────────────────────────────
+
+	@Test
+	def void attributeSections() {
+		assertFormatted('''
+			[uid=0 gid=0 +raw -optional]
+			[uid=0] bin/a=a
+		''', '''
+			  [ uid = 0   gid=0 + raw	-  optional ]
+			[uid=0]bin/a=a
+		''')
+	}
+
+	@Test
+	def void deployments() {
+		assertFormatted('''
+			bin/a=a
+			[type=link] bin/sh=ksh
+			bin/b  ${QNX_TARGET}/b
+			etc/conf={
+			  key = value
+			}
+			"bin/with spaces"="host file"
+		''', '''
+			   bin/a  =  a
+			[type=link]   bin/sh= ksh
+			bin/b  ${QNX_TARGET}/b
+			etc/conf = {
+			  key = value
+			}
+			 "bin/with spaces" ="host file"
+		''')
+	}
+
+	@Test
+	def void commentsAndTrailingSpacesKept() {
+		assertFormatted('''
+			   # comment
+			[uid=0] bin/a=a   # trailing comment
+			bin/b=b
+
+
+		''', '''
+			   # comment
+			[uid=0]bin/a = a   # trailing comment
+			bin/b=b
+
+
+		''')
+	}
+
+	@Test
+	def void syntaxErrorsKept() {
+		assertEquals("[uid =0\nbin/a=a\nbin/b = /* */\n", formatter.format("[uid =0\n bin/a = a\nbin/b = /* */\n"))
+		assertEquals("etc/conf = { \n}\n", formatter.format("etc/conf = { \n}\n"))
+	}
+
+	@Test
+	def void rangeFormattedWithinIt() {
+		val text = " bin/a = a\n bin/b = b\n bin/c = c\n"
+		val start = text.indexOf("bin/b")
+		val replacements = formatter.format(text, start - 1, "bin/b = b".length + 1)
+		assertEquals(#[start - 1 -> "", start + 5 -> "", start + 7 -> ""], replacements.map[offset -> it.text])
+		assertEquals(#[1, 1, 1], replacements.map[length])
+		assertTrue(formatter.format(text, start, 3).empty)
+	}
+
+	// ── Same output as the formatter ──────────────────────────────
+
+	@Test
+	def void sameAsFormatterOnTestFiles() {
+		for (name : #["test1.build", "test2.bld"]) {
+			val text = Files.readString(new File(LineFormatterTest.getResource(name).toURI).toPath)
+			assertEquals(format2(text), formatter.format(text), name)
+		}
+	}
+
+	@Test
+	def void sameAsFormatterOnScrambledTestFiles() {
+		val random = new Random(48)
+		val spaces = #["", " ", "  ", "\t", " \t"]
+		var compared = 0
+		for (name : #["test1.build", "test2.bld"]) {
+			val text = Files.readString(new File(LineFormatterTest.getResource(name).toURI).toPath)
+			for (i : 0 ..< 50) {
+				// Spaces around the brackets and equals signs, and at the start of the lines
+				val scrambled = new StringBuilder
+				for (c : text.toCharArray) {
+					if ("[]=".indexOf(c) >= 0 && random.nextBoolean) scrambled.append(spaces.get(random.nextInt(spaces.size)))
+					scrambled.append(c)
+					if ("\n[]=".indexOf(c) >= 0 && random.nextBoolean) scrambled.append(spaces.get(random.nextInt(spaces.size)))
+				}
+				val resource = load(scrambled.toString)
+				if (!resource.parseResult.hasSyntaxErrors) {
+					assertEquals(format2(resource), formatter.format(scrambled.toString), scrambled.toString)
+					compared++
+				}
+			}
+		}
+		assertTrue(compared > 20, "Too few scrambled files without syntax errors: " + compared)
+	}
+
+	// ── Formatting time ───────────────────────────────────────────
+
+	@Test
+	def void fasterThanTheFormatter() {
+		val statements = 10_000
+		val text = (0 ..< statements).map[
+			if (it % 100 == 0) '''[ uid=0  gid = 0 perms=0755 +raw]''' else '''[uid=0 gid=0]bin/app«it» = aarch64le/bin/app«it»'''
+		].join("\n")
+
+		var start = System.nanoTime
+		val expected = format2(text)
+		val formatterNanos = System.nanoTime - start
+
+		var lineNanos = Long.MAX_VALUE
+		for (i : 0 ..< 3) {
+			start = System.nanoTime
+			assertEquals(expected, formatter.format(text))
+			lineNanos = Math.min(lineNanos, System.nanoTime - start)
+		}
+
+		System.out.println('''Formatting «statements» statements: formatter «formatterNanos / 1_000_000» ms with the parse, line formatter «lineNanos / 1_000_000» ms''')
+		assertTrue(lineNanos * 10 < formatterNanos, "The line formatter should be much faster")
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private void assertFormatted(CharSequence expected, CharSequence text) {
+		assertFalse(load(text.toString).parseResult.hasSyntaxErrors, text.toString)
+		assertEquals(format2(text.toString), formatter.format(text.toString))
+		assertEquals(expected.toString, formatter.format(text.toString))
+	}
+
+	/**
+	 * @return the text formatted by {@link BuildfileDSLFormatter}
+	 */
+	def private String format2(String text) {
+		format2(load(text))
+	}
+
+	def private String format2(XtextResource resource) {
+		val request = injector.getInstance(FormatterRequest)
+		request.allowIdentityEdits = false
+		request.textRegionAccess = injector.getInstance(TextRegionAccessBuilder).forNodeModel(resource).create
+		val formatted = new StringBuilder(resource.parseResult.rootNode.text)
+		for (replacement : injector.getInstance(IFormatter2).format(request).sortBy[-offset]) {
+			formatted.replace(replacement.offset, replacement.endOffset, replacement.replacementText)
+		}
+		formatted.toString
+	}
+
+	def private XtextResource load(String text) {
+		parseHelper.parse(text, URI.createURI("format.build"), new ResourceSetImpl).eResource as XtextResource
+	}
+}
@@ -0,0 +1,184 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Injector
+import org.eclipse.emf.common.util.URI
+import org.eclipse.lsp4j.SymbolKind
+import org.eclipse.xtext.ide.server.symbol.HierarchicalDocumentSymbolService
+import org.eclipse.xtext.resource.XtextResource
+import org.eclipse.xtext.resource.XtextResourceSet
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.eclipse.xtext.util.CancelIndicator
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.ide.BuildfileDSLIdeSetup
+import qnx.buildfile.lang.ide.BuildfileDSLOutlineGroups
+import qnx.buildfile.lang.ide.BuildfileDSLOutlineLabelCache
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the grouping of large buildfiles in the outline and the LSP
+ * document symbols, see {@link BuildfileDSLOutlineGroups}.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class OutlineGroupsTest {
+	Injector injector
+	ParseHelper<Model> parseHelper
+
+	@BeforeEach
+	def void setUp() {
+		injector = new BuildfileDSLIdeSetup().createInjector
+		parseHelper = injector.getInstance(ParseHelper)
+	}
+
+	// ── Grouping ──────────────────────────────────────────────────
+
+	@Test
+	def void smallBuildfileIsNotGrouped() {
+		val model = parse(buildfile(2, 10, 50))
+		assertTrue(BuildfileDSLOutlineGroups.group(model).empty)
+	}
+
+	@Test
+	def void largeBuildfileIsGroupedByAttributeScope() {
+		val model = parse(buildfile(3, 10, 300))
+		val groups = BuildfileDSLOutlineGroups.group(model)
+		assertEquals(#["(no attributes) (3)", "[uid=0 gid=0] (10)", "[+optional] (300)"], groups.map[label].toList)
+
+		assertSame(model, groups.get(0).getElement(model))
+		assertEquals("pre/file0", (groups.get(0).getStatements(model).head as DeploymentStatement).path)
+		assertSame(model.statements.get(3), groups.get(1).getElement(model))
+		assertEquals(10, groups.get(1).getStatements(model).size)
+		assertTrue(groups.get(1).getStatements(model).forall[it instanceof DeploymentStatement])
+		assertTrue(groups.forall[pages.empty])
+	}
+
+	@Test
+	def void largeScopeIsPaginated() {
+		val model = parse(buildfile(0, 0, 1200))
+		val groups = BuildfileDSLOutlineGroups.group(model)
+		assertEquals(1, groups.size)
+		val pages = groups.head.pages
+		assertEquals(#[500, 500, 200], pages.map[size].toList)
+		assertEquals("opt/file0 … opt/file499 (500)", pages.head.label)
+		assertEquals("opt/file1000 … opt/file1199 (200)", pages.lastOrNull.label)
+		assertEquals(1001, pages.lastOrNull.start)
+		assertSame(model.statements.get(1001), pages.lastOrNull.getElement(model))
+	}
+
+	// ── Label cache ───────────────────────────────────────────────
+
+	@Test
+	def void labelsAreReusedUntilTheBuildfileChanges() {
+		val model = parse(buildfile(0, 2, 0))
+		val cache = injector.getInstance(BuildfileDSLOutlineLabelCache)
+		val stmt = model.statements.get(1)
+		val label = cache.getLabel(stmt)
+		assertEquals("bin/file0 = aarch64le/bin/file0", label)
+		assertSame(label, cache.getLabel(stmt))
+		assertEquals("bin/file0", cache.getName(stmt))
+
+		val resource = model.eResource as XtextResource
+		resource.reparse('''
+			[uid=0 gid=0]
+			bin/other=aarch64le/bin/other
+		''')
+		val reparsed = resource.contents.head as Model
+		assertEquals("bin/other = aarch64le/bin/other", cache.getLabel(reparsed.statements.get(1)))
+	}
+
+	// ── Document symbols ──────────────────────────────────────────
+
+	@Test
+	def void smallBuildfileSymbolsAreFlat() {
+		val symbols = symbols(parse(buildfile(1, 2, 0)))
+		assertEquals(#["pre/file0", "[uid=0 gid=0]", "bin/file0", "bin/file1"], symbols.map[name].toList)
+		assertEquals(#["uid=0", "gid=0"], symbols.get(1).children.map[name].toList)
+	}
+
+	@Test
+	def void largeBuildfileSymbolsAreGrouped() {
+		val symbols = symbols(parse(buildfile(3, 10, 1200)))
+		assertEquals(#["(no attributes) (3)", "[uid=0 gid=0] (10)", "[+optional] (1200)"], symbols.map[name].toList)
+		assertTrue(symbols.forall[kind == SymbolKind.Namespace])
+
+		val scope = symbols.get(1)
+		assertEquals(3, scope.range.start.line)
+		assertEquals(13, scope.range.end.line)
+		assertEquals(10, scope.children.size)
+		assertTrue(scope.children.forall[children.empty])
+
+		val pages = symbols.get(2).children
+		assertEquals(#[500, 500, 200], pages.map[children.size].toList)
+		assertEquals(15, pages.head.range.start.line)
+		assertEquals(15 + 1199, pages.lastOrNull.range.end.line)
+	}
+
+	@Test
+	def void symbolsAreReusedUntilTheBuildfileChanges() {
+		val model = parse(buildfile(3, 10, 1200))
+		val service = injector.getInstance(HierarchicalDocumentSymbolService)
+		val resource = model.eResource as XtextResource
+		val symbols = service.getSymbols(resource, CancelIndicator.NullImpl)
+		assertSame(symbols, service.getSymbols(resource, CancelIndicator.NullImpl))
+
+		resource.reparse(buildfile(0, 1, 0))
+		assertEquals(2, service.getSymbols(resource, CancelIndicator.NullImpl).size)
+	}
+
+	@Test
+	def void hugeBuildfileSymbolsTiming() {
+		val model = parse(buildfile(10, 100, 50000))
+		val service = injector.getInstance(HierarchicalDocumentSymbolService)
+		val resource = model.eResource as XtextResource
+		val start = System.nanoTime
+		val symbols = service.getSymbols(resource, CancelIndicator.NullImpl)
+		val computed = System.nanoTime
+		service.getSymbols(resource, CancelIndicator.NullImpl)
+		val cached = System.nanoTime
+		System.out.println('''Document symbols of «model.statements.size» statements: «(computed - start) / 1000000» ms, then «(cached - computed) / 1000» us''')
+		assertEquals(3, symbols.size)
+		assertEquals(100, symbols.get(2).children.size)
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private Model parse(CharSequence text) {
+		val resourceSet = injector.getInstance(XtextResourceSet)
+		parseHelper.parse(text, URI.createURI("file:///workspace/outline.build"), resourceSet)
+	}
+
+	def private symbols(Model model) {
+		injector.getInstance(HierarchicalDocumentSymbolService).getSymbols(model.eResource as XtextResource, CancelIndicator.NullImpl)
+	}
+
+	/**
+	 * Deployments before any attribute, in a {@code [uid=0 gid=0]} scope and
+	 * in a {@code [+optional]} scope, one statement per line.
+	 */
+	def private static String buildfile(int before, int owned, int optional) {
+		val text = new StringBuilder
+		for (i : 0 ..< before) {
+			text.append('''pre/file«i»=aarch64le/pre/file«i»''').append("\n")
+		}
+		if (owned > 0) {
+			text.append("[uid=0 gid=0]\n")
+			for (i : 0 ..< owned) {
+				text.append('''bin/file«i»=aarch64le/bin/file«i»''').append("\n")
+			}
+		}
+		if (optional > 0) {
+			text.append("[+optional]\n")
+			for (i : 0 ..< optional) {
+				text.append('''opt/file«i»=aarch64le/opt/file«i»''').append("\n")
+			}
+		}
+		text.toString
+	}
+}
@@ -1,7 +1,12 @@
 package qnx.buildfile.lang.tests
 
+import com.google.gson.JsonArray
+import com.google.gson.JsonNull
 import org.junit.jupiter.api.Test
+import qnx.buildfile.lang.attributes.AttributeKeywords
+import qnx.buildfile.lang.ide.BuildfileDSLCodeActionService
 import qnx.buildfile.lang.ide.BuildfileDSLQuickfixResolvers
+import qnx.buildfile.lang.validation.IssueData
 
 import static org.junit.jupiter.api.Assertions.*
 
@@ -144,4 +149,81 @@ class QuickfixResolversTest {
 		assertEquals(5, BuildfileDSLQuickfixResolvers.levenshteinDistance("perms", ""))
 		assertEquals(5, BuildfileDSLQuickfixResolvers.levenshteinDistance("", "perms"))
 	}
+
+	// ── Bounded Levenshtein distance ──────────────────────────────
+
+	@Test
+	def void boundedLevenshteinWithinBound() {
+		assertEquals(2, BuildfileDSLQuickfixResolvers.boundedLevenshteinDistance("prems", "perms", 4))
+		assertEquals(0, BuildfileDSLQuickfixResolvers.boundedLevenshteinDistance("", "", 0))
+	}
+
+	@Test
+	def void boundedLevenshteinStopsBeyondBound() {
+		assertEquals(5, BuildfileDSLQuickfixResolvers.boundedLevenshteinDistance("xxxxxxxxxxx", "perms", 4))
+		assertEquals(3, BuildfileDSLQuickfixResolvers.boundedLevenshteinDistance("abcdef", "uvwxyz", 2))
+	}
+
+	@Test
+	def void boundedLevenshteinMatchesUnbounded() {
+		val words = #["perms", "prems", "uid", "gid", "optional", "optonal", "compress", "x", "", "autoso", "dperms"]
+		for (a : words) {
+			for (b : words) {
+				val exact = BuildfileDSLQuickfixResolvers.levenshteinDistance(a, b)
+				for (max : 0 .. 6) {
+					assertEquals(Math.min(exact, max + 1), BuildfileDSLQuickfixResolvers.boundedLevenshteinDistance(a, b, max),
+						'''distance("«a»", "«b»") bounded by «max»''')
+				}
+			}
+		}
+	}
+
+	// ── Index matches a brute-force search ────────────────────────
+
+	@Test
+	def void suggestionsMatchBruteForceSearch() {
+		val queries = newArrayList("permjs", "optonal", "udi", "gdi", "compres", "a", "PERM", "tpye", "dperm",
+			"searc", "filter", "bigendain", "+script", "physaddr")
+		queries += AttributeKeywords.ALL_ATTRIBUTE_KEYWORDS.map[it + "x"]
+
+		for (query : queries) {
+			val expected = AttributeKeywords.ALL_ATTRIBUTE_KEYWORDS
+				.map[keyword|keyword -> BuildfileDSLQuickfixResolvers.levenshteinDistance(query.toLowerCase, keyword.toLowerCase)]
+				.filter[value > 0 && value <= 4]
+				.sortBy[value]
+				.take(3)
+				.map[key + ":" + value]
+				.toList
+			val actual = BuildfileDSLQuickfixResolvers.suggestAttributeNames(query).map[keyword + ":" + distance]
+			assertEquals(expected, actual, '''suggestions for "«query»"''')
+		}
+	}
+
+	// ── Candidates from issue data ────────────────────────────────
+
+	@Test
+	def void candidatesAreReadFromIssueData() {
+		val data = IssueData.create("tpye", IssueData.KIND_VALUED_ATTRIBUTE_NAME, #["type"])
+		assertEquals(#["type"], BuildfileDSLQuickfixResolvers.getCandidates(data, 'Unknown ValuedAttribute "tpye"'))
+		assertEquals("tpye", BuildfileDSLQuickfixResolvers.getBadToken(data, null))
+	}
+
+	@Test
+	def void candidatesFallBackToMessageWithoutIssueData() {
+		val candidates = BuildfileDSLQuickfixResolvers.getCandidates(null, 'Unknown ValuedAttribute "permjs"')
+		assertTrue(candidates.contains("perms"), '''Should suggest 'perms' but got: «candidates.join(", ")»''')
+		assertEquals("permjs", BuildfileDSLQuickfixResolvers.getBadToken(null, 'Unknown ValuedAttribute "permjs"'))
+	}
+
+	@Test
+	def void diagnosticDataSentBackAsJson() {
+		val json = new JsonArray
+		json.add("socket")
+		json.add(IssueData.KIND_ATTRIBUTE_VALUE)
+		json.add(JsonNull.INSTANCE)
+		assertArrayEquals(#["socket", IssueData.KIND_ATTRIBUTE_VALUE, null],
+			BuildfileDSLCodeActionService.toIssueData(json))
+		assertArrayEquals(#["a", "b"], BuildfileDSLCodeActionService.toIssueData(#["a", "b"]))
+		assertNull(BuildfileDSLCodeActionService.toIssueData(null))
+	}
 }
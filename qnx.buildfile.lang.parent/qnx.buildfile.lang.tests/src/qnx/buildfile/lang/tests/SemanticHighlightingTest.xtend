@@ -0,0 +1,273 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Inject
+import com.google.inject.Injector
+import java.util.ArrayList
+import java.util.List
+import java.util.Random
+import org.eclipse.lsp4j.Position
+import org.eclipse.lsp4j.Range
+import org.eclipse.lsp4j.SemanticTokens
+import org.eclipse.lsp4j.SemanticTokensDelta
+import org.eclipse.lsp4j.SemanticTokensDeltaParams
+import org.eclipse.lsp4j.SemanticTokensParams
+import org.eclipse.lsp4j.SemanticTokensRangeParams
+import org.eclipse.lsp4j.TextDocumentIdentifier
+import org.eclipse.xtext.ide.editor.syntaxcoloring.IHighlightedPositionAcceptor
+import org.eclipse.xtext.ide.server.Document
+import org.eclipse.xtext.resource.XtextResource
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.eclipse.xtext.util.CancelIndicator
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import qnx.buildfile.lang.buildfileDSL.Attribute
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.ide.BuildfileDSLSemanticHighlightingCalculator
+import qnx.buildfile.lang.ide.server.BuildfileDSLSemanticTokensService
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for {@link BuildfileDSLSemanticHighlightingCalculator} and the
+ * semantic tokens (full, range and delta) sent to VSCode.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class SemanticHighlightingTest {
+	@Inject ParseHelper<Model> parseHelper
+
+	@Inject BuildfileDSLSemanticHighlightingCalculator calculator
+
+	@Inject Injector injector
+
+	val service = new BuildfileDSLSemanticTokensService {
+		override protected getCalculator(XtextResource resource) {
+			calculator
+		}
+	}
+
+	// ── Highlighting ──────────────────────────────────────────────
+
+	@Test
+	def void highlightsAttributesAndDeployments() {
+		val text = '''
+			[uid=0 +optional]
+			bin/app=src/app
+		'''
+		val highlighted = highlight(text).map[text.substring(get(0) as Integer, (get(0) as Integer) + (get(1) as Integer)) + ":" + get(2)]
+		assertEquals(#[
+			"[:operator", "uid:keyword", "=:operator", "0:number", "+:keyword", "optional:keyword", "]:operator",
+			"bin/app:string", "=:operator"
+		], highlighted)
+	}
+
+	@Test
+	def void highlightsContentBlocks() {
+		val text = '''
+			etc/hosts={
+			127.0.0.1 localhost
+			}
+		'''
+		val highlighted = highlight(text)
+		assertEquals("string", highlighted.lastOrNull.get(2))
+		assertEquals(text.indexOf("{"), highlighted.lastOrNull.get(0))
+	}
+
+	@Test
+	def void rangeHighlightingMatchesFullHighlighting() {
+		val text = largeBuildfile(200)
+		val resource = parseHelper.parse(text).eResource as XtextResource
+		val full = collect[acceptor|calculator.provideHighlightingFor(resource, acceptor, CancelIndicator.NullImpl)]
+
+		val start = text.indexOf("bin/app100")
+		val end = text.indexOf("bin/app120")
+		val range = collect[acceptor|calculator.provideHighlightingFor(resource, start, end - start, acceptor, CancelIndicator.NullImpl)]
+
+		val expected = full.filter[(get(0) as Integer) + (get(1) as Integer) > start && (get(0) as Integer) < end].toList
+		assertFalse(range.isEmpty)
+		assertEquals(expected.map[join(",")], range.map[join(",")])
+	}
+
+	@Test
+	def void highlightingBenchmark() {
+		// 25k attribute sections with 4 attributes each
+		val builder = new StringBuilder
+		for (i : 0 ..< 25000) {
+			builder.append("[uid=0 gid=0 perms=0755 +optional]\n")
+		}
+		val resource = parseHelper.parse(builder).eResource as XtextResource
+		val attributes = resource.allContents.filter(Attribute).size
+		assertEquals(100000, attributes)
+
+		var positions = 0
+		var best = Long.MAX_VALUE
+		for (run : 0 ..< 5) {
+			val count = newIntArrayOfSize(1)
+			val start = System.nanoTime
+			calculator.provideHighlightingFor(resource, [offset, length, ids|count.set(0, count.get(0) + 1)], CancelIndicator.NullImpl)
+			best = Math.min(best, System.nanoTime - start)
+			positions = count.get(0)
+		}
+
+		// 1 name per attribute, 2 more leaves per valued attribute, 1 more for +/-, 2 brackets per section
+		assertEquals(25000 * (4 + 3 * 2 + 1 + 2), positions)
+		println('''Highlighting of «attributes» attributes («positions» positions): best of 5 runs «best / 1_000_000» ms''')
+	}
+
+	// ── Semantic tokens ───────────────────────────────────────────
+
+	@Test
+	def void rangeTokensUseAbsoluteStartPosition() {
+		val text = largeBuildfile(50)
+		val resource = parseHelper.parse(text).eResource as XtextResource
+		val document = new Document(1, text)
+
+		val params = new SemanticTokensRangeParams(new TextDocumentIdentifier(resource.URI.toString),
+			new Range(new Position(10, 0), new Position(12, 0)))
+		val tokens = service.semanticTokensRange(document, resource, params, CancelIndicator.NullImpl)
+
+		// first token: 10 lines below the start of the document, at column 0
+		assertEquals(10, tokens.data.get(0))
+		assertEquals(0, tokens.data.get(1))
+		assertNull(tokens.resultId)
+	}
+
+	@Test
+	def void deltaTokensReproduceFullTokens() {
+		val before = largeBuildfile(100)
+		val after = before.replace("bin/app50=", "[+optional]\nbin/app50=")
+
+		val first = tokens(before)
+		assertNotNull(first.resultId)
+
+		val resource = parseHelper.parse(after).eResource as XtextResource
+		val delta = service.semanticTokensFullDelta(new Document(2, after), resource,
+			new SemanticTokensDeltaParams(new TextDocumentIdentifier(resource.URI.toString), first.resultId),
+			CancelIndicator.NullImpl)
+		assertTrue(delta.isRight, "Expected a delta for a known result id")
+		assertEquals(1, delta.getRight.edits.size)
+
+		val patched = new ArrayList(first.data)
+		val edit = delta.getRight.edits.head
+		for (i : 0 ..< edit.deleteCount) patched.remove(edit.start)
+		patched.addAll(edit.start, edit.data)
+
+		assertEquals(tokens(after).data, patched)
+		assertTrue(edit.data.size < first.data.size / 10, "The delta should only carry the edited tokens")
+	}
+
+	@Test
+	def void deltaOnlyHighlightsTheEditedStatements() {
+		val highlighted = new ArrayList<Integer>
+		val counting = new BuildfileDSLSemanticHighlightingCalculator {
+			override provideHighlightingFor(XtextResource resource, IHighlightedPositionAcceptor acceptor, CancelIndicator cancelIndicator) {
+				highlighted.add(resource.parseResult.rootNode.totalLength)
+				super.provideHighlightingFor(resource, acceptor, cancelIndicator)
+			}
+
+			override provideHighlightingFor(XtextResource resource, int offset, int length, IHighlightedPositionAcceptor acceptor, CancelIndicator cancelIndicator) {
+				highlighted.add(length)
+				super.provideHighlightingFor(resource, offset, length, acceptor, cancelIndicator)
+			}
+		}
+		injector.injectMembers(counting)
+		val countingService = new BuildfileDSLSemanticTokensService {
+			override protected getCalculator(XtextResource resource) {
+				counting
+			}
+		}
+
+		val before = largeBuildfile(1000)
+		val first = tokens(countingService, before)
+		val after = before.replace("bin/app500=", "bin/app500x=")
+		val patched = patch(first.data, delta(countingService, after, first.resultId))
+		assertEquals(tokens(after).data, patched)
+		assertTrue(highlighted.lastOrNull < 100, '''Highlighted «highlighted.lastOrNull» characters for a one character edit''')
+	}
+
+	@Test
+	def void deltasOfRandomEditsReproduceFullTokens() {
+		val random = new Random(27)
+		val pieces = #["\n", "bin/", "app", "=", "[", "]", "uid=0", " ", "+raw", "{\n", "}", "\n}\n", "\"", "${X}", "# c", "\\}"]
+		var text = largeBuildfile(30) + "etc/conf={\nkey=value\n}\nbin/last=last\n"
+		// Full tokens from another service, that keeps its own results
+		val reference = new BuildfileDSLSemanticTokensService {
+			override protected getCalculator(XtextResource resource) {
+				calculator
+			}
+		}
+		var result = tokens(text)
+		for (i : 0 ..< 300) {
+			val offset = random.nextInt(text.length + 1)
+			val length = Math.min(text.length - offset, random.nextInt(4) * random.nextInt(6))
+			val replacement = (0 ..< random.nextInt(3)).map[pieces.get(random.nextInt(pieces.size))].join
+			text = text.substring(0, offset) + replacement + text.substring(offset + length)
+
+			val delta = delta(service, text, result.resultId)
+			val full = tokens(reference, text)
+			assertEquals(full.data, patch(result.data, delta), '''Tokens after edit «i» of «text»''')
+			result = new SemanticTokens(delta.resultId, full.data)
+		}
+	}
+
+	@Test
+	def void deltaWithUnknownResultIdFallsBackToFullTokens() {
+		val text = largeBuildfile(10)
+		val resource = parseHelper.parse(text).eResource as XtextResource
+		val delta = service.semanticTokensFullDelta(new Document(1, text), resource,
+			new SemanticTokensDeltaParams(new TextDocumentIdentifier(resource.URI.toString), "unknown"),
+			CancelIndicator.NullImpl)
+		assertTrue(delta.isLeft)
+		assertFalse(delta.getLeft.data.isEmpty)
+	}
+
+	def private tokens(String text) {
+		tokens(service, text)
+	}
+
+	def private tokens(BuildfileDSLSemanticTokensService service, String text) {
+		val resource = parseHelper.parse(text).eResource as XtextResource
+		service.semanticTokensFull(new Document(1, text), resource,
+			new SemanticTokensParams(new TextDocumentIdentifier(resource.URI.toString)), CancelIndicator.NullImpl)
+	}
+
+	def private SemanticTokensDelta delta(BuildfileDSLSemanticTokensService service, String text, String previousResultId) {
+		val resource = parseHelper.parse(text).eResource as XtextResource
+		val delta = service.semanticTokensFullDelta(new Document(2, text), resource,
+			new SemanticTokensDeltaParams(new TextDocumentIdentifier(resource.URI.toString), previousResultId),
+			CancelIndicator.NullImpl)
+		assertTrue(delta.isRight, "Expected a delta for a known result id")
+		delta.getRight
+	}
+
+	def private static List<Integer> patch(List<Integer> data, SemanticTokensDelta delta) {
+		val patched = new ArrayList(data)
+		for (edit : delta.edits.sortBy[-start]) {
+			for (i : 0 ..< edit.deleteCount) patched.remove(edit.start)
+			patched.addAll(edit.start, edit.data)
+		}
+		patched
+	}
+
+	def private List<List<Object>> highlight(String text) {
+		val resource = parseHelper.parse(text).eResource as XtextResource
+		collect[acceptor|calculator.provideHighlightingFor(resource, acceptor, CancelIndicator.NullImpl)]
+	}
+
+	def private List<List<Object>> collect((IHighlightedPositionAcceptor)=>void highlighter) {
+		val positions = <List<Object>>newArrayList
+		highlighter.apply[offset, length, ids|positions.add(#[offset, length, ids.head])]
+		positions
+	}
+
+	def private static String largeBuildfile(int statements) {
+		val builder = new StringBuilder
+		for (i : 0 ..< statements) {
+			builder.append("[uid=0 gid=0 perms=0755]\n")
+			builder.append("bin/app").append(i).append("=aarch64le/bin/app").append(i).append("\n")
+		}
+		builder.toString
+	}
+}
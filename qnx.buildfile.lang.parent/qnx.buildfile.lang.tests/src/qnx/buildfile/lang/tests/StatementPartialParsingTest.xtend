@@ -0,0 +1,179 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Inject
+import com.google.inject.Injector
+import java.io.StringReader
+import java.util.ArrayList
+import java.util.Random
+import org.eclipse.emf.common.util.URI
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl
+import org.eclipse.emf.ecore.util.EcoreUtil
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils
+import org.eclipse.xtext.parser.IParser
+import org.eclipse.xtext.parser.antlr.AbstractAntlrParser
+import org.eclipse.xtext.resource.XtextResource
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.utils.StatementPartialParsingHelper
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for {@link StatementPartialParsingHelper}, which re-parses the
+ * statements an edit touches on {@link XtextResource#update}, as the Eclipse
+ * editor calls it. Each re-parse must give the result of a full parse.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class StatementPartialParsingTest {
+	static val DOCUMENT_URI = URI.createURI("file:///test.build")
+
+	@Inject ParseHelper<Model> parseHelper
+	@Inject Injector injector
+
+	// ── Binding ───────────────────────────────────────────────────
+
+	@Test
+	def void runtimeModuleBindsTheStatementPartialParser() {
+		val resource = parse("bin/app=app\n")
+		assertTrue((resource.parser as AbstractAntlrParser).partialParser instanceof StatementPartialParsingHelper)
+	}
+
+	// ── Re-parse ──────────────────────────────────────────────────
+
+	@Test
+	def void reparseOfAStatementKeepsTheOthers() {
+		val text = buildfile(300)
+		val resource = parse(text)
+		val model = resource.contents.head as Model
+		val statements = new ArrayList(model.statements)
+		val offset = text.indexOf("bin/app151=") + "bin/app151".length
+
+		resource.update(offset, 0, "x")
+		assertSame(model, resource.contents.head)
+		assertNotSame(statements.get(151), model.statements.get(151))
+		for (i : (0 ..< 300).filter[it < 150 || it > 152]) {
+			assertSame(statements.get(i), model.statements.get(i))
+		}
+		assertEquals("bin/app151x", (model.statements.get(151) as DeploymentStatement).path)
+		assertReparsed(resource)
+	}
+
+	@Test
+	def void reparseMatchesFullParse() {
+		val text = '''
+			[uid=0 gid=0]
+			bin/a=a
+			etc/conf={
+			key=value
+			}
+			[+optional] lib/b.so=b.so
+			bin/c=${QNX_TARGET}/c
+			"bin/d e"="d e"
+			bin/f=f
+		'''.toString
+		val edits = #[
+			// A character typed, a line split, a newline deleted, a statement deleted
+			text.indexOf("bin/a=") -> "bin/a=".length -> "bin/aa=",
+			text.indexOf("bin/c=") -> 0 -> "bin/new=new\n",
+			text.indexOf("\n[+optional]") -> 1 -> "",
+			text.indexOf("bin/f=f") -> "bin/f=f\n".length -> "",
+			// A block opened, closed, emptied, and a string opened
+			text.indexOf("bin/c=") -> "bin/c=".length -> "bin/c={\n",
+			text.indexOf("key=value") + "key=value\n".length -> 2 -> "",
+			text.indexOf("}\n") -> 0 -> "x}",
+			text.indexOf("key=value") -> "key=value\n".length -> "",
+			text.indexOf("\"bin/d e\"") -> 1 -> "",
+			// Attributes, at the start and at the end of the text
+			text.indexOf("[uid") + 1 -> 3 -> "perms",
+			0 -> 0 -> "\n\n# comment\n",
+			text.length -> 0 -> "bin/g=g",
+			text.length - 1 -> 1 -> "",
+			text.indexOf("bin/a") -> text.length - text.indexOf("bin/a") -> "",
+			// Syntax errors made and undone
+			text.indexOf("[+optional]") -> 0 -> "[uid=0\n",
+			text.indexOf("gid=0]") -> "gid=0]".length -> "=",
+			text.indexOf("bin/a=a") -> 0 -> "${UNTERMINATED "
+		]
+		for (edit : edits) {
+			val resource = parse(text)
+			resource.update(edit.key.key, edit.key.value, edit.value)
+			assertReparsed(resource)
+			resource.update(edit.key.key, edit.value.length, text.substring(edit.key.key, edit.key.key + edit.key.value))
+			assertReparsed(resource)
+			assertEquals(text, resource.parseResult.rootNode.text)
+		}
+	}
+
+	@Test
+	def void randomEditsMatchFullParse() {
+		val random = new Random(47)
+		val pieces = #["\n", "bin/", "app", "=", "[", "]", "uid=0", " ", "+raw", "{\n", "}", "\n}\n", "\"", "${X}", "${", "# c", "\\}"]
+		val resource = parse(buildfile(60) + "etc/conf={\nkey=value\n}\nbin/last=last\n")
+		for (i : 0 ..< 300) {
+			val text = resource.parseResult.rootNode.text
+			val offset = random.nextInt(text.length + 1)
+			val length = Math.min(text.length - offset, random.nextInt(4) * random.nextInt(6))
+			val replacement = (0 ..< random.nextInt(3)).map[pieces.get(random.nextInt(pieces.size))].join
+			resource.update(offset, length, replacement)
+			assertReparsed(resource)
+		}
+	}
+
+	@Test
+	def void keystrokesInALargeBuildfile() {
+		val text = buildfile(50_000)
+		val offset = text.indexOf("bin/app25001=") + "bin/app25001".length
+		val resource = parse(text)
+		resource.update(offset, 0, "x")
+		assertReparsed(resource)
+		resource.update(offset, 1, "")
+		assertReparsed(resource)
+		assertEquals(text, resource.parseResult.rootNode.text)
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	/**
+	 * Asserts that the model, nodes and syntax errors of the resource are
+	 * those of a full parse of its text.
+	 */
+	def private void assertReparsed(XtextResource resource) {
+		val text = resource.parseResult.rootNode.text
+		val expected = injector.getInstance(IParser).parse(new StringReader(text))
+		val actual = resource.parseResult
+		assertEquals(NodeModelUtils.compactDump(expected.rootNode, true), NodeModelUtils.compactDump(actual.rootNode, true), text)
+		assertTrue(EcoreUtil.equals(expected.rootASTElement, actual.rootASTElement), text)
+		assertEquals(expected.syntaxErrors.map[totalOffset + " " + syntaxErrorMessage.message].toList,
+			actual.syntaxErrors.map[totalOffset + " " + syntaxErrorMessage.message].toList, text)
+		assertSame(actual.rootASTElement, resource.contents.head)
+	}
+
+	/**
+	 * Builds a buildfile of deployments among the statements a re-parse has
+	 * to bound: attribute statements, blocks, strings, variable references
+	 * and invalid attributes.
+	 */
+	def private static String buildfile(int statements) {
+		val builder = new StringBuilder
+		for (i : 0 ..< statements) {
+			switch i % 100 {
+				case 0: builder.append("[uid=0 gid=0 perms=0755 type=file]\n")
+				case 30: builder.append("etc/conf").append(i).append("={\nkey=value \\} ").append(i).append("\n}\n")
+				case 60: builder.append("\"bin/with spaces ").append(i).append("\"=${QNX_TARGET}/bin/app").append(i).append("\n")
+				case 97: builder.append("[perms=9999]\n")
+				default: builder.append("bin/app").append(i).append("=aarch64le/bin/app").append(i).append("\n")
+			}
+		}
+		builder.toString
+	}
+
+	def private XtextResource parse(CharSequence text) {
+		parseHelper.parse(text, DOCUMENT_URI, new ResourceSetImpl).eResource as XtextResource
+	}
+}
@@ -0,0 +1,168 @@
+package qnx.buildfile.lang.tests
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.ArrayList
+import java.util.List
+import org.eclipse.xtext.validation.Issue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.buildfileDSL.ContentBlock
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.buildfileDSL.Statement
+import qnx.buildfile.lang.utils.Parser
+import qnx.buildfile.lang.utils.StreamingParser
+import qnx.buildfile.lang.validation.HostFileValidator
+
+import static org.junit.jupiter.api.Assertions.*
+
+import static extension qnx.buildfile.lang.tests.TempFiles.*
+
+/**
+ * Tests for {@link StreamingParser}, which parses and validates a buildfile
+ * a batch of statements at a time.
+ */
+class StreamingParserTest {
+	@TempDir Path directory
+
+	// ── Statements ────────────────────────────────────────────────
+
+	@Test
+	def void statementsInOrderWithTheirLines() {
+		val recorder = new Recorder
+		val count = new StreamingParser(1).parse(directory.write("lines.build", '''
+			# comment
+			[uid=0]
+			bin/app=app
+
+			bin/block={
+			line \} still in the block
+			}
+			"bin/with spaces"="a
+			b"
+			bin/var=${A
+			}/app
+			bin/last=last
+		'''), recorder)
+		assertEquals(6, count)
+		assertEquals(#[2, 3, 5, 8, 10, 12], recorder.lines)
+		assertEquals(#[null, "bin/app", "bin/block", "\"bin/with spaces\"", "bin/var", "bin/last"],
+			recorder.statements.map[if (it instanceof DeploymentStatement) path else null])
+		assertTrue(recorder.issues.empty, recorder.issues.join("\n"))
+	}
+
+	@Test
+	def void blockWithABraceStaysOneStatement() {
+		val recorder = new Recorder
+		new StreamingParser(1).parse(directory.write("block.build", '''
+			bin/block={
+			{
+			\}
+			}
+		'''), recorder)
+		assertEquals(1, recorder.statements.size)
+		assertTrue((recorder.statements.head as DeploymentStatement).content instanceof ContentBlock)
+	}
+
+	// ── Issues ────────────────────────────────────────────────────
+
+	@Test
+	def void sameIssuesAsTheParser() {
+		val file = directory.write("issues.build", '''
+			[uid=0 gid=0]
+			bin/app=app
+
+			[gidh=0] bin/other=other
+			bin/app=app2
+			[type=unknown] bin/third=third
+			bin/block={
+			contents
+			}
+			bin/app=app3
+			[+bogus] lib/a.so=a.so
+			lib/a.so=a2.so
+		''')
+		val full = new Parser().parse(file).issues
+		assertFalse(full.empty)
+		for (batchSize : #[1, 2, StreamingParser.DEFAULT_BATCH_SIZE]) {
+			val streamed = new Recorder => [new StreamingParser(batchSize).parse(file, it)]
+			assertEquals(describe(full), describe(streamed.issues), "Batches of " + batchSize)
+		}
+	}
+
+	@Test
+	def void duplicatesOfTheFirstDeploymentsComeLast() {
+		val recorder = new Recorder
+		new StreamingParser(1).parse(directory.write("duplicates.build", '''
+			bin/a=a
+			bin/b=b
+			bin/a=a2
+		'''), recorder)
+		assertEquals(#["3: Duplicate path bin/a", "1: Duplicate path bin/a"], recorder.issues.map[lineNumber + ": " + message])
+		assertEquals("//@statements.0", recorder.issues.lastOrNull.uriToProblem.fragment)
+		assertEquals(#["statement", "statement", "statement", "issue", "issue"], recorder.events)
+	}
+
+	@Test
+	def void syntaxErrorOnItsLine() {
+		val recorder = new Recorder
+		new StreamingParser(1).parse(directory.write("syntax.build", '''
+			bin/a=a
+			[uid=0
+			bin/b=b
+		'''), recorder)
+		assertTrue(recorder.issues.exists[syntaxError && lineNumber == 2], recorder.issues.join("\n"))
+		assertEquals(3, recorder.lines.lastOrNull)
+	}
+
+	@Test
+	def void hostFilesSearchedWithTheAttributesInEffect() {
+		val host = Files.createDirectories(directory.resolve("host"))
+		Files.writeString(host.resolve("app"), "app")
+		val file = directory.write("host.build", '''
+			[search=«host»]
+			bin/app=app
+			bin/missing=missing
+			[search=«directory.resolve("elsewhere")»]
+			bin/app2=app
+		''')
+		val previous = System.getProperty(HostFileValidator.SYSTEM_PROPERTY)
+		System.setProperty(HostFileValidator.SYSTEM_PROPERTY, "true")
+		try {
+			val full = new Parser().parse(file).issues
+			val streamed = new Recorder => [new StreamingParser(1).parse(file, it)]
+			assertEquals(#[3, 5], streamed.issues.filter[code == "missingHostFile"].map[lineNumber].toList)
+			assertEquals(describe(full), describe(streamed.issues))
+		} finally {
+			if (previous === null) {
+				System.clearProperty(HostFileValidator.SYSTEM_PROPERTY)
+			} else {
+				System.setProperty(HostFileValidator.SYSTEM_PROPERTY, previous)
+			}
+		}
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private static List<String> describe(List<Issue> issues) {
+		issues.map['''«lineNumber»:«column»-«lineNumberEnd»:«columnEnd» «offset»+«length» «severity» «code» «message» «uriToProblem?.fragment»'''].sort
+	}
+
+	static class Recorder implements StreamingParser.Listener {
+		val statements = new ArrayList<Statement>
+		val lines = new ArrayList<Integer>
+		val issues = new ArrayList<Issue>
+		val events = new ArrayList<String>
+
+		override statement(Statement statement, int line) {
+			statements.add(statement)
+			lines.add(line)
+			events.add("statement")
+		}
+
+		override issue(Issue issue) {
+			issues.add(issue)
+			events.add("issue")
+		}
+	}
+}
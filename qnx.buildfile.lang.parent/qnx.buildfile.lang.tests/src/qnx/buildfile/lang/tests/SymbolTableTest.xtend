@@ -0,0 +1,99 @@
+package qnx.buildfile.lang.tests
+
+import java.nio.file.Path
+import org.eclipse.xtext.conversion.IValueConverterService
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import qnx.buildfile.lang.BuildfileDSLStandaloneSetup
+import qnx.buildfile.lang.attributes.MkifsBooleanAttributeKeyword
+import qnx.buildfile.lang.attributes.MkifsValuedAttributeKeyword
+import qnx.buildfile.lang.buildfileDSL.Attribute
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.buildfileDSL.ValuedAttribute
+import qnx.buildfile.lang.conversion.BuildfileDSLValueConverterService
+import qnx.buildfile.lang.conversion.SymbolTable
+import qnx.buildfile.lang.utils.Parser
+
+import static org.junit.jupiter.api.Assertions.*
+
+import static extension qnx.buildfile.lang.tests.TempFiles.*
+
+/**
+ * Tests for the {@link SymbolTable} of the attribute names and values, filled
+ * by {@link BuildfileDSLValueConverterService} as buildfiles are parsed.
+ */
+class SymbolTableTest {
+	@TempDir Path directory
+
+	// ── Shared strings ────────────────────────────────────────────
+
+	@Test
+	def void attributeNamesAreTheKeywordConstants() {
+		val model = parse('''
+			[uid=0 +raw] bin/a=a
+			[uid=0 -raw] bin/b=b
+		''')
+		for (attributes : model.statements.map[(it as DeploymentStatement).attributesection.attributes]) {
+			assertSame(MkifsValuedAttributeKeyword.uid.name, attributes.get(0).name)
+			assertSame(MkifsBooleanAttributeKeyword.raw.name, attributes.get(1).name)
+		}
+	}
+
+	@Test
+	def void repeatedValuesAndUnknownNamesShared() {
+		val model = parse('''
+			[uid=0 perms=0755 custom=value] bin/a=a
+			[gid=0] bin/b=b
+			[custom=value perms=0755] bin/c=c
+		''')
+		val attributes = model.statements.map[(it as DeploymentStatement).attributesection.attributes].flatten.toList
+		assertSame(value(attributes, 0), value(attributes, 3))
+		assertSame(value(attributes, 1), value(attributes, 5))
+		assertSame(value(attributes, 2), value(attributes, 4))
+		assertSame(attributes.get(2).name, attributes.get(4).name)
+		assertEquals(#["0", "0755", "value", "0", "value", "0755"], (0 ..< 6).map[value(attributes, it)].toList)
+	}
+
+	@Test
+	def void pathsAsWritten() {
+		val model = parse('''
+			bin/a=${QNX_TARGET}/bin/a
+			"bin/with spaces"='host file'
+		''')
+		assertEquals(#["bin/a", "\"bin/with spaces\""], model.statements.map[(it as DeploymentStatement).path])
+	}
+
+	@Test
+	def void runtimeModuleBindsTheConverterService() {
+		val injector = new BuildfileDSLStandaloneSetup().createInjectorAndDoEMFRegistration
+		assertTrue(injector.getInstance(IValueConverterService) instanceof BuildfileDSLValueConverterService)
+		assertSame(injector.getInstance(SymbolTable), injector.getInstance(SymbolTable))
+	}
+
+	@Test
+	def void tableBounded() {
+		val symbols = new SymbolTable
+		for (i : 0 ..< SymbolTable.MAX_SYMBOLS + 10) {
+			symbols.intern(new String("value" + i))
+		}
+		assertEquals(SymbolTable.MAX_SYMBOLS, symbols.size)
+		val late = new String("late")
+		assertSame(late, symbols.intern(late))
+		val early = new String("value0")
+		assertNotSame(early, symbols.intern(early))
+		assertEquals(early, symbols.intern(early))
+	}
+
+	// ── Helpers ───────────────────────────────────────────────────
+
+	def private static String value(Iterable<Attribute> attributes, int index) {
+		(attributes.get(index) as ValuedAttribute).value
+	}
+
+	def private Model parse(CharSequence text) {
+		val result = new Parser().parse(directory.write("test.build", text))
+		assertTrue(result.issues.filter[syntaxError].empty, result.issues.join("\n"))
+		result.model
+	}
+}
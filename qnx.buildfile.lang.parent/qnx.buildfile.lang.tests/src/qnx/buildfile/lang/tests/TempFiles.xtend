@@ -0,0 +1,20 @@
+package qnx.buildfile.lang.tests
+
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Files written by the tests to their temporary directories, used as an
+ * extension, e.g. {@code directory.write("test.build", text)}.
+ */
+class TempFiles {
+	/**
+	 * @return the file of the name in the directory, written with the text
+	 */
+	def static File write(Path directory, String name, CharSequence text) {
+		val path = directory.resolve(name)
+		Files.writeString(path, text)
+		path.toFile
+	}
+}
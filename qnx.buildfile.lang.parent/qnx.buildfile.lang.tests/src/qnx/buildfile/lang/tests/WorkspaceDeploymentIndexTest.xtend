@@ -0,0 +1,188 @@
+package qnx.buildfile.lang.tests
+
+import com.google.inject.Injector
+import org.eclipse.emf.common.util.BasicDiagnostic
+import org.eclipse.emf.common.util.Diagnostic
+import org.eclipse.emf.common.util.URI
+import org.eclipse.lsp4j.Position
+import org.eclipse.lsp4j.ReferenceContext
+import org.eclipse.lsp4j.ReferenceParams
+import org.eclipse.lsp4j.TextDocumentIdentifier
+import org.eclipse.xtext.ide.server.Document
+import org.eclipse.xtext.resource.IResourceDescription
+import org.eclipse.xtext.resource.IResourceServiceProvider
+import org.eclipse.xtext.resource.XtextResource
+import org.eclipse.xtext.resource.XtextResourceSet
+import org.eclipse.xtext.testing.InjectWith
+import org.eclipse.xtext.testing.extensions.InjectionExtension
+import org.eclipse.xtext.testing.util.ParseHelper
+import org.eclipse.xtext.util.CancelIndicator
+import org.eclipse.xtext.validation.AbstractValidationDiagnostic
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.^extension.ExtendWith
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.ide.BuildfileDSLDocumentSymbolService
+import qnx.buildfile.lang.ide.BuildfileDSLIdeSetup
+import qnx.buildfile.lang.validation.WorkspaceDeploymentIndex
+import qnx.buildfile.lang.validation.WorkspaceDuplicatePathValidator
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Tests for the deployments indexed across the buildfiles of a workspace, with
+ * the bindings of the language server.
+ */
+@ExtendWith(InjectionExtension)
+@InjectWith(BuildfileDSLInjectorProvider)
+class WorkspaceDeploymentIndexTest {
+	static val String MAIN = '''
+		[uid=0 gid=0]
+		bin/app=aarch64le/bin/app
+		etc/config=config/main.conf
+		bin/app=aarch64le/bin/app
+	'''
+	static val String FRAGMENT = '''
+		lib/libc.so=aarch64le/lib/libc.so
+		bin/app=aarch64le/bin/app
+		etc/config=config/other.conf
+	'''
+
+	Injector injector
+	ParseHelper<Model> parseHelper
+	XtextResourceSet resourceSet
+
+	@BeforeEach
+	def void setUp() {
+		injector = new BuildfileDSLIdeSetup().createInjector
+		// As in the language server, index with the ide bindings
+		IResourceServiceProvider.Registry.INSTANCE.extensionToFactoryMap.put("build",
+			injector.getInstance(IResourceServiceProvider))
+		parseHelper = injector.getInstance(ParseHelper)
+		resourceSet = injector.getInstance(XtextResourceSet)
+	}
+
+	// ── Index ─────────────────────────────────────────────────────
+
+	@Test
+	def void onlyDeploymentsAreExported() {
+		val main = parse("main.build", MAIN)
+		val description = injector.getInstance(IResourceDescription.Manager).getResourceDescription(main.eResource)
+		assertEquals(#["bin/app", "etc/config", "bin/app"], description.exportedObjects.map[name.toString].toList)
+		assertEquals("2", description.exportedObjects.head.getUserData("line"))
+		assertEquals("1", description.exportedObjects.head.getUserData("column"))
+	}
+
+	@Test
+	def void indexFindsDeploymentsInOtherBuildfiles() {
+		val main = parse("main.build", MAIN)
+		parse("fragment.build", FRAGMENT)
+		val index = injector.getInstance(WorkspaceDeploymentIndex)
+
+		val others = index.getOtherDeployments(main.eResource, #["bin/app", "etc/config", "sbin/missing"])
+		assertEquals(#{"bin/app", "etc/config"}, others.keySet)
+		val app = others.get("bin/app").head
+		assertEquals("fragment.build", app.uri.lastSegment)
+		assertEquals(2, app.line)
+		assertEquals(1, app.column)
+		assertEquals("bin/app".length, app.length)
+		assertEquals("aarch64le/bin/app", app.source)
+		assertEquals("fragment.build:2", app.toString)
+	}
+
+	@Test
+	def void indexFollowsChangedAndRemovedBuildfiles() {
+		val main = parse("main.build", MAIN)
+		val fragment = parse("fragment.build", FRAGMENT).eResource as XtextResource
+		val index = injector.getInstance(WorkspaceDeploymentIndex)
+		assertTrue(index.getOtherDeployments(main.eResource, #["bin/app"]).containsKey("bin/app"))
+
+		fragment.reparse('''
+			bin/other=aarch64le/bin/other
+		''')
+		assertTrue(index.getOtherDeployments(main.eResource, #["bin/app"]).isEmpty)
+		assertTrue(index.getOtherDeployments(main.eResource, #["bin/other"]).containsKey("bin/other"))
+
+		resourceSet.resources.remove(fragment)
+		assertTrue(index.getOtherDeployments(main.eResource, #["bin/other"]).isEmpty)
+	}
+
+	// ── Validation ────────────────────────────────────────────────
+
+	@Test
+	def void conflictsAndDuplicatesAcrossBuildfiles() {
+		val main = parse("main.build", MAIN)
+		parse("fragment.build", FRAGMENT)
+
+		val diagnostics = validate(main)
+		val conflict = diagnostics.findFirst[issueCode == "conflictingPathInWorkspace"]
+		assertNotNull(conflict)
+		assertEquals(Diagnostic.WARNING, conflict.severity)
+		assertEquals("Path etc/config is deployed from a different source in fragment.build:3", conflict.message)
+
+		val duplicates = diagnostics.filter[issueCode == "duplicatePathInWorkspace"].toList
+		assertEquals(2, duplicates.size)
+		assertTrue(duplicates.forall[severity == Diagnostic.INFO])
+		assertEquals("Path bin/app is also deployed in fragment.build:2", duplicates.head.message)
+	}
+
+	@Test
+	def void noWorkspaceDiagnosticsForSingleBuildfile() {
+		val main = parse("main.build", MAIN)
+		assertTrue(validate(main).isEmpty)
+	}
+
+	// ── Navigation ────────────────────────────────────────────────
+
+	@Test
+	def void definitionListsOtherDeploymentsOfPath() {
+		val main = parse("main.build", MAIN)
+		parse("fragment.build", FRAGMENT)
+		val service = injector.getInstance(BuildfileDSLDocumentSymbolService)
+		val resource = main.eResource as XtextResource
+
+		val definitions = service.getDefinitions(resource, MAIN.indexOf("bin/app") + 2, null, CancelIndicator.NullImpl)
+		assertEquals(2, definitions.size)
+		assertTrue(definitions.get(0).uri.endsWith("main.build"))
+		assertEquals(3, definitions.get(0).range.start.line)
+		assertTrue(definitions.get(1).uri.endsWith("fragment.build"))
+		assertEquals(1, definitions.get(1).range.start.line)
+		assertEquals(0, definitions.get(1).range.start.character)
+		assertEquals(7, definitions.get(1).range.end.character)
+
+		// At the end of the path too
+		assertEquals(1, service.getDefinitions(resource, MAIN.indexOf("etc/config") + "etc/config".length, null,
+			CancelIndicator.NullImpl).size)
+		// Not on a path
+		assertTrue(service.getDefinitions(resource, MAIN.indexOf("aarch64le"), null, CancelIndicator.NullImpl).isEmpty)
+	}
+
+	@Test
+	def void referencesListAllDeploymentsOfPath() {
+		val main = parse("main.build", MAIN)
+		parse("fragment.build", FRAGMENT)
+		val service = injector.getInstance(BuildfileDSLDocumentSymbolService)
+		val document = new Document(1, MAIN)
+		val params = new ReferenceParams(new TextDocumentIdentifier("main.build"), new Position(1, 3),
+			new ReferenceContext(true))
+
+		val references = service.getReferences(document, main.eResource as XtextResource, params, null, null,
+			CancelIndicator.NullImpl)
+		assertEquals(#[1, 3, 1], references.map[range.start.line])
+
+		params.context = new ReferenceContext(false)
+		assertEquals(2, service.getReferences(document, main.eResource as XtextResource, params, null, null,
+			CancelIndicator.NullImpl).size)
+	}
+
+	def private Model parse(String name, CharSequence text) {
+		parseHelper.parse(text, URI.createURI("file:///workspace/" + name), resourceSet)
+	}
+
+	def private validate(Model model) {
+		val validator = injector.getInstance(WorkspaceDuplicatePathValidator)
+		val chain = new BasicDiagnostic
+		validator.validate(model, chain, newHashMap)
+		chain.children.filter(AbstractValidationDiagnostic).toList
+	}
+}
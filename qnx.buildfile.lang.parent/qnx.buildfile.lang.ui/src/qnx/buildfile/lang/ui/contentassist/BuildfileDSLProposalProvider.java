@@ -3,11 +3,6 @@
  */
 package qnx.buildfile.lang.ui.contentassist;
 
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.xtext.Assignment;
@@ -16,6 +11,7 @@ import org.eclipse.xtext.ui.editor.contentassist.ContentAssistContext;
 import org.eclipse.xtext.ui.editor.contentassist.ICompletionProposalAcceptor;
 
 import qnx.buildfile.lang.attributes.AttributeKeywords;
+import qnx.buildfile.lang.attributes.AttributeValues;
 import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
 
 /**
@@ -25,22 +21,11 @@ import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
  * <ul>
  *   <li>Boolean attribute names (after {@code +} or {@code -})</li>
  *   <li>Valued attribute names (before {@code =})</li>
- *   <li>Known values for specific attributes ({@code type}, {@code autoso}, {@code compress})</li>
+ *   <li>Known values for specific attributes, see {@link AttributeValues}</li>
  * </ul>
  */
 public class BuildfileDSLProposalProvider extends AbstractBuildfileDSLProposalProvider {
 
-	/** Known values for valued attributes that have a fixed set of options. */
-	private static final Map<String, List<String>> KNOWN_VALUES = new LinkedHashMap<>();
-
-	static {
-		KNOWN_VALUES.put("type", Arrays.asList("link", "fifo", "file", "dir"));
-		KNOWN_VALUES.put("autoso", Arrays.asList("none", "list", "add"));
-		KNOWN_VALUES.put("compress", Arrays.asList("1", "2", "3"));
-		KNOWN_VALUES.put("code", Arrays.asList("u", "c"));
-		KNOWN_VALUES.put("data", Arrays.asList("u", "c"));
-	}
-
 	/**
 	 * Propose boolean attribute names after + or - inside [...].
 	 */
@@ -80,8 +65,8 @@ public class BuildfileDSLProposalProvider extends AbstractBuildfileDSLProposalPr
 			ContentAssistContext context, ICompletionProposalAcceptor acceptor) {
 		if (model instanceof ValuedAttribute) {
 			String attrName = ((ValuedAttribute) model).getName();
-			if (attrName != null && KNOWN_VALUES.containsKey(attrName)) {
-				for (String value : KNOWN_VALUES.get(attrName)) {
+			if (AttributeValues.PROPOSED_VALUES.containsKey(attrName)) {
+				for (String value : AttributeValues.proposedValues(attrName)) {
 					ICompletionProposal proposal = createCompletionProposal(value, value, null, context);
 					acceptor.accept(proposal);
 				}
@@ -11,18 +11,23 @@ import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
 import qnx.buildfile.lang.buildfileDSL.BooleanAttribute;
 import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
 import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+import qnx.buildfile.lang.ide.BuildfileDSLOutlineLabelCache;
 import qnx.buildfile.lang.ide.BuildfileDSLOutlineLabels;
 
 /**
  * Provides labels and icons for EObjects displayed in the Eclipse outline view.
  * <p>
  * Labels are computed via the shared {@link BuildfileDSLOutlineLabels} utility
- * (also used by the LSP document symbol provider).
+ * (also used by the LSP document symbol provider), and kept in
+ * {@link BuildfileDSLOutlineLabelCache} until the buildfile changes.
  *
  * See https://www.eclipse.org/Xtext/documentation/310_eclipse_support.html#label-provider
  */
 public class BuildfileDSLLabelProvider extends DefaultEObjectLabelProvider {
 
+    @Inject
+    private BuildfileDSLOutlineLabelCache labelCache;
+
     @Inject
     public BuildfileDSLLabelProvider(AdapterFactoryLabelProvider delegate) {
         super(delegate);
@@ -31,19 +36,19 @@ public class BuildfileDSLLabelProvider extends DefaultEObjectLabelProvider {
     // ── Text labels ───────────────────────────────────────────────
 
     public String text(AttributeStatement stmt) {
-        return BuildfileDSLOutlineLabels.getAttributeStatementLabel(stmt);
+        return labelCache.getLabel(stmt);
     }
 
     public String text(DeploymentStatement stmt) {
-        return BuildfileDSLOutlineLabels.getDeploymentLabel(stmt);
+        return labelCache.getLabel(stmt);
     }
 
     public String text(BooleanAttribute attr) {
-        return BuildfileDSLOutlineLabels.formatAttribute(attr);
+        return labelCache.getLabel(attr);
     }
 
     public String text(ValuedAttribute attr) {
-        return BuildfileDSLOutlineLabels.formatAttribute(attr);
+        return labelCache.getLabel(attr);
     }
 
     // ── Icons ─────────────────────────────────────────────────────
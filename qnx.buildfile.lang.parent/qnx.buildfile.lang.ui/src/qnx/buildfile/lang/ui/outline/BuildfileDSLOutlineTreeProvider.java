@@ -3,14 +3,26 @@
  */
 package qnx.buildfile.lang.ui.outline;
 
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.ui.editor.outline.IOutlineNode;
 import org.eclipse.xtext.ui.editor.outline.impl.DefaultOutlineTreeProvider;
+import org.eclipse.xtext.util.TextRegion;
+
+import com.google.inject.Inject;
 
 import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
 import qnx.buildfile.lang.buildfileDSL.BooleanAttribute;
 import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
 import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
 import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+import qnx.buildfile.lang.ide.BuildfileDSLOutlineGroups;
+import qnx.buildfile.lang.ide.BuildfileDSLOutlineGroups.Group;
+import qnx.buildfile.lang.ui.labeling.BuildfileDSLLabelProvider;
 
 /**
  * Outline structure for QNX buildfiles in Eclipse.
@@ -22,17 +34,69 @@ import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
  *   <li><b>Deployment statements</b> — shown by their target path (e.g. {@code bin/myapp}),
  *       with attributes as leaf children</li>
  * </ul>
+ * Above {@link BuildfileDSLOutlineGroups#GROUPING_THRESHOLD} statements, the
+ * statements are grouped by attribute scope (and pages for large scopes) into
+ * {@link StatementRangeNode}s, whose children are only created when expanded.
  *
  * See https://www.eclipse.org/Xtext/documentation/310_eclipse_support.html#outline
  */
 public class BuildfileDSLOutlineTreeProvider extends DefaultOutlineTreeProvider {
 
+    @Inject
+    private BuildfileDSLLabelProvider labelProvider;
+
     /**
-     * Create children directly from the Model — each Statement becomes a top-level node.
+     * Create children directly from the Model — each Statement becomes a top-level node,
+     * or each group of statements for large buildfiles.
      */
     protected void _createChildren(IOutlineNode parentNode, Model model) {
-        for (var statement : model.getStatements()) {
-            createNode(parentNode, statement);
+        List<Group> groups = BuildfileDSLOutlineGroups.group(model);
+        if (groups.isEmpty()) {
+            for (var statement : model.getStatements()) {
+                createNode(parentNode, statement);
+            }
+            return;
+        }
+        for (var group : groups) {
+            createRangeNode(parentNode, model, group);
+        }
+    }
+
+    /**
+     * Children of a statement range: its pages, or its statements.
+     */
+    @Override
+    public void createChildren(IOutlineNode parentNode, EObject modelElement) {
+        if (!(parentNode instanceof StatementRangeNode)) {
+            super.createChildren(parentNode, modelElement);
+            return;
+        }
+        Model model = modelElement instanceof Model ? (Model) modelElement : (Model) modelElement.eContainer();
+        Group group = ((StatementRangeNode) parentNode).getGroup();
+        if (model == null || group.getEnd() > model.getStatements().size()) {
+            return;
+        }
+        if (!group.getPages().isEmpty()) {
+            for (var page : group.getPages()) {
+                createRangeNode(parentNode, model, page);
+            }
+        } else {
+            for (var statement : group.getStatements(model)) {
+                createNode(parentNode, statement);
+            }
+        }
+    }
+
+    private void createRangeNode(IOutlineNode parentNode, Model model, Group group) {
+        EObject element = group.getElement(model);
+        var node = new StatementRangeNode(element, parentNode, labelProvider.getImage(element), group);
+
+        // Span the scope statement and all the statements of the range
+        List<Statement> statements = model.getStatements();
+        ICompositeNode first = NodeModelUtils.getNode(element instanceof Statement ? element : statements.get(group.getStart()));
+        ICompositeNode last = NodeModelUtils.getNode(group.size() > 0 ? statements.get(group.getEnd() - 1) : element);
+        if (first != null && last != null) {
+            node.setTextRegion(new TextRegion(first.getOffset(), last.getEndOffset() - first.getOffset()));
         }
     }
 
@@ -0,0 +1,30 @@
+package qnx.buildfile.lang.ui.outline;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.xtext.ui.editor.outline.IOutlineNode;
+import org.eclipse.xtext.ui.editor.outline.impl.EObjectNode;
+
+import qnx.buildfile.lang.ide.BuildfileDSLOutlineGroups.Group;
+
+/**
+ * Outline node for a range of statements of a large buildfile, see
+ * {@link qnx.buildfile.lang.ide.BuildfileDSLOutlineGroups}.
+ * <p>
+ * The node stands for the scope attribute statement (or the first statement
+ * of a page, or the model) and keeps the group, so that its children are only
+ * created when it is expanded.
+ */
+public class StatementRangeNode extends EObjectNode {
+
+    private final Group group;
+
+    public StatementRangeNode(EObject element, IOutlineNode parent, Image image, Group group) {
+        super(element, parent, image, group.getLabel(), group.size() == 0);
+        this.group = group;
+    }
+
+    public Group getGroup() {
+        return group;
+    }
+}
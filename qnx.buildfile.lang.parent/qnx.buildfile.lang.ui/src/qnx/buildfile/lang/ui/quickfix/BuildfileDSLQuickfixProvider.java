@@ -13,25 +13,43 @@ import qnx.buildfile.lang.ide.BuildfileDSLQuickfixResolvers;
 /**
  * Quick fixes for BuildfileDSL validation issues in Eclipse.
  * <p>
- * Delegates to {@link BuildfileDSLQuickfixResolvers} for the shared
- * suggestion logic (Levenshtein distance matching).
+ * The replacement candidates come with the issue data attached by the
+ * validators; {@link BuildfileDSLQuickfixResolvers} reads them (and falls
+ * back to a Levenshtein lookup for issues without data).
  */
 public class BuildfileDSLQuickfixProvider extends DefaultQuickfixProvider {
 
 	@Fix("invalidName")
 	public void fixInvalidAttributeName(final Issue issue, IssueResolutionAcceptor acceptor) {
-		String badName = BuildfileDSLQuickfixResolvers.extractBadNameFromMessage(issue.getMessage());
-		if (badName == null || badName.isEmpty()) {
+		acceptReplacements(issue, acceptor, "unknown attribute");
+	}
+
+	@Fix("invalidAutoso")
+	public void fixInvalidAutoso(final Issue issue, IssueResolutionAcceptor acceptor) {
+		acceptReplacements(issue, acceptor, "invalid autoso value");
+	}
+
+	@Fix("invalidCompress")
+	public void fixInvalidCompress(final Issue issue, IssueResolutionAcceptor acceptor) {
+		acceptReplacements(issue, acceptor, "invalid compress value");
+	}
+
+	@Fix("invalidType")
+	public void fixInvalidType(final Issue issue, IssueResolutionAcceptor acceptor) {
+		acceptReplacements(issue, acceptor, "invalid type value");
+	}
+
+	private void acceptReplacements(final Issue issue, IssueResolutionAcceptor acceptor, String what) {
+		String badToken = BuildfileDSLQuickfixResolvers.getBadToken(issue.getData(), issue.getMessage());
+		if (badToken == null || badToken.isEmpty()) {
 			return;
 		}
 
-		var suggestions = BuildfileDSLQuickfixResolvers.suggestAttributeNames(badName);
-
-		for (var suggestion : suggestions) {
-			final String replacement = suggestion.getKeyword();
+		for (String candidate : BuildfileDSLQuickfixResolvers.getCandidates(issue.getData(), issue.getMessage())) {
+			final String replacement = candidate;
 			acceptor.accept(issue,
 					"Change to '" + replacement + "'",
-					"Replace unknown attribute '" + badName + "' with '" + replacement + "'",
+					"Replace " + what + " '" + badToken + "' with '" + replacement + "'",
 					null,
 					(context) -> {
 						context.getXtextDocument().replace(
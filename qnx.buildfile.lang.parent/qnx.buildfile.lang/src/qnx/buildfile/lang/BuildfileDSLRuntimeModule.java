@@ -3,9 +3,21 @@
  */
 package qnx.buildfile.lang;
 
+import org.eclipse.emf.ecore.util.Diagnostician;
+import org.eclipse.xtext.conversion.IValueConverterService;
 import org.eclipse.xtext.formatting2.IFormatter2;
+import org.eclipse.xtext.parser.antlr.IPartialParsingHelper;
+import org.eclipse.xtext.parser.antlr.Lexer;
+import org.eclipse.xtext.parser.antlr.LexerBindings;
 
+import com.google.inject.Binder;
+import com.google.inject.name.Names;
+
+import qnx.buildfile.lang.conversion.BuildfileDSLValueConverterService;
 import qnx.buildfile.lang.formatting2.BuildfileDSLFormatter;
+import qnx.buildfile.lang.parser.antlr.FastBuildfileDSLLexer;
+import qnx.buildfile.lang.utils.StatementPartialParsingHelper;
+import qnx.buildfile.lang.validation.BuildfileDSLDiagnostician;
 
 /**
  * Use this class to register components to be used at runtime / without the Equinox extension registry.
@@ -15,4 +27,31 @@ public class BuildfileDSLRuntimeModule extends AbstractBuildfileDSLRuntimeModule
 	public Class<? extends IFormatter2> bindIFormatter2() {
 		return BuildfileDSLFormatter.class;
 	}
+
+	@Override
+	public Class<? extends Diagnostician> bindDiagnostician() {
+		return BuildfileDSLDiagnostician.class;
+	}
+
+	@Override
+	public Class<? extends IValueConverterService> bindIValueConverterService() {
+		return BuildfileDSLValueConverterService.class;
+	}
+
+	@Override
+	public Class<? extends Lexer> bindLexer() {
+		return FastBuildfileDSLLexer.class;
+	}
+
+	@Override
+	public void configureRuntimeLexer(Binder binder) {
+		binder.bind(Lexer.class)
+			.annotatedWith(Names.named(LexerBindings.RUNTIME))
+			.to(FastBuildfileDSLLexer.class);
+	}
+
+	@Override
+	public Class<? extends IPartialParsingHelper> bindIPartialParserHelper() {
+		return StatementPartialParsingHelper.class;
+	}
 }
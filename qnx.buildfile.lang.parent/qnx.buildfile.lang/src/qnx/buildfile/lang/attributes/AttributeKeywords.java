@@ -2,6 +2,8 @@ package qnx.buildfile.lang.attributes;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -13,6 +15,9 @@ public class AttributeKeywords
 	public final static List<String> ALL_BOOLEAN_ATTRIBUTE_KEYWORDS;
 	public final static List<String> ALL_VALUED_ATTRIBUTE_KEYWORDS;
 
+	/** Each keyword to itself, the name of its enum constant. */
+	private final static Map<String, String> KEYWORDS;
+
 	static
 	{
 		MKIFS_ATTRIBUTE_KEYWORDS = Stream.concat(
@@ -51,6 +56,16 @@ public class AttributeKeywords
 						Arrays.stream(Mkqnx6fsValuedAttributeKeyword.values()).map(Enum::name))
 				).distinct().collect(Collectors.toUnmodifiableList());
 
+		KEYWORDS = ALL_ATTRIBUTE_KEYWORDS.stream().collect(Collectors.toUnmodifiableMap(Function.identity(), Function.identity()));
+	}
+
+	/**
+	 * @return the keyword equal to the name, which is the very name of its
+	 *         enum constant, or null if the name is not a keyword
+	 */
+	public static String keyword(String name)
+	{
+		return KEYWORDS.get(name);
 	}
 
 }
@@ -0,0 +1,43 @@
+package qnx.buildfile.lang.attributes;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Values of the valued attributes that take a fixed set of options, shared by
+ * the validation and the content assist.
+ * <p>
+ * The accepted values are what mkifs understands, abbreviations included;
+ * the proposed values are the ones worth offering when completing.
+ */
+public class AttributeValues
+{
+	public final static List<String> TYPE_VALUES = List.of("link", "fifo", "file", "dir");
+	public final static List<String> AUTOSO_VALUES = List.of("n", "none", "l", "list", "a", "add");
+	public final static List<String> COMPRESS_VALUES = List.of("1", "2", "3");
+	public final static List<String> CODE_DATA_VALUES = List.of("u", "c");
+
+	/** Values proposed by content assist, by valued attribute keyword. */
+	public final static Map<String, List<String>> PROPOSED_VALUES;
+
+	static
+	{
+		Map<String, List<String>> proposed = new LinkedHashMap<>();
+		proposed.put("type", TYPE_VALUES);
+		proposed.put("autoso", List.of("none", "list", "add"));
+		proposed.put("compress", COMPRESS_VALUES);
+		proposed.put("code", CODE_DATA_VALUES);
+		proposed.put("data", CODE_DATA_VALUES);
+		PROPOSED_VALUES = Collections.unmodifiableMap(proposed);
+	}
+
+	/**
+	 * @return the values proposed for the attribute, empty if it takes any value
+	 */
+	public static List<String> proposedValues(String attribute)
+	{
+		return attribute != null ? PROPOSED_VALUES.getOrDefault(attribute, List.of()) : List.of();
+	}
+}
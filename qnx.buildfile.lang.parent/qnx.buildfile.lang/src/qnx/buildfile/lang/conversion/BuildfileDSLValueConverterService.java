@@ -0,0 +1,63 @@
+package qnx.buildfile.lang.conversion;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.common.services.DefaultTerminalConverters;
+import org.eclipse.xtext.conversion.IValueConverter;
+import org.eclipse.xtext.conversion.ValueConverter;
+import org.eclipse.xtext.conversion.impl.AbstractNullSafeConverter;
+import org.eclipse.xtext.nodemodel.INode;
+
+import com.google.inject.Inject;
+
+import qnx.buildfile.lang.attributes.AttributeKeywords;
+import qnx.buildfile.lang.services.BuildfileDSLGrammarAccess;
+
+/**
+ * Converts the attribute names and values to shared strings as they are
+ * parsed, rather than one string per token.
+ * <p>
+ * The names of the attributes are the names of their keyword constants, see
+ * {@link AttributeKeywords#keyword(String)}, and the values, like the
+ * unknown names, come from the {@link SymbolTable}. Paths are left alone:
+ * each one is deployed once.
+ */
+public class BuildfileDSLValueConverterService extends DefaultTerminalConverters
+{
+	@Inject
+	private BuildfileDSLGrammarAccess grammarAccess;
+
+	@Inject
+	private SymbolTable symbols;
+
+	private final IValueConverter<String> almostAnything = new AbstractNullSafeConverter<String>()
+	{
+		@Override
+		protected String internalToValue(String string, INode node)
+		{
+			EObject element = node != null ? node.getGrammarElement() : null;
+			if (element == grammarAccess.getBooleanAttributeAccess().getNameALMOST_ANYTHINGTerminalRuleCall_1_0()
+					|| element == grammarAccess.getValuedAttributeAccess().getNameALMOST_ANYTHINGTerminalRuleCall_0_0())
+			{
+				String keyword = AttributeKeywords.keyword(string);
+				return keyword != null ? keyword : symbols.intern(string);
+			}
+			if (element == grammarAccess.getValuedAttributeAccess().getValueALMOST_ANYTHINGTerminalRuleCall_2_0())
+			{
+				return symbols.intern(string);
+			}
+			return string;
+		}
+
+		@Override
+		protected String internalToString(String value)
+		{
+			return value;
+		}
+	};
+
+	@ValueConverter(rule = "ALMOST_ANYTHING")
+	public IValueConverter<String> ALMOST_ANYTHING()
+	{
+		return almostAnything;
+	}
+}
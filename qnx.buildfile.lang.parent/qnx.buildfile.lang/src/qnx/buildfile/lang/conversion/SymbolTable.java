@@ -0,0 +1,46 @@
+package qnx.buildfile.lang.conversion;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.inject.Singleton;
+
+/**
+ * Shared instances of the strings that repeat throughout buildfiles, such as
+ * the values of the attributes: {@code 0}, {@code 0755}, {@code file}...
+ * <p>
+ * One table is shared by everything parsed with the same injector, e.g. a
+ * {@link qnx.buildfile.lang.utils.Parser} and its resource set, from any
+ * thread. It holds at most {@link #MAX_SYMBOLS} strings, since it lives as
+ * long as the injector: once full, new strings are no longer shared.
+ */
+@Singleton
+public class SymbolTable
+{
+	/** Maximum number of strings held. */
+	public static final int MAX_SYMBOLS = 1 << 16;
+
+	private final Map<String, String> symbols = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the instance of the table equal to the string, the string
+	 *         itself if it is new
+	 */
+	public String intern(String string)
+	{
+		String symbol = symbols.get(string);
+		if (symbol != null) return symbol;
+		if (symbols.size() >= MAX_SYMBOLS) return string;
+
+		symbol = symbols.putIfAbsent(string, string);
+		return symbol != null ? symbol : string;
+	}
+
+	/**
+	 * @return the number of strings held
+	 */
+	public int size()
+	{
+		return symbols.size();
+	}
+}
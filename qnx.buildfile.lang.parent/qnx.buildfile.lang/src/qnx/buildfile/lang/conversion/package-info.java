@@ -0,0 +1 @@
+package qnx.buildfile.lang.conversion;
\ No newline at end of file
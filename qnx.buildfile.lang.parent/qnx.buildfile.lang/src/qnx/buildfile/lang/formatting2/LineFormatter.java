@@ -0,0 +1,238 @@
+package qnx.buildfile.lang.formatting2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.eclipse.xtext.util.ReplaceRegion;
+
+import qnx.buildfile.lang.parser.antlr.FastBuildfileDSLLexer;
+import qnx.buildfile.lang.parser.antlr.internal.InternalBuildfileDSLLexer;
+
+/**
+ * Formatter that applies the rules of {@link BuildfileDSLFormatter} to the
+ * tokens of a buildfile, in one pass and without a model.
+ * <p>
+ * A statement is on a line of its own, the newlines being the only tokens
+ * between statements, and the spaces the rules set are all between tokens
+ * of a line. The tokens of each line are matched against the statement
+ * rules, and the spaces before and between them are replaced by the ones
+ * {@link BuildfileDSLFormatter} would set. A line that is not a statement
+ * (a syntax error, a token the lexer could not match) is left as it is, as
+ * are the lines without statements and the spaces and comments after the
+ * last token of a line.
+ */
+public class LineFormatter {
+
+	/** Kinds of the tokens of a statement. */
+	private static final int OTHER = 0;
+	private static final int OPENING_BRACKET = 1;
+	private static final int CLOSING_BRACKET = 2;
+	private static final int EQUALS_SIGN = 3;
+	private static final int SIGN = 4;
+	private static final int TEXT = 5;
+	private static final int BLOCK = 6;
+
+	/** Spaces before a token: as they are, none or one. */
+	private static final String AS_IS = null;
+	private static final String NO_SPACE = "";
+	private static final String ONE_SPACE = " ";
+
+	/**
+	 * Receives the replacements of the spaces of a buildfile, in the order
+	 * of their offsets.
+	 */
+	private interface Replacements {
+		void replace(int offset, int length, String text);
+	}
+
+	/**
+	 * @return the formatted text
+	 */
+	public String format(String text) {
+		StringBuilder formatted = new StringBuilder(text.length() + text.length() / 16);
+		int[] copied = { 0 };
+		format(text, (offset, length, replacement) -> {
+			formatted.append(text, copied[0], offset).append(replacement);
+			copied[0] = offset + length;
+		});
+		return formatted.append(text, copied[0], text.length()).toString();
+	}
+
+	/**
+	 * @return the replacements that format the region of the text, each
+	 *         within the region
+	 */
+	public List<ReplaceRegion> format(String text, int offset, int length) {
+		List<ReplaceRegion> replacements = new ArrayList<>();
+		int end = offset + length;
+		format(text, (replacedOffset, replacedLength, replacement) -> {
+			if (offset <= replacedOffset && replacedOffset + replacedLength <= end) {
+				replacements.add(new ReplaceRegion(replacedOffset, replacedLength, replacement));
+			}
+		});
+		return replacements;
+	}
+
+	private void format(String text, Replacements replacements) {
+		FastBuildfileDSLLexer lexer = new FastBuildfileDSLLexer(new ANTLRStringStream(text));
+		Line line = new Line();
+		int lineStart = 0;
+		while (true) {
+			CommonToken token = (CommonToken) lexer.nextToken();
+			int type = token.getType();
+			if (type == Token.EOF || type == InternalBuildfileDSLLexer.RULE_NL) {
+				line.format(text, lineStart, replacements);
+				if (type == Token.EOF) {
+					return;
+				}
+				line.clear();
+				lineStart = token.getStopIndex() + 1;
+			} else if (type == InternalBuildfileDSLLexer.RULE_SL_COMMENT) {
+				// Ends the line, the newline comes next
+			} else if (type != InternalBuildfileDSLLexer.RULE_WS) {
+				line.add(kind(token), token.getStartIndex(), token.getStopIndex() + 1);
+			}
+		}
+	}
+
+	private static int kind(Token token) {
+		switch (token.getType()) {
+		case InternalBuildfileDSLLexer.RULE_ALMOST_ANYTHING:
+			return TEXT;
+		case InternalBuildfileDSLLexer.RULE_BLOCK:
+			return BLOCK;
+		case InternalBuildfileDSLLexer.T__15:
+			return EQUALS_SIGN;
+		case InternalBuildfileDSLLexer.T__16:
+			return OPENING_BRACKET;
+		case InternalBuildfileDSLLexer.T__17:
+			return CLOSING_BRACKET;
+		case InternalBuildfileDSLLexer.T__18:
+		case InternalBuildfileDSLLexer.T__19:
+			return SIGN;
+		default:
+			return OTHER;
+		}
+	}
+
+	/**
+	 * Tokens of a line, other than the spaces and the comment, and the
+	 * spaces each must have before it.
+	 */
+	private static final class Line {
+		int size;
+		int[] kinds = new int[16];
+		int[] starts = new int[16];
+		int[] ends = new int[16];
+		String[] spaces = new String[16];
+
+		void add(int kind, int start, int end) {
+			if (size == kinds.length) {
+				kinds = Arrays.copyOf(kinds, 2 * size);
+				starts = Arrays.copyOf(starts, 2 * size);
+				ends = Arrays.copyOf(ends, 2 * size);
+				spaces = Arrays.copyOf(spaces, 2 * size);
+			}
+			kinds[size] = kind;
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		void format(String text, int lineStart, Replacements replacements) {
+			if (size == 0 || !statement()) {
+				return;
+			}
+			for (int i = 0; i < size; i++) {
+				String space = spaces[i];
+				int start = i == 0 ? lineStart : ends[i - 1];
+				if (space != AS_IS
+					&& (starts[i] - start != space.length() || !text.regionMatches(start, space, 0, space.length()))) {
+					replacements.replace(start, starts[i] - start, space);
+				}
+			}
+		}
+
+		/**
+		 * Matches the tokens against the statement rules, and sets the
+		 * spaces before them.
+		 *
+		 * @return false if the tokens are not those of a statement
+		 */
+		private boolean statement() {
+			int i = 0;
+			// No leading whitespace before statements
+			spaces[0] = NO_SPACE;
+			if (kinds[0] == OPENING_BRACKET) {
+				i = attributeSection();
+				if (i < 0) {
+					return false;
+				}
+				if (i == size) {
+					return true;
+				}
+				// Single space between ] and the deployment path
+				spaces[i] = ONE_SPACE;
+			}
+			if (kinds[i] != TEXT) {
+				return false;
+			}
+			i++;
+			if (i == size) {
+				return true;
+			}
+			if (kinds[i] == EQUALS_SIGN) {
+				// No spaces around = in deployment assignments
+				spaces[i] = NO_SPACE;
+				i++;
+				if (i == size) {
+					return false;
+				}
+				spaces[i] = NO_SPACE;
+			} else {
+				spaces[i] = AS_IS;
+			}
+			return (kinds[i] == TEXT || kinds[i] == BLOCK) && i + 1 == size;
+		}
+
+		/**
+		 * @return the index of the token after the section, or -1 if the
+		 *         tokens are not those of a section
+		 */
+		private int attributeSection() {
+			int i = 1;
+			int attributes = 0;
+			while (i < size && kinds[i] != CLOSING_BRACKET) {
+				// No space after [, single space between attributes
+				spaces[i] = attributes == 0 ? NO_SPACE : ONE_SPACE;
+				if (kinds[i] == SIGN && i + 1 < size && kinds[i + 1] == TEXT) {
+					// No space between +/- and the attribute name
+					spaces[i + 1] = NO_SPACE;
+					i += 2;
+				} else if (kinds[i] == TEXT && i + 2 < size && kinds[i + 1] == EQUALS_SIGN && kinds[i + 2] == TEXT) {
+					// No spaces around = in valued attributes
+					spaces[i + 1] = NO_SPACE;
+					spaces[i + 2] = NO_SPACE;
+					i += 3;
+				} else {
+					return -1;
+				}
+				attributes++;
+			}
+			if (i == size || attributes == 0) {
+				return -1;
+			}
+			// No space before ]
+			spaces[i] = NO_SPACE;
+			return i + 1;
+		}
+	}
+}
@@ -3,23 +3,56 @@
  */
 package qnx.buildfile.lang.generator
 
+import java.io.IOException
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtext.generator.AbstractGenerator
 import org.eclipse.xtext.generator.IFileSystemAccess2
 import org.eclipse.xtext.generator.IGeneratorContext
+import qnx.buildfile.lang.buildfileDSL.Model
+import qnx.buildfile.lang.utils.ContentHashes
+import qnx.buildfile.lang.utils.DeploymentManifest
 
 /**
- * Generates code from your model files on save.
+ * Generates the manifest of the image inputs of a buildfile, see
+ * {@link DeploymentManifest}, as {@code <buildfile name>.manifest}.
+ * <p>
+ * Hashing the host files is expensive the first time, so the manifest is only
+ * generated when the {@code generateManifest} system property is {@code true},
+ * as the CLI does for {@code --manifest}. The hashes are kept between runs in
+ * the store of {@link ContentHashes#getDefaultStore()}.
  * 
  * See https://www.eclipse.org/Xtext/documentation/303_runtime_concepts.html#code-generation
  */
 class BuildfileDSLGenerator extends AbstractGenerator {
 
+	/** System property enabling the generation of manifests. */
+	public static val SYSTEM_PROPERTY = "generateManifest"
+
+	public static val MANIFEST_EXTENSION = "manifest"
+
 	override void doGenerate(Resource resource, IFileSystemAccess2 fsa, IGeneratorContext context) {
-//		fsa.generateFile('greetings.txt', 'People to greet: ' + 
-//			resource.allContents
-//				.filter(Greeting)
-//				.map[name]
-//				.join(', '))
+		if (!Boolean.getBoolean(SYSTEM_PROPERTY)) {
+			return
+		}
+		val model = resource.contents.head
+		if (!(model instanceof Model)) {
+			return
+		}
+
+		val hashes = new ContentHashes(ContentHashes.defaultStore)
+		val manifest = new DeploymentManifest(environment, hashes).generate(model as Model)
+		fsa.generateFile(resource.URI.trimFileExtension.lastSegment + "." + MANIFEST_EXTENSION, manifest)
+		try {
+			hashes.save
+		} catch (IOException e) {
+			// Only the next run is slower
+		}
+	}
+
+	/**
+	 * @return the environment for the variables of the paths and {@code MKIFS_PATH}
+	 */
+	protected def getEnvironment() {
+		System.getenv
 	}
 }
@@ -0,0 +1,311 @@
+package qnx.buildfile.lang.parser.antlr;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.RecognizerSharedState;
+import org.antlr.runtime.Token;
+
+import qnx.buildfile.lang.parser.antlr.internal.InternalBuildfileDSLLexer;
+
+/**
+ * Lexer of the buildfile terminals that scans the common tokens by hand,
+ * rather than through the prediction DFA of the generated lexer.
+ * <p>
+ * The terminals need little lookahead: the first character of a token gives
+ * its rule, and the longest match is found in one pass over the characters,
+ * read from an array rather than through {@link CharStream#LA(int)}, and the
+ * token is created at once. What the generated lexer would predict
+ * differently or report as an error (a {@code /*} comment, an unterminated
+ * string, variable or block, a {@code $} or {@code ^} that starts no
+ * terminal, a lone carriage return, the end of the input inside a token...)
+ * is left to it, from the start of the token, so that both produce the same
+ * token stream.
+ */
+public class FastBuildfileDSLLexer extends InternalBuildfileDSLLexer
+{
+	/** Characters of an {@code ID} or {@code INT}. */
+	private static final boolean[] WORD = new boolean[128];
+
+	static
+	{
+		for (char c = 'a'; c <= 'z'; c++) WORD[c] = true;
+		for (char c = 'A'; c <= 'Z'; c++) WORD[c] = true;
+		for (char c = '0'; c <= '9'; c++) WORD[c] = true;
+		WORD['_'] = true;
+	}
+
+	/**
+	 * Copy of the input whose characters the scan reads directly, and whose
+	 * position it moves over a token at once.
+	 */
+	private static final class ScannedStream extends ANTLRStringStream
+	{
+		final char[] chars;
+
+		ScannedStream(char[] chars)
+		{
+			super(chars, chars.length);
+			this.chars = chars;
+		}
+
+		void skip(int end)
+		{
+			for (; p < end; p++)
+			{
+				if (data[p] == '\n')
+				{
+					line++;
+					charPositionInLine = 0;
+				}
+				else
+				{
+					charPositionInLine++;
+				}
+			}
+		}
+	}
+
+	private char[] chars;
+
+	/** Type of the token found by the last scan. */
+	private int type;
+
+	public FastBuildfileDSLLexer()
+	{
+	}
+
+	public FastBuildfileDSLLexer(CharStream input)
+	{
+		this(input, new RecognizerSharedState());
+	}
+
+	public FastBuildfileDSLLexer(CharStream input, RecognizerSharedState state)
+	{
+		super(scanned(input), state);
+		chars = this.input instanceof ScannedStream ? ((ScannedStream) this.input).chars : null;
+	}
+
+	@Override
+	public void setCharStream(CharStream input)
+	{
+		CharStream scanned = scanned(input);
+		super.setCharStream(scanned);
+		chars = scanned instanceof ScannedStream ? ((ScannedStream) scanned).chars : null;
+	}
+
+	@Override
+	public Token nextToken()
+	{
+		if (chars == null) return super.nextToken();
+
+		ScannedStream stream = (ScannedStream) input;
+		int start = stream.index();
+		if (start >= chars.length) return Token.EOF_TOKEN;
+		int end = scan(start);
+		if (end < 0) return super.nextToken();
+
+		CommonToken token = new CommonToken(stream, type, DEFAULT_TOKEN_CHANNEL, start, end - 1);
+		token.setLine(stream.getLine());
+		token.setCharPositionInLine(stream.getCharPositionInLine());
+		stream.skip(end);
+		state.token = token;
+		return token;
+	}
+
+	/**
+	 * Streams read from their start are scanned from a copy of their
+	 * characters, others are left to the generated lexer.
+	 */
+	private static CharStream scanned(CharStream input)
+	{
+		if (input == null || input instanceof ScannedStream || input.index() != 0) return input;
+
+		// Read through LA rather than substring, which copies the characters twice
+		char[] chars = new char[input.size()];
+		for (int i = 0; i < chars.length; i++) chars[i] = (char) input.LA(i + 1);
+		ScannedStream scanned = new ScannedStream(chars);
+		scanned.setLine(input.getLine());
+		scanned.setCharPositionInLine(input.getCharPositionInLine());
+		scanned.name = input.getSourceName();
+		return scanned;
+	}
+
+	/**
+	 * @return the end of the token at the index, its type being left in
+	 *         {@link #type}, or -1 if it is left to the generated lexer
+	 */
+	private int scan(int i)
+	{
+		int c = at(i);
+		switch (c)
+		{
+			case '=': return token(T__15, i + 1);
+			case '[': return token(T__16, i + 1);
+			case ']': return token(T__17, i + 1);
+			case '+': return token(T__18, i + 1);
+			case '-': return token(T__19, i + 1);
+			case '\n': return token(RULE_NL, i + 1);
+			case '\r':
+				return at(i + 1) == '\n' ? token(RULE_NL, i + 2) : -1;
+			case ' ':
+			case '\t':
+				for (c = at(++i); c == ' ' || c == '\t'; c = at(++i))
+				{
+				}
+				return token(RULE_WS, i);
+			case '#':
+				for (c = at(++i); c != '\n' && c != '\r' && c != EOF; c = at(++i))
+				{
+				}
+				return token(RULE_SL_COMMENT, i);
+			case '{':
+				return scanBlock(i);
+			case '/':
+				return at(i + 1) == '*' ? -1 : scanAlmostAnything(i);
+			default:
+				if (c == EOF) return -1;
+				if (startsPart(c)) return scanAlmostAnything(i);
+				return token(RULE_ANY_OTHER, i + 1);
+		}
+	}
+
+	private int token(int type, int end)
+	{
+		this.type = type;
+		return end;
+	}
+
+	/**
+	 * {@code '{' NL (('\\}' | ~'}')* NL)? '}'}: the block ends at the first
+	 * unescaped {@code }} at the start of a line.
+	 */
+	private int scanBlock(int start)
+	{
+		int i = newline(start + 1);
+		if (i < 0)
+		{
+			int c = at(start + 1);
+			return c == '\r' || c == EOF ? -1 : token(RULE_ANY_OTHER, start + 1);
+		}
+		if (at(i) == '}') return token(RULE_BLOCK, i + 1);
+		while (true)
+		{
+			int c = at(i);
+			if (c == EOF || c == '}') return -1;
+			if (c == '\\' && at(i + 1) == '}')
+			{
+				i += 2;
+				continue;
+			}
+			int end = newline(i);
+			if (end > 0 && at(end) == '}') return token(RULE_BLOCK, end + 1);
+			i++;
+		}
+	}
+
+	/**
+	 * {@code (STRING|VARREF|ID|INT|'.'|'/'|'*') (STRING|VARREF|ID|INT|'.'|'/'|'*'|'-'|'+'|','|':')*}
+	 */
+	private int scanAlmostAnything(int start)
+	{
+		int i = part(start);
+		while (i >= 0)
+		{
+			int c = at(i);
+			if (c == '-' || c == '+' || c == ',' || c == ':')
+			{
+				i++;
+			}
+			else if (startsPart(c))
+			{
+				i = part(i);
+			}
+			else
+			{
+				return token(RULE_ALMOST_ANYTHING, i);
+			}
+		}
+		return -1;
+	}
+
+	private static boolean startsPart(int c)
+	{
+		return isWord(c) || c == '.' || c == '/' || c == '*' || c == '"' || c == '\'' || c == '$' || c == '^';
+	}
+
+	/**
+	 * @return the index after the part starting at the index, -1 if it is
+	 *         left to the generated lexer
+	 */
+	private int part(int i)
+	{
+		int c = at(i);
+		switch (c)
+		{
+			case '.':
+			case '/':
+			case '*':
+				return i + 1;
+			case '"':
+			case '\'':
+				return string(i, c);
+			case '$':
+				return at(i + 1) == '{' ? varref(i + 2) : -1;
+			case '^':
+				c = at(i + 1);
+				return isWord(c) && !(c >= '0' && c <= '9') ? word(i + 1) : -1;
+			default:
+				return word(i);
+		}
+	}
+
+	private int word(int i)
+	{
+		while (i < chars.length && isWord(chars[i])) i++;
+		return i;
+	}
+
+	private int string(int i, int quote)
+	{
+		for (i++; i < chars.length; i++)
+		{
+			char c = chars[i];
+			if (c == quote) return i + 1;
+			if (c == '\\') i++;
+		}
+		return -1;
+	}
+
+	private int varref(int i)
+	{
+		for (; i < chars.length; i++)
+		{
+			char c = chars[i];
+			if (c == '}') return i + 1;
+			if (c == '\\' && at(i + 1) == '}') i++;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the index after the newline at the index, -1 if there is none
+	 */
+	private int newline(int i)
+	{
+		int c = at(i);
+		if (c == '\n') return i + 1;
+		if (c == '\r' && at(i + 1) == '\n') return i + 2;
+		return -1;
+	}
+
+	private int at(int i)
+	{
+		return i < chars.length ? chars[i] : EOF;
+	}
+
+	private static boolean isWord(int c)
+	{
+		return c >= 0 && c < WORD.length && WORD[c];
+	}
+}
@@ -0,0 +1,508 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+
+import qnx.buildfile.lang.buildfileDSL.Attribute;
+import qnx.buildfile.lang.buildfileDSL.AttributeSection;
+import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
+import qnx.buildfile.lang.buildfileDSL.BooleanAttribute;
+import qnx.buildfile.lang.buildfileDSL.BuildfileDSLFactory;
+import qnx.buildfile.lang.buildfileDSL.Content;
+import qnx.buildfile.lang.buildfileDSL.ContentBlock;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+
+/**
+ * Compact binary form of a parsed {@link Model}, to cache it on disk or pass
+ * it to another process without parsing the text again.
+ * <p>
+ * The strings of the model (paths, attribute names and values, contents and
+ * the URI of the buildfile) are stored once each in a string table, and the
+ * statements refer to them by index. A table of the statements gives where
+ * each one is encoded, so that any statement can be read on its own:
+ *
+ * <pre>
+ * header      magic, version, URI, string count, statement count,
+ *             string data length, record data length (ints)
+ * strings     string count + 1 offsets in the string data (ints)
+ * statements  offset of each statement in the records (ints)
+ * string data the UTF-8 bytes of the strings
+ * records     the statements, see {@link #writeStatement}
+ * </pre>
+ *
+ * {@link #map(Path)} maps a file in memory and reads from it in place: the
+ * strings are only decoded, once, when asked for, and the EMF objects are
+ * only created by {@link #getStatement(int)} or {@link #toModel()}. An
+ * instance can be read from several threads.
+ */
+public final class BinaryModel
+{
+	private static final int MAGIC = 0x51424D44; // QBMD
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 7 * Integer.BYTES;
+
+	/** Flags of a statement. */
+	private static final int DEPLOYMENT = 0x01, SECTION = 0x02, ASSIGNMENT = 0x04, PATH = 0x08, BLOCK = 0x10;
+	/** Kinds of an attribute. */
+	private static final byte ENABLED = 1, DISABLED = 2, VALUED = 3;
+
+	private final ByteBuffer buffer;
+	private final String[] strings;
+	private final int stringOffsets;
+	private final int statementTable;
+	private final int stringData;
+	private final int records;
+	private final int statementCount;
+	private final int uri;
+
+	/**
+	 * Reads the variable-length fields of a record.
+	 */
+	private final class Cursor
+	{
+		int position;
+
+		Cursor(int index)
+		{
+			if (index < 0 || index >= statementCount) throw new IndexOutOfBoundsException(index);
+			position = records + buffer.getInt(statementTable + index * Integer.BYTES);
+		}
+
+		byte nextByte()
+		{
+			return buffer.get(position++);
+		}
+
+		int nextInt()
+		{
+			int value = 0;
+			for (int shift = 0;; shift += 7)
+			{
+				byte b = buffer.get(position++);
+				value |= (b & 0x7F) << shift;
+				if (b >= 0) return value;
+			}
+		}
+
+		String nextString()
+		{
+			return getString(nextInt());
+		}
+
+		void skipSection()
+		{
+			for (int count = nextInt(); count > 0; count--)
+			{
+				byte kind = nextByte();
+				nextInt();
+				if (kind == VALUED) nextInt();
+			}
+		}
+	}
+
+	private BinaryModel(ByteBuffer buffer) throws IOException
+	{
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC)
+		{
+			throw new IOException("Not a binary buildfile model");
+		}
+		if (buffer.getInt(4) != VERSION)
+		{
+			throw new IOException("Unsupported binary buildfile model version " + buffer.getInt(4));
+		}
+		uri = buffer.getInt(8);
+		int stringCount = buffer.getInt(12);
+		statementCount = buffer.getInt(16);
+		int stringDataLength = buffer.getInt(20);
+		int recordsLength = buffer.getInt(24);
+		if (stringCount < 0 || statementCount < 0 || stringDataLength < 0 || recordsLength < 0
+				|| HEADER_LENGTH + (stringCount + 1L + statementCount) * Integer.BYTES + stringDataLength
+						+ recordsLength != buffer.limit())
+		{
+			throw new IOException("Truncated binary buildfile model");
+		}
+		stringOffsets = HEADER_LENGTH;
+		statementTable = stringOffsets + (stringCount + 1) * Integer.BYTES;
+		stringData = statementTable + statementCount * Integer.BYTES;
+		records = stringData + stringDataLength;
+		strings = new String[stringCount];
+	}
+
+	/**
+	 * Read a binary model from the buffer, from its position to its limit,
+	 * in place.
+	 */
+	public static BinaryModel wrap(ByteBuffer buffer) throws IOException
+	{
+		return new BinaryModel(buffer.slice());
+	}
+
+	/**
+	 * Map the binary model in the file in memory, and read it in place.
+	 */
+	public static BinaryModel map(Path file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			return new BinaryModel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Write the binary form of the model of the result to the file,
+	 * atomically, with the lines of its statements.
+	 */
+	public static void write(ParsingResult result, Path file) throws IOException
+	{
+		byte[] bytes = encode(result.model, result.lines != null ? result.lines : LineTable.of(result.model));
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try
+		{
+			Files.write(temporary, bytes);
+			try
+			{
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * @param lines the lines of the statements of the model, or null if
+	 *        unknown
+	 * @return the binary form of the model
+	 */
+	public static byte[] encode(Model model, LineTable lines)
+	{
+		List<Statement> statements = model.getStatements();
+		Map<String, Integer> indexes = new HashMap<>();
+		List<byte[]> strings = new ArrayList<>();
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		int[] table = new int[statements.size()];
+		URI location = model.eResource() != null ? model.eResource().getURI() : null;
+		int uri = index(location != null ? location.toString() : null, indexes, strings);
+		for (int i = 0; i < statements.size(); i++)
+		{
+			table[i] = records.size();
+			writeStatement(statements.get(i), lines != null ? lines.getLine(i) : -1, lines != null ? lines.getOffset(i) : -1,
+					records, indexes, strings);
+		}
+
+		int stringDataLength = 0;
+		for (byte[] string : strings) stringDataLength += string.length;
+
+		ByteBuffer bytes = ByteBuffer.allocate(
+				HEADER_LENGTH + (strings.size() + 1 + table.length) * Integer.BYTES + stringDataLength + records.size());
+		bytes.putInt(MAGIC);
+		bytes.putInt(VERSION);
+		bytes.putInt(uri);
+		bytes.putInt(strings.size());
+		bytes.putInt(statements.size());
+		bytes.putInt(stringDataLength);
+		bytes.putInt(records.size());
+		int offset = 0;
+		for (byte[] string : strings)
+		{
+			bytes.putInt(offset);
+			offset += string.length;
+		}
+		bytes.putInt(offset);
+		for (int value : table) bytes.putInt(value);
+		for (byte[] string : strings) bytes.put(string);
+		bytes.put(records.toByteArray());
+		return bytes.array();
+	}
+
+	/**
+	 * A statement: a byte of flags, its line and offset, its section if it
+	 * has one, then for a deployment its path and the value of its content
+	 * if it has one.
+	 * <p>
+	 * A section is its number of attributes then, for each attribute, its
+	 * kind, its name and for a valued one its value. Numbers are unsigned
+	 * variable-length integers of 7 bits a byte. Strings are their index in
+	 * the string table plus one, 0 for null, as are the line and offset to
+	 * encode -1.
+	 */
+	private static void writeStatement(Statement statement, int line, int offset, ByteArrayOutputStream out,
+			Map<String, Integer> indexes, List<byte[]> strings)
+	{
+		AttributeSection section = statement instanceof DeploymentStatement
+				? ((DeploymentStatement) statement).getAttributesection()
+				: ((AttributeStatement) statement).getAttributesection();
+		DeploymentStatement deployment = statement instanceof DeploymentStatement ? (DeploymentStatement) statement : null;
+		Content content = deployment != null ? deployment.getContent() : null;
+
+		int flags = section != null ? SECTION : 0;
+		if (deployment != null)
+		{
+			flags |= DEPLOYMENT;
+			if (deployment.isAssignment()) flags |= ASSIGNMENT;
+			if (content instanceof qnx.buildfile.lang.buildfileDSL.Path) flags |= PATH;
+			if (content instanceof ContentBlock) flags |= BLOCK;
+		}
+		out.write(flags);
+		writeInt(line + 1, out);
+		writeInt(offset + 1, out);
+
+		if (section != null)
+		{
+			writeInt(section.getAttributes().size(), out);
+			for (Attribute attribute : section.getAttributes())
+			{
+				if (attribute instanceof ValuedAttribute)
+				{
+					out.write(VALUED);
+					writeInt(index(attribute.getName(), indexes, strings), out);
+					writeInt(index(((ValuedAttribute) attribute).getValue(), indexes, strings), out);
+				}
+				else
+				{
+					out.write(((BooleanAttribute) attribute).isEnabled() ? ENABLED : DISABLED);
+					writeInt(index(attribute.getName(), indexes, strings), out);
+				}
+			}
+		}
+
+		if (deployment == null) return;
+		writeInt(index(deployment.getPath(), indexes, strings), out);
+		if (content instanceof qnx.buildfile.lang.buildfileDSL.Path)
+		{
+			writeInt(index(((qnx.buildfile.lang.buildfileDSL.Path) content).getValue(), indexes, strings), out);
+		}
+		else if (content instanceof ContentBlock)
+		{
+			writeInt(index(((ContentBlock) content).getValue(), indexes, strings), out);
+		}
+	}
+
+	private static void writeInt(int value, ByteArrayOutputStream out)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * @return the index plus one of the string in the table, 0 for null
+	 */
+	private static int index(String string, Map<String, Integer> indexes, List<byte[]> strings)
+	{
+		if (string == null) return 0;
+
+		return indexes.computeIfAbsent(string, key -> {
+			strings.add(key.getBytes(StandardCharsets.UTF_8));
+			return strings.size();
+		});
+	}
+
+	/**
+	 * @return the number of statements
+	 */
+	public int size()
+	{
+		return statementCount;
+	}
+
+	/**
+	 * @return the URI of the buildfile, or null if unknown
+	 */
+	public URI getURI()
+	{
+		String location = getString(uri);
+		return location != null ? URI.createURI(location) : null;
+	}
+
+	/**
+	 * @return the 1-based line of the statement at the index, -1 if unknown
+	 */
+	public int getLine(int index)
+	{
+		Cursor cursor = new Cursor(index);
+		cursor.nextByte();
+		return cursor.nextInt() - 1;
+	}
+
+	/**
+	 * @return the offset of the statement at the index, -1 if unknown
+	 */
+	public int getOffset(int index)
+	{
+		Cursor cursor = new Cursor(index);
+		cursor.nextByte();
+		cursor.nextInt();
+		return cursor.nextInt() - 1;
+	}
+
+	/**
+	 * @return the lines and offsets of the statements
+	 */
+	public LineTable getLines()
+	{
+		int[] offsets = new int[statementCount];
+		int[] lines = new int[statementCount];
+		for (int i = 0; i < statementCount; i++)
+		{
+			Cursor cursor = new Cursor(i);
+			cursor.nextByte();
+			lines[i] = cursor.nextInt() - 1;
+			offsets[i] = cursor.nextInt() - 1;
+		}
+		return new LineTable(offsets, lines);
+	}
+
+	/**
+	 * @return true if the statement at the index is a deployment
+	 */
+	public boolean isDeployment(int index)
+	{
+		return (new Cursor(index).nextByte() & DEPLOYMENT) != 0;
+	}
+
+	/**
+	 * @return the path of the deployment at the index, without creating it,
+	 *         or null if the statement is not a deployment
+	 */
+	public String getPath(int index)
+	{
+		Cursor cursor = new Cursor(index);
+		int flags = cursor.nextByte();
+		if ((flags & DEPLOYMENT) == 0) return null;
+		cursor.nextInt();
+		cursor.nextInt();
+		if ((flags & SECTION) != 0) cursor.skipSection();
+		return cursor.nextString();
+	}
+
+	/**
+	 * @return the statement at the index, created on its own
+	 */
+	public Statement getStatement(int index)
+	{
+		BuildfileDSLFactory factory = BuildfileDSLFactory.eINSTANCE;
+		Cursor cursor = new Cursor(index);
+		int flags = cursor.nextByte();
+		cursor.nextInt();
+		cursor.nextInt();
+		AttributeSection section = (flags & SECTION) != 0 ? readSection(cursor) : null;
+		if ((flags & DEPLOYMENT) == 0)
+		{
+			AttributeStatement statement = factory.createAttributeStatement();
+			statement.setAttributesection(section);
+			return statement;
+		}
+
+		DeploymentStatement deployment = factory.createDeploymentStatement();
+		deployment.setAttributesection(section);
+		deployment.setPath(cursor.nextString());
+		deployment.setAssignment((flags & ASSIGNMENT) != 0);
+		if ((flags & PATH) != 0)
+		{
+			qnx.buildfile.lang.buildfileDSL.Path path = factory.createPath();
+			path.setValue(cursor.nextString());
+			deployment.setContent(path);
+		}
+		else if ((flags & BLOCK) != 0)
+		{
+			ContentBlock block = factory.createContentBlock();
+			block.setValue(cursor.nextString());
+			deployment.setContent(block);
+		}
+		return deployment;
+	}
+
+	/**
+	 * @return the model, in a plain resource with the URI of the buildfile,
+	 *         without node model as after a headless parse
+	 */
+	public Model toModel()
+	{
+		Model model = BuildfileDSLFactory.eINSTANCE.createModel();
+		List<Statement> statements = new ArrayList<>(statementCount);
+		for (int i = 0; i < statementCount; i++) statements.add(getStatement(i));
+		model.getStatements().addAll(statements);
+		URI location = getURI();
+		if (location != null) new ResourceImpl(location).getContents().add(model);
+		return model;
+	}
+
+	private AttributeSection readSection(Cursor cursor)
+	{
+		BuildfileDSLFactory factory = BuildfileDSLFactory.eINSTANCE;
+		int count = cursor.nextInt();
+		List<Attribute> attributes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			byte kind = cursor.nextByte();
+			if (kind == VALUED)
+			{
+				ValuedAttribute attribute = factory.createValuedAttribute();
+				attribute.setName(cursor.nextString());
+				attribute.setValue(cursor.nextString());
+				attributes.add(attribute);
+			}
+			else
+			{
+				BooleanAttribute attribute = factory.createBooleanAttribute();
+				attribute.setName(cursor.nextString());
+				attribute.setEnabled(kind == ENABLED);
+				attributes.add(attribute);
+			}
+		}
+		AttributeSection section = factory.createAttributeSection();
+		section.getAttributes().addAll(attributes);
+		return section;
+	}
+
+	/**
+	 * @param index the index plus one of the string, 0 for null
+	 */
+	private String getString(int index)
+	{
+		if (index == 0) return null;
+
+		// Decoded at most once per thread racing for it, all equal
+		String string = strings[index - 1];
+		if (string == null)
+		{
+			int start = buffer.getInt(stringOffsets + (index - 1) * Integer.BYTES);
+			int end = buffer.getInt(stringOffsets + index * Integer.BYTES);
+			byte[] bytes = new byte[end - start];
+			buffer.get(stringData + start, bytes);
+			string = new String(bytes, StandardCharsets.UTF_8);
+			strings[index - 1] = string;
+		}
+		return string;
+	}
+}
@@ -0,0 +1,315 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EValidator;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.util.Diagnostician;
+import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.parser.IEncodingProvider;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.validation.AbstractInjectableValidator;
+import org.eclipse.xtext.validation.CancelableDiagnostician;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.IDiagnosticConverter;
+import org.eclipse.xtext.validation.Issue;
+import org.eclipse.xtext.validation.impl.ConcreteSyntaxEValidator;
+
+import com.google.inject.Injector;
+
+import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
+import qnx.buildfile.lang.buildfileDSL.BuildfileDSLFactory;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.validation.DuplicatePathIndex;
+
+/**
+ * Parses and validates a large buildfile in chunks on several threads, for
+ * {@link Parser}.
+ * <p>
+ * The text is cut into chunks of whole statements, never inside a block, a
+ * string or a comment, see {@link StreamingParser.StatementSplitter}, and the
+ * chunks are parsed at the same time, each in a resource of its own. The
+ * document-level checks are then given what they need from the other
+ * chunks, as in {@link StreamingParser}: the {@link DuplicatePathIndex} of
+ * the whole buildfile and the attributes in effect at the start of the
+ * chunk. The chunks are validated at the same time too, and stitched into
+ * one {@link Model}. Their node models, with offsets relative to the chunk,
+ * are dropped as in a headless parser: a {@link LineTable} of the statements
+ * is kept instead, and the issues are in document coordinates.
+ * <p>
+ * The issues are those of a parse as a whole, the syntax errors of all the
+ * chunks coming first. Syntax error recovery does not go across chunks.
+ */
+final class ChunkedParser implements AutoCloseable
+{
+	/** State of a chunk, set by each step in turn. */
+	private static final class Chunk
+	{
+		final String text;
+		final int startLine;
+		final int startOffset;
+
+		XtextResource resource;
+		Model model;
+		int firstStatement;
+		Map<String, String> attributes;
+		final List<Issue> syntaxIssues = new ArrayList<>();
+		final List<Issue> validationIssues = new ArrayList<>();
+		int[] offsets;
+		int[] lines;
+
+		Chunk(String text, int startLine, int startOffset)
+		{
+			this.text = text;
+			this.startLine = startLine;
+			this.startOffset = startOffset;
+		}
+
+		List<Statement> statements()
+		{
+			return model != null ? model.getStatements() : List.of();
+		}
+	}
+
+	private final Injector injector;
+	private final Diagnostician diagnostician;
+	private final IDiagnosticConverter converter;
+	private final IEncodingProvider encodingProvider;
+	private final int minChunkLength;
+	private final int threads;
+	private final ExecutorService executor;
+
+	ChunkedParser(Injector injector, int threads, int minChunkLength)
+	{
+		this.injector = injector;
+		this.threads = threads;
+		this.minChunkLength = minChunkLength;
+		diagnostician = injector.getInstance(Diagnostician.class);
+		converter = injector.getInstance(IDiagnosticConverter.class);
+		encodingProvider = injector.getInstance(IEncodingProvider.class);
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "Buildfile parsing");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	ParsingResult parse(File file) throws IOException
+	{
+		URI uri = URI.createFileURI(file.getAbsolutePath());
+		String text = new String(Files.readAllBytes(file.toPath()), encodingProvider.getEncoding(uri));
+		List<Chunk> chunks = split(text);
+
+		inParallel(chunks, chunk -> parse(chunk, uri));
+
+		// What the checks of a chunk need from the others
+		DuplicatePathIndex paths = new DuplicatePathIndex();
+		Map<String, String> attributes = new HashMap<>();
+		int statements = 0;
+		for (Chunk chunk : chunks)
+		{
+			chunk.firstStatement = statements;
+			chunk.attributes = new HashMap<>(attributes);
+			for (Statement statement : chunk.statements())
+			{
+				if (statement instanceof DeploymentStatement)
+				{
+					paths.add(((DeploymentStatement) statement).getPath());
+				}
+				else if (statement instanceof AttributeStatement)
+				{
+					EffectiveAttributes.apply(((AttributeStatement) statement).getAttributesection(), attributes);
+				}
+			}
+			statements += chunk.statements().size();
+		}
+
+		HostDirectoryListings listings = new HostDirectoryListings();
+		inParallel(chunks, chunk -> validate(chunk, paths, listings));
+
+		return merge(uri, chunks, statements);
+	}
+
+	/**
+	 * Stop the threads, once the chunks being parsed are done.
+	 */
+	@Override
+	public void close()
+	{
+		executor.shutdown();
+	}
+
+	/**
+	 * @return the chunks of the text, as many as there are threads unless
+	 *         they would be shorter than the minimum
+	 */
+	private List<Chunk> split(String text) throws IOException
+	{
+		int count = Math.max(1, Math.min(threads, text.length() / minChunkLength));
+		int length = text.length() / count;
+
+		List<Chunk> chunks = new ArrayList<>();
+		StreamingParser.StatementSplitter splitter = new StreamingParser.StatementSplitter(new StringReader(text));
+		int startLine = 1;
+		int startOffset = 0;
+		while (splitter.next() != null)
+		{
+			if (chunks.size() < count - 1 && splitter.getStartOffset() - startOffset >= length)
+			{
+				chunks.add(new Chunk(text.substring(startOffset, splitter.getStartOffset()), startLine, startOffset));
+				startLine = splitter.getStartLine();
+				startOffset = splitter.getStartOffset();
+			}
+		}
+		chunks.add(new Chunk(text.substring(startOffset), startLine, startOffset));
+		return chunks;
+	}
+
+	private void parse(Chunk chunk, URI uri) throws IOException
+	{
+		// Resource sets are not thread-safe: one per chunk
+		XtextResourceSet resourceSet = injector.getInstance(XtextResourceSet.class);
+		chunk.resource = (XtextResource) resourceSet.createResource(uri);
+		chunk.resource.reparse(chunk.text);
+		chunk.model = chunk.resource.getContents().isEmpty() ? null : (Model) chunk.resource.getContents().get(0);
+		for (Resource.Diagnostic error : chunk.resource.getErrors())
+		{
+			converter.convertResourceDiagnostic(error, Severity.ERROR, chunk.syntaxIssues::add);
+		}
+		for (Resource.Diagnostic warning : chunk.resource.getWarnings())
+		{
+			converter.convertResourceDiagnostic(warning, Severity.WARNING, chunk.syntaxIssues::add);
+		}
+	}
+
+	private void validate(Chunk chunk, DuplicatePathIndex paths, HostDirectoryListings listings)
+	{
+		if (chunk.model != null)
+		{
+			// Same options as ResourceValidatorImpl, plus the side indexes
+			Map<Object, Object> context = new HashMap<>();
+			context.put(CheckMode.KEY, CheckMode.ALL);
+			context.put(CancelableDiagnostician.CANCEL_INDICATOR, CancelIndicator.NullImpl);
+			context.put(ConcreteSyntaxEValidator.DISABLE_CONCRETE_SYNTAX_EVALIDATOR, Boolean.TRUE);
+			context.put(EValidator.class, diagnostician);
+			context.put(AbstractInjectableValidator.CURRENT_LANGUAGE_NAME, chunk.resource.getLanguageName());
+			context.put(DuplicatePathIndex.class, paths);
+			context.put(HostDirectoryListings.class, listings);
+			context.put(EffectiveAttributes.class, chunk.attributes);
+			Diagnostic diagnostic = diagnostician.validate(chunk.model, context);
+			for (Diagnostic child : diagnostic.getChildren())
+			{
+				converter.convertValidatorDiagnostic(child, chunk.validationIssues::add);
+			}
+		}
+
+		// The issues have their lines, the node model can go
+		List<Statement> statements = chunk.statements();
+		chunk.offsets = new int[statements.size()];
+		chunk.lines = new int[statements.size()];
+		for (int i = 0; i < statements.size(); i++)
+		{
+			ICompositeNode node = NodeModelUtils.getNode(statements.get(i));
+			chunk.offsets[i] = node != null ? chunk.startOffset + node.getOffset() : -1;
+			chunk.lines[i] = node != null ? chunk.startLine + node.getStartLine() - 1 : -1;
+		}
+		if (chunk.model != null)
+		{
+			chunk.model.eAdapters().removeIf(INode.class::isInstance);
+			chunk.model.eAllContents().forEachRemaining(object -> object.eAdapters().removeIf(INode.class::isInstance));
+		}
+	}
+
+	private ParsingResult merge(URI uri, List<Chunk> chunks, int statements)
+	{
+		List<Issue> issues = new ArrayList<>();
+		for (Chunk chunk : chunks)
+		{
+			for (Issue issue : chunk.syntaxIssues)
+			{
+				issues.add(StreamingParser.shift(issue, chunk.startLine, chunk.startOffset, chunk.firstStatement));
+			}
+		}
+		for (Chunk chunk : chunks)
+		{
+			for (Issue issue : chunk.validationIssues)
+			{
+				issues.add(StreamingParser.shift(issue, chunk.startLine, chunk.startOffset, chunk.firstStatement));
+			}
+		}
+
+		Model model = BuildfileDSLFactory.eINSTANCE.createModel();
+		new ResourceImpl(uri).getContents().add(model);
+		int[] offsets = new int[statements];
+		int[] lines = new int[statements];
+		for (Chunk chunk : chunks)
+		{
+			System.arraycopy(chunk.offsets, 0, offsets, chunk.firstStatement, chunk.offsets.length);
+			System.arraycopy(chunk.lines, 0, lines, chunk.firstStatement, chunk.lines.length);
+			// Emptied first: removing the statements one at a time from the front is quadratic
+			List<Statement> moved = new ArrayList<>(chunk.statements());
+			chunk.statements().clear();
+			model.getStatements().addAll(moved);
+			chunk.resource.unload();
+		}
+		return new ParsingResult(issues, model, new LineTable(offsets, lines));
+	}
+
+	private interface ChunkTask
+	{
+		void run(Chunk chunk) throws IOException;
+	}
+
+	/**
+	 * Run the task on all the chunks, on the threads, and wait for them.
+	 */
+	private void inParallel(List<Chunk> chunks, ChunkTask task) throws IOException
+	{
+		List<CompletableFuture<Void>> pending = new ArrayList<>();
+		for (Chunk chunk : chunks)
+		{
+			pending.add(CompletableFuture.runAsync(() -> {
+				try
+				{
+					task.run(chunk);
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			}, executor));
+		}
+		try
+		{
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+}
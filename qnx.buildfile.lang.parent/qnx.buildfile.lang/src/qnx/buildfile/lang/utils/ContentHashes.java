@@ -0,0 +1,286 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SHA-256 hashes of host files, cached on disk between runs.
+ * <p>
+ * A file is hashed again only if its size or modification time changed
+ * since the hash was stored. Files are streamed through a {@link FileChannel},
+ * large ones memory-mapped a chunk at a time, and several files are hashed
+ * in parallel on a pool of one thread per core.
+ * <p>
+ * The store is a text file of one {@code sha256 size mtime path} line per
+ * file, written by {@link #save()}. Its default location is given by the
+ * {@code contentHashCache} system property, see {@link #getDefaultStore()}.
+ */
+public class ContentHashes
+{
+	/** System property giving the path of the store. */
+	public static final String SYSTEM_PROPERTY = "contentHashCache";
+
+	/** Number of files hashed at the same time. */
+	public static final int HASH_THREADS = Runtime.getRuntime().availableProcessors();
+
+	private static final String HEADER = "# qnx.buildfile.lang content hashes 1";
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final long MAP_THRESHOLD = 1 << 20;
+	private static final long MAP_CHUNK = 1 << 26;
+
+	private static final ExecutorService HASH_EXECUTOR = Executors.newFixedThreadPool(HASH_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "Content hashing");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final class StoredHash
+	{
+		final long size;
+		final long modified;
+		final String sha256;
+
+		StoredHash(long size, long modified, String sha256)
+		{
+			this.size = size;
+			this.modified = modified;
+			this.sha256 = sha256;
+		}
+	}
+
+	private final Path store;
+	private final Map<Path, StoredHash> hashes = new ConcurrentHashMap<>();
+	private final AtomicInteger hashed = new AtomicInteger();
+	private volatile boolean changed;
+
+	/**
+	 * @param store the file the hashes are kept in between runs, or null to
+	 *        keep them in memory only
+	 */
+	public ContentHashes(Path store)
+	{
+		this.store = store;
+		load();
+	}
+
+	/**
+	 * @return the store given by the {@code contentHashCache} system property,
+	 *         else {@code .cache/qnx.buildfile.lang/content-hashes} in the
+	 *         home directory
+	 */
+	public static Path getDefaultStore()
+	{
+		String property = System.getProperty(SYSTEM_PROPERTY);
+		if (property != null && !property.isBlank()) return Paths.get(property);
+		return Paths.get(System.getProperty("user.home"), ".cache", "qnx.buildfile.lang", "content-hashes");
+	}
+
+	/**
+	 * Hash the files in parallel, reusing the stored hashes of the files
+	 * that did not change.
+	 *
+	 * @return the hashes in hexadecimal, by file, without the files that
+	 *         cannot be read
+	 */
+	public Map<Path, String> hash(Collection<Path> files)
+	{
+		Map<Path, CompletableFuture<String>> pending = new LinkedHashMap<>();
+		for (Path file : files)
+		{
+			pending.computeIfAbsent(file, key -> CompletableFuture.supplyAsync(() -> hash(key), HASH_EXECUTOR));
+		}
+		Map<Path, String> result = new LinkedHashMap<>();
+		pending.forEach((file, hash) -> {
+			String sha256 = hash.join();
+			if (sha256 != null) result.put(file, sha256);
+		});
+		return result;
+	}
+
+	/**
+	 * @return the hash of the file in hexadecimal, or null if it cannot be read
+	 */
+	public String hash(Path file)
+	{
+		Path key = file.toAbsolutePath().normalize();
+		try
+		{
+			BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+			if (!attributes.isRegularFile()) return null;
+
+			long modified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+			StoredHash stored = hashes.get(key);
+			if (stored != null && stored.size == attributes.size() && stored.modified == modified)
+			{
+				return stored.sha256;
+			}
+
+			String sha256 = digest(key, attributes.size());
+			hashed.incrementAndGet();
+			hashes.put(key, new StoredHash(attributes.size(), modified, sha256));
+			changed = true;
+			return sha256;
+		}
+		catch (IOException | SecurityException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * @return the hash of the contents in hexadecimal
+	 */
+	public static String hash(byte[] contents)
+	{
+		MessageDigest digest = newDigest();
+		digest.update(contents);
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * @return the number of files actually hashed, rather than found in the store
+	 */
+	public int getHashedCount()
+	{
+		return hashed.get();
+	}
+
+	/**
+	 * Write the hashes to the store, if any was added. The store is replaced
+	 * at once, so that concurrent runs never read a partial one.
+	 */
+	public void save() throws IOException
+	{
+		if (store == null || !changed) return;
+
+		if (store.getParent() != null) Files.createDirectories(store.getParent());
+		Path temporary = Files.createTempFile(store.getParent() != null ? store.getParent() : Paths.get("."),
+				store.getFileName().toString(), ".tmp");
+		try
+		{
+			try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8))
+			{
+				writer.write(HEADER);
+				writer.newLine();
+				// Sorted, so that the store does not change when the hashes don't
+				for (Map.Entry<Path, StoredHash> entry : new TreeMap<>(hashes).entrySet())
+				{
+					StoredHash stored = entry.getValue();
+					writer.write(stored.sha256 + " " + stored.size + " " + stored.modified + " " + entry.getKey());
+					writer.newLine();
+				}
+			}
+			try
+			{
+				Files.move(temporary, store, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temporary, store, StandardCopyOption.REPLACE_EXISTING);
+			}
+			changed = false;
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * @return the SHA-256 of the file in hexadecimal
+	 */
+	protected String digest(Path file, long size) throws IOException
+	{
+		MessageDigest digest = newDigest();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			if (size >= MAP_THRESHOLD)
+			{
+				for (long position = 0; position < size; position += MAP_CHUNK)
+				{
+					digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK, size - position)));
+				}
+			}
+			else
+			{
+				ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+				while (channel.read(buffer) > 0)
+				{
+					buffer.flip();
+					digest.update(buffer);
+					buffer.clear();
+				}
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private void load()
+	{
+		if (store == null || !Files.isRegularFile(store)) return;
+
+		boolean malformed = false;
+		try (BufferedReader reader = Files.newBufferedReader(store, StandardCharsets.UTF_8))
+		{
+			String line = reader.readLine();
+			if (!HEADER.equals(line)) return;
+
+			while ((line = reader.readLine()) != null)
+			{
+				String[] fields = line.split(" ", 4);
+				try
+				{
+					hashes.put(Paths.get(fields[3]), new StoredHash(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[0]));
+				}
+				catch (RuntimeException e)
+				{
+					malformed = true;
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// Everything is hashed again
+			hashes.clear();
+		}
+		// Rewritten without the malformed lines
+		if (malformed) changed = true;
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every Java platform has SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
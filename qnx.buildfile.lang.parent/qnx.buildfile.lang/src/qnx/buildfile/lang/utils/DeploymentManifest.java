@@ -0,0 +1,127 @@
+package qnx.buildfile.lang.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.utils.DeploymentResolver.Deployment;
+
+/**
+ * Manifest of what goes in the image a buildfile describes, so that a build
+ * can tell that the inputs of an image did not change and skip mkifs.
+ * <p>
+ * There is one line per deployment, in buildfile order, with tab separated
+ * fields:
+ * <ol>
+ * <li>the SHA-256 of the contents, {@code missing} for a host file that is
+ * not found, {@code -} for what is not a file</li>
+ * <li>the path in the image</li>
+ * <li>the host file, {@code {inline}} for inline contents, the target of a
+ * link</li>
+ * <li>the effective attributes, sorted: {@code name=value}, {@code +name} or
+ * {@code -name}</li>
+ * </ol>
+ * Nothing else goes in the manifest, so that it only changes when the image
+ * inputs do. Host files are looked up as mkifs does (see
+ * {@link DeploymentResolver}) and hashed by {@link ContentHashes}.
+ */
+public class DeploymentManifest
+{
+	/** Hash of a host file that is not found. */
+	public static final String MISSING = "missing";
+
+	/** Hash of what is not a file. */
+	public static final String NONE = "-";
+
+	/** Source of inline contents. */
+	public static final String INLINE = "{inline}";
+
+	private final Map<String, String> environment;
+	private final ContentHashes hashes;
+
+	/**
+	 * @param environment the variables of the paths and of {@code MKIFS_PATH}
+	 * @param hashes the hashes of the host files
+	 */
+	public DeploymentManifest(Map<String, String> environment, ContentHashes hashes)
+	{
+		this.environment = environment;
+		this.hashes = hashes;
+	}
+
+	public String generate(Model model)
+	{
+		List<Deployment> deployments = new DeploymentResolver(environment).resolve(model);
+		HostDirectoryListings listings = createListings();
+		List<Path> candidates = new ArrayList<>();
+		for (Deployment deployment : deployments)
+		{
+			if (deployment.isHostFile()) candidates.addAll(deployment.getCandidates());
+		}
+		listings.prefetchParents(candidates);
+
+		Map<Deployment, Path> sources = new HashMap<>();
+		for (Deployment deployment : deployments)
+		{
+			Path source = deployment.isHostFile() ? listings.findFirst(deployment.getCandidates()) : null;
+			if (source != null) sources.put(deployment, source);
+		}
+		Map<Path, String> sha256s = hashes.hash(sources.values());
+
+		StringBuilder manifest = new StringBuilder();
+		for (Deployment deployment : deployments)
+		{
+			String sha256 = NONE;
+			String source = deployment.getSource();
+			if (deployment.isHostFile())
+			{
+				Path path = sources.get(deployment);
+				sha256 = path != null ? sha256s.getOrDefault(path, MISSING) : MISSING;
+				if (path != null) source = path.toString();
+			}
+			else if (deployment.getInlineContents() != null)
+			{
+				sha256 = ContentHashes.hash(deployment.getInlineContents().getBytes(StandardCharsets.UTF_8));
+				source = INLINE;
+			}
+
+			manifest.append(sha256).append('\t')
+					.append(deployment.getTarget()).append('\t')
+					.append(source != null ? source : NONE).append('\t')
+					.append(formatAttributes(deployment.getAttributes())).append('\n');
+		}
+		return manifest.toString();
+	}
+
+	/**
+	 * @return the listings the host files are looked up in, new for each manifest
+	 */
+	protected HostDirectoryListings createListings()
+	{
+		return new HostDirectoryListings();
+	}
+
+	private static String formatAttributes(Map<String, String> attributes)
+	{
+		StringBuilder formatted = new StringBuilder();
+		for (Map.Entry<String, String> attribute : new TreeMap<>(attributes).entrySet())
+		{
+			if (formatted.length() > 0) formatted.append(' ');
+			String value = attribute.getValue();
+			if ("+".equals(value) || "-".equals(value))
+			{
+				formatted.append(value).append(attribute.getKey());
+			}
+			else
+			{
+				formatted.append(attribute.getKey()).append('=').append(value);
+			}
+		}
+		return formatted.toString();
+	}
+}
@@ -0,0 +1,242 @@
+package qnx.buildfile.lang.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
+import qnx.buildfile.lang.buildfileDSL.ContentBlock;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+
+/**
+ * What each deployment of a buildfile puts in the image: its path in the
+ * image, its effective attributes and where its contents come from.
+ * <p>
+ * The statements are walked once, keeping the attributes set by the
+ * attribute statements (see {@link EffectiveAttributes}). Variables are
+ * replaced by the environment, and the host sources are given as the
+ * candidates mkifs looks at (see {@link SearchPath}), without accessing
+ * the host: callers look them up together, see {@link HostDirectoryListings}.
+ */
+public class DeploymentResolver
+{
+	/** Value of the {@code prefix} attribute when none is set. */
+	public static final String DEFAULT_PREFIX = "proc/boot";
+
+	/**
+	 * A deployment as mkifs sees it.
+	 */
+	public static final class Deployment
+	{
+		private final DeploymentStatement statement;
+		private final String target;
+		private final Map<String, String> attributes;
+		private final String source;
+		private final List<Path> candidates;
+		private final List<Path> searched;
+		private final String inlineContents;
+
+		Deployment(DeploymentStatement statement, String target, Map<String, String> attributes, String source,
+				List<Path> candidates, List<Path> searched, String inlineContents)
+		{
+			this.statement = statement;
+			this.target = target;
+			this.attributes = attributes;
+			this.source = source;
+			this.candidates = candidates;
+			this.searched = searched;
+			this.inlineContents = inlineContents;
+		}
+
+		public DeploymentStatement getStatement() { return statement; }
+
+		/**
+		 * @return the absolute path in the image
+		 */
+		public String getTarget() { return target; }
+
+		/**
+		 * @return the effective attributes by name, valued ones with their
+		 *         value and boolean ones as {@code +} or {@code -}
+		 */
+		public Map<String, String> getAttributes() { return attributes; }
+
+		/**
+		 * @return the type of the deployment, {@code file} by default
+		 */
+		public String getType() { return attributes.getOrDefault("type", "file"); }
+
+		/**
+		 * @return the host source of a file or the target of a link, with
+		 *         variables replaced, or null for inline contents and
+		 *         what has none
+		 */
+		public String getSource() { return source; }
+
+		/**
+		 * @return where the host source of a file may be, in the order mkifs
+		 *         looks, empty if the source cannot be resolved, or null if
+		 *         the deployment does not come from a host file
+		 */
+		public List<Path> getCandidates() { return candidates; }
+
+		/**
+		 * @return the directories the host source of a file is looked for
+		 *         in, empty if it is absolute or cannot be resolved, or null
+		 *         if the deployment does not come from a host file
+		 */
+		public List<Path> getSearched() { return searched; }
+
+		/**
+		 * @return the contents of an inline file, or null
+		 */
+		public String getInlineContents() { return inlineContents; }
+
+		/**
+		 * @return true if the contents come from a host file
+		 */
+		public boolean isHostFile() { return candidates != null; }
+	}
+
+	private final Map<String, String> environment;
+
+	/**
+	 * @param environment the variables of the paths and of {@code MKIFS_PATH}
+	 */
+	public DeploymentResolver(Map<String, String> environment)
+	{
+		this.environment = environment;
+	}
+
+	/**
+	 * @return the deployments of the model, in buildfile order
+	 */
+	public List<Deployment> resolve(Model model)
+	{
+		return resolve(model, Map.of());
+	}
+
+	/**
+	 * @param inherited the attributes in effect before the first statement,
+	 *        as kept by {@link EffectiveAttributes#apply}, for a model that
+	 *        is a part of a buildfile
+	 * @return the deployments of the model, in buildfile order
+	 */
+	public List<Deployment> resolve(Model model, Map<String, String> inherited)
+	{
+		Path base = SearchPath.getBaseDirectory(model.eResource());
+		Map<String, List<Path>> directoriesBySearch = new HashMap<>();
+		List<Deployment> deployments = new ArrayList<>();
+
+		// Set by the attribute statements so far, shared by the deployments without attributes of their own
+		Map<String, String> attributes = new HashMap<>(inherited);
+		Map<String, String> shared = Collections.unmodifiableMap(new HashMap<>(inherited));
+		for (Statement statement : model.getStatements())
+		{
+			if (statement instanceof AttributeStatement)
+			{
+				EffectiveAttributes.apply(((AttributeStatement) statement).getAttributesection(), attributes);
+				shared = Collections.unmodifiableMap(new HashMap<>(attributes));
+				continue;
+			}
+
+			DeploymentStatement deployment = (DeploymentStatement) statement;
+			Map<String, String> effective = shared;
+			if (deployment.getAttributesection() != null)
+			{
+				Map<String, String> own = new HashMap<>(attributes);
+				EffectiveAttributes.apply(deployment.getAttributesection(), own);
+				effective = Collections.unmodifiableMap(own);
+			}
+
+			String path = VariableSubstitutor.substituteEnvVars(unquote(deployment.getPath()), environment);
+			if (path == null) continue;
+			String target = toTarget(path, effective.get("prefix"));
+			String type = effective.getOrDefault("type", "file");
+
+			if (deployment.getContent() instanceof ContentBlock)
+			{
+				String contents = type.equals("file") ? inlineContents(((ContentBlock) deployment.getContent()).getValue()) : null;
+				deployments.add(new Deployment(deployment, target, effective, null, null, null, contents));
+				continue;
+			}
+
+			// Without contents, a file comes from the host path of its target
+			String source = deployment.getContent() instanceof qnx.buildfile.lang.buildfileDSL.Path
+					? ((qnx.buildfile.lang.buildfileDSL.Path) deployment.getContent()).getValue()
+					: type.equals("file") ? deployment.getPath() : null;
+			source = VariableSubstitutor.substituteEnvVars(source, environment);
+			if (!type.equals("file"))
+			{
+				deployments.add(new Deployment(deployment, target, effective, source, null, null, null));
+				continue;
+			}
+
+			List<Path> candidates = List.of();
+			List<Path> searched = List.of();
+			Path hostPath = source == null || source.contains("${") ? null : SearchPath.toHostPath(source);
+			if (hostPath != null)
+			{
+				String search = effective.get(SearchPath.SEARCH);
+				List<Path> directories = directoriesBySearch.computeIfAbsent(String.valueOf(search),
+						key -> SearchPath.getDirectories(search, environment, base));
+				searched = hostPath.isAbsolute() ? List.of() : SearchPath.getSearched(directories, base);
+				candidates = SearchPath.getCandidates(hostPath, searched);
+			}
+			deployments.add(new Deployment(deployment, target, effective, source, candidates, searched, null));
+		}
+		return deployments;
+	}
+
+	/**
+	 * @return the absolute path in the image of a deployment's path, relative
+	 *         ones being under the {@code prefix}
+	 */
+	public static String toTarget(String path, String prefix)
+	{
+		StringBuilder target = new StringBuilder();
+		String full = path.startsWith("/") ? path : (prefix != null ? prefix : DEFAULT_PREFIX) + "/" + path;
+		for (String segment : full.split("/"))
+		{
+			if (!segment.isEmpty()) target.append('/').append(segment);
+		}
+		return target.length() > 0 ? target.toString() : "/";
+	}
+
+	/**
+	 * @return the contents of an inline block: its lines between the braces,
+	 *         with {@code \}} standing for {@code }}
+	 */
+	public static String inlineContents(String block)
+	{
+		if (block == null) return "";
+
+		int start = block.indexOf('\n') + 1;
+		int end = block.lastIndexOf('}');
+		if (start <= 0 || end < start) return "";
+		return block.substring(start, end).replace("\\}", "}");
+	}
+
+	/**
+	 * @return the size in bytes of the contents of an inline block
+	 */
+	public static long inlineSize(String contents)
+	{
+		return contents != null ? contents.getBytes(StandardCharsets.UTF_8).length : 0;
+	}
+
+	private static String unquote(String value)
+	{
+		if (value != null && value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+		{
+			return value.substring(1, value.length() - 1);
+		}
+		return value;
+	}
+}
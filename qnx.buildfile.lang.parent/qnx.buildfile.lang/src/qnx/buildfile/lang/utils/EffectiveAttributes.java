@@ -0,0 +1,105 @@
+package qnx.buildfile.lang.utils;
+
+import java.util.List;
+import java.util.Map;
+
+import qnx.buildfile.lang.buildfileDSL.Attribute;
+import qnx.buildfile.lang.buildfileDSL.AttributeSection;
+import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
+import qnx.buildfile.lang.buildfileDSL.BooleanAttribute;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
+
+/**
+ * Values of the valued attributes in effect for a deployment.
+ * <p>
+ * An attribute statement changes the attributes of all the deployments after
+ * it, and the attribute section of a deployment overrides them for that
+ * deployment only. Within a section, the last value wins.
+ * <p>
+ * Looking a value up walks back from the deployment; code going through all
+ * the deployments of a buildfile should rather keep the values set by the
+ * attribute statements as it goes, with {@link #getValue(AttributeSection, String)}
+ * or {@link #apply(AttributeSection, Map)}.
+ */
+public class EffectiveAttributes
+{
+	/**
+	 * @return the value of the attribute in effect for the deployment, or
+	 *         null if no attribute sets it
+	 */
+	public static String getValue(DeploymentStatement statement, String name)
+	{
+		String own = getValue(statement.getAttributesection(), name);
+		if (own != null) return own;
+
+		if (statement.eContainer() instanceof Model)
+		{
+			Model model = (Model) statement.eContainer();
+			return getValue(model, model.getStatements().indexOf(statement), name);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the value of the attribute set by the attribute statements
+	 *         before the statement at index {@code end}, or null if none sets it
+	 */
+	public static String getValue(Model model, int end, String name)
+	{
+		List<Statement> statements = model.getStatements();
+		for (int i = Math.min(end, statements.size()) - 1; i >= 0; i--)
+		{
+			if (statements.get(i) instanceof AttributeStatement)
+			{
+				String value = getValue(((AttributeStatement) statements.get(i)).getAttributesection(), name);
+				if (value != null) return value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the value the section gives to the attribute, or null if it
+	 *         does not set it
+	 */
+	public static String getValue(AttributeSection section, String name)
+	{
+		if (section == null) return null;
+
+		String value = null;
+		for (Attribute attribute : section.getAttributes())
+		{
+			if (attribute instanceof ValuedAttribute && name.equals(attribute.getName()))
+			{
+				value = ((ValuedAttribute) attribute).getValue();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Set the attributes of the section in the map, valued ones with their
+	 * value and boolean ones as {@code +} or {@code -}, for code keeping the
+	 * attributes in effect as it walks the statements.
+	 */
+	public static void apply(AttributeSection section, Map<String, String> attributes)
+	{
+		if (section == null) return;
+
+		for (Attribute attribute : section.getAttributes())
+		{
+			if (attribute.getName() == null) continue;
+			if (attribute instanceof ValuedAttribute)
+			{
+				attributes.put(attribute.getName(), ((ValuedAttribute) attribute).getValue());
+			}
+			else if (attribute instanceof BooleanAttribute)
+			{
+				attributes.put(attribute.getName(), ((BooleanAttribute) attribute).isEnabled() ? "+" : "-");
+			}
+		}
+	}
+}
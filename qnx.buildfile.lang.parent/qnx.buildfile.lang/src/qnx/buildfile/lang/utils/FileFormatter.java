@@ -0,0 +1,374 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import qnx.buildfile.lang.formatting2.LineFormatter;
+
+/**
+ * Formats buildfiles in place, or checks that they are formatted, with the
+ * {@link LineFormatter}.
+ * <p>
+ * Files are formatted in parallel on a pool of one thread per core. A file
+ * is written only if formatting changed it, to a temporary file that then
+ * replaces it at once, so that a build never reads a partly written
+ * buildfile. The text is read and written as ISO-8859-1, which keeps every
+ * byte of a file whatever its encoding, the formatter only changing spaces.
+ * <p>
+ * The SHA-256 of the formatted contents met are kept in a store between
+ * runs, and a file whose hash, given by {@link ContentHashes}, is in the
+ * store is not read again. The store is a text file of one hash per line,
+ * written by {@link #save()}. Its default location is given by the
+ * {@code formattedCache} system property, see {@link #getDefaultStore()}.
+ * Without {@link ContentHashes}, every file is read and nothing is hashed.
+ */
+public class FileFormatter
+{
+	/** System property giving the path of the store. */
+	public static final String SYSTEM_PROPERTY = "formattedCache";
+
+	/** Number of files formatted at the same time. */
+	public static final int FORMAT_THREADS = Runtime.getRuntime().availableProcessors();
+
+	/** Number of unchanged lines around the changes of a diff. */
+	public static final int CONTEXT = 3;
+
+	// Formatting rules that change must change the version, so that the files are checked again
+	private static final String HEADER = "# qnx.buildfile.lang formatted contents 1";
+
+	private static final ExecutorService FORMAT_EXECUTOR = Executors.newFixedThreadPool(FORMAT_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "Formatting");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** What formatting a file did. */
+	public enum Status
+	{
+		/** Formatted in a previous run and not changed since, not read. */
+		CACHED,
+		/** Already formatted. */
+		UNCHANGED,
+		/** Formatted and written. */
+		FORMATTED,
+		/** Not formatted, when checking. */
+		UNFORMATTED,
+		/** Could not be read or written. */
+		FAILED
+	}
+
+	/** Formatting of a file. */
+	public static final class Result
+	{
+		public final Path file;
+		public final Status status;
+		/** The unified diff of the formatting, when checking an unformatted file. */
+		public final String diff;
+		/** The error reading or writing the file, if it failed. */
+		public final IOException error;
+
+		Result(Path file, Status status, String diff, IOException error)
+		{
+			this.file = file;
+			this.status = status;
+			this.diff = diff;
+			this.error = error;
+		}
+	}
+
+	private final LineFormatter formatter = new LineFormatter();
+	private final ContentHashes hashes;
+	private final Path store;
+	private final Set<String> formatted = ConcurrentHashMap.newKeySet();
+	private volatile boolean changed;
+
+	/**
+	 * @param hashes the hashes of the files, or null to read every file
+	 * @param store the file the hashes of formatted contents are kept in
+	 *        between runs, or null to keep them in memory only
+	 */
+	public FileFormatter(ContentHashes hashes, Path store)
+	{
+		this.hashes = hashes;
+		this.store = store;
+		load();
+	}
+
+	/**
+	 * @return the store given by the {@code formattedCache} system property,
+	 *         else {@code .cache/qnx.buildfile.lang/formatted} in the home
+	 *         directory
+	 */
+	public static Path getDefaultStore()
+	{
+		String property = System.getProperty(SYSTEM_PROPERTY);
+		if (property != null && !property.isBlank()) return Paths.get(property);
+		return Paths.get(System.getProperty("user.home"), ".cache", "qnx.buildfile.lang", "formatted");
+	}
+
+	/**
+	 * Format the files in parallel.
+	 *
+	 * @param check true to only check that the files are formatted, with
+	 *        the diffs of the ones that are not, false to write them
+	 * @return the results in the order of the files
+	 */
+	public List<Result> format(Collection<Path> files, boolean check)
+	{
+		List<CompletableFuture<Result>> pending = new ArrayList<>(files.size());
+		for (Path file : files)
+		{
+			pending.add(CompletableFuture.supplyAsync(() -> format(file, check), FORMAT_EXECUTOR));
+		}
+		List<Result> results = new ArrayList<>(pending.size());
+		pending.forEach(result -> results.add(result.join()));
+		return results;
+	}
+
+	/**
+	 * Format the file.
+	 *
+	 * @param check true to only check that the file is formatted, false to
+	 *        write it
+	 */
+	public Result format(Path file, boolean check)
+	{
+		String sha256 = hashes != null ? hashes.hash(file) : null;
+		if (sha256 != null && formatted.contains(sha256))
+		{
+			return new Result(file, Status.CACHED, null, null);
+		}
+
+		try
+		{
+			byte[] contents = Files.readAllBytes(file);
+			String text = new String(contents, StandardCharsets.ISO_8859_1);
+			String result = formatter.format(text);
+			if (result.equals(text))
+			{
+				if (hashes != null) remember(sha256 != null ? sha256 : ContentHashes.hash(contents));
+				return new Result(file, Status.UNCHANGED, null, null);
+			}
+
+			byte[] resultContents = result.getBytes(StandardCharsets.ISO_8859_1);
+			if (hashes != null) remember(ContentHashes.hash(resultContents));
+			if (check)
+			{
+				return new Result(file, Status.UNFORMATTED, diff(file.toString(), text, result), null);
+			}
+			replace(file, resultContents);
+			return new Result(file, Status.FORMATTED, null, null);
+		}
+		catch (IOException e)
+		{
+			return new Result(file, Status.FAILED, null, e);
+		}
+	}
+
+	/**
+	 * Write the hashes of the formatted contents to the store, if any was
+	 * added, and the hashes of the files to theirs.
+	 */
+	public void save() throws IOException
+	{
+		if (hashes != null) hashes.save();
+		if (store == null || !changed) return;
+
+		StringBuilder lines = new StringBuilder(HEADER).append('\n');
+		// Sorted, so that the store does not change when the hashes don't
+		new TreeSet<>(formatted).forEach(sha256 -> lines.append(sha256).append('\n'));
+		if (store.getParent() != null) Files.createDirectories(store.getParent());
+		replace(store, lines.toString().getBytes(StandardCharsets.UTF_8));
+		changed = false;
+	}
+
+	/**
+	 * @return the unified diff from the original text to the formatted one,
+	 *         in which both are named {@code name}
+	 */
+	public static String diff(String name, String original, String formatted)
+	{
+		List<String> originalLines = lines(original);
+		List<String> formattedLines = lines(formatted);
+
+		// Formatting only changes spaces within lines, so that the lines are
+		// compared one to one; else the lines between the common ones change
+		List<int[]> changes = new ArrayList<>();
+		if (originalLines.size() == formattedLines.size())
+		{
+			for (int i = 0; i < originalLines.size(); i++)
+			{
+				if (!originalLines.get(i).equals(formattedLines.get(i))) changes.add(new int[] { i, i + 1, i, i + 1 });
+			}
+		}
+		else
+		{
+			int start = 0;
+			while (start < originalLines.size() && start < formattedLines.size()
+					&& originalLines.get(start).equals(formattedLines.get(start))) start++;
+			int originalEnd = originalLines.size();
+			int formattedEnd = formattedLines.size();
+			while (originalEnd > start && formattedEnd > start
+					&& originalLines.get(originalEnd - 1).equals(formattedLines.get(formattedEnd - 1)))
+			{
+				originalEnd--;
+				formattedEnd--;
+			}
+			changes.add(new int[] { start, originalEnd, start, formattedEnd });
+		}
+
+		StringBuilder diff = new StringBuilder();
+		if (changes.isEmpty()) return diff.toString();
+		diff.append("--- ").append(name).append('\n');
+		diff.append("+++ ").append(name).append('\n');
+		int first = 0;
+		while (first < changes.size())
+		{
+			// Changes whose contexts touch are in the same hunk
+			int last = first;
+			while (last + 1 < changes.size() && changes.get(last + 1)[0] - changes.get(last)[1] <= 2 * CONTEXT) last++;
+
+			int originalFrom = Math.max(0, changes.get(first)[0] - CONTEXT);
+			int formattedFrom = originalFrom + changes.get(first)[2] - changes.get(first)[0];
+			int originalTo = Math.min(originalLines.size(), changes.get(last)[1] + CONTEXT);
+			int formattedTo = originalTo + changes.get(last)[3] - changes.get(last)[1];
+			diff.append("@@ -").append(range(originalFrom, originalTo))
+					.append(" +").append(range(formattedFrom, formattedTo)).append(" @@\n");
+
+			int line = originalFrom;
+			for (int i = first; i <= last; i++)
+			{
+				int[] change = changes.get(i);
+				appendLines(diff, ' ', originalLines, line, change[0]);
+				appendLines(diff, '-', originalLines, change[0], change[1]);
+				appendLines(diff, '+', formattedLines, change[2], change[3]);
+				line = change[1];
+			}
+			appendLines(diff, ' ', originalLines, line, originalTo);
+			first = last + 1;
+		}
+		return diff.toString();
+	}
+
+	private void remember(String sha256)
+	{
+		if (formatted.add(sha256)) changed = true;
+	}
+
+	/**
+	 * Replace the file at once by a temporary one with the contents and,
+	 * where the file system has them, the POSIX permissions of the file.
+	 */
+	private static void replace(Path file, byte[] contents) throws IOException
+	{
+		Path directory = file.toAbsolutePath().getParent();
+		Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try
+		{
+			Files.write(temporary, contents);
+			if (Files.exists(file))
+			{
+				try
+				{
+					Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(file));
+				}
+				catch (UnsupportedOperationException e)
+				{
+					// Not a POSIX file system, the temporary file has the default permissions
+				}
+			}
+			try
+			{
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * @return the lines of the text, each with its newline if it has one
+	 */
+	private static List<String> lines(String text)
+	{
+		List<String> lines = new ArrayList<>();
+		int start = 0;
+		while (start < text.length())
+		{
+			int end = text.indexOf('\n', start);
+			end = end < 0 ? text.length() : end + 1;
+			lines.add(text.substring(start, end));
+			start = end;
+		}
+		return lines;
+	}
+
+	/**
+	 * @return the range of lines from {@code from} to {@code to}, excluded,
+	 *         as in the hunk headers of unified diffs
+	 */
+	private static String range(int from, int to)
+	{
+		int count = to - from;
+		// An empty range is given by the line before it
+		int start = count == 0 ? from : from + 1;
+		return count == 1 ? Integer.toString(start) : start + "," + count;
+	}
+
+	private static void appendLines(StringBuilder diff, char prefix, List<String> lines, int from, int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			String line = lines.get(i);
+			diff.append(prefix).append(line);
+			if (!line.endsWith("\n")) diff.append("\n\\ No newline at end of file\n");
+		}
+	}
+
+	private void load()
+	{
+		if (store == null || !Files.isRegularFile(store)) return;
+
+		try (BufferedReader reader = Files.newBufferedReader(store, StandardCharsets.UTF_8))
+		{
+			String line = reader.readLine();
+			if (!HEADER.equals(line))
+			{
+				// Written by other formatting rules, the files are checked again
+				changed = true;
+				return;
+			}
+
+			while ((line = reader.readLine()) != null)
+			{
+				if (!line.isEmpty()) formatted.add(line);
+			}
+		}
+		catch (IOException e)
+		{
+			// Every file is read again
+			formatted.clear();
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Existence and sizes of host files, answered from directory listings and
+ * cached stats.
+ * <p>
+ * Checking the sources of an image one {@code stat} at a time costs a round
+ * trip per source on a network file system. Instead, the parent directory of
+ * a file is listed once and the names it holds are kept, so that all the
+ * sources of a directory cost one listing. {@link #prefetch(Collection)}
+ * lists the directories that will be needed in parallel, on a shared pool of
+ * {@link #IO_THREADS} threads. Likewise {@link #prefetchSizes(Collection)}
+ * reads the sizes of files in parallel, once per file.
+ * <p>
+ * Listings and sizes are never refreshed: an instance is meant to be used for one
+ * validation run. A listing or size that fails with an unchecked exception
+ * fails the calls waiting for it, with a {@link java.util.concurrent.CompletionException},
+ * and is read again by the next calls.
+ */
+public class HostDirectoryListings
+{
+	/** Number of directories listed at the same time. */
+	public static final int IO_THREADS = 16;
+
+	private static final ExecutorService IO_EXECUTOR = Executors.newFixedThreadPool(IO_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "Host directory listing");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Map<Path, CompletableFuture<Set<String>>> listings = new ConcurrentHashMap<>();
+	private final Map<Path, CompletableFuture<Long>> sizes = new ConcurrentHashMap<>();
+	private final AtomicInteger listed = new AtomicInteger();
+	private final AtomicInteger statted = new AtomicInteger();
+
+	/**
+	 * List the directories not listed yet, in parallel, and wait for them.
+	 */
+	public void prefetch(Collection<Path> directories)
+	{
+		List<CompletableFuture<Set<String>>> pending = new ArrayList<>();
+		for (Path directory : directories)
+		{
+			pending.add(get(listings, directory, true, listed, this::list));
+		}
+		CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+	}
+
+	/**
+	 * List the directories of the files not listed yet, in parallel, and
+	 * wait for them.
+	 */
+	public void prefetchParents(Collection<Path> files)
+	{
+		Set<Path> directories = new LinkedHashSet<>();
+		for (Path file : files)
+		{
+			if (file.getParent() != null) directories.add(file.getParent());
+		}
+		prefetch(directories);
+	}
+
+	/**
+	 * @return the first of the files that exists, or null if none does
+	 */
+	public Path findFirst(List<Path> files)
+	{
+		for (Path file : files)
+		{
+			if (exists(file)) return file;
+		}
+		return null;
+	}
+
+	/**
+	 * Read the sizes of the files not read yet, in parallel, and wait for them.
+	 */
+	public void prefetchSizes(Collection<Path> files)
+	{
+		List<CompletableFuture<Long>> pending = new ArrayList<>();
+		for (Path file : files)
+		{
+			pending.add(get(sizes, file, true, statted, this::size));
+		}
+		CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+	}
+
+	/**
+	 * @return true if the file (or directory) exists, according to the
+	 *         listing of its parent directory
+	 */
+	public boolean exists(Path file)
+	{
+		Path parent = file.getParent();
+		Path name = file.getFileName();
+		if (parent == null || name == null)
+		{
+			return Files.exists(file);
+		}
+		return get(listings, parent, false, listed, this::list).join().contains(name.toString());
+	}
+
+	/**
+	 * @return the size of the file in bytes, -1 if it is not a readable
+	 *         regular file
+	 */
+	public long getSize(Path file)
+	{
+		return get(sizes, file, false, statted, this::size).join();
+	}
+
+	/**
+	 * @return the number of directories listed so far
+	 */
+	public int getListedCount()
+	{
+		return listed.get();
+	}
+
+	/**
+	 * @return the number of files whose size was read so far
+	 */
+	public int getStatCount()
+	{
+		return statted.get();
+	}
+
+	private static <T> CompletableFuture<T> get(Map<Path, CompletableFuture<T>> cache, Path path, boolean async,
+			AtomicInteger counter, Function<Path, T> reader)
+	{
+		CompletableFuture<T> cached = cache.get(path);
+		if (cached != null) return cached;
+
+		// Not computeIfAbsent, which would hold a lock of the map while reading
+		CompletableFuture<T> created = new CompletableFuture<>();
+		cached = cache.putIfAbsent(path, created);
+		if (cached != null) return cached;
+
+		counter.incrementAndGet();
+		Runnable read = () -> {
+			try
+			{
+				created.complete(reader.apply(path));
+			}
+			catch (RuntimeException e)
+			{
+				// Failed for the callers waiting for it, read again by the next ones
+				cache.remove(path, created);
+				created.completeExceptionally(e);
+			}
+		};
+		if (async)
+		{
+			IO_EXECUTOR.execute(read);
+		}
+		else
+		{
+			read.run();
+		}
+		return created;
+	}
+
+	/**
+	 * @return the names of the entries of the directory, empty if it does not
+	 *         exist or cannot be read
+	 */
+	protected Set<String> list(Path directory)
+	{
+		Set<String> names = new HashSet<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory))
+		{
+			for (Path entry : entries)
+			{
+				names.add(entry.getFileName().toString());
+			}
+		}
+		catch (IOException | DirectoryIteratorException | SecurityException e)
+		{
+			return Collections.emptySet();
+		}
+		return names;
+	}
+
+	/**
+	 * @return the size of the file in bytes, -1 if it is not a readable
+	 *         regular file
+	 */
+	protected long size(Path file)
+	{
+		try
+		{
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			return attributes.isRegularFile() ? attributes.size() : -1;
+		}
+		catch (IOException | SecurityException e)
+		{
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package qnx.buildfile.lang.utils;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Estimated size of the image a buildfile describes, see
+ * {@link ImageSizeEstimator}.
+ */
+public class ImageSizeEstimate
+{
+	/**
+	 * A path of the image and what it takes in it.
+	 */
+	public static final class Entry
+	{
+		private final String target;
+		private final Path source;
+		private final long dataSize;
+		private final long size;
+
+		/**
+		 * @param target the absolute path in the image
+		 * @param source the host file, or null for inline contents and for
+		 *        what is not a file
+		 * @param dataSize the size of the contents, before compression
+		 * @param size the estimated size in the image, directory entry,
+		 *        compression and alignment included
+		 */
+		public Entry(String target, Path source, long dataSize, long size)
+		{
+			this.target = target;
+			this.source = source;
+			this.dataSize = dataSize;
+			this.size = size;
+		}
+
+		public String getTarget() { return target; }
+		public Path getSource() { return source; }
+		public long getDataSize() { return dataSize; }
+		public long getSize() { return size; }
+
+		/**
+		 * @return the directory of the target in the image
+		 */
+		public String getDirectory()
+		{
+			int slash = target.lastIndexOf('/');
+			return slash > 0 ? target.substring(0, slash) : "/";
+		}
+	}
+
+	private final List<Entry> entries;
+	private final List<String> missingSources;
+
+	public ImageSizeEstimate(List<Entry> entries, List<String> missingSources)
+	{
+		this.entries = Collections.unmodifiableList(entries);
+		this.missingSources = Collections.unmodifiableList(missingSources);
+	}
+
+	/**
+	 * @return the paths of the image, in buildfile order
+	 */
+	public List<Entry> getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * @return the sources that could not be found or resolved, not counted
+	 *         in the estimate
+	 */
+	public List<String> getMissingSources()
+	{
+		return missingSources;
+	}
+
+	/**
+	 * @return the estimated size of the image in bytes
+	 */
+	public long getTotalSize()
+	{
+		long total = 0;
+		for (Entry entry : entries)
+		{
+			total += entry.getSize();
+		}
+		return total;
+	}
+
+	/**
+	 * @return the size of all the contents, before compression
+	 */
+	public long getDataSize()
+	{
+		long total = 0;
+		for (Entry entry : entries)
+		{
+			total += entry.getDataSize();
+		}
+		return total;
+	}
+
+	/**
+	 * @return the estimated size of the entries of each directory of the
+	 *         image, not including its subdirectories, by directory
+	 */
+	public SortedMap<String, Long> getSizesByDirectory()
+	{
+		SortedMap<String, Long> sizes = new TreeMap<>();
+		for (Entry entry : entries)
+		{
+			sizes.merge(entry.getDirectory(), entry.getSize(), Long::sum);
+		}
+		return sizes;
+	}
+}
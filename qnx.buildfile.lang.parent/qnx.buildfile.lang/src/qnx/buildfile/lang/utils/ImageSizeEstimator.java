@@ -0,0 +1,178 @@
+package qnx.buildfile.lang.utils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.utils.DeploymentResolver.Deployment;
+
+/**
+ * Estimates the size of the image a buildfile describes, before running
+ * mkifs, e.g. to know whether it fits its flash partition.
+ * <p>
+ * Each deployment (see {@link DeploymentResolver}) takes a directory entry,
+ * plus its contents for a file: the host source found in the search
+ * directories or the inline block. Contents deployed while {@code compress}
+ * is in effect count for the typical ratio of the method, see
+ * {@link #COMPRESSION_RATIOS}: mkifs compresses the image as a whole, so this
+ * is an approximation. Contents are rounded up to their alignment,
+ * {@code phys_align} or the first of the {@code pagesizes} for
+ * {@code +page_align}, so that the estimate is an upper bound on the padding.
+ * <p>
+ * The host files are looked up and their sizes read in parallel, once per
+ * directory and file, see {@link HostDirectoryListings}.
+ */
+public class ImageSizeEstimator
+{
+	/** Alignment of the contents of files without {@code phys_align}. */
+	public static final long DEFAULT_ALIGNMENT = 4;
+
+	/** Page size for {@code +page_align} when {@code pagesizes} gives none. */
+	public static final long DEFAULT_PAGE_SIZE = 4096;
+
+	/** Size of the directory entry of a path, without the path itself. */
+	public static final long ENTRY_OVERHEAD = 24;
+
+	/** Compressed to uncompressed size of typical binaries, by {@code compress} value. */
+	public static final Map<String, Double> COMPRESSION_RATIOS = Map.of("1", 0.45, "2", 0.55, "3", 0.5);
+
+	/** Ratio for {@code +compress}, without a method. */
+	public static final double DEFAULT_COMPRESSION_RATIO = 0.5;
+
+	private final Map<String, String> environment;
+
+	public ImageSizeEstimator()
+	{
+		this(System.getenv());
+	}
+
+	/**
+	 * @param environment the variables of the paths and of {@code MKIFS_PATH}
+	 */
+	public ImageSizeEstimator(Map<String, String> environment)
+	{
+		this.environment = environment;
+	}
+
+	public ImageSizeEstimate estimate(Model model)
+	{
+		List<Deployment> deployments = new DeploymentResolver(environment).resolve(model);
+		HostDirectoryListings listings = createListings();
+		List<Path> candidates = new ArrayList<>();
+		for (Deployment deployment : deployments)
+		{
+			if (deployment.isHostFile()) candidates.addAll(deployment.getCandidates());
+		}
+		listings.prefetchParents(candidates);
+
+		Map<Deployment, Path> sources = new HashMap<>();
+		for (Deployment deployment : deployments)
+		{
+			Path source = deployment.isHostFile() ? listings.findFirst(deployment.getCandidates()) : null;
+			if (source != null) sources.put(deployment, source);
+		}
+		listings.prefetchSizes(new LinkedHashSet<>(sources.values()));
+
+		List<ImageSizeEstimate.Entry> entries = new ArrayList<>(deployments.size());
+		List<String> missing = new ArrayList<>();
+		for (Deployment deployment : deployments)
+		{
+			String target = deployment.getTarget();
+			long entrySize = ENTRY_OVERHEAD + align(target.length() + 1, 4);
+			if (!deployment.getType().equals("file"))
+			{
+				if (deployment.getType().equals("link"))
+				{
+					String link = deployment.getSource() != null ? deployment.getSource() : "";
+					entrySize += 4 + align(link.length() + 1, 4);
+				}
+				entries.add(new ImageSizeEstimate.Entry(target, null, 0, entrySize));
+				continue;
+			}
+
+			Path source = sources.get(deployment);
+			long dataSize = DeploymentResolver.inlineSize(deployment.getInlineContents());
+			if (deployment.isHostFile())
+			{
+				dataSize = source != null ? listings.getSize(source) : -1;
+				if (dataSize < 0)
+				{
+					missing.add(deployment.getSource());
+					continue;
+				}
+			}
+			double ratio = getCompressionRatio(deployment.getAttributes().get("compress"));
+			long stored = align((long) Math.ceil(dataSize * ratio), getAlignment(deployment.getAttributes()));
+			entries.add(new ImageSizeEstimate.Entry(target, source, dataSize, entrySize + stored));
+		}
+		return new ImageSizeEstimate(entries, missing);
+	}
+
+	/**
+	 * @return the listings the host files are looked up in, new for each estimate
+	 */
+	protected HostDirectoryListings createListings()
+	{
+		return new HostDirectoryListings();
+	}
+
+	/**
+	 * @return the size in bytes, e.g. of {@code 4096}, {@code 0x1000} or
+	 *         {@code 4k}, or -1 if it is not one
+	 */
+	public static long parseSize(String value)
+	{
+		if (value == null || value.isEmpty()) return -1;
+
+		long unit = 1;
+		String number = value;
+		if (!value.toLowerCase().startsWith("0x"))
+		{
+			switch (Character.toLowerCase(value.charAt(value.length() - 1)))
+			{
+				case 'k': unit = 1L << 10; break;
+				case 'm': unit = 1L << 20; break;
+				case 'g': unit = 1L << 30; break;
+				default: break;
+			}
+			if (unit != 1) number = value.substring(0, value.length() - 1);
+		}
+		try
+		{
+			long size = Long.decode(number) * unit;
+			return size >= 0 ? size : -1;
+		}
+		catch (NumberFormatException e)
+		{
+			return -1;
+		}
+	}
+
+	private static long getAlignment(Map<String, String> attributes)
+	{
+		long alignment = Math.max(parseSize(attributes.get("phys_align")), DEFAULT_ALIGNMENT);
+		if ("+".equals(attributes.get("page_align")))
+		{
+			String pageSizes = attributes.get("pagesizes");
+			long pageSize = pageSizes != null ? parseSize(pageSizes.split("[,:]")[0]) : -1;
+			alignment = Math.max(alignment, pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE);
+		}
+		return alignment;
+	}
+
+	private static double getCompressionRatio(String compress)
+	{
+		if (compress == null || compress.equals("-")) return 1;
+		if (compress.equals("+")) return DEFAULT_COMPRESSION_RATIO;
+		return COMPRESSION_RATIOS.getOrDefault(compress, DEFAULT_COMPRESSION_RATIO);
+	}
+
+	private static long align(long size, long alignment)
+	{
+		return alignment <= 1 ? size : (size + alignment - 1) / alignment * alignment;
+	}
+}
@@ -16,6 +16,11 @@ import java.util.jar.Manifest;
  * 
  * Supports automatic reloading when a JAR file's timestamp changes, while avoiding
  * unnecessary reload attempts when the file hasn't changed.
+ * 
+ * Callers that need the class loader to stay open while they use the instance
+ * (e.g. a validation run in a long-lived language server) {@link #acquire(Path)}
+ * a {@link Lease} instead: a class loader replaced by a reload or
+ * {@link #unload(Path) unloaded} is only closed once its last lease is released.
  */
 public class JarLoader {
 
@@ -30,6 +35,9 @@ public class JarLoader {
         private final Object instance;
         private final Exception error;
         private final URLClassLoader classLoader;
+        /** Guarded by the loader: number of unreleased leases, and whether the entry was replaced or unloaded. */
+        private int leases;
+        private boolean retired;
 
         CacheEntry(long lastModifiedTime, Object instance, Exception error, URLClassLoader classLoader) {
             this.lastModifiedTime = lastModifiedTime;
@@ -62,6 +70,38 @@ public class JarLoader {
      * @throws JarLoadException if the JAR cannot be loaded or the class cannot be instantiated
      */
     public synchronized Object loadJar(Path jarPath) throws JarLoadException {
+        return load(jarPath).instance();
+    }
+
+    /**
+     * Same as {@link #loadJar(Path)}, but the class loader of the returned
+     * instance is guaranteed to stay open until the lease is closed, even if
+     * the JAR gets reloaded or unloaded in the meantime.
+     *
+     * @param jarPath path to the JAR file
+     * @return a lease on the instance of the Main-Class from the JAR
+     * @throws JarLoadException if the JAR cannot be loaded or the class cannot be instantiated
+     */
+    public synchronized Lease acquire(Path jarPath) throws JarLoadException {
+        CacheEntry entry = load(jarPath);
+        entry.leases++;
+        return new Lease(entry);
+    }
+
+    /**
+     * Forgets a JAR. Its class loader is closed right away if no lease is
+     * held on it, otherwise when the last one is released.
+     *
+     * @param jarPath path to the JAR file
+     */
+    public synchronized void unload(Path jarPath) {
+        CacheEntry entry = cache.remove(jarPath.toAbsolutePath().normalize());
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    private CacheEntry load(Path jarPath) throws JarLoadException {
         Path normalizedPath = jarPath.toAbsolutePath().normalize();
         long currentModified = getLastModifiedTime(normalizedPath);
         CacheEntry entry = cache.get(normalizedPath);
@@ -71,19 +111,20 @@ public class JarLoader {
                 throw new JarLoadException("Previous load attempt failed and JAR has not changed: " + jarPath, entry.error());
             }
             if (entry.instance() != null) {
-                return entry.instance();
+                return entry;
             }
         }
         
-        // Close old classloader if reloading
-        if (entry != null && entry.classLoader() != null) {
-            closeClassLoader(entry.classLoader());
+        // Close old classloader if reloading (or once it is no longer in use)
+        if (entry != null) {
+            cache.remove(normalizedPath);
+            retire(entry);
         }
         
         try {
             CacheEntry newEntry = loadAndInstantiate(normalizedPath, currentModified);
             cache.put(normalizedPath, newEntry);
-            return newEntry.instance();
+            return newEntry;
         } catch (Exception e) {
             cache.put(normalizedPath, new CacheEntry(currentModified, null, e, null));
             throw new JarLoadException("Failed to load JAR and instantiate Main-Class: " + jarPath, e);
@@ -134,6 +175,20 @@ public class JarLoader {
         }
     }
 
+    private void retire(CacheEntry entry) {
+        entry.retired = true;
+        if (entry.leases == 0 && entry.classLoader() != null) {
+            closeClassLoader(entry.classLoader());
+        }
+    }
+
+    private synchronized void release(CacheEntry entry) {
+        entry.leases--;
+        if (entry.retired && entry.leases == 0 && entry.classLoader() != null) {
+            closeClassLoader(entry.classLoader());
+        }
+    }
+
     private void closeClassLoader(URLClassLoader classLoader) {
         try {
             classLoader.close();
@@ -142,6 +197,41 @@ public class JarLoader {
         }
     }
 
+    /**
+     * Keeps the class loader of a loaded instance open until closed.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final CacheEntry entry;
+        private boolean closed;
+
+        private Lease(CacheEntry entry) {
+            this.entry = entry;
+        }
+
+        public Object getInstance() {
+            return entry.instance();
+        }
+
+        public ClassLoader getClassLoader() {
+            return entry.classLoader();
+        }
+
+        /**
+         * Releases the lease; closing it more than once has no effect.
+         */
+        @Override
+        public void close() {
+            synchronized (JarLoader.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
     /**
      * Exception thrown when JAR loading or class instantiation fails.
      */
@@ -0,0 +1,181 @@
+package qnx.buildfile.lang.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive "did you mean" lookup over a fixed list of keywords.
+ * <p>
+ * The lowercased keywords are stored in a BK-tree: each child edge is
+ * labelled with its edit distance to the parent, so that by the triangle
+ * inequality a search only visits the children whose label is within the
+ * searched distance of the distance to the query. Distances are computed
+ * with a two-row Levenshtein that gives up as soon as the bound is exceeded.
+ */
+public class KeywordIndex
+{
+	/**
+	 * A keyword close to the searched word.
+	 */
+	public static final class Match
+	{
+		private final String keyword;
+		private final int distance;
+		private final int order;
+
+		private Match(String keyword, int distance, int order)
+		{
+			this.keyword = keyword;
+			this.distance = distance;
+			this.order = order;
+		}
+
+		public String getKeyword() { return keyword; }
+		public int getDistance() { return distance; }
+	}
+
+	private static final class Node
+	{
+		final String word;
+		/** Keywords whose lowercase form is {@link #word}, with their position in the keyword list. */
+		final List<String> keywords = new ArrayList<>(1);
+		final List<Integer> order = new ArrayList<>(1);
+		final Map<Integer, Node> children = new HashMap<>();
+
+		Node(String word)
+		{
+			this.word = word;
+		}
+	}
+
+	private Node root;
+
+	public KeywordIndex(List<String> keywords)
+	{
+		for (int i = 0; i < keywords.size(); i++)
+		{
+			add(keywords.get(i), i);
+		}
+	}
+
+	private void add(String keyword, int order)
+	{
+		String word = keyword.toLowerCase();
+		if (root == null)
+		{
+			root = new Node(word);
+		}
+		Node node = root;
+		while (true)
+		{
+			int distance = levenshteinDistance(word, node.word);
+			if (distance == 0)
+			{
+				node.keywords.add(keyword);
+				node.order.add(order);
+				return;
+			}
+			Node child = node.children.get(distance);
+			if (child == null)
+			{
+				child = new Node(word);
+				node.children.put(distance, child);
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * @return the keywords at distance 1 to {@code maxDistance} of the query
+	 *         (ignoring case), sorted by distance then by keyword list order
+	 */
+	public List<Match> search(String query, int maxDistance)
+	{
+		List<Match> found = new ArrayList<>();
+		if (root == null || query == null) return found;
+
+		String word = query.toLowerCase();
+		// Exact up to 2 * maxDistance, which is all the pruning needs
+		int limit = 2 * maxDistance;
+		Deque<Node> pending = new ArrayDeque<>();
+		pending.push(root);
+		while (!pending.isEmpty())
+		{
+			Node node = pending.pop();
+			int distance = boundedLevenshteinDistance(word, node.word, limit);
+			if (distance > 0 && distance <= maxDistance)
+			{
+				for (int i = 0; i < node.keywords.size(); i++)
+				{
+					found.add(new Match(node.keywords.get(i), distance, node.order.get(i)));
+				}
+			}
+			for (Map.Entry<Integer, Node> child : node.children.entrySet())
+			{
+				int edge = child.getKey();
+				if (edge >= distance - maxDistance && (distance > limit || edge <= distance + maxDistance))
+				{
+					pending.push(child.getValue());
+				}
+			}
+		}
+
+		found.sort(Comparator.comparingInt(Match::getDistance).thenComparingInt(match -> match.order));
+		return found;
+	}
+
+	/**
+	 * Compute the Levenshtein distance between two strings.
+	 */
+	public static int levenshteinDistance(String a, String b)
+	{
+		return boundedLevenshteinDistance(a, b, Math.max(a.length(), b.length()));
+	}
+
+	/**
+	 * Compute the Levenshtein distance between two strings, giving up as soon
+	 * as it is known to exceed {@code max}.
+	 * <p>
+	 * Only two rows of the distance matrix are kept.
+	 *
+	 * @return the distance, or {@code max + 1} if it is greater than {@code max}
+	 */
+	public static int boundedLevenshteinDistance(String a, String b, int max)
+	{
+		int lenA = a.length();
+		int lenB = b.length();
+		if (Math.abs(lenA - lenB) > max) return max + 1;
+
+		int[] previous = new int[lenB + 1];
+		int[] current = new int[lenB + 1];
+		for (int j = 0; j <= lenB; j++) previous[j] = j;
+
+		for (int i = 1; i <= lenA; i++)
+		{
+			current[0] = i;
+			int rowMin = i;
+			char charA = a.charAt(i - 1);
+			for (int j = 1; j <= lenB; j++)
+			{
+				int cost = (charA == b.charAt(j - 1)) ? 0 : 1;
+				current[j] = Math.min(
+						Math.min(previous[j] + 1, current[j - 1] + 1),
+						previous[j - 1] + cost);
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			// Distances never decrease from one row to the next
+			if (rowMin > max) return max + 1;
+
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		return Math.min(previous[lenB], max + 1);
+	}
+}
@@ -0,0 +1,80 @@
+package qnx.buildfile.lang.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+
+/**
+ * Offsets and lines of the statements of a buildfile, kept when the node
+ * model is dropped, see {@link Parser}.
+ * <p>
+ * Two int arrays, indexed like the statements of the model: a small part of
+ * the memory of the node model, which has several nodes per token.
+ */
+public class LineTable
+{
+	private final int[] offsets;
+	private final int[] lines;
+
+	LineTable(int[] offsets, int[] lines)
+	{
+		this.offsets = offsets;
+		this.lines = lines;
+	}
+
+	/**
+	 * @return the table of the statements of the model, from its node model
+	 */
+	public static LineTable of(Model model)
+	{
+		List<Statement> statements = model.getStatements();
+		int[] offsets = new int[statements.size()];
+		int[] lines = new int[statements.size()];
+		for (int i = 0; i < statements.size(); i++)
+		{
+			ICompositeNode node = NodeModelUtils.getNode(statements.get(i));
+			offsets[i] = node != null ? node.getOffset() : -1;
+			lines[i] = node != null ? node.getStartLine() : -1;
+		}
+		return new LineTable(offsets, lines);
+	}
+
+	/**
+	 * @return the number of statements
+	 */
+	public int size()
+	{
+		return offsets.length;
+	}
+
+	/**
+	 * @return the offset of the statement at the index, -1 if unknown
+	 */
+	public int getOffset(int index)
+	{
+		return offsets[index];
+	}
+
+	/**
+	 * @return the 1-based line of the statement at the index, -1 if unknown
+	 */
+	public int getLine(int index)
+	{
+		return lines[index];
+	}
+
+	/**
+	 * @return the index of the statement the offset is in, or of the last
+	 *         statement before it, -1 if it is before the first statement
+	 */
+	public int indexOf(int offset)
+	{
+		int index = Arrays.binarySearch(offsets, offset);
+		return index >= 0 ? index : -index - 2;
+	}
+}
@@ -6,6 +6,11 @@ import java.util.List;
 
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.xtext.generator.GeneratorContext;
+import org.eclipse.xtext.generator.GeneratorDelegate;
+import org.eclipse.xtext.generator.JavaIoFileSystemAccess;
+import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.validation.CheckMode;
@@ -24,27 +29,123 @@ import qnx.buildfile.lang.buildfileDSL.Model;
  * Custom validation is handled transparently by the injected
  * {@link qnx.buildfile.lang.validation.CustomValidatorJarPathProvider};
  * for the CLI this is driven by the {@code -DcustomValidatorJar} system property.
+ * <p>
+ * A headless parser is meant for batches of buildfiles: once a buildfile is
+ * validated, its node model is dropped and only a {@link LineTable} of its
+ * statements is kept with the model, which is moved out of the Xtext
+ * resource and out of the resource set. The issues already have their line
+ * numbers, but tools going from the model back to the text (e.g. through
+ * {@code NodeModelUtils}) find nothing.
+ * <p>
+ * A parser given several threads parses and validates each large buildfile
+ * in chunks at the same time, see {@link ChunkedParser}, and is headless.
+ * Its threads are stopped when it is closed.
  */
-public class Parser
+public class Parser implements AutoCloseable
 {
+	/** Minimum length of a chunk of a buildfile parsed in chunks. */
+	public static final int MIN_CHUNK_LENGTH = 1 << 20;
+
 	private final ResourceSet resourceSet;
 	private final IResourceValidator validator;
+	private final Injector injector;
+	private final boolean headless;
+	private final ChunkedParser chunked;
+	private final int minChunkLength;
 
 	public Parser()
 	{
-		Injector injector = new BuildfileDSLStandaloneSetup().createInjectorAndDoEMFRegistration();
+		this(false);
+	}
+
+	/**
+	 * @param headless true to drop the node model of each buildfile once it
+	 *        is validated
+	 */
+	public Parser(boolean headless)
+	{
+		this(headless, 1, MIN_CHUNK_LENGTH);
+	}
+
+	/**
+	 * @param threads the number of chunks of a large buildfile parsed at the
+	 *        same time
+	 */
+	public Parser(int threads)
+	{
+		this(true, threads, MIN_CHUNK_LENGTH);
+	}
+
+	/**
+	 * @param threads the number of chunks of a large buildfile parsed at the
+	 *        same time
+	 * @param minChunkLength the minimum length of a chunk, in characters:
+	 *        shorter buildfiles are parsed as a whole
+	 */
+	public Parser(int threads, int minChunkLength)
+	{
+		this(true, threads, minChunkLength);
+	}
+
+	private Parser(boolean headless, int threads, int minChunkLength)
+	{
+		this.headless = headless || threads > 1;
+		this.minChunkLength = Math.max(minChunkLength, 1);
+		injector = new BuildfileDSLStandaloneSetup().createInjectorAndDoEMFRegistration();
 		resourceSet = injector.getInstance(XtextResourceSet.class);
 		validator = injector.getInstance(IResourceValidator.class);
+		chunked = threads > 1 ? new ChunkedParser(injector, threads, this.minChunkLength) : null;
 	}
 
 	public ParsingResult parse(File file) throws IOException
 	{
+		if (chunked != null && file.length() >= 2L * minChunkLength)
+		{
+			return chunked.parse(file);
+		}
+
 		Resource resource = resourceSet.getResource(
 				org.eclipse.emf.common.util.URI.createFileURI(file.getAbsolutePath()),
 				true);
 		resource.load(null);
 		List<Issue> issues = validator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
 		Model model = (Model) resource.getContents().get(0);
-		return new ParsingResult(issues, model);
+		if (!headless)
+		{
+			return new ParsingResult(issues, model, null);
+		}
+
+		LineTable lines = LineTable.of(model);
+		// The node model hangs from the Xtext resource and, through adapters, from the model
+		new ResourceImpl(resource.getURI()).getContents().add(model);
+		model.eAdapters().removeIf(INode.class::isInstance);
+		model.eAllContents().forEachRemaining(object -> object.eAdapters().removeIf(INode.class::isInstance));
+		resourceSet.getResources().remove(resource);
+		resource.unload();
+		return new ParsingResult(issues, model, lines);
+	}
+
+	/**
+	 * Run the generator on a parsed buildfile, see
+	 * {@link qnx.buildfile.lang.generator.BuildfileDSLGenerator}.
+	 */
+	public void generate(ParsingResult result, File outputDirectory)
+	{
+		JavaIoFileSystemAccess fsa = injector.getInstance(JavaIoFileSystemAccess.class);
+		fsa.setOutputPath(outputDirectory.getAbsolutePath());
+		injector.getInstance(GeneratorDelegate.class).generate(result.model.eResource(), fsa, new GeneratorContext());
+	}
+
+	/**
+	 * Stop the threads of a parser given several threads. Parsers of one
+	 * thread have none.
+	 */
+	@Override
+	public void close()
+	{
+		if (chunked != null)
+		{
+			chunked.close();
+		}
 	}
 }
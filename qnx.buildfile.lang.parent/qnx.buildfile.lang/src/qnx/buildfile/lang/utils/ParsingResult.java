@@ -3,19 +3,45 @@ package qnx.buildfile.lang.utils;
 import java.util.List;
 
 import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.validation.Issue;
 
 import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
 
 public class ParsingResult
 {
 	public final List<Issue> issues;
 	public final Model model;
+	/** Lines of the statements when the node model was dropped, else null. */
+	public final LineTable lines;
 
 	public ParsingResult(List<Issue> issues, Model model)
+	{
+		this(issues, model, null);
+	}
+
+	public ParsingResult(List<Issue> issues, Model model, LineTable lines)
 	{
 		this.issues = issues;
 		this.model = model;
+		this.lines = lines;
+	}
+
+	/**
+	 * @return the 1-based line of the statement, from the node model or the
+	 *         line table, -1 if unknown
+	 */
+	public int getLine(Statement statement)
+	{
+		if (lines != null)
+		{
+			int index = model.getStatements().indexOf(statement);
+			return index >= 0 ? lines.getLine(index) : -1;
+		}
+		INode node = NodeModelUtils.getNode(statement);
+		return node != null ? node.getStartLine() : -1;
 	}
 
 	public boolean hasErrors()
@@ -0,0 +1,163 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+
+/**
+ * Host directories mkifs looks in for the relative sources of deployments.
+ * <p>
+ * The {@code search} attribute in effect for a deployment (see
+ * {@link EffectiveAttributes}) lists the directories. Without any, mkifs uses
+ * the {@code MKIFS_PATH} environment variable. Both are lists of directories
+ * separated by the host path separator, in which {@code ${NAME}} references
+ * are replaced by the environment. Relative directories are resolved against
+ * the directory of the buildfile.
+ */
+public class SearchPath
+{
+	public static final String SEARCH = "search";
+	public static final String MKIFS_PATH = "MKIFS_PATH";
+
+	/**
+	 * @return the {@code search} value in effect for the deployment, or null
+	 *         if no attribute sets it
+	 */
+	public static String getSearch(DeploymentStatement statement)
+	{
+		return EffectiveAttributes.getValue(statement, SEARCH);
+	}
+
+	/**
+	 * @return the {@code search} value set by the attribute statements before
+	 *         the statement at index {@code end}, or null if none sets it
+	 */
+	public static String getSearch(Model model, int end)
+	{
+		return EffectiveAttributes.getValue(model, end, SEARCH);
+	}
+
+	/**
+	 * @param search the {@code search} value in effect, or null
+	 * @param environment the variables for {@code ${NAME}} references and {@code MKIFS_PATH}
+	 * @param base the directory relative directories are resolved against, or null
+	 * @return the directories to look in, in order
+	 */
+	public static List<Path> getDirectories(String search, Map<String, String> environment, Path base)
+	{
+		String value = search != null ? search : environment.get(MKIFS_PATH);
+		List<Path> directories = new ArrayList<>();
+		if (value == null) return directories;
+
+		for (String directory : VariableSubstitutor.substituteEnvVars(value, environment).split(File.pathSeparator))
+		{
+			// Unresolved references can't name a directory
+			if (directory.isBlank() || directory.contains("${")) continue;
+			try
+			{
+				Path path = Paths.get(directory.trim());
+				if (!path.isAbsolute())
+				{
+					if (base == null) continue;
+					path = base.resolve(path);
+				}
+				path = path.normalize();
+				if (!directories.contains(path))
+				{
+					directories.add(path);
+				}
+			}
+			catch (InvalidPathException e)
+			{
+				// Not a directory of this host
+			}
+		}
+		return directories;
+	}
+
+	/**
+	 * @return the directories to look in for the sources of the deployment
+	 */
+	public static List<Path> getDirectories(DeploymentStatement statement, Map<String, String> environment)
+	{
+		return getDirectories(getSearch(statement), environment, getBaseDirectory(statement.eResource()));
+	}
+
+	/**
+	 * @return the directories looked in for a relative source: the search
+	 *         directories, or the directory of the buildfile without any
+	 */
+	public static List<Path> getSearched(List<Path> directories, Path base)
+	{
+		return directories.isEmpty() && base != null ? List.of(base) : directories;
+	}
+
+	/**
+	 * @return the source, without quotes, as a path of this host, or null if
+	 *         it is not one
+	 */
+	public static Path toHostPath(String source)
+	{
+		String value = source;
+		if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+		{
+			value = value.substring(1, value.length() - 1);
+		}
+		try
+		{
+			return Paths.get(value);
+		}
+		catch (InvalidPathException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * @param source a host path, see {@link #toHostPath(String)}
+	 * @param searched the directories looked in, see {@link #getSearched(List, Path)}
+	 * @return where the source may be, in the order mkifs looks: the source
+	 *         itself if it is absolute, else in each searched directory
+	 */
+	public static List<Path> getCandidates(Path source, List<Path> searched)
+	{
+		if (source.isAbsolute()) return List.of(source.normalize());
+
+		List<Path> candidates = new ArrayList<>(searched.size());
+		for (Path directory : searched)
+		{
+			candidates.add(directory.resolve(source).normalize());
+		}
+		return candidates;
+	}
+
+	/**
+	 * @return the directory of the buildfile, or null if it is not a local file
+	 */
+	public static Path getBaseDirectory(Resource resource)
+	{
+		if (resource == null || resource.getURI() == null) return null;
+
+		URI uri = resource.getURI();
+		if (!uri.isFile()) return null;
+		try
+		{
+			Path file = Paths.get(uri.toFileString());
+			return file.toAbsolutePath().getParent();
+		}
+		catch (InvalidPathException e)
+		{
+			return null;
+		}
+	}
+}
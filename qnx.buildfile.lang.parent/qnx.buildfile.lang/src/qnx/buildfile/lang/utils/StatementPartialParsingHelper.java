@@ -0,0 +1,571 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.ParserRule;
+import org.eclipse.xtext.RuleCall;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.impl.AbstractNode;
+import org.eclipse.xtext.nodemodel.impl.NodeModelBuilder;
+import org.eclipse.xtext.nodemodel.impl.RootNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.parser.IParseResult;
+import org.eclipse.xtext.parser.IParser;
+import org.eclipse.xtext.parser.ParseResult;
+import org.eclipse.xtext.parser.impl.PartialParsingHelper;
+import org.eclipse.xtext.util.ReplaceRegion;
+
+import com.google.inject.Inject;
+
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.services.BuildfileDSLGrammarAccess;
+
+/**
+ * Partial parser that re-parses the statements an edit touches.
+ * <p>
+ * The generic {@link PartialParsingHelper} re-parses the smallest node whose
+ * lookahead it can bound, which for a buildfile is often the whole
+ * {@link Model}. Here, every statement ends at a newline of the
+ * {@link Model} rule, outside of any block, string or variable reference:
+ * the new text from the line of the statement before the edit to the line
+ * of the statement after it is parsed, and its statements and nodes take
+ * the place of the old ones, in the {@link Model} and in the node model. The
+ * range grows
+ * <ul>
+ * <li>back to an earlier token the lexer could not end, such as an
+ * unterminated block, which the edit may end;</li>
+ * <li>forward over the block, string or variable reference the edit opens,
+ * see {@link StreamingParser.StatementSplitter}, and to the end of the text
+ * when the new range has a token the lexer cannot end;</li>
+ * <li>until statements border it, past newlines the old parse did not take
+ * as ones between statements, after a syntax error;</li>
+ * <li>forward while it does not end with a statement, or its last statement
+ * has a syntax error, whose recovery could take the next line.</li>
+ * </ul>
+ * The range is parsed after a statement of its own, so that its nodes have
+ * the grammar elements of statements in the middle of a buildfile: the
+ * result is that of a parse of the whole new text.
+ * <p>
+ * Only the callers of {@link org.eclipse.xtext.resource.XtextResource#update}
+ * use it, such as the reconciler of the Eclipse editor. The language server
+ * does not: on every change, its incremental builder unloads the document
+ * and loads it again from the new text, with a full parse.
+ */
+public class StatementPartialParsingHelper extends PartialParsingHelper
+{
+	/** Statement the range is parsed after, when it does not start the text. */
+	private static final String PRECEDING_STATEMENT = "x\n";
+
+	/** Nodes the range must have, for {@link Splicer}. */
+	private static final int MIN_NODES = 3;
+
+	/** Statements the range grows by over syntax errors before it takes the rest of the text. */
+	private static final int MAX_GROWTH = 4;
+
+	@Inject
+	private BuildfileDSLGrammarAccess grammarAccess;
+
+	private final Splicer splicer = new Splicer();
+
+	@Override
+	public IParseResult reparse(IParser parser, IParseResult previousParseResult, ReplaceRegion replaceRegion)
+	{
+		ICompositeNode root = previousParseResult.getRootNode();
+		if (!(root instanceof RootNode) || !(previousParseResult.getRootASTElement() instanceof Model)
+			|| replaceRegion.getEndOffset() > root.getTotalLength())
+		{
+			return super.reparse(parser, previousParseResult, replaceRegion);
+		}
+		String oldText = root.getText();
+		if (replaceRegion.getLength() == replaceRegion.getText().length()
+			&& oldText.startsWith(replaceRegion.getText(), replaceRegion.getOffset()))
+		{
+			return previousParseResult;
+		}
+		IParseResult result = new Reparse(parser, previousParseResult, replaceRegion).run();
+		return result != null ? result : fullyReparse(parser, previousParseResult, replaceRegion);
+	}
+
+	/** State of a partial parse. */
+	private final class Reparse
+	{
+		final IParser parser;
+		final IParseResult previous;
+		final RootNode root;
+		final Model model;
+		final String text;
+		final int editOffset;
+		final int editEnd;
+		final int delta;
+
+		final List<INode> children;
+		/** Offsets of the old syntax errors. */
+		final List<Integer> errors = new ArrayList<>();
+
+		/** First and last child of the range. */
+		int first;
+		int last;
+
+		StreamingParser.StatementSplitter splitter;
+		/** Where the parts of the new text split so far end. */
+		int splitEnd;
+
+		Reparse(IParser parser, IParseResult previous, ReplaceRegion replaceRegion)
+		{
+			this.parser = parser;
+			this.previous = previous;
+			root = (RootNode) previous.getRootNode();
+			model = (Model) previous.getRootASTElement();
+			StringBuilder builder = new StringBuilder(root.getText());
+			replaceRegion.applyTo(builder);
+			text = builder.toString();
+			editOffset = replaceRegion.getOffset();
+			editEnd = replaceRegion.getEndOffset();
+			delta = replaceRegion.getText().length() - replaceRegion.getLength();
+			// A statement and a newline a line
+			children = new ArrayList<>(2 * model.getStatements().size() + 1);
+			root.getChildren().forEach(children::add);
+		}
+
+		/**
+		 * @return the result, or null if the text must be parsed as a whole
+		 */
+		IParseResult run()
+		{
+			int count = children.size();
+			if (count < 3)
+			{
+				return null;
+			}
+
+			// From the statement before the edit to the one after it
+			int touchedFirst = firstEndingAtOrAfter(editOffset);
+			int touchedLast = Math.max(touchedFirst, lastStartingAtOrBefore(editEnd));
+			first = 0;
+			for (int i = touchedFirst - 1; i >= 0; i--)
+			{
+				if (isStatement(i))
+				{
+					first = lineStart(i);
+					break;
+				}
+			}
+			last = nextRangeEnd(touchedLast);
+
+			collectErrors();
+			separateStart();
+			if (first == 0 && last == count - 1)
+			{
+				return null;
+			}
+
+			splitter = new StreamingParser.StatementSplitter(new StringReader(text.substring(offset(first))));
+			splitEnd = offset(first);
+			growOverOpenTokens();
+
+			ParserRule rule = NodeModelUtils.getEntryParserRule(root);
+			for (int growth = 0;; growth++)
+			{
+				boolean preceded = first > 0;
+				String range = text.substring(offset(first), end(last) + delta);
+				IParseResult result = parser.parse(rule,
+					new StringReader(preceded ? PRECEDING_STATEMENT + range : range));
+				if (!(result.getRootASTElement() instanceof Model) || !(result.getRootNode() instanceof RootNode))
+				{
+					return null;
+				}
+				if (last < count - 1)
+				{
+					if (hasLexerError(result))
+					{
+						last = count - 1;
+						continue;
+					}
+					// The next statement may take a newline or tokens of the range
+					if (!endsWithStatement(result) || hasErrorInLastStatement(result)
+						|| nodeCount(result, preceded) < MIN_NODES)
+					{
+						if (growth < MAX_GROWTH)
+						{
+							last = nextRangeEnd(last + 1);
+							growOverOpenTokens();
+						}
+						else
+						{
+							last = count - 1;
+						}
+						continue;
+					}
+				}
+				if (first == 0 && last == count - 1)
+				{
+					return null;
+				}
+				return apply(result, preceded);
+			}
+		}
+
+		/**
+		 * Puts the statements and the nodes of the range parsed in place of
+		 * the old ones.
+		 *
+		 * @return the result, or null if the parsed range is not as expected
+		 */
+		private IParseResult apply(IParseResult result, boolean preceded)
+		{
+			List<INode> nodes = new ArrayList<>();
+			result.getRootNode().getChildren().forEach(nodes::add);
+			List<Statement> statements = new ArrayList<>(((Model) result.getRootASTElement()).getStatements());
+			if (preceded)
+			{
+				// Without the statement of its own and its newline
+				if (nodes.size() < 3 || statements.isEmpty() || !isStatementNode(nodes.get(0))
+					|| !isNewline(nodes.get(1)))
+				{
+					return null;
+				}
+				nodes = nodes.subList(2, nodes.size());
+				statements = statements.subList(1, statements.size());
+			}
+			if (nodes.size() < MIN_NODES || nodes.stream().filter(StatementPartialParsingHelper.this::isStatementNode).count() != statements.size())
+			{
+				return null;
+			}
+
+			// The old statements, where the model has them
+			List<Statement> modelStatements = model.getStatements();
+			List<Statement> replaced = new ArrayList<>();
+			int next = last + 1;
+			for (int i = first; i <= last; i++)
+			{
+				Statement statement = statementOf(children.get(i));
+				if (statement != null) replaced.add(statement);
+			}
+			while (next < children.size() && statementOf(children.get(next)) == null) next++;
+			int from = !replaced.isEmpty() ? modelStatements.indexOf(replaced.get(0))
+				: next < children.size() ? modelStatements.indexOf(statementOf(children.get(next)))
+				: modelStatements.size();
+			if (from < 0 || from + replaced.size() > modelStatements.size()
+				|| !modelStatements.subList(from, from + replaced.size()).equals(replaced))
+			{
+				return null;
+			}
+
+			for (int i = replaced.size(); i > 0; i--)
+			{
+				unloadSemanticObject(modelStatements.remove(from));
+			}
+			modelStatements.addAll(from, statements);
+
+			splicer.splice(root, children.subList(first, last + 1), nodes, text);
+
+			int start = offset(first);
+			int end = end(last);
+			boolean errorsOutside = errors.stream().anyMatch(offset -> offset < start || offset > end);
+			return new ParseResult(model, root, errorsOutside || result.hasSyntaxErrors());
+		}
+
+		/**
+		 * Records the old syntax errors, and takes the range back to the
+		 * line of the first token the lexer could not end before it.
+		 */
+		private void collectErrors()
+		{
+			if (!previous.hasSyntaxErrors())
+			{
+				return;
+			}
+			int lexerError = Integer.MAX_VALUE;
+			for (INode error : previous.getSyntaxErrors())
+			{
+				errors.add(error.getTotalOffset());
+				if (isLexerError(error))
+				{
+					lexerError = Math.min(lexerError, error.getTotalOffset());
+				}
+			}
+			if (lexerError < offset(first))
+			{
+				first = lineStart(firstEndingAtOrAfter(lexerError + 1));
+			}
+		}
+
+		/**
+		 * Takes the range back until a statement and newlines of the loop of
+		 * the {@link Model} precede it: after a syntax error, the old parse
+		 * may have left the loop.
+		 */
+		private void separateStart()
+		{
+			while (first > 0)
+			{
+				int previous = first - 1;
+				while (previous >= 0 && isSeparator(children.get(previous))) previous--;
+				if (previous >= 0 && isStatement(previous))
+				{
+					return;
+				}
+				while (previous >= 0 && !isStatement(previous)) previous--;
+				first = previous >= 0 ? lineStart(previous) : 0;
+			}
+		}
+
+		/**
+		 * @return the first child from the child on that is not a newline of
+		 *         the loop of the {@link Model} or a hidden token
+		 */
+		private int nextAfterSeparators(int from)
+		{
+			int i = from;
+			while (i < children.size() && isSeparator(children.get(i))) i++;
+			return i;
+		}
+
+		/**
+		 * Grows the range until its end is a statement boundary in the new
+		 * text too, past what the edit may have left open.
+		 */
+		private void growOverOpenTokens()
+		{
+			try
+			{
+				while (last < children.size() - 1)
+				{
+					int next = nextAfterSeparators(last + 1);
+					if (next == children.size() || !isStatement(next))
+					{
+						last = nextRangeEnd(next);
+						continue;
+					}
+					// Just after the newline that follows the range
+					int boundary = children.get(last + 1).getTotalEndOffset() + delta;
+					while (splitEnd < boundary)
+					{
+						String part = splitter.next();
+						splitEnd = part != null
+							? offset(first) + splitter.getStartOffset() + part.length() : Integer.MAX_VALUE;
+					}
+					if (splitEnd == boundary)
+					{
+						return;
+					}
+					last = nextRangeEnd(last + 1);
+				}
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * @return the last child of the line of the first statement from the
+		 *         child on, or the last child if none
+		 */
+		private int nextRangeEnd(int from)
+		{
+			for (int i = from; i < children.size(); i++)
+			{
+				if (isStatement(i))
+				{
+					while (i < children.size() - 1 && !isNewline(children.get(i + 1))) i++;
+					return i;
+				}
+			}
+			return children.size() - 1;
+		}
+
+		private int lineStart(int child)
+		{
+			int i = child;
+			while (i > 0 && !isNewline(children.get(i - 1))) i--;
+			return i;
+		}
+
+		private int firstEndingAtOrAfter(int offset)
+		{
+			int low = 0;
+			int high = children.size() - 1;
+			while (low < high)
+			{
+				int middle = (low + high) >>> 1;
+				if (children.get(middle).getTotalEndOffset() >= offset) high = middle;
+				else low = middle + 1;
+			}
+			return low;
+		}
+
+		private int lastStartingAtOrBefore(int offset)
+		{
+			int low = 0;
+			int high = children.size() - 1;
+			while (low < high)
+			{
+				int middle = (low + high + 1) >>> 1;
+				if (children.get(middle).getTotalOffset() <= offset) low = middle;
+				else high = middle - 1;
+			}
+			return low;
+		}
+
+		private boolean isStatement(int child)
+		{
+			return statementOf(children.get(child)) != null;
+		}
+
+		private int offset(int child)
+		{
+			return children.get(child).getTotalOffset();
+		}
+
+		private int end(int child)
+		{
+			return children.get(child).getTotalEndOffset();
+		}
+
+		private int nodeCount(IParseResult result, boolean preceded)
+		{
+			int nodes = preceded ? -2 : 0;
+			for (INode node : result.getRootNode().getChildren()) nodes++;
+			return nodes;
+		}
+
+		private boolean endsWithStatement(IParseResult result)
+		{
+			INode end = result.getRootNode().getLastChild();
+			while (end instanceof ILeafNode && ((ILeafNode) end).isHidden() && end.getSyntaxErrorMessage() == null)
+			{
+				end = end.getPreviousSibling();
+			}
+			return isStatementNode(end);
+		}
+
+		private boolean hasErrorInLastStatement(IParseResult result)
+		{
+			int lastStatement = -1;
+			for (INode node : result.getRootNode().getChildren())
+			{
+				if (isStatementNode(node)) lastStatement = node.getTotalOffset();
+			}
+			for (INode error : result.getSyntaxErrors())
+			{
+				if (error.getTotalEndOffset() > lastStatement) return true;
+			}
+			return false;
+		}
+
+		private boolean hasLexerError(IParseResult result)
+		{
+			for (INode error : result.getSyntaxErrors())
+			{
+				if (isLexerError(error)) return true;
+			}
+			return false;
+		}
+	}
+
+	private boolean isStatementNode(INode node)
+	{
+		return statementOf(node) != null;
+	}
+
+	/**
+	 * @return the statement of a node of the {@link Model}, or null if the
+	 *         node is not one of a statement
+	 */
+	private Statement statementOf(INode node)
+	{
+		if (!(node instanceof ICompositeNode) || !(node.getGrammarElement() instanceof RuleCall)
+			|| ((RuleCall) node.getGrammarElement()).getRule() != grammarAccess.getStatementRule())
+		{
+			return null;
+		}
+		// The statement is made by the rule of its kind
+		for (INode child : ((ICompositeNode) node).getChildren())
+		{
+			if (child instanceof ICompositeNode && ((ICompositeNode) child).hasDirectSemanticElement())
+			{
+				EObject semantic = child.getSemanticElement();
+				return semantic instanceof Statement ? (Statement) semantic : null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return true for a newline between statements, or a hidden token
+	 */
+	private boolean isSeparator(INode node)
+	{
+		return node instanceof ILeafNode && node.getSyntaxErrorMessage() == null
+			&& (((ILeafNode) node).isHidden() && node.getGrammarElement() != null
+				|| node.getGrammarElement() == grammarAccess.getModelAccess().getNLTerminalRuleCall_2_0());
+	}
+
+	private boolean isNewline(INode node)
+	{
+		return node instanceof ILeafNode && !((ILeafNode) node).isHidden() && node.getSyntaxErrorMessage() == null
+			&& node.getGrammarElement() instanceof RuleCall
+			&& ((RuleCall) node.getGrammarElement()).getRule() == grammarAccess.getNLRule();
+	}
+
+	/**
+	 * @return true for the token of a lexer error, which has no grammar
+	 *         element
+	 */
+	private static boolean isLexerError(INode error)
+	{
+		return error instanceof ILeafNode && error.getGrammarElement() == null;
+	}
+
+	/**
+	 * Puts nodes in place of children of a root. Nodes are moved with what
+	 * {@link NodeModelBuilder} has to replace one by another: a node taking
+	 * the place of another is linked to its siblings, and a node taking its
+	 * own place links its siblings back to it.
+	 */
+	private static final class Splicer extends NodeModelBuilder
+	{
+		/**
+		 * @param replaced consecutive children of the root, not all
+		 * @param nodes at least three consecutive children of another root
+		 * @param text the text of the root with the nodes
+		 */
+		void splice(RootNode root, List<INode> replaced, List<INode> nodes, String text)
+		{
+			AbstractNode first = node(nodes, 0);
+			AbstractNode last = node(nodes, nodes.size() - 1);
+			// The first and last nodes linked to the siblings of the replaced
+			// children, and back to the nodes between them
+			replaceWithoutChildren(node(replaced, 0), first);
+			replaceWithoutChildren(node(replaced, replaced.size() - 1), last);
+			relink(node(nodes, 1));
+			relink(node(nodes, nodes.size() - 2));
+			relink(first);
+			relink(last);
+
+			replaceByRootNode(root, root);
+			setCompleteContent(root, text);
+			// Sets the offsets of all the leaves
+			replaceAndTransferLookAhead(root.getFirstChild(), root);
+		}
+
+		private void relink(AbstractNode node)
+		{
+			replaceWithoutChildren(node, node);
+		}
+
+		private static AbstractNode node(List<INode> nodes, int index)
+		{
+			return (AbstractNode) nodes.get(index);
+		}
+	}
+}
@@ -0,0 +1,549 @@
+package qnx.buildfile.lang.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EValidator;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.Diagnostician;
+import org.eclipse.xtext.Constants;
+import org.eclipse.xtext.RuleCall;
+import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.validation.AbstractInjectableValidator;
+import org.eclipse.xtext.validation.CancelableDiagnostician;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.CheckType;
+import org.eclipse.xtext.validation.IDiagnosticConverter;
+import org.eclipse.xtext.validation.Issue;
+import org.eclipse.xtext.validation.impl.ConcreteSyntaxEValidator;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+import qnx.buildfile.lang.BuildfileDSLStandaloneSetup;
+import qnx.buildfile.lang.buildfileDSL.AttributeStatement;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.buildfileDSL.Statement;
+import qnx.buildfile.lang.services.BuildfileDSLGrammarAccess;
+import qnx.buildfile.lang.validation.DuplicatePathIndex;
+
+/**
+ * Parses and validates a buildfile one statement at a time, for generated
+ * buildfiles too large to hold as a whole {@link Model} and node model.
+ * <p>
+ * Statements are separated by newlines, so the text is read a line at a time
+ * and cut after each line that does not end inside a block, string or
+ * variable. A batch of {@link #DEFAULT_BATCH_SIZE} statements at a time is
+ * parsed and validated on its own, in a resource of its own, and its
+ * statements are handed to the {@link Listener} before the resource is
+ * dropped. It is not unloaded: nothing refers to its objects, and turning
+ * them into proxies costs a URI fragment each, more than the parsing. Memory
+ * stays constant but for the side indexes the document-level checks need:
+ * <ul>
+ * <li>the attributes set by the attribute statements so far, see
+ * {@link EffectiveAttributes}, and the host directory listings, passed to
+ * {@link qnx.buildfile.lang.validation.HostFileValidator};</li>
+ * <li>the {@link DuplicatePathIndex} of the paths seen so far, passed to
+ * {@link qnx.buildfile.lang.validation.DuplicatePathValidator}, which then
+ * warns on the repeated deployments of a path as they come, and the
+ * location of the first deployment of each path: the warnings on the first
+ * deployments of the duplicate paths can only come at the end.</li>
+ * </ul>
+ * Issues are in document coordinates. Syntax errors are reported for the
+ * batch they are in, recovery does not go across batches.
+ */
+public class StreamingParser
+{
+	/**
+	 * Receives the statements and the issues of a buildfile, in order.
+	 */
+	public interface Listener
+	{
+		/**
+		 * A parsed and validated statement. It still has its node model,
+		 * whose offsets and lines are relative to the batch it was parsed
+		 * from, until this returns.
+		 *
+		 * @param line the 1-based line of the statement in the buildfile
+		 */
+		void statement(Statement statement, int line);
+
+		/**
+		 * An issue, after the statements of its batch, or at the end of the
+		 * buildfile for the first deployments of duplicate paths.
+		 */
+		void issue(Issue issue);
+	}
+
+	/** Number of statements parsed at a time. */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private static final Pattern STATEMENT_FRAGMENT = Pattern.compile("^//@statements\\.(\\d+)");
+
+	/** Where the first deployment of a path is: statement index, line, column, offset and length. */
+	private static final int INDEX = 0, LINE = 1, COLUMN = 2, OFFSET = 3, LENGTH = 4;
+
+	private final XtextResourceSet resourceSet;
+	private final Diagnostician diagnostician;
+	private final IDiagnosticConverter converter;
+	private final String languageName;
+	private final RuleCall pathRule;
+	private final int batchSize;
+
+	public StreamingParser()
+	{
+		this(DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param batchSize the number of statements parsed at a time
+	 */
+	public StreamingParser(int batchSize)
+	{
+		this.batchSize = Math.max(batchSize, 1);
+		Injector injector = new BuildfileDSLStandaloneSetup().createInjectorAndDoEMFRegistration();
+		resourceSet = injector.getInstance(XtextResourceSet.class);
+		diagnostician = injector.getInstance(Diagnostician.class);
+		converter = injector.getInstance(IDiagnosticConverter.class);
+		languageName = injector.getInstance(Key.get(String.class, Names.named(Constants.LANGUAGE_NAME)));
+		pathRule = injector.getInstance(BuildfileDSLGrammarAccess.class).getDeploymentStatementAccess()
+				.getPathALMOST_ANYTHINGTerminalRuleCall_1_0();
+	}
+
+	/**
+	 * @return the number of statements
+	 */
+	public int parse(File file, Listener listener) throws IOException
+	{
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			return parse(reader, URI.createFileURI(file.getAbsolutePath()), listener);
+		}
+	}
+
+	/**
+	 * @param uri the URI of the buildfile, the base of its relative search
+	 *        directories and of the issues
+	 * @return the number of statements
+	 */
+	public int parse(Reader reader, URI uri, Listener listener) throws IOException
+	{
+		return new Run(uri, listener).parse(reader);
+	}
+
+	/**
+	 * State of the parsing of one buildfile.
+	 */
+	private final class Run
+	{
+		final URI uri;
+		final Listener listener;
+		final DuplicatePathIndex paths = new DuplicatePathIndex();
+		final Map<String, int[]> firstDeployments = new HashMap<>();
+		final Map<String, String> attributes = new HashMap<>();
+		final Map<Object, Object> options = new HashMap<>();
+
+		int statements;
+
+		Run(URI uri, Listener listener)
+		{
+			this.uri = uri;
+			this.listener = listener;
+			// Same options as ResourceValidatorImpl, plus the side indexes
+			options.put(CheckMode.KEY, CheckMode.ALL);
+			options.put(CancelableDiagnostician.CANCEL_INDICATOR, CancelIndicator.NullImpl);
+			options.put(ConcreteSyntaxEValidator.DISABLE_CONCRETE_SYNTAX_EVALIDATOR, Boolean.TRUE);
+			options.put(EValidator.class, diagnostician);
+			options.put(AbstractInjectableValidator.CURRENT_LANGUAGE_NAME, languageName);
+			options.put(DuplicatePathIndex.class, paths);
+			options.put(HostDirectoryListings.class, new HostDirectoryListings());
+		}
+
+		int parse(Reader reader) throws IOException
+		{
+			StatementSplitter splitter = new StatementSplitter(reader);
+			StringBuilder batch = new StringBuilder();
+			int startLine = 1;
+			int startOffset = 0;
+			int batchStatements = 0;
+			for (String part = splitter.next(); part != null; part = splitter.next())
+			{
+				if (batch.length() == 0)
+				{
+					startLine = splitter.getStartLine();
+					startOffset = splitter.getStartOffset();
+				}
+				batch.append(part);
+				if (splitter.hasContents() && ++batchStatements == batchSize)
+				{
+					parse(batch.toString(), startLine, startOffset);
+					batch.setLength(0);
+					batchStatements = 0;
+				}
+			}
+			if (batchStatements > 0) parse(batch.toString(), startLine, startOffset);
+			reportFirstDeployments();
+			return statements;
+		}
+
+		private void parse(String text, int startLine, int startOffset) throws IOException
+		{
+			XtextResource resource = (XtextResource) resourceSet.createResource(uri);
+			try
+			{
+				parse(resource, text, startLine, startOffset);
+			}
+			finally
+			{
+				resourceSet.getResources().remove(resource);
+			}
+		}
+
+		private void parse(XtextResource resource, String text, int startLine, int startOffset) throws IOException
+		{
+			resource.reparse(text);
+			Model model = resource.getContents().isEmpty() ? null : (Model) resource.getContents().get(0);
+			List<Issue> issues = new ArrayList<>();
+			for (Resource.Diagnostic error : resource.getErrors())
+			{
+				converter.convertResourceDiagnostic(error, Severity.ERROR, issues::add);
+			}
+			for (Resource.Diagnostic warning : resource.getWarnings())
+			{
+				converter.convertResourceDiagnostic(warning, Severity.WARNING, issues::add);
+			}
+			if (model == null)
+			{
+				issues.forEach(issue -> listener.issue(shift(issue, startLine, startOffset, statements)));
+				return;
+			}
+
+			// The paths of the batch count before it is validated, so that a repeated path is reported at once
+			List<Statement> batchStatements = model.getStatements();
+			List<String> firstSeen = new ArrayList<>();
+			for (int i = 0; i < batchStatements.size(); i++)
+			{
+				if (!(batchStatements.get(i) instanceof DeploymentStatement)) continue;
+				DeploymentStatement deployment = (DeploymentStatement) batchStatements.get(i);
+				paths.add(deployment.getPath());
+				if (paths.count(deployment.getPath()) == 1)
+				{
+					firstDeployments.put(deployment.getPath(), locate(deployment, statements + i, text, startLine, startOffset));
+					firstSeen.add(deployment.getPath());
+				}
+			}
+
+			Map<Object, Object> context = new HashMap<>(options);
+			context.put(EffectiveAttributes.class, new HashMap<>(attributes));
+			Diagnostic diagnostic = diagnostician.validate(model, context);
+			for (Diagnostic child : diagnostic.getChildren())
+			{
+				converter.convertValidatorDiagnostic(child, issues::add);
+			}
+
+			// Paths repeated within the batch were reported on all their deployments
+			for (String path : firstSeen)
+			{
+				if (paths.isDuplicate(path)) firstDeployments.remove(path);
+			}
+
+			for (Statement statement : batchStatements)
+			{
+				if (statement instanceof AttributeStatement)
+				{
+					EffectiveAttributes.apply(((AttributeStatement) statement).getAttributesection(), attributes);
+				}
+				INode node = NodeModelUtils.getNode(statement);
+				listener.statement(statement, node != null ? startLine + node.getStartLine() - 1 : startLine);
+			}
+			issues.forEach(issue -> listener.issue(shift(issue, startLine, startOffset, statements)));
+			statements += batchStatements.size();
+		}
+
+		private int[] locate(DeploymentStatement deployment, int index, String text, int startLine, int startOffset)
+		{
+			// The path is a child of the node of the statement, no need to go through the whole tree
+			INode node = null;
+			ICompositeNode statementNode = NodeModelUtils.getNode(deployment);
+			if (statementNode != null)
+			{
+				for (INode child : statementNode.getChildren())
+				{
+					if (child.getGrammarElement() == pathRule)
+					{
+						node = child;
+						break;
+					}
+				}
+			}
+			if (node == null) return new int[] { index, -1, -1, -1, -1 };
+
+			int lineStart = text.lastIndexOf('\n', node.getOffset() - 1) + 1;
+			return new int[] { index, startLine + node.getStartLine() - 1, node.getOffset() - lineStart + 1,
+					startOffset + node.getOffset(), node.getLength() };
+		}
+
+		private void reportFirstDeployments()
+		{
+			List<Map.Entry<String, int[]>> duplicates = new ArrayList<>();
+			for (Map.Entry<String, int[]> first : firstDeployments.entrySet())
+			{
+				if (paths.isDuplicate(first.getKey())) duplicates.add(first);
+			}
+			duplicates.sort(Comparator.comparingInt(first -> first.getValue()[INDEX]));
+
+			for (Map.Entry<String, int[]> first : duplicates)
+			{
+				int[] location = first.getValue();
+				Issue.IssueImpl issue = new Issue.IssueImpl();
+				issue.setSeverity(Severity.WARNING);
+				issue.setMessage("Duplicate path " + first.getKey());
+				issue.setCode("duplicatePath");
+				issue.setType(CheckType.FAST);
+				issue.setData(new String[0]);
+				issue.setUriToProblem(uri.appendFragment("//@statements." + location[INDEX]));
+				if (location[LINE] > 0)
+				{
+					issue.setLineNumber(location[LINE]);
+					issue.setLineNumberEnd(location[LINE]);
+					issue.setColumn(location[COLUMN]);
+					issue.setColumnEnd(location[COLUMN] + location[LENGTH]);
+					issue.setOffset(location[OFFSET]);
+					issue.setLength(location[LENGTH]);
+				}
+				listener.issue(issue);
+			}
+		}
+	}
+
+	/**
+	 * @return a copy of the issue of a part of a buildfile, with the line,
+	 *         offset and statement index it has in the buildfile
+	 */
+	static Issue shift(Issue issue, int startLine, int startOffset, int firstStatement)
+	{
+		Issue.IssueImpl shifted = new Issue.IssueImpl();
+		shifted.setSeverity(issue.getSeverity());
+		shifted.setMessage(issue.getMessage());
+		shifted.setCode(issue.getCode());
+		shifted.setType(issue.getType());
+		shifted.setData(issue.getData());
+		shifted.setSyntaxError(issue.isSyntaxError());
+		shifted.setColumn(issue.getColumn());
+		shifted.setColumnEnd(issue.getColumnEnd());
+		shifted.setLength(issue.getLength());
+		if (issue.getOffset() != null) shifted.setOffset(issue.getOffset() + startOffset);
+		if (issue.getLineNumber() != null) shifted.setLineNumber(issue.getLineNumber() + startLine - 1);
+		if (issue.getLineNumberEnd() != null) shifted.setLineNumberEnd(issue.getLineNumberEnd() + startLine - 1);
+		shifted.setUriToProblem(shift(issue.getUriToProblem(), firstStatement));
+		return shifted;
+	}
+
+	/**
+	 * @return the URI with the statement index in the part replaced by the
+	 *         one in the buildfile
+	 */
+	private static URI shift(URI uri, int firstStatement)
+	{
+		if (uri == null || uri.fragment() == null) return uri;
+
+		Matcher matcher = STATEMENT_FRAGMENT.matcher(uri.fragment());
+		if (!matcher.find()) return uri;
+		int index = firstStatement + Integer.parseInt(matcher.group(1));
+		return uri.trimFragment().appendFragment("//@statements." + index + uri.fragment().substring(matcher.end()));
+	}
+
+	/**
+	 * Cuts the text of a buildfile into parts of whole statements: after
+	 * each newline that is not inside a block, string or variable.
+	 */
+	static final class StatementSplitter
+	{
+		private static final int NORMAL = 0, BLOCK = 1, STRING = 2, VARREF = 3;
+
+		private final Reader reader;
+		private final char[] buffer = new char[8192];
+		private int position;
+		private int limit;
+		private final StringBuilder part = new StringBuilder();
+		private int state = NORMAL;
+		private char quote;
+
+		private int line = 1;
+		private int offset;
+		private int startLine;
+		private int startOffset;
+		private boolean contents;
+
+		StatementSplitter(Reader reader)
+		{
+			this.reader = reader;
+		}
+
+		/**
+		 * @return the next part, or null at the end of the text
+		 */
+		String next() throws IOException
+		{
+			part.setLength(0);
+			startLine = line;
+			startOffset = offset;
+			contents = false;
+			while (true)
+			{
+				int lineStart = part.length();
+				if (!readLine()) return part.length() > 0 ? part.toString() : null;
+				scan(lineStart);
+				if (state == NORMAL) return part.toString();
+			}
+		}
+
+		/**
+		 * @return the 1-based line the last part starts on
+		 */
+		int getStartLine()
+		{
+			return startLine;
+		}
+
+		/**
+		 * @return the offset the last part starts at
+		 */
+		int getStartOffset()
+		{
+			return startOffset;
+		}
+
+		/**
+		 * @return true if the last part has more than blanks and comments
+		 */
+		boolean hasContents()
+		{
+			return contents;
+		}
+
+		/**
+		 * Append the next line to the part, with its newline.
+		 *
+		 * @return false at the end of the text
+		 */
+		private boolean readLine() throws IOException
+		{
+			boolean read = false;
+			while (true)
+			{
+				if (position == limit)
+				{
+					limit = reader.read(buffer);
+					position = 0;
+					if (limit <= 0)
+					{
+						limit = 0;
+						return read;
+					}
+				}
+				char c = buffer[position++];
+				part.append(c);
+				offset++;
+				read = true;
+				if (c == '\n')
+				{
+					line++;
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Follow the state through the line at the end of the part.
+		 */
+		private void scan(int start)
+		{
+			int end = part.length();
+			if (end > start && part.charAt(end - 1) == '\n') end--;
+			if (end > start && part.charAt(end - 1) == '\r') end--;
+
+			int i = start;
+			if (state == BLOCK)
+			{
+				// The block ends at a line starting with }
+				if (i < end && part.charAt(i) == '}')
+				{
+					state = NORMAL;
+					i++;
+				}
+				else
+				{
+					return;
+				}
+			}
+			for (; i < end; i++)
+			{
+				char c = part.charAt(i);
+				if (state == STRING)
+				{
+					if (c == '\\') i++;
+					else if (c == quote) state = NORMAL;
+					continue;
+				}
+				if (state == VARREF)
+				{
+					if (c == '\\' && i + 1 < end && part.charAt(i + 1) == '}') i++;
+					else if (c == '}') state = NORMAL;
+					continue;
+				}
+				switch (c)
+				{
+					case '#':
+						return;
+					case ' ':
+					case '\t':
+						break;
+					case '"':
+					case '\'':
+						contents = true;
+						state = STRING;
+						quote = c;
+						break;
+					case '$':
+						contents = true;
+						if (i + 1 < end && part.charAt(i + 1) == '{')
+						{
+							state = VARREF;
+							i++;
+						}
+						break;
+					case '{':
+						contents = true;
+						// A block starts with { at the end of a line
+						if (i + 1 == end && end < part.length()) state = BLOCK;
+						break;
+					default:
+						contents = true;
+						break;
+				}
+			}
+		}
+	}
+}
@@ -14,7 +14,11 @@ public class VariableSubstitutor
 {
 	private final static Pattern pattern = Pattern.compile("\\$\\{([^}]+)\\}");
 
-    private static String substituteEnvVars(String input, Map<String,String> varMap) {
+    /**
+     * @return the input with its {@code ${NAME}} references replaced by the
+     *         values of the map, unknown references are left as they are
+     */
+    public static String substituteEnvVars(String input, Map<String,String> varMap) {
         if (input == null) return null;
 
         Matcher matcher = pattern.matcher(input);
@@ -0,0 +1,93 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import qnx.buildfile.lang.attributes.AttributeKeywords;
+import qnx.buildfile.lang.utils.KeywordIndex;
+import qnx.buildfile.lang.utils.KeywordIndex.Match;
+
+/**
+ * Replacement candidates for unknown attribute names and invalid values,
+ * computed once by the validators and attached to their issues (see
+ * {@link IssueData}) so that quickfixes don't have to look for them again.
+ */
+public class AttributeSuggestions
+{
+	/** Maximum Levenshtein distance to consider a suggestion relevant. */
+	public static final int MAX_DISTANCE = 4;
+
+	/** Maximum number of suggestions to offer. */
+	public static final int MAX_SUGGESTIONS = 3;
+
+	/** Number of distinct bad names whose suggestions are remembered. */
+	private static final int CACHE_SIZE = 1024;
+
+	private static final KeywordIndex ALL_NAMES = new KeywordIndex(AttributeKeywords.ALL_ATTRIBUTE_KEYWORDS);
+	private static final KeywordIndex BOOLEAN_NAMES = new KeywordIndex(AttributeKeywords.ALL_BOOLEAN_ATTRIBUTE_KEYWORDS);
+	private static final KeywordIndex VALUED_NAMES = new KeywordIndex(AttributeKeywords.ALL_VALUED_ATTRIBUTE_KEYWORDS);
+
+	private static final Map<String, List<Match>> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * @return up to {@value #MAX_SUGGESTIONS} attribute keywords (boolean or
+	 *         valued) close to the given name, closest first
+	 */
+	public static List<Match> attributeNames(String badName)
+	{
+		return search(ALL_NAMES, "*", badName);
+	}
+
+	public static List<Match> booleanAttributeNames(String badName)
+	{
+		return search(BOOLEAN_NAMES, "+", badName);
+	}
+
+	public static List<Match> valuedAttributeNames(String badName)
+	{
+		return search(VALUED_NAMES, "=", badName);
+	}
+
+	/**
+	 * @return up to {@value #MAX_SUGGESTIONS} of the allowed values, closest
+	 *         to the bad value first
+	 */
+	public static List<String> values(String badValue, List<String> allowedValues)
+	{
+		List<String> candidates = new ArrayList<>(allowedValues);
+		if (badValue != null)
+		{
+			candidates.sort((a, b) -> Integer.compare(
+					KeywordIndex.levenshteinDistance(badValue, a),
+					KeywordIndex.levenshteinDistance(badValue, b)));
+		}
+		return candidates.size() > MAX_SUGGESTIONS ? candidates.subList(0, MAX_SUGGESTIONS) : candidates;
+	}
+
+	public static List<String> keywords(List<Match> matches)
+	{
+		List<String> keywords = new ArrayList<>(matches.size());
+		for (Match match : matches) keywords.add(match.getKeyword());
+		return keywords;
+	}
+
+	private static List<Match> search(KeywordIndex index, String prefix, String badName)
+	{
+		if (badName == null || badName.isEmpty()) return List.of();
+
+		String key = prefix + badName.toLowerCase();
+		List<Match> matches = cache.get(key);
+		if (matches == null)
+		{
+			matches = index.search(badName, MAX_DISTANCE);
+			if (matches.size() > MAX_SUGGESTIONS) matches = matches.subList(0, MAX_SUGGESTIONS);
+			matches = List.copyOf(matches);
+
+			if (cache.size() >= CACHE_SIZE) cache.clear();
+			cache.put(key, matches);
+		}
+		return matches;
+	}
+}
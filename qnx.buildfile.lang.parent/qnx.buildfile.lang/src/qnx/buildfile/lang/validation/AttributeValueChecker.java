@@ -2,11 +2,11 @@ package qnx.buildfile.lang.validation;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import qnx.buildfile.lang.attributes.AttributeValues;
 import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
 import qnx.buildfile.lang.buildfileDSL.ValuedAttribute;
 
@@ -107,6 +107,11 @@ public class AttributeValueChecker {
 		return true;
 	}
 
+	private static String[] valueData(ValuedAttribute valuedAttribute, List<String> candidates)
+	{
+		return IssueData.create(valuedAttribute.getValue(), IssueData.KIND_ATTRIBUTE_VALUE, candidates);
+	}
+
 	/* Checks */
 	public static void check_uid(ValuedAttribute valuedAttribute, BaseDSLValidator buildfileDSLValidator)
 	{
@@ -114,7 +119,8 @@ public class AttributeValueChecker {
 		{
 			buildfileDSLValidator.reportError("Wrong format \"" + valuedAttribute.getValue() + "\" for uid",
 					BuildfileDSLPackage.Literals.VALUED_ATTRIBUTE__VALUE,
-					"invalidUid");
+					"invalidUid",
+					valueData(valuedAttribute, List.of()));
 		}	
 	}
 
@@ -124,40 +130,44 @@ public class AttributeValueChecker {
 		{
 			buildfileDSLValidator.reportError("Wrong format \"" + valuedAttribute.getValue() + "\" for gid",
 					BuildfileDSLPackage.Literals.VALUED_ATTRIBUTE__VALUE,
-					"invalidGid");
+					"invalidGid",
+					valueData(valuedAttribute, List.of()));
 		}
 	}
 
-	private final static List<String> AUTOSO_VALUES = Arrays.asList("n","none","l","list","a","add");
+	private final static List<String> AUTOSO_VALUES = AttributeValues.AUTOSO_VALUES;
 	public static void check_autoso(ValuedAttribute valuedAttribute, BaseDSLValidator buildfileDSLValidator)
 	{
 		if (!AUTOSO_VALUES.contains(valuedAttribute.getValue()))
 		{
 			buildfileDSLValidator.reportError("Wrong format \"" + valuedAttribute.getValue() + "\" for autoso (n[one]|l[ist]|a[dd])",
 					BuildfileDSLPackage.Literals.VALUED_ATTRIBUTE__VALUE,
-					"invalidAutoso");
+					"invalidAutoso",
+					valueData(valuedAttribute, AttributeSuggestions.values(valuedAttribute.getValue(), AUTOSO_VALUES)));
 		}
 	}
 
-	private final static List<String> COMPRESS_VALUES = Arrays.asList("1","2","3");
+	private final static List<String> COMPRESS_VALUES = AttributeValues.COMPRESS_VALUES;
 	public static void check_compress(ValuedAttribute valuedAttribute, BaseDSLValidator buildfileDSLValidator)
 	{
 		if (!COMPRESS_VALUES.contains(valuedAttribute.getValue()))
 		{
 			buildfileDSLValidator.reportError("Wrong format \"" + valuedAttribute.getValue() + "\" for compress (1|2|3)",
 					BuildfileDSLPackage.Literals.VALUED_ATTRIBUTE__VALUE,
-					"invalidCompress");
+					"invalidCompress",
+					valueData(valuedAttribute, AttributeSuggestions.values(valuedAttribute.getValue(), COMPRESS_VALUES)));
 		}
 	}
 
-	private final static List<String> TYPE_VALUES = Arrays.asList("link","fifo","file","dir");
+	private final static List<String> TYPE_VALUES = AttributeValues.TYPE_VALUES;
 	public static void check_type(ValuedAttribute valuedAttribute, BaseDSLValidator buildfileDSLValidator)
 	{
 		if (!TYPE_VALUES.contains(valuedAttribute.getValue()))
 		{
 			buildfileDSLValidator.reportError("Wrong format\"" + valuedAttribute.getValue() + "\" for type {link|fifo|file|dir)",
 					BuildfileDSLPackage.Literals.VALUED_ATTRIBUTE__VALUE,
-					"invalidType");
+					"invalidType",
+					valueData(valuedAttribute, AttributeSuggestions.values(valuedAttribute.getValue(), TYPE_VALUES)));
 		}
 	}
 
@@ -169,7 +179,8 @@ public class AttributeValueChecker {
 			buildfileDSLValidator.reportError("Wrong format \"" + valuedAttribute.getValue()
 			+ "\" for perms (expected *, octal e.g. 0755, or symbolic e.g. a+rwx)",
 			BuildfileDSLPackage.Literals.VALUED_ATTRIBUTE__VALUE,
-					"invalidPerms");
+					"invalidPerms",
+					valueData(valuedAttribute, List.of()));
 		}
 	}
 
@@ -181,7 +192,8 @@ public class AttributeValueChecker {
 			buildfileDSLValidator.reportError("Wrong format \"" + valuedAttribute.getValue()
 			+ "\" for dperms (expected *, octal e.g. 0755, or symbolic e.g. a+rwx)",
 			BuildfileDSLPackage.Literals.VALUED_ATTRIBUTE__VALUE,
-					"invalidDperms");
+					"invalidDperms",
+					valueData(valuedAttribute, List.of()));
 		}
 	}
 }
@@ -21,9 +21,41 @@ public class BaseDSLValidator extends AbstractBuildfileDSLValidator
 		warning(message, feature, code);
 	}
 
+	/**
+	 * Report an error carrying structured data, see {@link IssueData}.
+	 */
+	public void reportError(String message, EStructuralFeature feature, String code, String... issueData)
+	{
+		error(message, feature, code, issueData);
+	}
+
 	public static BaseDSLValidator loadValidatorFromJar(File jarFile) throws Exception
 	{
 		return (BaseDSLValidator) jarLoader.loadJar(jarFile.toPath());
 	}
+
+	/**
+	 * Like {@link #loadValidatorFromJar(File)}, but the JAR's class loader stays
+	 * open until the lease is closed, see {@link JarLoader#acquire(java.nio.file.Path)}.
+	 */
+	public static JarLoader.Lease acquireValidatorFromJar(File jarFile) throws Exception
+	{
+		JarLoader.Lease lease = jarLoader.acquire(jarFile.toPath());
+		if (!(lease.getInstance() instanceof BaseDSLValidator))
+		{
+			lease.close();
+			throw new ClassCastException(lease.getInstance().getClass().getName() + " does not extend "
+					+ BaseDSLValidator.class.getName());
+		}
+		return lease;
+	}
+
+	/**
+	 * Forget a validator JAR, its class loader is closed once no validation uses it anymore.
+	 */
+	public static void unloadValidatorJar(File jarFile)
+	{
+		jarLoader.unload(jarFile.toPath());
+	}
 }
 
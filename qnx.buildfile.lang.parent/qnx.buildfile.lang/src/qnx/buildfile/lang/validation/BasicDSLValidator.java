@@ -25,7 +25,9 @@ public class BasicDSLValidator extends BaseDSLValidator
 		{
 			error("Unknown BooleanAttribute \"" + booleanAttribute.getName(),
 					BuildfileDSLPackage.Literals.ATTRIBUTE__NAME,
-					"invalidName");
+					"invalidName",
+					IssueData.create(booleanAttribute.getName(), IssueData.KIND_BOOLEAN_ATTRIBUTE_NAME,
+							AttributeSuggestions.keywords(AttributeSuggestions.booleanAttributeNames(booleanAttribute.getName()))));
 		}
 
 	}
@@ -37,7 +39,9 @@ public class BasicDSLValidator extends BaseDSLValidator
 		{
 			error("Unknown ValuedAttribute \"" + valuedAttribute.getName() + "\"",
 					BuildfileDSLPackage.Literals.ATTRIBUTE__NAME,
-					"invalidName");
+					"invalidName",
+					IssueData.create(valuedAttribute.getName(), IssueData.KIND_VALUED_ATTRIBUTE_NAME,
+							AttributeSuggestions.keywords(AttributeSuggestions.valuedAttributeNames(valuedAttribute.getName()))));
 		}
 		else
 		{
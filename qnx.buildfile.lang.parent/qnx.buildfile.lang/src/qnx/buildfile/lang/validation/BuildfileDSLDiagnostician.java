@@ -0,0 +1,38 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.Map;
+
+import org.eclipse.emf.common.util.DiagnosticChain;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EValidator;
+import org.eclipse.xtext.validation.CancelableDiagnostician;
+
+import com.google.inject.Inject;
+
+/**
+ * Diagnostician that wraps every validation run in a {@link ValidationScope},
+ * so that the custom validator JAR in use can't be unloaded halfway through.
+ */
+public class BuildfileDSLDiagnostician extends CancelableDiagnostician
+{
+	@Inject
+	public BuildfileDSLDiagnostician(EValidator.Registry registry)
+	{
+		super(registry);
+	}
+
+	@Override
+	public boolean validate(EObject eObject, DiagnosticChain diagnostics, Map<Object, Object> context)
+	{
+		ValidationScope scope = ValidationScope.open(context);
+		try
+		{
+			return super.validate(eObject, diagnostics, context);
+		}
+		finally
+		{
+			// Null in nested calls, the outermost one closes the scope
+			if (scope != null) scope.close();
+		}
+	}
+}
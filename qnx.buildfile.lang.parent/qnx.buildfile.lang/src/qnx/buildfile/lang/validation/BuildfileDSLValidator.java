@@ -15,53 +15,79 @@ import org.eclipse.xtext.validation.ValidationMessageAcceptor;
 import com.google.inject.Inject;
 
 import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.utils.JarLoader;
 
-@ComposedChecks(validators = {BasicDSLValidator.class, DuplicatePathValidator.class})
+@ComposedChecks(validators = {BasicDSLValidator.class, DuplicatePathValidator.class, WorkspaceDuplicatePathValidator.class, HostFileValidator.class})
 public class BuildfileDSLValidator extends BaseDSLValidator
 {
     @Inject
     private CustomValidatorJarPathProvider jarPathProvider;
 
-    private Object extendedValidator;
-    private List<Method> extendedValidatorCheckMethods;
-    private boolean extendedValidatorLoaded = false;
-    /** Track which path was loaded so we reload if the preference changes */
-    private String loadedJarPath = null;
-    
+    /**
+     * The custom validator currently in use. It is replaced as a whole when
+     * the JAR path or the JAR itself changes, and each validation run keeps
+     * the one it started with in its context.
+     */
+    private volatile ExtendedValidator currentExtendedValidator;
+
+    private static final class ExtendedValidator {
+        final String jarPath;
+        final Object instance;
+        final List<Method> checkMethods;
+
+        ExtendedValidator(String jarPath, Object instance, List<Method> checkMethods) {
+            this.jarPath = jarPath;
+            this.instance = instance;
+            this.checkMethods = checkMethods;
+        }
+    }
+
     @Check
     public void loadExtendedValidator(Model model) {
         String jarPath = (jarPathProvider != null) ? jarPathProvider.getJarPath() : null;
+        if (jarPath != null && jarPath.isBlank()) {
+            jarPath = null;
+        }
 
-        // If the path changed (or was cleared), reset state
-        if (!isEqualPath(jarPath, loadedJarPath)) {
-            extendedValidator = null;
-            extendedValidatorCheckMethods = null;
-            extendedValidatorLoaded = false;
-            loadedJarPath = null;
+        // If the path changed (or was cleared), drop the old JAR; its class loader
+        // is closed once the validations still using it are done
+        ExtendedValidator previous = currentExtendedValidator;
+        if (previous != null && !isEqualPath(jarPath, previous.jarPath)) {
+            currentExtendedValidator = null;
+            unloadValidatorJar(new File(previous.jarPath));
+            previous = null;
         }
 
         // Nothing configured
-        if (jarPath == null || jarPath.isBlank()) {
+        if (jarPath == null) {
             return;
         }
 
-        // We call loadValidatorFromJar each time because JarLoader checks the timestamp
+        // We acquire the JAR each time because JarLoader checks the timestamp
         try {
-            extendedValidator = loadValidatorFromJar(new File(jarPath));
-            
-            // Find all @Check annotated methods
-            extendedValidatorCheckMethods = new ArrayList<>();
-            for (Method method : extendedValidator.getClass().getMethods()) {
-                if (method.isAnnotationPresent(Check.class)) {
-                    extendedValidatorCheckMethods.add(method);
+            JarLoader.Lease lease = acquireValidatorFromJar(new File(jarPath));
+            if (!ValidationScope.register(getContext(), lease)) {
+                // Nobody to tell when this validation ends
+                lease.close();
+            }
+
+            ExtendedValidator extendedValidator = previous;
+            if (extendedValidator == null || extendedValidator.instance != lease.getInstance()) {
+                // Find all @Check annotated methods
+                List<Method> checkMethods = new ArrayList<>();
+                for (Method method : lease.getInstance().getClass().getMethods()) {
+                    if (method.isAnnotationPresent(Check.class)) {
+                        checkMethods.add(method);
+                    }
                 }
+
+                // Initialize if it extends AbstractDeclarativeValidator
+                initializeExtendedValidator(lease.getInstance());
+
+                extendedValidator = new ExtendedValidator(jarPath, lease.getInstance(), checkMethods);
+                currentExtendedValidator = extendedValidator;
             }
-            
-            // Initialize if it extends AbstractDeclarativeValidator
-            initializeExtendedValidator();
-            
-            extendedValidatorLoaded = true;
-            loadedJarPath = jarPath;
+            getContext().put(ExtendedValidator.class, extendedValidator);
             
         } catch (ClassNotFoundException e) {
             System.err.println("ExtendedValidator class not found in JAR: " + e.getMessage());
@@ -80,7 +106,7 @@ public class BuildfileDSLValidator extends BaseDSLValidator
     /**
      * Initialize the extended validator with necessary Xtext infrastructure
      */
-    private void initializeExtendedValidator() throws Exception {
+    private void initializeExtendedValidator(Object extendedValidator) throws Exception {
         if (extendedValidator instanceof AbstractDeclarativeValidator) {
             AbstractDeclarativeValidator validator = (AbstractDeclarativeValidator) extendedValidator;
             
@@ -114,19 +140,23 @@ public class BuildfileDSLValidator extends BaseDSLValidator
     
     @Check
     public void delegateToExtendedValidator(EObject object) {
-        if (extendedValidatorLoaded && extendedValidator != null) {
-            invokeExtendedValidatorChecks(object);
+        ExtendedValidator extendedValidator = (ExtendedValidator) getContext().get(ExtendedValidator.class);
+        if (extendedValidator == null) {
+            extendedValidator = currentExtendedValidator;
+        }
+        if (extendedValidator != null) {
+            invokeExtendedValidatorChecks(extendedValidator, object);
         }
     }
     
-    private void invokeExtendedValidatorChecks(EObject object) {
-        for (Method method : extendedValidatorCheckMethods) {
+    private void invokeExtendedValidatorChecks(ExtendedValidator extendedValidator, EObject object) {
+        for (Method method : extendedValidator.checkMethods) {
             try {
                 Class<?>[] paramTypes = method.getParameterTypes();
                 
                 if (paramTypes.length == 1 && paramTypes[0].isInstance(object)) {
-                    setValidatorContext(extendedValidator);
-                    method.invoke(extendedValidator, object);
+                    setValidatorContext(extendedValidator.instance);
+                    method.invoke(extendedValidator.instance, object);
                 }
             } catch (java.lang.reflect.InvocationTargetException e) {
                 Throwable cause = e.getCause();
@@ -0,0 +1,91 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.util.LineAndColumn;
+
+import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
+import qnx.buildfile.lang.buildfileDSL.ContentBlock;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Path;
+
+/**
+ * Where a target path is deployed: the buildfile, the position of the path in
+ * it and where the deployed content comes from.
+ * <p>
+ * Everything is plain data so that it can be kept in an index without the
+ * buildfile being loaded, see {@link WorkspaceDeploymentIndex}.
+ */
+public final class DeploymentLocation
+{
+	private final URI uri;
+	private final String path;
+	private final String source;
+	private final int line;
+	private final int column;
+	private final int length;
+
+	/**
+	 * @param line 1-based line of the path
+	 * @param column 1-based column of the path
+	 * @param length length of the path in the buildfile
+	 */
+	public DeploymentLocation(URI uri, String path, String source, int line, int column, int length)
+	{
+		this.uri = uri;
+		this.path = path;
+		this.source = source;
+		this.line = line;
+		this.column = column;
+		this.length = length;
+	}
+
+	/**
+	 * @return the location of the statement's path, or null if the statement has no node model
+	 */
+	public static DeploymentLocation of(DeploymentStatement statement)
+	{
+		List<INode> nodes = NodeModelUtils.findNodesForFeature(statement, BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH);
+		if (nodes.isEmpty() || statement.eResource() == null) return null;
+
+		INode node = nodes.get(0);
+		LineAndColumn position = NodeModelUtils.getLineAndColumn(node, node.getOffset());
+		return new DeploymentLocation(statement.eResource().getURI(), statement.getPath(), sourceOf(statement),
+				position.getLine(), position.getColumn(), node.getLength());
+	}
+
+	/**
+	 * Where the content of a deployment comes from: the host path, the
+	 * target path itself if none is given, or a digest of an inline block.
+	 * Two deployments of the same path with the same source don't conflict.
+	 */
+	public static String sourceOf(DeploymentStatement statement)
+	{
+		if (statement.getContent() instanceof Path)
+		{
+			return ((Path) statement.getContent()).getValue();
+		}
+		if (statement.getContent() instanceof ContentBlock)
+		{
+			String block = ((ContentBlock) statement.getContent()).getValue();
+			return "{" + Integer.toHexString(block != null ? block.hashCode() : 0) + "}";
+		}
+		return statement.getPath();
+	}
+
+	public URI getUri() { return uri; }
+	public String getPath() { return path; }
+	public String getSource() { return source; }
+	public int getLine() { return line; }
+	public int getColumn() { return column; }
+	public int getLength() { return length; }
+
+	@Override
+	public String toString()
+	{
+		return uri.lastSegment() + ":" + line;
+	}
+}
@@ -0,0 +1,89 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.utils.Walker;
+import qnx.buildfile.lang.utils.Walker.IWalker;
+
+/**
+ * Counts how many deployment statements target each path of a buildfile.
+ * <p>
+ * {@link DuplicatePathValidator} builds one from scratch for every validation
+ * run, unless an up-to-date instance is passed in the validation context under
+ * the {@code DuplicatePathIndex.class} key. This lets callers that validate the
+ * same document over and over (e.g. the language server) keep the index alive
+ * and only {@link #add(String)}/{@link #remove(String)} the paths of the
+ * statements that actually changed.
+ */
+public class DuplicatePathIndex
+{
+	private final static Walker walker = new Walker();
+
+	private final Map<String, Integer> counts = new HashMap<>();
+	private int duplicatedPaths = 0;
+
+	/**
+	 * Build an index containing every deployment path of the given model.
+	 */
+	public static DuplicatePathIndex of(Model model)
+	{
+		DuplicatePathIndex index = new DuplicatePathIndex();
+		walker.walk(model, new IWalker() {
+			@Override
+			public void found(DeploymentStatement deploymentStatement)
+			{
+				index.add(deploymentStatement.getPath());
+			}
+		});
+		return index;
+	}
+
+	public void add(String path)
+	{
+		int count = counts.merge(path, 1, Integer::sum);
+		if (count == 2) duplicatedPaths++;
+	}
+
+	public void remove(String path)
+	{
+		Integer count = counts.get(path);
+		if (count == null) return;
+
+		if (count == 1)
+		{
+			counts.remove(path);
+		}
+		else
+		{
+			counts.put(path, count - 1);
+			if (count == 2) duplicatedPaths--;
+		}
+	}
+
+	public int count(String path)
+	{
+		return counts.getOrDefault(path, 0);
+	}
+
+	public boolean isDuplicate(String path)
+	{
+		return count(path) > 1;
+	}
+
+	/**
+	 * @return true if at least one path is deployed more than once
+	 */
+	public boolean hasDuplicates()
+	{
+		return duplicatedPaths > 0;
+	}
+
+	public void clear()
+	{
+		counts.clear();
+		duplicatedPaths = 0;
+	}
+}
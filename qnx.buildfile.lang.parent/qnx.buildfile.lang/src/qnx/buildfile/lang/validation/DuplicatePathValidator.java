@@ -1,10 +1,5 @@
 package qnx.buildfile.lang.validation;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 import org.eclipse.xtext.validation.Check;
 import org.eclipse.xtext.validation.EValidatorRegistrar;
 
@@ -25,9 +20,19 @@ public class DuplicatePathValidator extends BaseDSLValidator
 		// via @ComposedChecks on BuildfileDSLValidator, not directly.
 	}
 
-    @Check
+	/**
+	 * Warns on every deployment whose path is deployed more than once.
+	 * <p>
+	 * The path counts come from the {@link DuplicatePathIndex} found in the
+	 * validation context, if any, so that incremental callers don't pay for a
+	 * full rebuild of the index on every run.
+	 */
+	@Check
 	public void checkDuplicates(Model model) {
-		Map<String,List<DeploymentStatement>> duplicates = new HashMap<>();
+		DuplicatePathIndex contextIndex = (DuplicatePathIndex) getContext().get(DuplicatePathIndex.class);
+		DuplicatePathIndex index = contextIndex != null ? contextIndex : DuplicatePathIndex.of(model);
+
+		if (!index.hasDuplicates()) return;
 
 		walker.walk(model, new IWalker() {
 			@Override
@@ -35,30 +40,11 @@ public class DuplicatePathValidator extends BaseDSLValidator
 			{
 				String path = deploymentStatement.getPath();
 
-				if (duplicates.containsKey(path))
-				{
-					duplicates.get(path).add(deploymentStatement);
-				}
-				else
+				if (index.isDuplicate(path))
 				{
-					List<DeploymentStatement> l = new ArrayList<>();
-					l.add(deploymentStatement);
-					duplicates.put(path, l);
+					warning("Duplicate path " + path, deploymentStatement,  BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH, "duplicatePath");
 				}
-
 			};
 		});
-
-		duplicates.forEach((path, deployments) ->{
-			if (deployments.size() > 1)
-			{
-				for (DeploymentStatement deployment : deployments)
-				{
-					warning("Duplicate path " + path, deployment,  BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH, "duplicatePath");
-				}
-			}
-
-		});
-
 	}
 }
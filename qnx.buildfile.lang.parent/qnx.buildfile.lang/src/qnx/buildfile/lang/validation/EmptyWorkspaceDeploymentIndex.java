@@ -0,0 +1,20 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.resource.Resource;
+
+/**
+ * Implementation for a workspace of a single buildfile: there is never
+ * anything deployed elsewhere.
+ */
+public class EmptyWorkspaceDeploymentIndex implements WorkspaceDeploymentIndex {
+
+    @Override
+    public Map<String, List<DeploymentLocation>> getOtherDeployments(Resource resource, Collection<String> paths) {
+        return Collections.emptyMap();
+    }
+}
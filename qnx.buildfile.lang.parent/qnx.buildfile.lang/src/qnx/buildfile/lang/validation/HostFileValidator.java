@@ -0,0 +1,133 @@
+package qnx.buildfile.lang.validation;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.xtext.validation.Check;
+import org.eclipse.xtext.validation.CheckType;
+import org.eclipse.xtext.validation.EValidatorRegistrar;
+
+import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.utils.DeploymentResolver;
+import qnx.buildfile.lang.utils.DeploymentResolver.Deployment;
+import qnx.buildfile.lang.utils.EffectiveAttributes;
+import qnx.buildfile.lang.utils.HostDirectoryListings;
+import qnx.buildfile.lang.utils.SearchPath;
+
+/**
+ * Reports the deployment sources that cannot be found on this host, in the
+ * directories of the {@code search} attribute in effect or of
+ * {@code MKIFS_PATH} (see {@link SearchPath}), as resolved by
+ * {@link DeploymentResolver}: the contents of a deployment, or its path
+ * when it has none.
+ * <p>
+ * The check is off unless the {@code checkHostFiles} system property is
+ * {@code true}: buildfiles are often edited on a different host than the one
+ * the image is built on. Sources with unresolved variables, and deployments
+ * whose {@code type} is not a file, are not checked.
+ * <p>
+ * All the candidate locations of all the sources are looked up from
+ * directory listings fetched in parallel, see {@link HostDirectoryListings}.
+ * <p>
+ * Callers validating a buildfile a part at a time (see
+ * {@link qnx.buildfile.lang.utils.StreamingParser}) pass in the validation
+ * context the attributes in effect before the part, as kept by
+ * {@link EffectiveAttributes#apply}, under the {@code EffectiveAttributes.class}
+ * key, and the listings to share between the parts under the
+ * {@code HostDirectoryListings.class} key.
+ */
+public class HostFileValidator extends BaseDSLValidator
+{
+	/** System property enabling the check, set by the CLI. */
+	public static final String SYSTEM_PROPERTY = "checkHostFiles";
+
+	/** Number of searched directories named in the message. */
+	private static final int MAX_LISTED_DIRECTORIES = 3;
+
+	@Override
+	public void register(EValidatorRegistrar registrar) {
+		// Prevent duplicate registration — this validator is invoked
+		// via @ComposedChecks on BuildfileDSLValidator, not directly.
+	}
+
+	@Check(CheckType.NORMAL)
+	public void checkHostFiles(Model model) {
+		if (!isEnabled()) return;
+
+		@SuppressWarnings("unchecked")
+		Map<String, String> inherited = (Map<String, String>) getContext().get(EffectiveAttributes.class);
+		List<Deployment> sources = new ArrayList<>();
+		for (Deployment deployment : new DeploymentResolver(getEnvironment()).resolve(model, inherited != null ? inherited : Map.of()))
+		{
+			if (deployment.isHostFile() && !deployment.getCandidates().isEmpty()) sources.add(deployment);
+		}
+		if (sources.isEmpty()) return;
+
+		HostDirectoryListings contextListings = (HostDirectoryListings) getContext().get(HostDirectoryListings.class);
+		HostDirectoryListings listings = contextListings != null ? contextListings : new HostDirectoryListings();
+		Set<Path> directories = new LinkedHashSet<>();
+		for (Deployment source : sources)
+		{
+			for (Path candidate : source.getCandidates())
+			{
+				if (candidate.getParent() != null) directories.add(candidate.getParent());
+			}
+		}
+		listings.prefetch(directories);
+
+		for (Deployment source : sources)
+		{
+			if (source.getCandidates().stream().noneMatch(listings::exists))
+			{
+				String message = "Source " + source.getSource() + " not found" + describe(source.getSearched());
+				DeploymentStatement statement = source.getStatement();
+				// Without contents, the source is the path of the deployment
+				if (statement.getContent() != null)
+				{
+					warning(message, statement.getContent(), BuildfileDSLPackage.Literals.CONTENT__VALUE, "missingHostFile");
+				}
+				else
+				{
+					warning(message, statement, BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH, "missingHostFile");
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if host files are checked
+	 */
+	protected boolean isEnabled()
+	{
+		return Boolean.parseBoolean(System.getProperty(SYSTEM_PROPERTY));
+	}
+
+	/**
+	 * @return the environment for {@code MKIFS_PATH} and the variables of
+	 *         the sources and of the {@code search} attribute
+	 */
+	protected Map<String, String> getEnvironment()
+	{
+		return System.getenv();
+	}
+
+	private static String describe(List<Path> directories)
+	{
+		if (directories.isEmpty()) return "";
+
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < Math.min(directories.size(), MAX_LISTED_DIRECTORIES); i++)
+		{
+			names.add(directories.get(i).toString());
+		}
+		String described = String.join(", ", names);
+		int more = directories.size() - names.size();
+		return " in " + (more > 0 ? described + " and " + more + " more" : described);
+	}
+}
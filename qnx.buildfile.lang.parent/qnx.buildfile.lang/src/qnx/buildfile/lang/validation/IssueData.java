@@ -0,0 +1,63 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Layout of the data attached to the issues of the buildfile validators.
+ * <p>
+ * The data is a string array (see {@link org.eclipse.xtext.validation.Issue#getData()}),
+ * which the language server forwards as {@code Diagnostic.data}:
+ * <ul>
+ *   <li>{@code [0]} — the offending token, e.g. the unknown attribute name</li>
+ *   <li>{@code [1]} — what kind of token it is, one of the {@code KIND_*} constants</li>
+ *   <li>{@code [2..]} — replacement candidates, best first (possibly none)</li>
+ * </ul>
+ */
+public class IssueData
+{
+	public static final String KIND_BOOLEAN_ATTRIBUTE_NAME = "booleanAttributeName";
+	public static final String KIND_VALUED_ATTRIBUTE_NAME = "valuedAttributeName";
+	public static final String KIND_ATTRIBUTE_VALUE = "attributeValue";
+
+	private static final int BAD_TOKEN = 0;
+	private static final int KIND = 1;
+	private static final int CANDIDATES = 2;
+
+	public static String[] create(String badToken, String kind, List<String> candidates)
+	{
+		String[] data = new String[CANDIDATES + candidates.size()];
+		data[BAD_TOKEN] = badToken;
+		data[KIND] = kind;
+		for (int i = 0; i < candidates.size(); i++)
+		{
+			data[CANDIDATES + i] = candidates.get(i);
+		}
+		return data;
+	}
+
+	/**
+	 * @return the offending token, or null if the data doesn't follow this layout
+	 */
+	public static String getBadToken(String[] data)
+	{
+		return isValid(data) ? data[BAD_TOKEN] : null;
+	}
+
+	public static String getKind(String[] data)
+	{
+		return isValid(data) ? data[KIND] : null;
+	}
+
+	public static List<String> getCandidates(String[] data)
+	{
+		if (!isValid(data)) return List.of();
+		return new ArrayList<>(Arrays.asList(data).subList(CANDIDATES, data.length));
+	}
+
+	public static boolean isValid(String[] data)
+	{
+		return data != null && data.length >= CANDIDATES;
+	}
+}
@@ -0,0 +1,81 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resources that must stay open until a validation run is over, such as the
+ * lease on the class loader of the custom validator JAR.
+ * <p>
+ * The scope is stored in the validation context under the
+ * {@code ValidationScope.class} key. {@link BuildfileDSLDiagnostician} opens
+ * one around every validation; nested calls (one per child object) find it
+ * in the context and leave it to the outermost call, which closes it.
+ */
+public final class ValidationScope implements AutoCloseable
+{
+	private final Map<Object, Object> context;
+	private final List<AutoCloseable> resources = new ArrayList<>();
+
+	private ValidationScope(Map<Object, Object> context)
+	{
+		this.context = context;
+	}
+
+	/**
+	 * Open a scope in the given validation context.
+	 *
+	 * @return the new scope, or {@code null} if one is already open (or there
+	 *         is no context), in which case there is nothing to close
+	 */
+	public static ValidationScope open(Map<Object, Object> context)
+	{
+		if (context == null || context.containsKey(ValidationScope.class)) return null;
+
+		ValidationScope scope = new ValidationScope(context);
+		context.put(ValidationScope.class, scope);
+		return scope;
+	}
+
+	/**
+	 * Close the resource when the scope of the validation context closes.
+	 *
+	 * @return false if no scope is open, the caller is then responsible for
+	 *         closing the resource
+	 */
+	public static boolean register(Map<Object, Object> context, AutoCloseable resource)
+	{
+		Object scope = context != null ? context.get(ValidationScope.class) : null;
+		if (!(scope instanceof ValidationScope)) return false;
+
+		synchronized (scope)
+		{
+			((ValidationScope) scope).resources.add(resource);
+		}
+		return true;
+	}
+
+	@Override
+	public void close()
+	{
+		context.remove(ValidationScope.class);
+		List<AutoCloseable> closing;
+		synchronized (this)
+		{
+			closing = new ArrayList<>(resources);
+			resources.clear();
+		}
+		for (int i = closing.size() - 1; i >= 0; i--)
+		{
+			try
+			{
+				closing.get(i).close();
+			}
+			catch (Exception e)
+			{
+				System.err.println("Failed to release validation resource: " + e.getMessage());
+			}
+		}
+	}
+}
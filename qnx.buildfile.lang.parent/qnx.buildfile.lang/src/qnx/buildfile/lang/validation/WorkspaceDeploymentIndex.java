@@ -0,0 +1,30 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.resource.Resource;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Deployment target paths of all the buildfiles of the workspace, for the
+ * checks that look beyond a single buildfile (see
+ * {@link WorkspaceDuplicatePathValidator}).
+ * <p>
+ * The default implementation knows of no other buildfile, which fits the CLI
+ * that validates one file at a time. The language server binds an
+ * implementation backed by its workspace index.
+ */
+@ImplementedBy(EmptyWorkspaceDeploymentIndex.class)
+public interface WorkspaceDeploymentIndex {
+
+    /**
+     * @param resource the buildfile asking, whose own deployments are left out
+     * @param paths the target paths to look up
+     * @return the deployments of those paths in the other buildfiles of the
+     *         workspace, only for the paths deployed elsewhere
+     */
+    Map<String, List<DeploymentLocation>> getOtherDeployments(Resource resource, Collection<String> paths);
+}
@@ -0,0 +1,90 @@
+package qnx.buildfile.lang.validation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.xtext.validation.Check;
+import org.eclipse.xtext.validation.CheckType;
+import org.eclipse.xtext.validation.EValidatorRegistrar;
+
+import com.google.inject.Inject;
+
+import qnx.buildfile.lang.buildfileDSL.BuildfileDSLPackage;
+import qnx.buildfile.lang.buildfileDSL.DeploymentStatement;
+import qnx.buildfile.lang.buildfileDSL.Model;
+import qnx.buildfile.lang.utils.Walker;
+import qnx.buildfile.lang.utils.Walker.IWalker;
+
+/**
+ * Reports the paths that other buildfiles of the workspace deploy too, e.g.
+ * a fragment deploying a path the main buildfile already deploys.
+ * <p>
+ * A deployment from another source is a conflict (warning); the same source
+ * deployed twice is only redundant (info).
+ */
+public class WorkspaceDuplicatePathValidator extends BaseDSLValidator
+{
+	private final static Walker walker = new Walker();
+
+	@Inject
+	private WorkspaceDeploymentIndex workspaceIndex;
+
+	@Override
+	public void register(EValidatorRegistrar registrar) {
+		// Prevent duplicate registration — this validator is invoked
+		// via @ComposedChecks on BuildfileDSLValidator, not directly.
+	}
+
+	@Check(CheckType.NORMAL)
+	public void checkWorkspaceDuplicates(Model model) {
+		if (workspaceIndex == null || model.eResource() == null) return;
+
+		List<DeploymentStatement> deployments = new ArrayList<>();
+		Set<String> paths = new LinkedHashSet<>();
+		walker.walk(model, new IWalker() {
+			@Override
+			public void found(DeploymentStatement deploymentStatement)
+			{
+				deployments.add(deploymentStatement);
+				paths.add(deploymentStatement.getPath());
+			};
+		});
+		if (paths.isEmpty()) return;
+
+		Map<String, List<DeploymentLocation>> others = workspaceIndex.getOtherDeployments(model.eResource(), paths);
+		if (others.isEmpty()) return;
+
+		for (DeploymentStatement deployment : deployments)
+		{
+			List<DeploymentLocation> elsewhere = others.get(deployment.getPath());
+			if (elsewhere == null || elsewhere.isEmpty()) continue;
+
+			String source = DeploymentLocation.sourceOf(deployment);
+			List<DeploymentLocation> conflicts = new ArrayList<>();
+			for (DeploymentLocation other : elsewhere)
+			{
+				if (!source.equals(other.getSource())) conflicts.add(other);
+			}
+
+			if (!conflicts.isEmpty())
+			{
+				warning("Path " + deployment.getPath() + " is deployed from a different source in " + describe(conflicts),
+						deployment, BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH, "conflictingPathInWorkspace");
+			}
+			else
+			{
+				info("Path " + deployment.getPath() + " is also deployed in " + describe(elsewhere),
+						deployment, BuildfileDSLPackage.Literals.DEPLOYMENT_STATEMENT__PATH, "duplicatePathInWorkspace");
+			}
+		}
+	}
+
+	private static String describe(List<DeploymentLocation> locations)
+	{
+		String first = locations.get(0).toString();
+		return locations.size() == 1 ? first : first + " and " + (locations.size() - 1) + " more";
+	}
+}